@@ -0,0 +1,41 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <h1>BenchmarkMain.java</h1>
+ * <p>
+ * This class runs the benchmarks. It accepts the normal JMH command line
+ * options and always adds the gc profiler, so the allocation rate is
+ * reported next to the time per operation
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ */
+public class BenchmarkMain {
+
+	/**
+	 * The main() method runs the benchmarks selected on the command line
+	 *
+	 * @param args
+	 *            the JMH command line options
+	 */
+	public static void main(String[] args) throws RunnerException {
+		CommandLineOptions options;
+		try {
+			options = new CommandLineOptions(args);
+		} catch (CommandLineOptionException e) {
+			System.out.println(e.getMessage());
+			System.exit(1);
+			return;
+		}
+		new Runner(new OptionsBuilder().parent(options)
+				.addProfiler(GCProfiler.class).build()).run();
+	}
+}
@@ -0,0 +1,81 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * <h1>BenchmarkWorld.java</h1>
+ * <p>
+ * This class holds the parameters shared by every benchmark and creates the
+ * simulation they run against. The life forms are shared equally between the
+ * species and the world is created from a fixed seed, so the same parameters
+ * always give the same world.
+ *
+ * The population is limited to half the cells of the world, so small worlds
+ * can be combined with large populations. The food density is given as a
+ * percentage of the cells of the world.
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see Simulation
+ */
+@State(Scope.Thread)
+public abstract class BenchmarkWorld {
+
+	@Param({ "10", "64", "512", "4096" })
+	public int worldSize;
+
+	@Param({ "10", "1000", "100000", "1000000" })
+	public int population;
+
+	@Param({ "1", "10" })
+	public int foodPercent;
+
+	protected Simulation simulation;
+	protected AWorld world;
+	protected AEntity[] lifeForms;
+	private int next; // index of the next life form to use
+
+	/**
+	 * This method creates the simulation and the world from the parameters
+	 */
+	protected void createWorld() {
+		int cells = worldSize * worldSize;
+		int count = Math.min(population, cells / 2);
+		Species[] species = Species.values();
+
+		simulation = new Simulation();
+		world = new AWorld(Integer.MAX_VALUE, worldSize, (int) ((long) cells
+				* foodPercent / 100), 0);
+		world.setRandom(new EngineRandom(42));
+		simulation.setWorld(world);
+
+		for (int i = 0; i < species.length; i++) {
+			simulation.addLifeForms(species[i].name(), count / species.length
+					+ (i < count % species.length ? 1 : 0), 1000);
+		}
+		world.initWorld(simulation.lifeForms, simulation.obstacles);
+
+		lifeForms = simulation.lifeForms.toArray(new AEntity[0]);
+		next = 0;
+	}
+
+	/**
+	 * This method returns the next living life form, going round all of the
+	 * life forms in turn
+	 *
+	 * @return Returns a living life form, or null if every life form is dead
+	 */
+	protected AEntity nextLifeForm() {
+		for (int i = 0; i < lifeForms.length; i++) {
+			AEntity lifeForm = lifeForms[next];
+			next = next + 1 == lifeForms.length ? 0 : next + 1;
+			if (lifeForm.getIsAlive()) {
+				return lifeForm;
+			}
+		}
+		return null;
+	}
+}
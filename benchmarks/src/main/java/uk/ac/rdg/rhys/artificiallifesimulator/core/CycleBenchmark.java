@@ -0,0 +1,46 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <h1>CycleBenchmark.java</h1>
+ * <p>
+ * This class measures a full simulation cycle, i.e. one call to
+ * Simulation.runSimulation(). The world is created again before every
+ * iteration so that each iteration starts from the same population
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see Simulation
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CycleBenchmark extends BenchmarkWorld {
+
+	/**
+	 * This method creates the world before each iteration
+	 */
+	@Setup(Level.Iteration)
+	public void setUp() {
+		createWorld();
+	}
+
+	@Benchmark
+	public int runSimulation() {
+		return simulation.runSimulation();
+	}
+}
@@ -0,0 +1,89 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <h1>MoveBenchmark.java</h1>
+ * <p>
+ * This class measures AWorld.moveLogic() and AWorld.createRandomFoodItem().
+ * Both change the world, so the world is created again before every
+ * iteration.
+ *
+ * Each moveLogic operation moves the next living life form one cell, turning
+ * clockwise each time, so the life forms eat, collide and move into free
+ * space much as they do in the simulation. Each createRandomFoodItem
+ * operation creates a food item and removes it again, so the amount of food
+ * in the world stays the same
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see AWorld
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveBenchmark extends BenchmarkWorld {
+
+	private int turn; // direction of the next move
+
+	/**
+	 * This method creates the world before each iteration
+	 */
+	@Setup(Level.Iteration)
+	public void setUp() {
+		createWorld();
+		turn = 0;
+	}
+
+	@Benchmark
+	public int moveLogic() {
+		AEntity lifeForm = nextLifeForm();
+		if (lifeForm == null) {
+			return 0;
+		}
+
+		// Define temporary variables
+		int x = lifeForm.getX();
+		int y = lifeForm.getY();
+		int last = worldSize - 1;
+
+		// Turn clockwise, moving the other way at the world boundary
+		turn = (turn + 1) & 3;
+		switch (turn) {
+		case 0:
+			return world.moveLogic(lifeForm, x, y > 0 ? y - 1 : y + 1);
+		case 1:
+			return world.moveLogic(lifeForm, x < last ? x + 1 : x - 1, y);
+		case 2:
+			return world.moveLogic(lifeForm, x, y < last ? y + 1 : y - 1);
+		default:
+			return world.moveLogic(lifeForm, x > 0 ? x - 1 : x + 1, y);
+		}
+	}
+
+	@Benchmark
+	public boolean createRandomFoodItem() {
+		boolean created = world.createRandomFoodItem();
+		if (created) {
+
+			// Remove the new food item, which is the last one in the store
+			FoodStore foodStore = world.getFoodStore();
+			AEntity food = foodStore.getItems().get(foodStore.size() - 1);
+			world.removeFoodItem(food.getX(), food.getY());
+		}
+		return created;
+	}
+}
@@ -0,0 +1,56 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <h1>SenseBenchmark.java</h1>
+ * <p>
+ * This class measures AWorld.sense() for each type of sense. Sensing does not
+ * change the world, so the world is only created once per trial. Each
+ * operation senses for the next life form in turn
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see AWorld
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SenseBenchmark extends BenchmarkWorld {
+
+	/**
+	 * This method creates the world before the benchmarks are run
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		createWorld();
+	}
+
+	@Benchmark
+	public AWorld.Direction feel() {
+		return world.sense(nextLifeForm(), "feel");
+	}
+
+	@Benchmark
+	public AWorld.Direction sight() {
+		return world.sense(nextLifeForm(), "sight");
+	}
+
+	@Benchmark
+	public AWorld.Direction smell() {
+		return world.sense(nextLifeForm(), "smell");
+	}
+}
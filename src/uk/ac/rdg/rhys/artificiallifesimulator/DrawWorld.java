@@ -1,26 +1,36 @@
 package uk.ac.rdg.rhys.artificiallifesimulator;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 
 import javafx.application.Application;
+import javafx.beans.binding.DoubleBinding;
 import javafx.event.EventHandler;
 import javafx.geometry.HPos;
 import javafx.geometry.Pos;
 import javafx.geometry.VPos;
+import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.Control;
 import javafx.scene.control.Label;
+import javafx.scene.image.ImageView;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
 import javafx.scene.layout.RowConstraints;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import javafx.stage.Stage;
+import uk.ac.rdg.rhys.artificiallifesimulator.core.AEntity;
+import uk.ac.rdg.rhys.artificiallifesimulator.core.AWorld;
+import uk.ac.rdg.rhys.artificiallifesimulator.core.CellCode;
+import uk.ac.rdg.rhys.artificiallifesimulator.core.WorldSnapshot;
 
 /**
  * <h1>DrawWorld.java</h1>
@@ -29,7 +39,10 @@ import javafx.stage.Stage;
  * interface such as the map and the information displayed on the information
  * pane. It contains methods to add and remove single entities as they need to
  * be updated rather than continually re-drawing all of the elements on to the
- * world
+ * world.
+ * 
+ * The life forms and food items are drawn from snapshots of the simulation
+ * (see WorldSnapshot), so the map never reads the simulation while it runs
  * 
  * @author Rhys Streefland
  * @version 1.0
@@ -38,10 +51,24 @@ import javafx.stage.Stage;
  */
 public class DrawWorld extends Application {
 
+	/**
+	 * Worlds larger than this are always drawn on the canvas, because a
+	 * GridPane with a node for every cell becomes too slow
+	 */
+	public static final int CANVAS_WORLD_SIZE = 100;
+
 	// Define map objects and variables
 	protected GridPane map = new GridPane();
+	protected WorldCanvas canvas = new WorldCanvas();
+	private boolean canvasMode; // chosen by the user
+	private boolean usingCanvas; // true if the current map is on the canvas
 	protected ArrayList<Rectangle> rectangles = new ArrayList<Rectangle>();
+	private HashMap<Integer, ImageView> lifeFormViews = new HashMap<Integer, ImageView>(); // by unique ID
+	private HashMap<Integer, ImageView> foodViews = new HashMap<Integer, ImageView>(); // see foodKey()
+	private long drawnSequence = -1; // number of the last snapshot drawn
 	private int worldSize;
+	private DoubleBinding spriteHeight; // shared by every ImageView
+	private DoubleBinding spriteWidth;
 
 	// Define infoPane objects
 	protected BorderPane infoPaneBorder = new BorderPane();
@@ -102,33 +129,45 @@ public class DrawWorld extends Application {
 	/**
 	 * This method generates the map grid which is used to display the world. It
 	 * initially fills the grid with transparent squares to ensure even space
-	 * distribution. It then calls the updateObstacles(), createFood(), and
-	 * updatelifeForms() methods which are responsible for populating the blank
-	 * world with entities
+	 * distribution. It then calls the updateObstacles() method to add the
+	 * obstacles, which do not change while the simulation runs. The life forms
+	 * and food items are added by drawSnapshot()
+	 * 
+	 * If canvas mode is on, or the world is larger than CANVAS_WORLD_SIZE, the
+	 * grid is left empty and the world is drawn on the canvas instead (see
+	 * getMapNode())
 	 * 
-	 * @param lifeForms
-	 *            The ArrayList of life form objects
 	 * @param world
 	 *            The world object
-	 * @param foodItems
-	 *            The ArrayList of food item objects
 	 * @param obstacles
 	 *            The ArrayList of obstacle objects
 	 */
-	protected void createMap(ArrayList<AEntity> lifeForms, AWorld world,
-			ArrayList<AEntity> foodItems, ArrayList<AEntity> obstacles) {
+	protected void createMap(AWorld world, ArrayList<AEntity> obstacles) {
 
 		worldSize = world.getWorldSize();
 
-		// Clear Rectangles and GridPane
+		// Clear Rectangles, GridPane and ImageViews
 		rectangles.clear();
 		map.getChildren().clear();
+		lifeFormViews.clear();
+		foodViews.clear();
+		drawnSequence = -1;
 
 		// Clear all contraints
-		for (int i = 0; i < world.getWorldSize(); i++) {
-			map.getColumnConstraints().clear();
-			map.getRowConstraints().clear();
+		map.getColumnConstraints().clear();
+		map.getRowConstraints().clear();
+
+		// Draw large worlds on the canvas
+		usingCanvas = canvasMode || worldSize > CANVAS_WORLD_SIZE;
+		if (usingCanvas) {
+			canvas.setWorld(worldSize, obstacles);
+			return;
 		}
+		canvas.setWorld(0, null);
+
+		// Size every image to two thirds of a cell
+		spriteHeight = map.heightProperty().divide(worldSize * 1.5);
+		spriteWidth = map.widthProperty().divide(worldSize * 1.5);
 
 		for (int x = 0; x < worldSize; x++) {
 			for (int y = 0; y < worldSize; y++) {
@@ -181,118 +220,234 @@ public class DrawWorld extends Application {
 
 		// Call methods to populate
 		updateObstacles(obstacles);
-		createFood(world, foodItems);
-		updateLifeForms(lifeForms);
 	}
 
 	/**
-	 * This method adds each food item to the map by calling the getImage()
-	 * method for each food item
-	 * 
-	 * @param world
-	 *            The world object
-	 * @param foodItems
-	 *            The ArrayList of food item objects
+	 * Setter for canvas mode. The new mode is used the next time the map is
+	 * created
+	 * @param newCanvasMode True to draw every world on the canvas
 	 */
-	private void createFood(AWorld world, ArrayList<AEntity> foodItems) {
+	protected void setCanvasMode(boolean newCanvasMode) {
+		canvasMode = newCanvasMode;
+	}
 
-		// Define temporary variables
-		int x = 0;
-		int y = 0;
+	/**
+	 * Getter for canvas mode
+	 * @return Returns true if every world is drawn on the canvas
+	 */
+	protected boolean isCanvasMode() {
+		return canvasMode;
+	}
 
-		for (int i = 0; i < foodItems.size(); i++) {
+	/**
+	 * Getter for the node that shows the current map
+	 * @return Returns the canvas or the map GridPane
+	 */
+	protected Region getMapNode() {
+		return usingCanvas ? canvas : map;
+	}
 
-			// Get food item coordinates
-			x = foodItems.get(i).getX();
-			y = foodItems.get(i).getY();
+	/**
+	 * Getter for whether the map is drawn on the GridPane. Only the GridPane
+	 * is updated from the changes held by each snapshot
+	 * @return Returns true if the map is drawn on the GridPane
+	 */
+	protected boolean isUsingChanges() {
+		return !usingCanvas;
+	}
 
-			// Add food item ImageView to GridPane and align to center
-			map.add(foodItems.get(i).getImage(map, worldSize), x, y);
-			GridPane.setHalignment(foodItems.get(i).getImage(map, worldSize),
-					HPos.CENTER);
-		}
+	/**
+	 * This method creates an ImageView showing the image of an entity. The
+	 * image itself comes from the SpriteCache, so it is only decoded once.
+	 * The size of the ImageView is bound to the size of the map divided by the
+	 * world dimensions. This ensures that the image is the right size and it
+	 * is fully responsive
+	 * 
+	 * @param name
+	 *            The name of the image (see SpriteCache.nameOf())
+	 * @return Returns the sized ImageView
+	 */
+	private ImageView createImage(String name) {
+		ImageView imageView = new ImageView(SpriteCache.get(name));
+		imageView.setPreserveRatio(true);
+		imageView.setCache(true);
+		imageView.fitHeightProperty().bind(spriteHeight);
+		imageView.fitWidthProperty().bind(spriteWidth);
+		return imageView;
 	}
 
 	/**
-	 * This method removes the food items that are no longer needed on the map.
-	 * This method also adds new food items if the food item's getDrawn()
-	 * function returns false. This method was implemented because it is much
-	 * more efficient to add and remove single food items rather than redrawing
-	 * every item every cycle.
+	 * This method adds an ImageView to a cell of the GridPane and aligns it
+	 * to the center of the cell
 	 * 
-	 * @param lifeForms
-	 *            The ArrayList of life form objects
-	 * @param foodItems
-	 *            The ArrayList of food item objects
+	 * @param imageView
+	 *            The ImageView to add
+	 * @param x
+	 *            The column of the cell
+	 * @param y
+	 *            The row of the cell
 	 */
-	protected void updateFood(ArrayList<AEntity> lifeForms,
-			ArrayList<AEntity> foodItems) {
-
-		// If a food item is not yet drawn
-		for (int j = 0; j < foodItems.size(); j++) {
-			if (foodItems.get(j).getDrawn() == false) {
-
-				// Add food items ImageView to GridPane and align to center
-				map.add(foodItems.get(j).getImage(map, worldSize), foodItems
-						.get(j).getX(), foodItems.get(j).getY());
-				GridPane.setHalignment(foodItems.get(j)
-						.getImage(map, worldSize), HPos.CENTER);
-			}
-		}
+	private void addImage(ImageView imageView, int x, int y) {
+		map.add(imageView, x, y);
+		GridPane.setHalignment(imageView, HPos.CENTER);
+	}
 
-		// If a food item needs to be removed
-		for (int i = 0; i < lifeForms.size(); i++) {
-			for (int j = 0; j < foodItems.size(); j++) {
+	/**
+	 * This method returns the key of the ImageView of a food item. There is
+	 * at most one food item in a cell, but a cell can be given a different
+	 * type of food item, so the key includes the food's cell code
+	 * 
+	 * @param code
+	 *            The cell code of the food item
+	 * @param x
+	 *            The x coordinate of the food item
+	 * @param y
+	 *            The y coordinate of the food item
+	 * @return Returns the key of the food item's ImageView
+	 */
+	private int foodKey(int code, int x, int y) {
+		return (y * worldSize + x) * CellCode.count() + code;
+	}
 
-				if (lifeForms.get(i).getLastFoodX() == foodItems.get(j).getX()
-						&& lifeForms.get(i).getLastFoodY() == foodItems.get(j)
-								.getY()) {
+	/**
+	 * This method draws the life forms and food items of a snapshot. On the
+	 * canvas the whole world is repainted. On the GridPane, if the snapshot
+	 * follows the last one drawn and holds its changes, only the ImageViews
+	 * of the life forms and food items that changed are moved, added or
+	 * removed, so the cost depends on how much changed rather than on how
+	 * many entities there are. Otherwise every ImageView is matched to the
+	 * snapshot (see drawAll())
+	 * 
+	 * The snapshot must not be reused until the next snapshot has been drawn,
+	 * as the canvas is redrawn from it when it is resized
+	 * 
+	 * @param snapshot
+	 *            The snapshot to draw
+	 */
+	protected void drawSnapshot(WorldSnapshot snapshot) {
+		if (usingCanvas) {
+			canvas.setSnapshot(snapshot);
+		} else if (snapshot.hasChanges()
+				&& snapshot.getSequence() == drawnSequence + 1) {
+			applyChanges(snapshot);
+		} else {
+			drawAll(snapshot);
+		}
+		drawnSequence = snapshot.getSequence();
+	}
 
-					// Remove food item ImageView from GridPane
-					map.getChildren().remove(foodItems.get(j).getImage(map, i));
-					foodItems.get(j);
+	/**
+	 * This method applies the changes held by a snapshot to the ImageViews.
+	 * Life forms that moved are given a new cell in the GridPane rather than
+	 * being removed and added again
+	 * 
+	 * @param snapshot
+	 *            The snapshot holding the changes
+	 */
+	private void applyChanges(WorldSnapshot snapshot) {
+
+		// Define temporary variables
+		ImageView imageView;
+		int id;
+		int key;
+
+		for (int i = 0; i < snapshot.getChangeCount(); i++) {
+			id = snapshot.getChangeId(i);
+			switch (snapshot.getChangeType(i)) {
+			case MOVED:
+			case ATE:
+			case SPAWNED:
+				imageView = lifeFormViews.get(id);
+				if (imageView != null) {
+					GridPane.setConstraints(imageView,
+							snapshot.getChangeNewX(i),
+							snapshot.getChangeNewY(i));
+				} else {
+					imageView = createImage(SpriteCache.nameOf(snapshot
+							.getChangeTypeId(i)));
+					addImage(imageView, snapshot.getChangeNewX(i),
+							snapshot.getChangeNewY(i));
+					lifeFormViews.put(id, imageView);
 				}
+				break;
+			case DIED:
+				map.getChildren().remove(lifeFormViews.remove(id));
+				break;
+			case FOOD_ADDED:
+				key = foodKey(snapshot.getChangeTypeId(i),
+						snapshot.getChangeNewX(i), snapshot.getChangeNewY(i));
+				if (foodViews.containsKey(key) == false) {
+					imageView = createImage(SpriteCache.nameOf(snapshot
+							.getChangeTypeId(i)));
+					addImage(imageView, snapshot.getChangeNewX(i),
+							snapshot.getChangeNewY(i));
+					foodViews.put(key, imageView);
+				}
+				break;
+			case FOOD_CONSUMED:
+				key = foodKey(snapshot.getChangeTypeId(i),
+						snapshot.getChangeOldX(i), snapshot.getChangeOldY(i));
+				map.getChildren().remove(foodViews.remove(key));
+				break;
 			}
 		}
 	}
 
 	/**
-	 * This method removes and re-creates all life forms every time it is called
+	 * This method matches every ImageView to the life forms and food items of
+	 * a snapshot. Existing ImageViews are moved to their new cells, new ones
+	 * are created and the ones that are no longer needed are removed in a
+	 * single call
 	 * 
-	 * @param lifeForms
-	 *            The ArrayList of life form objects
+	 * @param snapshot
+	 *            The snapshot to draw
 	 */
-	protected void updateLifeForms(ArrayList<AEntity> lifeForms) {
+	private void drawAll(WorldSnapshot snapshot) {
 
 		// Define temporary variables
-		int x;
-		int y;
-
-		// For every life form
-		for (int i = 0; i < lifeForms.size(); i++) {
-
-			// Remove life form
-			map.getChildren().remove(lifeForms.get(i).getImage(map, worldSize));
-
-			// If life form is not alive - remove it from the ArrayList
-			if (lifeForms.get(i).getIsAlive() == false) {
-				lifeForms.remove(i);
-				break;
+		HashMap<Integer, ImageView> oldLifeForms = lifeFormViews;
+		HashMap<Integer, ImageView> oldFood = foodViews;
+		ImageView imageView;
+		int key;
+
+		lifeFormViews = new HashMap<Integer, ImageView>();
+		for (int i = 0; i < snapshot.getLifeFormCount(); i++) {
+			imageView = oldLifeForms.remove(snapshot.getId(i));
+			if (imageView != null) {
+				GridPane.setConstraints(imageView, snapshot.getX(i),
+						snapshot.getY(i));
+			} else {
+				imageView = createImage(SpriteCache.nameOf(snapshot
+						.getTypeId(i)));
+				addImage(imageView, snapshot.getX(i), snapshot.getY(i));
 			}
+			lifeFormViews.put(snapshot.getId(i), imageView);
+		}
 
-			// Get life form coordinates
-			x = lifeForms.get(i).getX();
-			y = lifeForms.get(i).getY();
+		foodViews = new HashMap<Integer, ImageView>();
+		for (int i = 0; i < snapshot.getFoodCount(); i++) {
+			key = foodKey(snapshot.getFoodCode(i), snapshot.getFoodX(i),
+					snapshot.getFoodY(i));
+			imageView = oldFood.remove(key);
+			if (imageView == null) {
+				imageView = createImage(SpriteCache.nameOf(snapshot
+						.getFoodCode(i)));
+				addImage(imageView, snapshot.getFoodX(i),
+						snapshot.getFoodY(i));
+			}
+			foodViews.put(key, imageView);
+		}
 
-			// Add life form to GridPane and align to center
-			map.add(lifeForms.get(i).getImage(map, worldSize), x, y);
-			GridPane.setHalignment(lifeForms.get(i).getImage(map, worldSize),
-					HPos.CENTER);
+		// Remove the ImageViews of life forms and food items that have gone
+		HashSet<Node> removed = new HashSet<Node>(oldLifeForms.values());
+		removed.addAll(oldFood.values());
+		if (!removed.isEmpty()) {
+			map.getChildren().removeAll(removed);
 		}
 	}
 
 	/**
-	 * This method adds each obstacle to the map by calling the getImage()
+	 * This method adds each obstacle to the map by calling the createImage()
 	 * method for each obstacle
 	 * 
 	 * @param obstacles
@@ -308,9 +463,7 @@ public class DrawWorld extends Application {
 		for (int i = 0; i < obstacles.size(); i++) {
 			x = obstacles.get(i).getX();
 			y = obstacles.get(i).getY();
-			map.add(obstacles.get(i).getImage(map, worldSize), x, y);
-			GridPane.setHalignment(obstacles.get(i).getImage(map, worldSize),
-					HPos.CENTER);
+			addImage(createImage(SpriteCache.nameOf(obstacles.get(i))), x, y);
 		}
 	}
 
@@ -318,10 +471,8 @@ public class DrawWorld extends Application {
 	 * This updates the information pane labels with the relevant information
 	 * about the simulation and life forms
 	 * 
-	 * @param world
-	 *            The world object
-	 * @param lifeForms
-	 *            The ArrayList of life forms
+	 * @param snapshot
+	 *            The latest snapshot of the simulation
 	 * @param displayMap
 	 *            This property dictates whether the map updates should be
 	 *            displayed
@@ -329,34 +480,42 @@ public class DrawWorld extends Application {
 	 *            This property dictates the speed at which the simulation
 	 *            should run
 	 */
-	protected void updateInfoPane(AWorld world, ArrayList<AEntity> lifeForms,
-			boolean displayMap, double speedMultiplier) {
+	protected void updateInfoPane(WorldSnapshot snapshot, boolean displayMap,
+			double speedMultiplier) {
 
 		// Force speedMultiplier to 1dp
 		String sM = String.format("%.1f", speedMultiplier);
 
 		// Define temporary variables
 		String displayMapString = "ON";
-		String bugsString = "";
+		StringBuilder bugsString = new StringBuilder();
+		int named = Math.min(snapshot.getLifeFormCount(),
+				WorldSnapshot.NAMED_LIFE_FORMS);
 
 		if (displayMap == false)
 			displayMapString = "OFF";
 
 		/*
-		 * Create the bug string by concatenating information from all bugs in
-		 * the ArrayList
+		 * Create the bug string by concatenating information from the named
+		 * life forms of the snapshot
 		 */
-		for (int i = 0; i < lifeForms.size(); i++) {
-			bugsString = bugsString + lifeForms.get(i).toString() + "\n";
+		for (int i = 0; i < named; i++) {
+			bugsString.append(snapshot.getName(i)).append(": ")
+					.append(snapshot.getEnergy(i)).append('\n');
+		}
+		if (snapshot.getLifeFormCount() > named) {
+			bugsString.append("... and ")
+					.append(snapshot.getLifeFormCount() - named)
+					.append(" more\n");
 		}
 
 		// Set the info label text string with map information
 		infoLabel.setText("Map Updates: " + displayMapString + "\n"
-				+ "Current cycle: " + world.getCurrentCycle() + "/"
-				+ world.getSimulationCycles() + "\nSpeed multiplier: " + sM
+				+ "Current cycle: " + snapshot.getCycle() + "/"
+				+ snapshot.getSimulationCycles() + "\nSpeed multiplier: " + sM
 				+ "\n\n");
 
-		lifeFormLabel.setText(bugsString);
+		lifeFormLabel.setText(bugsString.toString());
 	}
 
 	@Override
@@ -1,12 +1,7 @@
 package uk.ac.rdg.rhys.artificiallifesimulator;
 
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Optional;
-import java.util.Random;
 
 import javafx.beans.binding.Bindings;
 import javafx.collections.FXCollections;
@@ -30,210 +25,64 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
-import javafx.scene.text.Font;import uk.ac.rdg.rhys.artificiallifesimulator.*;
+import javafx.scene.text.Font;
+import uk.ac.rdg.rhys.artificiallifesimulator.core.AEntity;
+import uk.ac.rdg.rhys.artificiallifesimulator.core.AWorld;
+import uk.ac.rdg.rhys.artificiallifesimulator.core.Simulation;
+import uk.ac.rdg.rhys.artificiallifesimulator.core.Species;
 
 /**
- * <h1>Simulation.java</h1>
+ * <h1>SimulationDialogs.java</h1>
  * <p>
- * This class is responsible for handling all simulation related functions of
- * the program. Three ArrayLists are defined, one for life forms, one for food
- * items, and one for obstacles. An object of type AWorld is also created in
- * this class. All methods in this class read or manipulate data in the above
- * objects
+ * This class is responsible for all of the dialogs used to view and edit the
+ * simulation. The values entered by the user are passed to the Simulation
+ * object, which holds the model and does not depend on JavaFX
  * 
  * @author Rhys Streefland
  * @version 1.0
  * @since 2014-01-20
- * @see AWorld
+ * @see Simulation
  */
-public class Simulation {
+public class SimulationDialogs {
 
-	protected ArrayList<AEntity> lifeForms = new ArrayList<AEntity>();
-	protected ArrayList<AEntity> foodItems = new ArrayList<AEntity>();
-	protected ArrayList<AEntity> obstacles = new ArrayList<AEntity>();
-	protected AWorld world = new AWorld();
-
-	protected String filePath;
-
-	private enum Species {
-		Bear, Bird, Bug, Cow, Fish, Fox, Lion, Mouse, Pig, Rabbit, Whale
-	}
-
-	/**
-	 * Empty constructor for Simulation class
-	 */
-	public Simulation() {
-	}
+	private Simulation simulation;
 
 	/**
-	 * This method creates the relevant life form object based on the species
-	 * parameter. The life form objects are created by calling the relevant
-	 * constructor and supplying the parameters
-	 * 
-	 * @param chosenSpecies
-	 *            The chosen species for the new life form
-	 * @param intitalUniqueID
-	 *            The unique ID for the new life form
-	 * @param initialName
-	 *            The name for the new life form
-	 * @param initialEnergy
-	 *            The energy for the new life form
-	 * @param initialX
-	 *            The x coordinate for the new life form
-	 * @param initialY
-	 *            The y coordinate for the new life form
+	 * This constructor sets the simulation that the dialogs view and edit
 	 * 
+	 * @param simulation
+	 *            The simulation object
 	 */
-	private void createObject(Species chosenSpecies, int initialUniqueID,
-			String initialName, int initialEnergy, int initialX, int initialY) {
-		switch (chosenSpecies) {
-		case Bear:
-			lifeForms.add(new Bear(initialUniqueID, initialName, initialEnergy,
-					initialX, initialY));
-			break;
-		case Bird:
-			lifeForms.add(new Bird(initialUniqueID, initialName, initialEnergy,
-					initialX, initialY));
-			break;
-		case Bug:
-			lifeForms.add(new Bug(initialUniqueID, initialName, initialEnergy,
-					initialX, initialY));
-			break;
-		case Cow:
-			lifeForms.add(new Cow(initialUniqueID, initialName, initialEnergy,
-					initialX, initialY));
-			break;
-		case Fish:
-			lifeForms.add(new Fish(initialUniqueID, initialName, initialEnergy,
-					initialX, initialY));
-			break;
-		case Fox:
-			lifeForms.add(new Fox(initialUniqueID, initialName, initialEnergy,
-					initialX, initialY));
-			break;
-		case Lion:
-			lifeForms.add(new Lion(initialUniqueID, initialName, initialEnergy,
-					initialX, initialY));
-			break;
-		case Mouse:
-			lifeForms.add(new Mouse(initialUniqueID, initialName,
-					initialEnergy, initialX, initialY));
-			break;
-		case Pig:
-			lifeForms.add(new Pig(initialUniqueID, initialName, initialEnergy,
-					initialX, initialY));
-			break;
-		case Rabbit:
-			lifeForms.add(new Rabbit(initialUniqueID, initialName,
-					initialEnergy, initialX, initialY));
-			break;
-		case Whale:
-			lifeForms.add(new Whale(initialUniqueID, initialName,
-					initialEnergy, initialX, initialY));
-			break;
-		}
+	public SimulationDialogs(Simulation simulation) {
+		this.simulation = simulation;
 	}
 
 	/**
-	 * This method is invoked each simulation cycle and calls the relevant
-	 * methods in the World class for each life form. If the number of food
-	 * items is less than the food density then the a new food item will be
-	 * generated based on a 50% chance.
+	 * This method reads the configuration file specified in the simulation's
+	 * filePath and notifies the user if it is successful.
 	 * 
-	 * This method also updates the energy value of the current life form with
-	 * the value returned from the world.move() function. The method also sets
-	 * the life form's isAlive property to false if the life form's energy
-	 * reaches 0.
-	 */
-	protected void runSimulation() {
-
-		// Define temporary variables
-		int energyIncrease;
-		int oldEnergy;
-		int newEnergy;
-
-		// If number of food items < food density
-		if (foodItems.size() < world.getFoodDensity()) {
-			Random random = new Random();
-
-			// 50% chance of creating a new food items
-			if (random.nextBoolean()) {
-				world.createRandomFoodItem(foodItems);
-			}
-		}
-
-		// Call the simulation methods for each life form
-		for (int i = 0; i < lifeForms.size(); i++) {
-			if (lifeForms.get(i).getEnergy() != 0) {
-				world.getDirectionOfFood(lifeForms.get(i), lifeForms);
-				world.protectBoundaries(lifeForms.get(i));
-
-				// Update the life form's energy
-				energyIncrease = world.move(lifeForms.get(i), lifeForms,
-						foodItems);
-				oldEnergy = lifeForms.get(i).getEnergy();
-				newEnergy = oldEnergy + energyIncrease;
-				lifeForms.get(i).setEnergy(newEnergy);
-			} else {
-				lifeForms.get(i).setIsAlive(false);
-			}
-		}
-		world.incrementCurrentCycle();
-	}
-
-	/**
-	 * This method reads the lifeForms and world objects from the file specified
-	 * in the filePath variable using the serializer class and notifies the user
-	 * if it is successful.
+	 * @return Returns 0 if the configuration was loaded and 1 if it was not
 	 */
-	@SuppressWarnings("unchecked")
 	protected int readFile() {
-		try {
-			FileInputStream fin = new FileInputStream(filePath);
-			ObjectInputStream ois = new ObjectInputStream(fin);
-
-			// Store into objects
-			lifeForms = (ArrayList<AEntity>) ois.readObject();
-			world = (AWorld) ois.readObject();
-
-			ois.close();
-
-			System.out.println("Data read from file sucessfully");
-			world.setWorldSize(world.getWorldSize());
-
-			// Show information dialog
-			Alert alert = new Alert(AlertType.INFORMATION);
-			alert.setTitle("Information");
-			alert.setHeaderText("Information");
-			alert.setContentText("Existing configuration loaded successfully!");
-			alert.showAndWait();
-		} catch (Exception ex) {
-			System.out.println("No existing configuration file found");
+		if (simulation.readFile() == 1) {
 			return 1;
 		}
+
+		// Show information dialog
+		Alert alert = new Alert(AlertType.INFORMATION);
+		alert.setTitle("Information");
+		alert.setHeaderText("Information");
+		alert.setContentText("Existing configuration loaded successfully!");
+		alert.showAndWait();
 		return 0;
 	}
 
 	/**
-	 * This method saves the lifeForms and world objects to the file specified
-	 * in the filePath variable using the serializer class and notifies the user
-	 * if it is successful.
+	 * This method saves the configuration to the file specified in the
+	 * simulation's filePath and notifies the user if it is successful.
 	 */
 	protected void saveFile() {
-		try {
-			if (filePath == null) {
-				filePath = "simulationData.ser";
-			}
-			FileOutputStream fout = new FileOutputStream(filePath);
-			ObjectOutputStream oos = new ObjectOutputStream(fout);
-
-			// Write lifeForms object and world object to file
-			oos.writeObject(lifeForms);
-			oos.writeObject(world);
-
-			oos.flush();
-			oos.close();
-			System.out.println("Data written to file sucessfully");
+		if (simulation.saveFile() == 0) {
 
 			// Show information dialog
 			Alert alert = new Alert(AlertType.INFORMATION);
@@ -241,13 +90,12 @@ public class Simulation {
 			alert.setHeaderText("Information");
 			alert.setContentText("Configuration saved successfully!");
 			alert.showAndWait();
-		} catch (Exception ex) {
+		} else {
 			Alert alert = new Alert(AlertType.ERROR);
 			alert.setTitle("Error");
 			alert.setHeaderText("Error");
 			alert.setContentText("Failed to save configuration!");
 			alert.showAndWait();
-			return;
 		}
 	}
 
@@ -259,11 +107,12 @@ public class Simulation {
 	protected void addLifeForm() {
 
 		// Define temporary variables
-		int initialUniqueID;
 		String initialName;
 		int initialEnergy;
 		int initialX;
 		int initialY;
+		int cell;
+		AWorld world = simulation.getWorld();
 
 		// Set up dialog
 		Dialog<ButtonType> dialog = new Dialog<>();
@@ -315,12 +164,20 @@ public class Simulation {
 		if (result.get() == okButton) {
 
 			// Set variables and create object
-			initialUniqueID = lifeForms.size();
 			initialName = name.getText();
 			initialEnergy = Integer.parseInt(energy.getText());
-			initialX = world.generateRandomNumber(world.getWorldSize() - 1, 1);
-			initialY = world.generateRandomNumber(world.getWorldSize() - 1, 1);
-			createObject(species.getValue(), initialUniqueID, initialName,
+			cell = world.getRandomFreeCell();
+			if (cell < 0) {
+				Alert alert = new Alert(AlertType.ERROR);
+				alert.setTitle("Error");
+				alert.setHeaderText("Error");
+				alert.setContentText("There is no free space in the world!");
+				alert.showAndWait();
+				return;
+			}
+			initialX = cell % world.getWorldSize();
+			initialY = cell / world.getWorldSize();
+			simulation.addLifeForm(species.getValue(), initialName,
 					initialEnergy, initialX, initialY);
 
 			// Information Dialog
@@ -352,7 +209,6 @@ public class Simulation {
 	protected void addLifeForm(int x, int y) {
 
 		// Define temporary variables
-		int initialUniqueID;
 		String initialName;
 		int initialEnergy;
 		int initialX;
@@ -408,13 +264,12 @@ public class Simulation {
 		if (result.get() == okButton) {
 
 			// Set values
-			initialUniqueID = lifeForms.size();
 			initialName = name.getText();
 			initialEnergy = Integer.parseInt(energy.getText());
 			initialX = x;
 			initialY = y;
 
-			createObject(species.getValue(), initialUniqueID, initialName,
+			simulation.addLifeForm(species.getValue(), initialName,
 					initialEnergy, initialX, initialY);
 
 		}
@@ -426,6 +281,8 @@ public class Simulation {
 	 */
 	protected void modifyLifeForm() {
 
+		ArrayList<AEntity> lifeForms = simulation.getLifeForms();
+
 		// Create dialog
 		Dialog<ButtonType> dialog = new Dialog<>();
 		dialog.setTitle("Modify Life Form");
@@ -475,15 +332,10 @@ public class Simulation {
 
 		Optional<ButtonType> result = dialog.showAndWait();
 		if (result.get() == okButton) {
-			for (int i = 0; i < lifeForms.size(); i++) {
-				if (comboBox.getValue() == lifeForms.get(i).getName()) {
-
-					// Update life form information
-					lifeForms.get(i).setName(name.getText());
-					lifeForms.get(i).setEnergy(
-							Integer.parseInt(energy.getText()));
-				}
-			}
+
+			// Update life form information
+			simulation.modifyLifeForm(comboBox.getValue(), name.getText(),
+					Integer.parseInt(energy.getText()));
 		}
 
 	}
@@ -494,6 +346,8 @@ public class Simulation {
 	 */
 	protected void removeLifeForm() {
 
+		ArrayList<AEntity> lifeForms = simulation.getLifeForms();
+
 		// Make a list of life form names for the ChoiceDialog
 		ArrayList<String> choices = new ArrayList<String>();
 		for (int i = 0; i < lifeForms.size(); i++) {
@@ -509,30 +363,12 @@ public class Simulation {
 
 		Optional<String> result = dialog.showAndWait();
 		if (result.isPresent()) {
-			for (int i = 0; i < lifeForms.size(); i++) {
-				if (result.get() == lifeForms.get(i).getName())
 
-					// Remove the life form from the ArrayList
-					lifeForms.remove(i);
-			}
+			// Remove the life form from the simulation
+			simulation.removeLifeForm(result.get());
 		}
 	}
 
-	/**
-	 * This method creates a new configuration for the simulation by clearing
-	 * all three ArrayLists. The simulation cycles, world size, food density,
-	 * and object density are all reset to default values;
-	 */
-	protected void newConfiguration() {
-		lifeForms.clear();
-		foodItems.clear();
-		obstacles.clear();
-		world.setSimulationCycles(1000);
-		world.setWorldSize(10);
-		world.setFoodDensity(20);
-		world.setObjectDensity(10);
-	}
-
 	/**
 	 * This method allows the user to edit the configuration settings by
 	 * inputting new values for the number of simulation cycles, world size,
@@ -598,12 +434,11 @@ public class Simulation {
 		if (result.get() == okButton) {
 
 			// Set world values based on user input
-			world.setSimulationCycles(Integer.parseInt(simulationCycles
-					.getText()));
-			world.setWorldSize(Integer.parseInt(worldSize.getText()));
-			world.setFoodDensity(Integer.parseInt(foodDensity.getText()));
-			world.setObjectDensity(Integer.parseInt(objectDensity.getText()));
-			world.initWorld(lifeForms, foodItems, obstacles);
+			simulation.editConfiguration(
+					Integer.parseInt(simulationCycles.getText()),
+					Integer.parseInt(worldSize.getText()),
+					Integer.parseInt(foodDensity.getText()),
+					Integer.parseInt(objectDensity.getText()));
 		}
 
 	}
@@ -685,13 +520,14 @@ public class Simulation {
 	 * @return A label containing the world information
 	 */
 	private Label getWorldInfo() {
+		AWorld world = simulation.getWorld();
 		Label label = new Label();
 		label.setText("Number of simulation cycles: "
 				+ world.getSimulationCycles() + "\n" + "World size: "
 				+ world.getWorldSize() + "\n" + "Food Density: "
 				+ world.getFoodDensity() + "\n" + "Obstacle Density: "
 				+ world.getObjectDensity() + "\n" + "Number of life forms "
-				+ lifeForms.size());
+				+ simulation.getLifeForms().size());
 
 		return label;
 	}
@@ -705,7 +541,7 @@ public class Simulation {
 
 		// Create observable list of life forms
 		final ObservableList<AEntity> bugsObservable = FXCollections
-				.observableArrayList(lifeForms);
+				.observableArrayList(simulation.getLifeForms());
 
 		// Create table
 		TableView<AEntity> table = new TableView<AEntity>();
@@ -764,7 +600,8 @@ public class Simulation {
 
 		// Create observable list of food items
 		final ObservableList<AEntity> foodItemsObservable = FXCollections
-				.observableArrayList(foodItems);
+				.observableArrayList(simulation.getWorld().getFoodStore()
+						.getItems());
 
 		// Create table
 		TableView<AEntity> table = new TableView<AEntity>();
@@ -810,7 +647,7 @@ public class Simulation {
 
 		// Create observable list of food items
 		final ObservableList<AEntity> obstaclesObservable = FXCollections
-				.observableArrayList(obstacles);
+				.observableArrayList(simulation.getObstacles());
 
 		// Create table
 		TableView<AEntity> table = new TableView<AEntity>();
@@ -0,0 +1,147 @@
+package uk.ac.rdg.rhys.artificiallifesimulator;
+
+import java.io.InputStream;
+import java.util.HashMap;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelReader;
+import uk.ac.rdg.rhys.artificiallifesimulator.core.AEntity;
+import uk.ac.rdg.rhys.artificiallifesimulator.core.AObstacle;
+import uk.ac.rdg.rhys.artificiallifesimulator.core.CellCode;
+import uk.ac.rdg.rhys.artificiallifesimulator.core.SpeciesRegistry;
+
+/**
+ * <h1>SpriteCache.java</h1>
+ * <p>
+ * This class holds the images of the entities drawn on the map. Each image
+ * file is decoded the first time it is needed and the same Image is then
+ * shared by every ImageView that shows it, however many entities of that
+ * kind are in the world. The average colour of each image is also kept, for
+ * maps whose cells are too small to show the images
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see DrawWorld
+ */
+public final class SpriteCache {
+
+	private static final HashMap<String, Image> sprites = new HashMap<String, Image>();
+	private static final HashMap<String, Integer> colours = new HashMap<String, Integer>();
+
+	/**
+	 * Private constructor because this class only holds the shared images
+	 */
+	private SpriteCache() {
+	}
+
+	/**
+	 * Getter for the image of an entity, which is decoded the first time it is
+	 * needed
+	 *
+	 * @param name
+	 *            The name of the image file in the images folder, without the
+	 *            file extension
+	 * @return Returns the shared image
+	 * @throws IllegalArgumentException
+	 *             If there is no image file with the name
+	 */
+	public static synchronized Image get(String name) {
+		Image sprite = sprites.get(name);
+		if (sprite == null) {
+			InputStream in = SpriteCache.class.getResourceAsStream("images/"
+					+ name + ".png");
+			if (in == null) {
+				throw new IllegalArgumentException("Missing image: " + name);
+			}
+			sprite = new Image(in);
+			sprites.put(name, sprite);
+		}
+		return sprite;
+	}
+
+	/**
+	 * Getter for the average colour of the opaque pixels of an image
+	 *
+	 * @param name
+	 *            The name of the image file, without the file extension
+	 * @return Returns the colour as an opaque ARGB value
+	 */
+	public static synchronized int getColour(String name) {
+		Integer colour = colours.get(name);
+		if (colour == null) {
+
+			// Define temporary variables
+			Image sprite = get(name);
+			PixelReader reader = sprite.getPixelReader();
+			long red = 0;
+			long green = 0;
+			long blue = 0;
+			long count = 0;
+
+			if (reader != null) {
+				for (int y = 0; y < (int) sprite.getHeight(); y++) {
+					for (int x = 0; x < (int) sprite.getWidth(); x++) {
+						int argb = reader.getArgb(x, y);
+						if ((argb >>> 24) > 127) {
+							red += (argb >> 16) & 0xff;
+							green += (argb >> 8) & 0xff;
+							blue += argb & 0xff;
+							count++;
+						}
+					}
+				}
+			}
+
+			// Use grey if the image has no opaque pixels
+			if (count == 0) {
+				colour = 0xff808080;
+			} else {
+				colour = 0xff000000 | (int) (red / count) << 16
+						| (int) (green / count) << 8 | (int) (blue / count);
+			}
+			colours.put(name, colour);
+		}
+		return colour;
+	}
+
+	/**
+	 * This method returns the name of the image file of an entity. Obstacles
+	 * use the image of their type (rock or tree), life forms use the image of
+	 * their species and food items use the image named after their type
+	 * 
+	 * @param entity
+	 *            The entity to get the image name of
+	 * @return Returns the image name without the file extension
+	 */
+	public static String nameOf(AEntity entity) {
+		if (entity instanceof AObstacle) {
+			return entity.getType().toLowerCase();
+		}
+		return nameOf(entity.getTypeId());
+	}
+
+	/**
+	 * This method returns the name of the image file of a life form or food
+	 * item from its type id. Life forms use the image of their species and
+	 * food items the image named after their type
+	 * 
+	 * @param typeId
+	 *            The species id or food cell code (see SpeciesRegistry)
+	 * @return Returns the image name without the file extension
+	 */
+	public static String nameOf(int typeId) {
+		if (SpeciesRegistry.isSpecies(typeId)) {
+			return SpeciesRegistry.toSpecies(typeId).name().toLowerCase();
+		}
+		return CellCode.toName((byte) typeId).toLowerCase();
+	}
+
+	/**
+	 * Getter for the number of images that have been decoded
+	 * @return Returns the number of images in the cache
+	 */
+	public static synchronized int size() {
+		return sprites.size();
+	}
+}
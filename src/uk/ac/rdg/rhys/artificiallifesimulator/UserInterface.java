@@ -6,9 +6,7 @@ import java.io.PrintWriter;
 import java.util.Optional;
 import java.util.Scanner;
 
-import javafx.animation.Animation;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
@@ -24,6 +22,7 @@ import javafx.scene.control.Label;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
 import javafx.scene.control.MenuItem;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.ToolBar;
 import javafx.scene.image.Image;
 import javafx.scene.input.MouseEvent;
@@ -33,10 +32,18 @@ import javafx.scene.shape.Rectangle;
 import javafx.stage.FileChooser;
 import javafx.stage.FileChooser.ExtensionFilter;
 import javafx.stage.Stage;
-import javafx.util.Duration;
 
+import javax.management.JMException;
 import javax.swing.JOptionPane;
 
+import uk.ac.rdg.rhys.artificiallifesimulator.core.AWorld;
+import uk.ac.rdg.rhys.artificiallifesimulator.core.ConsoleEventSink;
+import uk.ac.rdg.rhys.artificiallifesimulator.core.EngineMetrics;
+import uk.ac.rdg.rhys.artificiallifesimulator.core.HostedSimulation;
+import uk.ac.rdg.rhys.artificiallifesimulator.core.Simulation;
+import uk.ac.rdg.rhys.artificiallifesimulator.core.SnapshotExchange;
+import uk.ac.rdg.rhys.artificiallifesimulator.core.WorldSnapshot;
+
 /**
  * <h1>UserInterface.java</h1>
  * <p>
@@ -47,16 +54,30 @@ import javax.swing.JOptionPane;
  * 
  * The responsibility of drawing the UI representation of the world and updating
  * the information pane (dynamic UI elements) is delegated to the DrawWorld
- * helper class
+ * helper class.
+ * 
+ * The simulation runs on its own thread (see HostedSimulation), which offers
+ * a snapshot of the world after every cycle. An AnimationTimer draws the
+ * latest snapshot on each pulse of the JavaFX thread, so a slow cycle does
+ * not freeze the window and cycles that finish between two pulses are drawn
+ * once. The simulation is paused while the user changes or reads it.
+ * 
+ * When map updates are turned off the simulation runs in turbo mode: the
+ * cycles run back to back, no snapshots are captured, and only the progress
+ * and the number of cycles per second are shown, PROGRESS_INTERVAL apart
+ * 
+ * The engine metrics of the simulation are published through JMX but are
+ * disabled until they are enabled with a JMX tool such as JConsole
  * 
  * @author Rhys Streefland
  * @version 1.0
  * @since 2014-01-20
- * @see Simulation, DrawWorld
+ * @see Simulation, SimulationDialogs, DrawWorld
  */
 public class UserInterface extends Application {
 
 	private Simulation simulation = new Simulation();
+	private SimulationDialogs dialogs = new SimulationDialogs(simulation);
 	private DrawWorld draw = new DrawWorld();
 	private BorderPane border = new BorderPane();
 	private VBox topContainer = new VBox();
@@ -66,6 +87,19 @@ public class UserInterface extends Application {
 	private boolean displayMap;
 	private double speedMultiplier = 1;
 
+	/**
+	 * The time between two updates of the progress, in nanoseconds
+	 */
+	private static final long PROGRESS_INTERVAL = 100000000;
+
+	// Define simulation thread objects
+	private SnapshotExchange snapshots = new SnapshotExchange();
+	private HostedSimulation running; // null when the simulation is not running
+	private WorldSnapshot drawn; // the snapshot shown on the screen
+	private ProgressBar progress = new ProgressBar(0);
+	private long progressTime; // when the progress was last updated
+	private int progressCycles; // cycles run when it was last updated
+
 	/**
 	 * This method displays an information pane using the Dialog class. This
 	 * method was written solely to reduce code repetition
@@ -100,33 +134,221 @@ public class UserInterface extends Application {
 	 *<p> 4 - Update life forms & food items
 	 *<p> 5 - Update the information pane
 	 * 
+	 * Options 2 to 4 draw a snapshot of the simulation, so they must only be
+	 * used while the simulation is not running. Changes are only recorded
+	 * while the map is shown on the GridPane, because the canvas is always
+	 * redrawn in full
+	 * 
 	 * @param option
 	 *            This parameter controls which methods are called
 	 */
 	private void manageMap(int option) {
 		switch (option) {
 		case 1:
-			draw.createMap(simulation.lifeForms, simulation.world,
-					simulation.foodItems, simulation.obstacles);
+			draw.createMap(simulation.getWorld(), simulation.getObstacles());
+			border.setCenter(draw.getMapNode());
 			mouseEvent();
+
+			// The new map is drawn in full from the next snapshot
+			simulation.getChangeSet().clear();
+			simulation.getChangeSet().setEnabled(
+					displayMap && draw.isUsingChanges());
+			snapshots.publish(simulation);
+			drawLatestSnapshot();
 			break;
 		case 2:
-			draw.updateLifeForms(simulation.lifeForms);
-			break;
 		case 3:
-			draw.updateFood(simulation.lifeForms, simulation.foodItems);
-			break;
 		case 4:
-			draw.updateLifeForms(simulation.lifeForms);
-			draw.updateFood(simulation.lifeForms, simulation.foodItems);
+			snapshots.publish(simulation);
+			drawLatestSnapshot();
 			break;
 		case 5:
-			draw.updateInfoPane(simulation.world, simulation.lifeForms,
-					displayMap, speedMultiplier);
+			if (drawn != null) {
+				draw.updateInfoPane(drawn, displayMap, speedMultiplier);
+			}
 			break;
 		}
 	}
 
+	/**
+	 * This method shows in the status bar how many obstacles and life forms
+	 * did not fit when the world was last initialised, if any
+	 */
+	private void reportUnplaced() {
+		AWorld world = simulation.getWorld();
+		if (world.getUnplacedObstacles() > 0
+				|| world.getUnplacedLifeForms() > 0) {
+			status.setText("The world is full: "
+					+ world.getUnplacedObstacles() + " obstacles and "
+					+ world.getUnplacedLifeForms()
+					+ " life forms could not be placed");
+		}
+	}
+
+	/**
+	 * This method draws the latest snapshot published by the simulation, if
+	 * there is one, and updates the information pane. The snapshot that was
+	 * shown before is given back to the exchange. It is called on every pulse
+	 * of the JavaFX thread
+	 */
+	private void drawLatestSnapshot() {
+		WorldSnapshot snapshot = snapshots.take();
+		if (snapshot == null) {
+			return;
+		}
+		if (displayMap == true) {
+			draw.drawSnapshot(snapshot);
+		}
+		draw.updateInfoPane(snapshot, displayMap, speedMultiplier);
+		if (drawn != null) {
+			snapshots.release(drawn);
+		}
+		drawn = snapshot;
+	}
+
+	/**
+	 * This method starts the simulation on its own thread, or resumes it if it
+	 * is paused. The simulation runs for the number of simulation cycles of
+	 * the world
+	 */
+	private void startSimulation() {
+		if (running != null) {
+			running.resume();
+		} else {
+			running = new HostedSimulation("Simulation", simulation, simulation
+					.getWorld().getSimulationCycles());
+			running.setSnapshotExchange(displayMap ? snapshots : null);
+			running.setCycleDelay(getCycleDelay());
+			progressTime = 0;
+			progress.setProgress(0);
+			Thread thread = new Thread(running, "Simulation");
+			thread.setDaemon(true);
+			thread.start();
+		}
+		status.setText("Simulation running");
+	}
+
+	/**
+	 * This method checks if the simulation thread has finished. When all of
+	 * the simulation cycles have run, the current cycle is reset and the map
+	 * is redrawn. It is called on every pulse of the JavaFX thread
+	 */
+	private void checkSimulation() {
+		if (running == null) {
+			return;
+		}
+
+		// Stop the simulation once every life form has died
+		if (running.getLifeFormCount() == 0) {
+			running.stop();
+		}
+
+		if (running.isDone()) {
+			HostedSimulation finished = running;
+			running = null;
+			progress.setProgress((double) finished.getCyclesRun()
+					/ finished.getCycles());
+
+			// Draw the state the simulation finished in
+			manageMap(2);
+			if (finished.getState() == HostedSimulation.State.FINISHED) {
+				status.setText("Simulation finished");
+				simulation.getWorld().resetCurrentCycle();
+				manageMap(1);
+			} else if (finished.getState() == HostedSimulation.State.STOPPED) {
+				status.setText("Simulation finished");
+			} else if (finished.getState() == HostedSimulation.State.FAILED) {
+				status.setText("Simulation failed");
+				System.out.println("Simulation failed: "
+						+ finished.getError());
+			}
+		}
+	}
+
+	/**
+	 * This method shows how far the simulation has got and how many cycles it
+	 * ran per second since the last update. It is called on every pulse of
+	 * the JavaFX thread but only updates the progress every PROGRESS_INTERVAL
+	 * 
+	 * @param now
+	 *            The time of the pulse in nanoseconds
+	 */
+	private void updateProgress(long now) {
+		if (running == null || running.isPauseRequested()) {
+			progressTime = 0;
+			return;
+		}
+
+		// Define temporary variables
+		int cyclesRun = running.getCyclesRun();
+		long elapsed = now - progressTime;
+
+		if (progressTime == 0) {
+			progressTime = now;
+			progressCycles = cyclesRun;
+		} else if (elapsed >= PROGRESS_INTERVAL) {
+			double cyclesPerSecond = (cyclesRun - progressCycles) * 1e9
+					/ elapsed;
+			progress.setProgress((double) cyclesRun / running.getCycles());
+			status.setText(String.format(
+					"Simulation running: cycle %d/%d, %.0f cycles/s",
+					cyclesRun, running.getCycles(), cyclesPerSecond));
+			progressTime = now;
+			progressCycles = cyclesRun;
+		}
+	}
+
+	/**
+	 * This method works out the time from the start of one cycle to the start
+	 * of the next from the speed multiplier. The cycles run back to back when
+	 * the map is not displayed
+	 * 
+	 * @return Returns the cycle delay in nanoseconds
+	 */
+	private long getCycleDelay() {
+		if (displayMap == false) {
+			return 0;
+		}
+		if (speedMultiplier <= 0) {
+			return Long.MAX_VALUE;
+		}
+		return (long) (500000000 / speedMultiplier);
+	}
+
+	/**
+	 * This method pauses the simulation, if it is running, so that it can be
+	 * read or changed on the JavaFX thread. It waits for the current cycle to
+	 * finish
+	 * 
+	 * @return Returns true if the simulation was running and must be resumed
+	 *         by resumeAfterEdit()
+	 */
+	private boolean pauseForEdit() {
+		if (running == null || running.isDone()) {
+			return false;
+		}
+		boolean wasRunning = !running.isPauseRequested();
+		try {
+			running.pauseAndWait();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return wasRunning;
+	}
+
+	/**
+	 * This method resumes the simulation after it was paused by
+	 * pauseForEdit()
+	 * 
+	 * @param wasRunning
+	 *            The value returned by pauseForEdit()
+	 */
+	private void resumeAfterEdit(boolean wasRunning) {
+		if (wasRunning && running != null) {
+			running.resume();
+		}
+	}
+
 	/**
 	 * This method calls the addLifeForm(int,int) method every time the mouse is
 	 * clicked somewhere on the map
@@ -144,12 +366,28 @@ public class UserInterface extends Application {
 					// Add a life form, then update the map
 					int x = (int) rect.getX();
 					int y = (int) rect.getY();
-					simulation.addLifeForm(x, y);
+					boolean wasRunning = pauseForEdit();
+					dialogs.addLifeForm(x, y);
 					manageMap(2);
-					manageMap(5);
+					resumeAfterEdit(wasRunning);
 				}
 			});
 		}
+
+		// If the canvas is clicked, work out which cell was clicked
+		draw.canvas.setOnMouseClicked(new EventHandler<MouseEvent>() {
+			@Override
+			public void handle(MouseEvent e) {
+				int x = draw.canvas.toCellX(e.getX());
+				int y = draw.canvas.toCellY(e.getY());
+				if (x >= 0 && y >= 0) {
+					boolean wasRunning = pauseForEdit();
+					dialogs.addLifeForm(x, y);
+					manageMap(2);
+					resumeAfterEdit(wasRunning);
+				}
+			}
+		});
 	}
 
 	/**
@@ -167,13 +405,13 @@ public class UserInterface extends Application {
 
 		File selectedFile = fileChooser.showOpenDialog(null);
 		if (selectedFile != null) {
-			// Call readFile method, then update map
-			simulation.filePath = selectedFile.getAbsolutePath();
-			simulation.readFile();
-			simulation.world.initWorld(simulation.lifeForms,
-					simulation.foodItems, simulation.obstacles);
+			// Call readFile method, which restores the saved world, then
+			// update map
+			simulation.setFilePath(selectedFile.getAbsolutePath());
+			dialogs.readFile();
 			manageMap(1);
 			manageMap(5);
+			reportUnplaced();
 		}
 	}
 
@@ -193,8 +431,8 @@ public class UserInterface extends Application {
 		File selectedFile = fileChooser.showSaveDialog(null);
 		if (selectedFile != null) {
 			// Call readFile method, then update map
-			simulation.filePath = selectedFile.getAbsolutePath();
-			simulation.saveFile();
+			simulation.setFilePath(selectedFile.getAbsolutePath());
+			dialogs.saveFile();
 		}
 	}
 
@@ -209,14 +447,14 @@ public class UserInterface extends Application {
 		try {
 			// Read filePath from DO_NOT_DELETE file
 			Scanner scan = new Scanner(new File("DO_NOT_DELETE"));
-			simulation.filePath = scan.useDelimiter("\\Z").next();
+			simulation.setFilePath(scan.useDelimiter("\\Z").next());
 			scan.close();
 		} catch (FileNotFoundException e1) {
 			System.out
 					.println("WARNING: DO_NOT_DELETE file not found \nIgnore this warning if this is the first time the program has been run");
 		}
 
-		if (simulation.readFile() == 1) {
+		if (dialogs.readFile() == 1) {
 			// Create new warning dialog
 			Alert alert = new Alert(AlertType.WARNING);
 			alert.setTitle("Information");
@@ -232,6 +470,7 @@ public class UserInterface extends Application {
 			Optional<ButtonType> result = alert.showAndWait();
 			if (result.get() == buttonyes) {
 				simulation.newConfiguration();
+				simulation.initWorld();
 			} else {
 				Platform.exit();
 			}
@@ -254,6 +493,27 @@ public class UserInterface extends Application {
 		// Try to load existing configuration if possible
 		loadExistingConfiguration();
 
+		// Publish the engine metrics, which are enabled through JMX
+		EngineMetrics metrics = new EngineMetrics(false);
+		simulation.setMetrics(metrics);
+		try {
+			metrics.register("Simulation");
+		} catch (JMException e) {
+			System.out.println("Failed to publish metrics: " + e.getMessage());
+		}
+
+		// Print the events chosen by the simulation.log system property,
+		// e.g. -Dsimulation.log=meal=info,move=debug
+		String spec = System.getProperty("simulation.log");
+		if (spec != null) {
+			try {
+				simulation.getEventLog().configure(spec);
+				simulation.getEventLog().setSink(new ConsoleEventSink());
+			} catch (IllegalArgumentException e) {
+				System.out.println("Invalid simulation.log setting: " + spec);
+			}
+		}
+
 		// Set up MAIN MENU
 		MenuBar mainMenu = new MenuBar();
 		mainMenu.getStyleClass().add("menu");
@@ -276,8 +536,9 @@ public class UserInterface extends Application {
 		MenuItem editConfig = new MenuItem("Edit configuration");
 		MenuItem lifeFormInfo = new MenuItem("Display life form info");
 		MenuItem mapInfo = new MenuItem("Display map info");
+		MenuItem toggleCanvas = new MenuItem("Toggle canvas renderer");
 		viewMenu.getItems().addAll(displayConfig, editConfig, lifeFormInfo,
-				mapInfo);
+				mapInfo, toggleCanvas);
 
 		// Create EDIT sub-menu
 		Menu editMenu = new Menu("Edit");
@@ -317,55 +578,27 @@ public class UserInterface extends Application {
 		Button stopButton = new Button("Stop");
 		Button resetButton = new Button("Reset");
 		toolBar.getItems().addAll(startButton, pauseButton, stopButton,
-				resetButton, status);
+				resetButton, progress, status);
 
-		// Draw Map and Information Pane
-		simulation.world.initWorld(simulation.lifeForms, simulation.foodItems,
-				simulation.obstacles);
+		// Draw Map and Information Pane (the world was restored or
+		// initialised by loadExistingConfiguration())
 		draw.infoPane.minWidthProperty().bind(border.widthProperty().divide(5));
 		draw.infoPane.maxWidthProperty().bind(border.widthProperty().divide(4));
 		manageMap(1);
 		manageMap(5);
-		border.setCenter(draw.map);
+		reportUnplaced();
 		border.setRight(draw.infoPaneBorder);
 
-		// Simulation timeline
-		final Timeline simTimeline = new Timeline();
-		KeyFrame frame = new KeyFrame(Duration.millis(500),
-				new EventHandler<ActionEvent>() {
-					@Override
-					public void handle(ActionEvent ae) {
-						if (simulation.lifeForms.size() == 0) {
-							simTimeline.stop();
-						}
-						simulation.runSimulation();
-						Platform.runLater(new Runnable() {
-							@Override
-							public void run() {
-								// Update information pane only
-								manageMap(5);
-								if (displayMap == true) {
-									// Update map as well
-									manageMap(4);
-								}
-							}
-						});
-					}
-				});
-		// Add keyframe to timeline
-		simTimeline.getKeyFrames().add(frame);
-		// Set timeline rate
-		simTimeline.setRate(speedMultiplier);
-
-		// When simulation finishes
-		simTimeline.setOnFinished(new EventHandler<ActionEvent>() {
+		// Draw the latest snapshot on every pulse of the JavaFX thread
+		AnimationTimer drawTimer = new AnimationTimer() {
 			@Override
-			public void handle(ActionEvent arg0) {
-				status.setText("Simulation finished");
-				simulation.world.resetCurrentCycle();
-				manageMap(1);
+			public void handle(long now) {
+				drawLatestSnapshot();
+				updateProgress(now);
+				checkSimulation();
 			}
-		});
+		};
+		drawTimer.start();
 
 		draw.speedDec.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
@@ -376,10 +609,10 @@ public class UserInterface extends Application {
 				} else {
 					// Set simulation rate based on speedMultiplier value
 					speedMultiplier = speedMultiplier - 0.5;
-					simTimeline.setRate(speedMultiplier);
-					if (simTimeline.getStatus() != Animation.Status.RUNNING) {
-						manageMap(5);
+					if (running != null) {
+						running.setCycleDelay(getCycleDelay());
 					}
+					manageMap(5);
 				}
 			}
 		});
@@ -388,20 +621,20 @@ public class UserInterface extends Application {
 			@Override
 			public void handle(ActionEvent arg0) {
 				if (speedMultiplier == 10.0) {
-					simTimeline.pause();
+					boolean wasRunning = pauseForEdit();
 					informationPane(
 							"Information",
 							"Information",
 							"Increasing the speed multiplier above 10 may not\nincrease the simulation speed much further, especially\n if your computer is slow");
-					simTimeline.play();
+					resumeAfterEdit(wasRunning);
 				}
 
 				// Set simulation rate based on speedMultiplier value
 				speedMultiplier = speedMultiplier + 0.5;
-				simTimeline.setRate(speedMultiplier);
-				if (simTimeline.getStatus() != Animation.Status.RUNNING) {
-					manageMap(5);
+				if (running != null) {
+					running.setCycleDelay(getCycleDelay());
 				}
+				manageMap(5);
 			}
 		});
 		/* END SIMULATION EVENTS */
@@ -410,18 +643,17 @@ public class UserInterface extends Application {
 		startButton.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
-				simTimeline.setCycleCount(simulation.world
-						.getSimulationCycles());
-				status.setText("Simulation running");
-				simTimeline.play();
+				startSimulation();
 			}
 
 		});
 		pauseButton.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
-				status.setText("Simulation paused");
-				simTimeline.pause();
+				if (running != null) {
+					status.setText("Simulation paused");
+					running.pause();
+				}
 			}
 
 		});
@@ -429,24 +661,26 @@ public class UserInterface extends Application {
 			@Override
 			public void handle(ActionEvent arg0) {
 				status.setText("Simulation finished");
-				simTimeline.stop();
+				if (running != null) {
+					running.stop();
+				}
 			}
 
 		});
 		resetButton.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
-				if (simTimeline.getStatus() == Animation.Status.RUNNING) {
-					simTimeline.pause();
+				if (running != null) {
+					boolean wasRunning = pauseForEdit();
 					informationPane("Information", "Information",
 							"Please stop the simulation before attempting to reset the map");
-					simTimeline.play();
+					resumeAfterEdit(wasRunning);
 				} else {
-					simulation.world.initWorld(simulation.lifeForms,
-							simulation.foodItems, simulation.obstacles);
-					manageMap(5);
+					simulation.initWorld();
 					manageMap(1);
+					manageMap(5);
 					status.setText("Ready to run simulation...");
+					reportUnplaced();
 				}
 			}
 
@@ -457,9 +691,11 @@ public class UserInterface extends Application {
 		newConfig.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
+				boolean wasRunning = pauseForEdit();
 				simulation.newConfiguration();
 				manageMap(1);
 				manageMap(5);
+				resumeAfterEdit(wasRunning);
 			}
 
 		});
@@ -467,7 +703,9 @@ public class UserInterface extends Application {
 		openConfig.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
+				boolean wasRunning = pauseForEdit();
 				openFile();
+				resumeAfterEdit(wasRunning);
 			}
 
 		});
@@ -475,7 +713,9 @@ public class UserInterface extends Application {
 		saveConfig.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
-				simulation.saveFile();
+				boolean wasRunning = pauseForEdit();
+				dialogs.saveFile();
+				resumeAfterEdit(wasRunning);
 			}
 
 		});
@@ -483,7 +723,9 @@ public class UserInterface extends Application {
 		saveConfigAs.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
+				boolean wasRunning = pauseForEdit();
 				saveFileAs();
+				resumeAfterEdit(wasRunning);
 			}
 
 		});
@@ -501,30 +743,50 @@ public class UserInterface extends Application {
 		displayConfig.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
-				simulation.displayConfiguration();
+				boolean wasRunning = pauseForEdit();
+				dialogs.displayConfiguration();
+				resumeAfterEdit(wasRunning);
 			}
 		});
 
 		editConfig.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
-				simulation.editConfiguration();
+				boolean wasRunning = pauseForEdit();
+				dialogs.editConfiguration();
 				manageMap(1);
 				manageMap(5);
+				reportUnplaced();
+				resumeAfterEdit(wasRunning);
 			}
 		});
 
 		lifeFormInfo.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
-				simulation.displayLifeFormInfo();
+				boolean wasRunning = pauseForEdit();
+				dialogs.displayLifeFormInfo();
+				resumeAfterEdit(wasRunning);
 			}
 		});
 
 		mapInfo.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
-				simulation.displayMapInfo();
+				boolean wasRunning = pauseForEdit();
+				dialogs.displayMapInfo();
+				resumeAfterEdit(wasRunning);
+			}
+		});
+
+		toggleCanvas.setOnAction(new EventHandler<ActionEvent>() {
+			@Override
+			public void handle(ActionEvent arg0) {
+				boolean wasRunning = pauseForEdit();
+				draw.setCanvasMode(!draw.isCanvasMode());
+				manageMap(1);
+				manageMap(5);
+				resumeAfterEdit(wasRunning);
 			}
 		});
 
@@ -534,9 +796,11 @@ public class UserInterface extends Application {
 		addLifeForm.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
-				simulation.addLifeForm();
+				boolean wasRunning = pauseForEdit();
+				dialogs.addLifeForm();
 				manageMap(1);
 				manageMap(5);
+				resumeAfterEdit(wasRunning);
 			}
 
 		});
@@ -544,18 +808,22 @@ public class UserInterface extends Application {
 		removeLifeForm.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
-				simulation.removeLifeForm();
+				boolean wasRunning = pauseForEdit();
+				dialogs.removeLifeForm();
 				manageMap(1);
 				manageMap(5);
+				resumeAfterEdit(wasRunning);
 			}
 		});
 
 		modifyLifeForm.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
-				simulation.modifyLifeForm();
+				boolean wasRunning = pauseForEdit();
+				dialogs.modifyLifeForm();
 				manageMap(1);
 				manageMap(5);
+				resumeAfterEdit(wasRunning);
 			}
 		});
 		/* END EDIT MENU BUTTON EVENTS */
@@ -564,10 +832,7 @@ public class UserInterface extends Application {
 		start.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
-				simTimeline.setCycleCount(simulation.world
-						.getSimulationCycles());
-				status.setText("Simulation running");
-				simTimeline.play();
+				startSimulation();
 			}
 		});
 
@@ -575,19 +840,24 @@ public class UserInterface extends Application {
 			@Override
 			public void handle(ActionEvent arg0) {
 				status.setText("Simulation finished");
-				simTimeline.stop();
+				if (running != null) {
+					running.stop();
+				}
 			}
 		});
 
 		pauseRestart.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
-				if (simTimeline.getStatus() == Animation.Status.RUNNING) {
-					status.setText("Simulation paused");
-					simTimeline.pause();
-				} else if (simTimeline.getStatus() == Animation.Status.PAUSED) {
+				if (running == null) {
+					return;
+				}
+				if (running.isPauseRequested()) {
 					status.setText("Simulation running");
-					simTimeline.play();
+					running.resume();
+				} else {
+					status.setText("Simulation paused");
+					running.pause();
 				}
 			}
 		});
@@ -595,27 +865,43 @@ public class UserInterface extends Application {
 		reset.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
-				simulation.world.initWorld(simulation.lifeForms,
-						simulation.foodItems, simulation.obstacles);
-				manageMap(5);
+				if (running != null) {
+					running.stop();
+					try {
+						running.awaitDone();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					running = null;
+				}
+				simulation.initWorld();
 				manageMap(1);
+				manageMap(5);
 				status.setText("Ready to run simulation...");
+				reportUnplaced();
 			}
 		});
 
 		toggleMapDisplay.setOnAction(new EventHandler<ActionEvent>() {
 			@Override
 			public void handle(ActionEvent arg0) {
+				boolean wasRunning = pauseForEdit();
 				if (displayMap == true) {
-					simTimeline.setRate(Integer.MAX_VALUE);
 					displayMap = false;
+					simulation.getChangeSet().setEnabled(false);
 					manageMap(5);
 				} else {
-					simTimeline.setRate(speedMultiplier);
 					displayMap = true;
+					manageMap(1);
 					manageMap(5);
 				}
 
+				// Stop capturing snapshots in turbo mode
+				if (running != null) {
+					running.setSnapshotExchange(displayMap ? snapshots : null);
+					running.setCycleDelay(getCycleDelay());
+				}
+				resumeAfterEdit(wasRunning);
 			}
 		});
 
@@ -663,7 +949,7 @@ public class UserInterface extends Application {
 				try {
 					// Try and write filePath to DO_NOT_DELETE file
 					PrintWriter out = new PrintWriter("DO_NOT_DELETE");
-					out.println(simulation.filePath);
+					out.println(simulation.getFilePath());
 					out.flush();
 					out.close();
 				} catch (FileNotFoundException e) {
@@ -678,6 +964,7 @@ public class UserInterface extends Application {
 		scene.getStylesheets().add(
 				UserInterface.class.getResource("style.css").toExternalForm());
 		draw.map.getStyleClass().add("world");
+		draw.canvas.getStyleClass().add("world");
 
 		// Setup the Stage
 		primaryStage.setTitle("Artificial Life Simulator");
@@ -0,0 +1,391 @@
+package uk.ac.rdg.rhys.artificiallifesimulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import javafx.event.EventHandler;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import uk.ac.rdg.rhys.artificiallifesimulator.core.AEntity;
+import uk.ac.rdg.rhys.artificiallifesimulator.core.SpeciesRegistry;
+import uk.ac.rdg.rhys.artificiallifesimulator.core.WorldSnapshot;
+
+/**
+ * <h1>WorldCanvas.java</h1>
+ * <p>
+ * This class draws the world onto a Canvas instead of adding a node to the
+ * scene graph for every cell and entity, so that large worlds can be shown.
+ * The whole world is painted each time it is redrawn, with the life forms and
+ * food items taken from the latest snapshot of the simulation.
+ *
+ * When the cells are big enough the images of the entities are drawn, as on
+ * the GridPane map. When they are smaller, each entity is painted as a block
+ * of pixels in the average colour of its image, which only costs time for
+ * the entities and the pixels of the canvas, however large the world is. The
+ * highlighted cell under the mouse is drawn on a second canvas, so moving the
+ * mouse does not repaint the world. The cell under the mouse is worked out
+ * from its coordinates (see toCellX() and toCellY())
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see DrawWorld, SpriteCache
+ */
+public class WorldCanvas extends Pane {
+
+	/**
+	 * The smallest cell size in pixels at which images are drawn
+	 */
+	public static final double MIN_SPRITE_CELL = 8;
+
+	private final Canvas canvas = new Canvas();
+	private final Canvas overlay = new Canvas();
+	private int worldSize; // 0 when no world is shown
+	private ArrayList<AEntity> obstacles;
+	private WorldSnapshot snapshot;
+
+	// Define the pixel buffer used for small cells
+	private WritableImage pixels;
+	private int[] buffer;
+	private int[] colourById = new int[SpeciesRegistry.count()];
+	private HashMap<String, Integer> obstacleColours = new HashMap<String, Integer>();
+
+	private int hoverX = -1;
+	private int hoverY = -1;
+
+	/**
+	 * This constructor creates an empty canvas and the mouse handlers that
+	 * highlight the cell under the mouse
+	 */
+	public WorldCanvas() {
+		overlay.setMouseTransparent(true);
+		getChildren().addAll(canvas, overlay);
+		setMinSize(0, 0);
+
+		// On hover over
+		setOnMouseMoved(new EventHandler<MouseEvent>() {
+			@Override
+			public void handle(MouseEvent e) {
+				setHover(toCellX(e.getX()), toCellY(e.getY()));
+			}
+		});
+
+		// On hover off
+		setOnMouseExited(new EventHandler<MouseEvent>() {
+			@Override
+			public void handle(MouseEvent e) {
+				setHover(-1, -1);
+			}
+		});
+	}
+
+	/**
+	 * This method sets the world that is drawn. Obstacles do not change while
+	 * the simulation runs, so they are read from the model. The life forms
+	 * and food items are drawn once the first snapshot is set
+	 *
+	 * @param newWorldSize
+	 *            The size of the world, or 0 to show no world
+	 * @param newObstacles
+	 *            The ArrayList of obstacle objects
+	 */
+	public void setWorld(int newWorldSize, ArrayList<AEntity> newObstacles) {
+		worldSize = newWorldSize;
+		obstacles = newObstacles;
+		snapshot = null;
+		hoverX = -1;
+		hoverY = -1;
+		redraw();
+	}
+
+	/**
+	 * This method sets the snapshot that is drawn and redraws the canvas. The
+	 * snapshot must not be changed until another snapshot has been set
+	 *
+	 * @param newSnapshot
+	 *            The latest snapshot of the simulation
+	 */
+	public void setSnapshot(WorldSnapshot newSnapshot) {
+		snapshot = newSnapshot;
+		redraw();
+	}
+
+	/**
+	 * This method resizes both canvases to fill the pane and redraws them
+	 */
+	@Override
+	protected void layoutChildren() {
+		if (canvas.getWidth() != getWidth()
+				|| canvas.getHeight() != getHeight()) {
+			canvas.setWidth(getWidth());
+			canvas.setHeight(getHeight());
+			overlay.setWidth(getWidth());
+			overlay.setHeight(getHeight());
+			redraw();
+		}
+	}
+
+	/**
+	 * This method converts an x coordinate on the canvas into a cell
+	 *
+	 * @param x
+	 *            The x coordinate on the canvas
+	 * @return Returns the x coordinate of the cell, or -1 if it is outside
+	 *         the world
+	 */
+	public int toCellX(double x) {
+		return toCell(x, getWidth());
+	}
+
+	/**
+	 * This method converts a y coordinate on the canvas into a cell
+	 *
+	 * @param y
+	 *            The y coordinate on the canvas
+	 * @return Returns the y coordinate of the cell, or -1 if it is outside
+	 *         the world
+	 */
+	public int toCellY(double y) {
+		return toCell(y, getHeight());
+	}
+
+	/**
+	 * This method converts a coordinate on the canvas into a cell
+	 *
+	 * @param position
+	 *            The coordinate on the canvas
+	 * @param length
+	 *            The width or height of the canvas
+	 * @return Returns the cell coordinate, or -1 if it is outside the world
+	 */
+	private int toCell(double position, double length) {
+		if (worldSize == 0 || length <= 0 || position < 0) {
+			return -1;
+		}
+		int cell = (int) (position * worldSize / length);
+		return cell < worldSize ? cell : -1;
+	}
+
+	/**
+	 * This method paints the whole world onto the canvas
+	 */
+	public void redraw() {
+		GraphicsContext gc = canvas.getGraphicsContext2D();
+		gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+		if (worldSize == 0 || canvas.getWidth() < 1
+				|| canvas.getHeight() < 1) {
+			return;
+		}
+
+		double cellWidth = canvas.getWidth() / worldSize;
+		double cellHeight = canvas.getHeight() / worldSize;
+
+		if (Math.min(cellWidth, cellHeight) >= MIN_SPRITE_CELL) {
+			drawSprites(gc, cellWidth, cellHeight);
+		} else {
+			drawPixels(gc, cellWidth, cellHeight);
+		}
+		drawHover();
+	}
+
+	/**
+	 * This method draws the image of every obstacle, food item and life form.
+	 * Each image is two thirds of the size of a cell and centred in its cell
+	 *
+	 * @param gc
+	 *            The graphics context of the canvas
+	 * @param cellWidth
+	 *            The width of a cell in pixels
+	 * @param cellHeight
+	 *            The height of a cell in pixels
+	 */
+	private void drawSprites(GraphicsContext gc, double cellWidth,
+			double cellHeight) {
+		double size = Math.min(cellWidth, cellHeight) / 1.5;
+		double offsetX = (cellWidth - size) / 2;
+		double offsetY = (cellHeight - size) / 2;
+
+		for (int i = 0; i < obstacles.size(); i++) {
+			AEntity obstacle = obstacles.get(i);
+			gc.drawImage(SpriteCache.get(SpriteCache.nameOf(obstacle)),
+					obstacle.getX() * cellWidth + offsetX, obstacle.getY()
+							* cellHeight + offsetY, size, size);
+		}
+		if (snapshot == null) {
+			return;
+		}
+		for (int i = 0; i < snapshot.getFoodCount(); i++) {
+			gc.drawImage(SpriteCache.get(SpriteCache.nameOf(snapshot
+					.getFoodCode(i))), snapshot.getFoodX(i) * cellWidth
+					+ offsetX, snapshot.getFoodY(i) * cellHeight + offsetY,
+					size, size);
+		}
+		for (int i = 0; i < snapshot.getLifeFormCount(); i++) {
+			gc.drawImage(SpriteCache.get(SpriteCache.nameOf(snapshot
+					.getTypeId(i))), snapshot.getX(i) * cellWidth + offsetX,
+					snapshot.getY(i) * cellHeight + offsetY, size, size);
+		}
+	}
+
+	/**
+	 * This method paints every entity as a block of pixels in the average
+	 * colour of its image, then draws the pixels onto the canvas in one call
+	 *
+	 * @param gc
+	 *            The graphics context of the canvas
+	 * @param cellWidth
+	 *            The width of a cell in pixels
+	 * @param cellHeight
+	 *            The height of a cell in pixels
+	 */
+	private void drawPixels(GraphicsContext gc, double cellWidth,
+			double cellHeight) {
+		int width = (int) canvas.getWidth();
+		int height = (int) canvas.getHeight();
+
+		// Reuse the pixel buffer unless the canvas has changed size
+		if (pixels == null || (int) pixels.getWidth() != width
+				|| (int) pixels.getHeight() != height) {
+			pixels = new WritableImage(width, height);
+			buffer = new int[width * height];
+		} else {
+			Arrays.fill(buffer, 0);
+		}
+
+		for (int i = 0; i < obstacles.size(); i++) {
+			AEntity obstacle = obstacles.get(i);
+			fillCell(obstacle.getX(), obstacle.getY(), obstacleColour(obstacle),
+					cellWidth, cellHeight, width, height);
+		}
+		if (snapshot != null) {
+			for (int i = 0; i < snapshot.getFoodCount(); i++) {
+				fillCell(snapshot.getFoodX(i), snapshot.getFoodY(i),
+						colourOf(snapshot.getFoodCode(i)), cellWidth,
+						cellHeight, width, height);
+			}
+			for (int i = 0; i < snapshot.getLifeFormCount(); i++) {
+				fillCell(snapshot.getX(i), snapshot.getY(i),
+						colourOf(snapshot.getTypeId(i)), cellWidth, cellHeight,
+						width, height);
+			}
+		}
+
+		pixels.getPixelWriter().setPixels(0, 0, width, height,
+				PixelFormat.getIntArgbInstance(), buffer, 0, width);
+		gc.drawImage(pixels, 0, 0);
+	}
+
+	/**
+	 * This method paints a cell into the pixel buffer. Every cell covers at
+	 * least one pixel
+	 *
+	 * @param x
+	 *            The x coordinate of the cell
+	 * @param y
+	 *            The y coordinate of the cell
+	 * @param colour
+	 *            The colour of the cell as an ARGB value
+	 * @param cellWidth
+	 *            The width of a cell in pixels
+	 * @param cellHeight
+	 *            The height of a cell in pixels
+	 * @param width
+	 *            The width of the pixel buffer
+	 * @param height
+	 *            The height of the pixel buffer
+	 */
+	private void fillCell(int x, int y, int colour, double cellWidth,
+			double cellHeight, int width, int height) {
+
+		// Work out the pixels covered by the cell
+		int left = Math.min((int) (x * cellWidth), width - 1);
+		int top = Math.min((int) (y * cellHeight), height - 1);
+		int right = Math.max(left + 1,
+				Math.min((int) ((x + 1) * cellWidth), width));
+		int bottom = Math.max(top + 1,
+				Math.min((int) ((y + 1) * cellHeight), height));
+
+		for (int row = top; row < bottom; row++) {
+			Arrays.fill(buffer, row * width + left, row * width + right, colour);
+		}
+	}
+
+	/**
+	 * This method returns the colour used to paint a life form or food item.
+	 * Colours are kept by species or food type id
+	 *
+	 * @param typeId
+	 *            The species id or food cell code
+	 * @return Returns the colour as an ARGB value
+	 */
+	private int colourOf(int typeId) {
+		if (colourById[typeId] == 0) {
+			colourById[typeId] = SpriteCache.getColour(SpriteCache
+					.nameOf(typeId));
+		}
+		return colourById[typeId];
+	}
+
+	/**
+	 * This method returns the colour used to paint an obstacle. Colours are
+	 * kept by the type of obstacle
+	 *
+	 * @param obstacle
+	 *            The obstacle to paint
+	 * @return Returns the colour as an ARGB value
+	 */
+	private int obstacleColour(AEntity obstacle) {
+		Integer colour = obstacleColours.get(obstacle.getType());
+		if (colour == null) {
+			colour = SpriteCache.getColour(SpriteCache.nameOf(obstacle));
+			obstacleColours.put(obstacle.getType(), colour);
+		}
+		return colour;
+	}
+
+	/**
+	 * This method changes the highlighted cell
+	 *
+	 * @param x
+	 *            The x coordinate of the cell, or -1 for no cell
+	 * @param y
+	 *            The y coordinate of the cell, or -1 for no cell
+	 */
+	private void setHover(int x, int y) {
+		if (x < 0 || y < 0) {
+			x = -1;
+			y = -1;
+		}
+		if (x != hoverX || y != hoverY) {
+			hoverX = x;
+			hoverY = y;
+			drawHover();
+		}
+	}
+
+	/**
+	 * This method draws the highlighted cell onto the overlay canvas. The
+	 * highlight is at least two pixels wide so it can be seen on large worlds
+	 */
+	private void drawHover() {
+		GraphicsContext gc = overlay.getGraphicsContext2D();
+		gc.clearRect(0, 0, overlay.getWidth(), overlay.getHeight());
+		if (worldSize == 0 || hoverX < 0) {
+			return;
+		}
+
+		double cellWidth = overlay.getWidth() / worldSize;
+		double cellHeight = overlay.getHeight() / worldSize;
+		gc.setFill(Color.WHITE);
+		gc.setGlobalAlpha(0.3);
+		gc.fillRect(hoverX * cellWidth, hoverY * cellHeight,
+				Math.max(cellWidth, 2), Math.max(cellHeight, 2));
+		gc.setGlobalAlpha(1);
+	}
+}
@@ -0,0 +1,87 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.util.ArrayList;
+
+/**
+ * <h1>AEntity.java</h1>
+ * <p>
+ * The properties and methods of this class are inherited by every entity in the
+ * simulation (life forms, food items, and obstacles). Entities only hold the
+ * state of the model; their images are created by the user interface
+ * 
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ */
+public abstract class AEntity {
+
+	// Store entity coordinates
+	protected int x;
+	protected int y;
+
+	/**
+	 * Getter for the x coordinate of the entity
+	 * @return Returns the x coordinate of the entity
+	 */
+	public int getX() {
+		return x;
+	}
+
+	/**
+	 * Getter for the y coordinate of the entity
+	 * @return Returns the y coordinate of the entity
+	 */
+	public int getY() {
+		return y;
+	}
+
+	/**
+	 * Setter for the x coordinate of the entity
+	 * @param newX The new x coordinate the entity
+	 */
+	public void setX(int newX) {
+		x = newX;
+	}
+
+	/**
+	 * Setter for the y coordinate of the entity
+	 * @param newY The new y coordinate of the entity
+	 */
+	public void setY(int newY) {
+		y = newY;
+	}
+
+	public abstract String getName();
+
+	public abstract String getType();
+
+	/**
+	 * Getter for the id of the entity's species or food type
+	 * @return Returns the id in the SpeciesRegistry, or a cell code
+	 */
+	public abstract int getTypeId();
+
+	public abstract int getEnergy();
+
+	public abstract int getLastFoodX();
+
+	public abstract int getLastFoodY();
+
+	public abstract boolean getIsAlive();
+
+	public abstract Object getSpecies();
+
+	public abstract ArrayList<String> getConsumes();
+
+	public abstract int getNutrition();
+
+	public abstract void setIsAlive(boolean b);
+
+	public abstract void setEnergy(int parseInt);
+
+	public abstract void setName(String text);
+
+	public abstract void setLastFoodX(int newX);
+
+	public abstract void setLastFoodY(int newY);
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+/**
+ * <h1>AFoodItem.java</h1>
+ * <p>
+ * This class extends the AEntity class and thus inherits its properties and
+ * methods. The properties and methods in this class are inherited by all food
+ * items
+ * 
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ */
+public abstract class AFoodItem extends AEntity {
+
+	protected String type;
+	protected int nutrition;
+	private byte typeId;
+
+	/**
+	 * Getter for the type of the food item
+	 * @return Returns the type of the food item
+	 */
+	public String getType() {
+		return type;
+	}
+
+	/**
+	 * Getter for the id of the food type, which is its cell code
+	 * @return Returns the id of the food type
+	 */
+	public int getTypeId() {
+		if (typeId == 0) {
+			typeId = CellCode.fromName(type);
+		}
+		return typeId;
+	}
+
+	/**
+	 * Getter for the nutrition of the food item
+	 * @return Returns the nutrition value of the food item
+	 */
+	public int getNutrition() {
+		return nutrition;
+	}
+}
\ No newline at end of file
@@ -1,4 +1,4 @@
-package uk.ac.rdg.rhys.artificiallifesimulator;
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -26,6 +26,7 @@ public abstract class ALifeForm extends AEntity implements Serializable {
 	protected int lastFoodY;
 	protected boolean isAlive;
 	protected ArrayList<String> consumes = new ArrayList<String>();
+	private transient int typeId;
 
 	/**
 	 * @return Returns a string comprised of the name and energy value of the life form
@@ -40,7 +41,7 @@ public abstract class ALifeForm extends AEntity implements Serializable {
 	 * Getter for the uniqueID of the life form
 	 * @return Returns the uniqueID of the life
 	 */
-	protected int getUniqueID() {
+	public int getUniqueID() {
 		return uniqueID;
 	}
 
@@ -48,7 +49,7 @@ public abstract class ALifeForm extends AEntity implements Serializable {
 	 * Getter for the name of the life form
 	 * @return Returns the name of the life form
 	 */
-	protected String getName() {
+	public String getName() {
 		return name;
 	}
 
@@ -56,7 +57,7 @@ public abstract class ALifeForm extends AEntity implements Serializable {
 	 * Getter for the species of the life form
 	 * @return Returns the species of the life form
 	 */
-	protected String getSpecies() {
+	public String getSpecies() {
 		return species;
 	}
 
@@ -64,15 +65,27 @@ public abstract class ALifeForm extends AEntity implements Serializable {
 	 * Getter for the type of the life form
 	 * @return Returns the type of the life form
 	 */
-	protected String getType() {
+	public String getType() {
 		return type;
 	}
 
+	/**
+	 * Getter for the id of the species of the life form. The id is looked up
+	 * the first time it is needed
+	 * @return Returns the id of the species in the SpeciesRegistry
+	 */
+	public int getTypeId() {
+		if (typeId == 0) {
+			typeId = SpeciesRegistry.idOf(species);
+		}
+		return typeId;
+	}
+
 	/**
 	 * Getter for the energy of the life form
 	 * @return Returns the energy of the life form
 	 */
-	protected int getEnergy() {
+	public int getEnergy() {
 		return energy;
 	}
 
@@ -80,7 +93,7 @@ public abstract class ALifeForm extends AEntity implements Serializable {
 	 * Getter for the lastFoodX value of the life form
 	 * @return Returns the lastFoodX value of the life form
 	 */
-	protected int getLastFoodX() {
+	public int getLastFoodX() {
 		return lastFoodX;
 	}
 
@@ -88,7 +101,7 @@ public abstract class ALifeForm extends AEntity implements Serializable {
 	 * Getter for the lastFoodY value of the life form
 	 * @return Returns the lastFoodY value of the life form
 	 */
-	protected int getLastFoodY() {
+	public int getLastFoodY() {
 		return lastFoodY;
 	}
 
@@ -96,7 +109,7 @@ public abstract class ALifeForm extends AEntity implements Serializable {
 	 * Getter for the isAlive property of the life form
 	 * @return Returns the isAlive property of the life form
 	 */
-	protected boolean getIsAlive() {
+	public boolean getIsAlive() {
 		return isAlive;
 	}
 
@@ -104,7 +117,7 @@ public abstract class ALifeForm extends AEntity implements Serializable {
 	 * Getter for the ArrayList of consumes for the life form
 	 * @return Returns the ArrayList of consumes for the life form
 	 */
-	protected ArrayList<String> getConsumes() {
+	public ArrayList<String> getConsumes() {
 		return consumes;
 	}
 
@@ -112,7 +125,7 @@ public abstract class ALifeForm extends AEntity implements Serializable {
 	 * Setter for the uniqueID of the life form
 	 * @param newUniqueID The new uniqueID of the life form
 	 */
-	protected void setUniqueID(int newUniqueID) {
+	public void setUniqueID(int newUniqueID) {
 		uniqueID = newUniqueID;
 	}
 
@@ -120,7 +133,7 @@ public abstract class ALifeForm extends AEntity implements Serializable {
 	 * Setter for the name of the life form
 	 * @return newName The new name of the life form
 	 */
-	protected void setName(String newName) {
+	public void setName(String newName) {
 		name = newName;
 	}
 
@@ -128,7 +141,7 @@ public abstract class ALifeForm extends AEntity implements Serializable {
 	 * Setter for the type of the life form
 	 * @param newType The new type of the life form
 	 */
-	protected void setType(String newType) {
+	public void setType(String newType) {
 		type = newType;
 	}
 
@@ -136,7 +149,7 @@ public abstract class ALifeForm extends AEntity implements Serializable {
 	 * Setter for the energy of the life form
 	 * @param newEnergy The new energy value of the life form
 	 */
-	protected void setEnergy(int newEnergy) {
+	public void setEnergy(int newEnergy) {
 		energy = newEnergy;
 	}
 
@@ -144,7 +157,7 @@ public abstract class ALifeForm extends AEntity implements Serializable {
 	 * Setter for the lastFoodX value of the life form
 	 * @param newLastFoodX The new lastFoodX value of the life form
 	 */
-	protected void setLastFoodX(int newLastFoodX) {
+	public void setLastFoodX(int newLastFoodX) {
 		lastFoodX = newLastFoodX;
 	}
 
@@ -152,7 +165,7 @@ public abstract class ALifeForm extends AEntity implements Serializable {
 	 * Setter for the lastFoodY value of the life form
 	 * @param newLastFoodY The new lastFoodY value of the life form
 	 */
-	protected void setLastFoodY(int newLastFoodY) {
+	public void setLastFoodY(int newLastFoodY) {
 		lastFoodY = newLastFoodY;
 	}
 
@@ -160,7 +173,7 @@ public abstract class ALifeForm extends AEntity implements Serializable {
 	 * Setter for the isAlive parameter of the life form
 	 * @param newValue The new isAlive parameter of the life form
 	 */
-	protected void setIsAlive(boolean newValue) {
+	public void setIsAlive(boolean newValue) {
 		isAlive = newValue;
 	}
 }
@@ -1,9 +1,6 @@
-package uk.ac.rdg.rhys.artificiallifesimulator;
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
 
 import java.util.ArrayList;
-import java.util.Random;
-
-import javafx.scene.image.Image;
 
 /**
  * <h1>AObstacle.java</h1>
@@ -18,74 +15,80 @@ import javafx.scene.image.Image;
  */
 public class AObstacle extends AEntity {
 
-	// Create obstacle image objects
-	private Image rock = new Image(getClass().getResourceAsStream(
-			"images/rock.png"));
-	private Image tree = new Image(getClass().getResourceAsStream(
-			"images/tree.png"));
-
 	private String type;
 
 	/**
 	 * This constructor sets the coordinates of the obstacle based on the provided
-	 * parameters. The type and ImageView properties are then set to represent
-	 * either a rock or a tree by chance (50/50)
+	 * parameters. The type is then set to represent either a rock or a tree by
+	 * chance (50/50)
 	 * 
 	 * @param newX
 	 *            This is the x coordinate
 	 * @param newY
 	 *            This is the y coordinate
+	 * @param random
+	 *            The random number generator of the world
 	 */
-	protected AObstacle(int newX, int newY) {
+	protected AObstacle(int newX, int newY, EngineRandom random) {
 
 		// Set coordinates based on method input
 		x = newX;
 		y = newY;
 
 		// 50% chance of creating a rock or a tree
-		Random random = new Random();
 		if (random.nextBoolean()) {
 			type = "Rock";
-			imageView.setImage(rock);
 		} else {
 			type = "Tree";
-			imageView.setImage(tree);
 		}
+	}
 
-		// Set ImageView parameters
-		imageView.setPreserveRatio(true);
-		imageView.setCache(true);
+	/**
+	 * This constructor creates an obstacle of the given type, e.g. when a
+	 * saved world is loaded
+	 * 
+	 * @param newX
+	 *            This is the x coordinate
+	 * @param newY
+	 *            This is the y coordinate
+	 * @param newType
+	 *            The type of the obstacle, "Rock" or "Tree"
+	 */
+	protected AObstacle(int newX, int newY, String newType) {
+		x = newX;
+		y = newY;
+		type = newType;
 	}
 
 	/**
 	 * Getter for the type of the obstacle
 	 * @return Returns the type of the obstacle
 	 */
-	protected String getType() {
+	public String getType() {
 		return type;
 	}
 
 	/**
-	 * Empty method that is only implemented here because it is required by AEntity
+	 * Getter for the id of the obstacle, which is its cell code
+	 * @return Returns the cell code of an obstacle
 	 */
-	@Override
-	protected String getName() {
-		return null;
+	public int getTypeId() {
+		return CellCode.OBSTACLE;
 	}
 
 	/**
 	 * Empty method that is only implemented here because it is required by AEntity
 	 */
 	@Override
-	protected int getEnergy() {
-		return 0;
+	public String getName() {
+		return null;
 	}
 
 	/**
 	 * Empty method that is only implemented here because it is required by AEntity
 	 */
 	@Override
-	protected int getLastFoodX() {
+	public int getEnergy() {
 		return 0;
 	}
 
@@ -93,7 +96,7 @@ public class AObstacle extends AEntity {
 	 * Empty method that is only implemented here because it is required by AEntity
 	 */
 	@Override
-	protected int getLastFoodY() {
+	public int getLastFoodX() {
 		return 0;
 	}
 
@@ -101,23 +104,23 @@ public class AObstacle extends AEntity {
 	 * Empty method that is only implemented here because it is required by AEntity
 	 */
 	@Override
-	protected boolean getIsAlive() {
-		return false;
+	public int getLastFoodY() {
+		return 0;
 	}
-	
+
 	/**
 	 * Empty method that is only implemented here because it is required by AEntity
 	 */
 	@Override
-	protected boolean getDrawn() {
+	public boolean getIsAlive() {
 		return false;
 	}
-
+	
 	/**
 	 * Empty method that is only implemented here because it is required by AEntity
 	 */
 	@Override
-	protected Object getSpecies() {
+	public Object getSpecies() {
 		return null;
 	}
 
@@ -125,42 +128,42 @@ public class AObstacle extends AEntity {
 	 * Empty method that is only implemented here because it is required by AEntity
 	 */
 	@Override
-	protected void setIsAlive(boolean b) {
+	public void setIsAlive(boolean b) {
 	}
 
 	/**
 	 * Empty method that is only implemented here because it is required by AEntity
 	 */
 	@Override
-	protected void setEnergy(int parseInt) {		
+	public void setEnergy(int parseInt) {		
 	}
 	
 	/**
 	 * Empty method that is only implemented here because it is required by AEntity
 	 */
 	@Override
-	protected void setName(String text) {		 
+	public void setName(String text) {		 
 	}
 
 	/**
 	 * Empty method that is only implemented here because it is required by AEntity
 	 */
 	@Override
-	protected void setLastFoodX(int newX) {		
+	public void setLastFoodX(int newX) {		
 	}
 
 	/**
 	 * Empty method that is only implemented here because it is required by AEntity
 	 */
 	@Override
-	protected void setLastFoodY(int newY) {		
+	public void setLastFoodY(int newY) {		
 	}
 
 	/**
 	 * Empty method that is only implemented here because it is required by AEntity
 	 */
 	@Override
-	protected ArrayList<String> getConsumes() {
+	public ArrayList<String> getConsumes() {
 		return null;
 	}
 
@@ -168,7 +171,7 @@ public class AObstacle extends AEntity {
 	 * Empty method that is only implemented here because it is required by AEntity
 	 */
 	@Override
-	protected int getNutrition() {
+	public int getNutrition() {
 		return 0;
 	}
 
@@ -0,0 +1,1514 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * <h1>AWorld.java</h1>
+ * <p>
+ * This class is responsible for creating the artificial world in which the
+ * entities reside. Methods in this class perform logical operations on the
+ * world and change the attributes of entities.
+ * 
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see Entity
+ */
+public class AWorld implements Serializable {
+
+	// Define world parameters
+	private static final long serialVersionUID = -8210010531362137814L;
+	private int simulationCycles;
+	private int worldSize;
+	private int foodDensity;
+	private int objectDensity;
+	private int currentCycle;
+
+	/**
+	 * Enumerated type for the direction of the life form
+	 * 
+	 * @author Rhys
+	 */
+	public enum Direction {
+		NORTH, EAST, SOUTH, WEST, NONE
+	}
+
+	// Directions indexed by FoodDistanceField direction + 1
+	private static final Direction[] DIRECTIONS = { Direction.NONE,
+			Direction.NORTH, Direction.EAST, Direction.SOUTH, Direction.WEST };
+
+	private WorldGrid grid; // define the world as a grid of cell codes
+	private transient OccupancyIndex occupancy; // life forms in each cell
+	private transient FoodStore foodStore; // food items in each cell
+	private transient FreeCellPool freeCells; // cells with nothing in them
+	private transient FoodDistanceField foodField; // distance to each food
+	private transient FoodDistanceField.Workspace fieldWorkspace;
+	private transient EventLog eventLog = new EventLog(); // simulation events
+	private transient ChangeSet changes = new ChangeSet(); // changes to draw
+	private transient long births; // life forms added since the world was made
+	private transient long deaths; // life forms that died or were removed
+	private transient long meals; // food items and life forms eaten
+	private transient long moves; // moves made by life forms
+	private transient long collisions; // life forms or obstacles hit
+	private transient long bounces; // turns away from the edge of the world
+	private transient int unplacedObstacles; // left out by initWorld()
+	private transient int unplacedLifeForms; // left out by initWorld()
+	private EngineRandom random = new EngineRandom(); // random numbers
+
+	/**
+	 * This constructor initializes the default values of the world if no
+	 * parameters are provided
+	 */
+	public AWorld() {
+
+		// Initialize default values
+		simulationCycles = 100;
+		worldSize = 10;
+		foodDensity = 10;
+		objectDensity = 10;
+		grid = new WorldGrid(10);
+		occupancy = new OccupancyIndex(10);
+		foodStore = new FoodStore(10);
+		freeCells = new FreeCellPool(10);
+		foodField = new FoodDistanceField(grid);
+		fieldWorkspace = new FoodDistanceField.Workspace();
+	}
+
+	/**
+	 * This method sets the values of the world based on the parameters provided
+	 * 
+	 * @param userSimulationCycles
+	 *            The number of simulation cycles
+	 * @param userWorldSize
+	 *            The size of the world (dimensions)
+	 * @param userFoodDensity
+	 *            The number of food items to be generated in the world
+	 * @param userObjectDensity
+	 *            The number of object items to be generated in the world
+	 */
+	public AWorld(int userSimulationCycles, int userWorldSize,
+			int userFoodDensity, int userObjectDensity) {
+
+		// Initialize values based on method parameters
+		simulationCycles = userSimulationCycles;
+		worldSize = userWorldSize;
+		foodDensity = userFoodDensity;
+		objectDensity = userObjectDensity;
+		grid = new WorldGrid(worldSize);
+		occupancy = new OccupancyIndex(worldSize);
+		foodStore = new FoodStore(worldSize);
+		freeCells = new FreeCellPool(worldSize);
+		foodField = new FoodDistanceField(grid);
+		fieldWorkspace = new FoodDistanceField.Workspace();
+	}
+
+	/**
+	 * This method is called when configuration data is loaded from a file.
+	 * Configuration files saved before the world grid was introduced only
+	 * contain the world parameters, so an empty grid of the saved world size is
+	 * created for them. The world is repopulated by initWorld(). Files saved
+	 * before the random number generator was stored get a new generator
+	 */
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+
+		if (grid == null || grid.getSize() != worldSize) {
+			grid = new WorldGrid(worldSize);
+		}
+		occupancy = new OccupancyIndex(worldSize);
+		foodStore = new FoodStore(worldSize);
+		freeCells = new FreeCellPool(worldSize);
+		for (int y = 0; y < worldSize; y++) {
+			for (int x = 0; x < worldSize; x++) {
+				updateFreeCell(x, y, null);
+			}
+		}
+		foodField = new FoodDistanceField(grid);
+		fieldWorkspace = new FoodDistanceField.Workspace();
+		foodField.rebuild(fieldWorkspace);
+		eventLog = new EventLog();
+		changes = new ChangeSet();
+		if (random == null) {
+			random = new EngineRandom();
+		}
+	}
+
+	/**
+	 * This method generates the food item, obstacle and life form objects and
+	 * stores them in the food store or the relevant ArrayList. The food types
+	 * and obstacles are also stored in the world grid
+	 * 
+	 * @param lifeForm
+	 *            The ArrayList of life form objects
+	 * @param obstacles
+	 *            The ArrayList of obstacle objects
+	 */
+	public void initWorld(ArrayList<AEntity> lifeForm,
+			ArrayList<AEntity> obstacles) {
+
+		currentCycle = 0;
+
+		// Define temporary variables
+		int[] cells;
+		int placed;
+		int unplaced = 0;
+		int x;
+		int y;
+
+		// Blank the world grid and clear the food store and obstacles
+		grid.clear();
+		occupancy.clear();
+		foodStore.clear();
+		freeCells.fill();
+		obstacles.clear();
+
+		// Generate random food items
+		createRandomFoodItems(foodDensity);
+
+		// Generate random obstacles in free cells
+		cells = new int[objectDensity];
+		placed = freeCells.take(random, cells, objectDensity);
+		for (int i = 0; i < placed; i++) {
+			x = cells[i] % worldSize;
+			y = cells[i] / worldSize;
+
+			// add a new obstacle to the ArrayList and store in the world grid
+			obstacles.add(new AObstacle(x, y, random));
+			grid.set(x, y, CellCode.OBSTACLE);
+		}
+
+		// Generate life forms
+		for (int i = 0; i < lifeForm.size(); i++) {
+
+			// Living life forms take a free cell, dead ones only need a position
+			int cell;
+			if (lifeForm.get(i).getIsAlive()) {
+				cell = freeCells.take(random);
+			} else {
+				cell = freeCells.random(random);
+			}
+
+			// If the world is full the life form cannot be placed
+			if (cell < 0) {
+				lifeForm.get(i).setIsAlive(false);
+				unplaced++;
+				continue;
+			}
+
+			// Set life form coordinates and add it to the occupancy index
+			lifeForm.get(i).setX(cell % worldSize);
+			lifeForm.get(i).setY(cell / worldSize);
+			if (lifeForm.get(i).getIsAlive()) {
+				occupancy.occupy(lifeForm.get(i));
+			}
+		}
+
+		// Calculate the food distances now that the obstacles are placed
+		foodField.rebuild(fieldWorkspace);
+
+		// Keep the number of entities that did not fit for the caller
+		unplacedObstacles = objectDensity - placed;
+		unplacedLifeForms = unplaced;
+		return;
+	}
+
+	/**
+	 * This method rebuilds the indexes of the world once its parameters,
+	 * random number generator and grid have been loaded from a snapshot (see
+	 * SnapshotFile). The food items are added to the food store in the saved
+	 * order and the free cell pool is refilled in the saved order, so that
+	 * the loaded world makes the same random choices as the saved one would
+	 * have made
+	 * 
+	 * @param newCurrentCycle
+	 *            The current cycle of the saved world
+	 * @param foodCells
+	 *            The cell index of each food item, in food store order
+	 * @param foodCount
+	 *            The number of food items
+	 * @param lifeForms
+	 *            The life forms of the simulation, at their saved coordinates
+	 * @param freeOrder
+	 *            The free cell indexes, in pool order
+	 * @param freeCount
+	 *            The number of free cells
+	 */
+	void restore(int newCurrentCycle, int[] foodCells, int foodCount,
+			ArrayList<AEntity> lifeForms, int[] freeOrder, int freeCount) {
+		currentCycle = newCurrentCycle;
+
+		// Create the food items from the cell codes of the grid
+		foodStore.clear();
+		for (int i = 0; i < foodCount; i++) {
+			int x = foodCells[i] % worldSize;
+			int y = foodCells[i] / worldSize;
+			foodStore.add(createFoodItem(grid.get(x, y), x, y));
+		}
+
+		// Put the living life forms back in the occupancy index
+		occupancy.clear();
+		for (int i = 0; i < lifeForms.size(); i++) {
+			if (lifeForms.get(i).getIsAlive()) {
+				occupancy.occupy(lifeForms.get(i));
+			}
+		}
+
+		freeCells.clear();
+		for (int i = 0; i < freeCount; i++) {
+			freeCells.add(freeOrder[i]);
+		}
+		foodField.rebuild(fieldWorkspace);
+	}
+
+	/**
+	 * This method creates the food item object for a food cell code
+	 * 
+	 * @param code
+	 *            The cell code of the food item
+	 * @param x
+	 *            The x coordinate of the food item
+	 * @param y
+	 *            The y coordinate of the food item
+	 * @return Returns the new food item
+	 * @throws IllegalArgumentException
+	 *             If the cell code is not a food item
+	 */
+	static AEntity createFoodItem(byte code, int x, int y) {
+		switch (code) {
+		case CellCode.GRASS:
+			return new Grass(x, y);
+		case CellCode.FLOWER:
+			return new Flower(x, y);
+		case CellCode.LEAF:
+			return new Leaf(x, y);
+		case CellCode.PLANKTON:
+			return new Plankton(x, y);
+		case CellCode.MUSHROOM:
+			return new Mushroom(x, y);
+		case CellCode.BERRY:
+			return new Berry(x, y);
+		default:
+			throw new IllegalArgumentException("Not a food item: " + code);
+		}
+	}
+
+	/**
+	 * This method adds a life form to the occupancy index at its current
+	 * coordinates. It must be called whenever a life form is added to the
+	 * simulation outside of initWorld()
+	 * 
+	 * @param lifeForm
+	 *            The life form that has been added
+	 */
+	public void occupy(AEntity lifeForm) {
+		occupancy.occupy(lifeForm);
+		updateFreeCell(lifeForm.getX(), lifeForm.getY(), null);
+	}
+
+	/**
+	 * This method removes a life form from the occupancy index. It must be
+	 * called whenever a life form dies or is removed from the simulation
+	 * 
+	 * @param lifeForm
+	 *            The life form that has died or been removed
+	 */
+	public void vacate(AEntity lifeForm) {
+		vacate(lifeForm, null);
+	}
+
+	/**
+	 * This method removes a life form from the occupancy index during a
+	 * simulation cycle
+	 * 
+	 * @param lifeForm
+	 *            The life form that has died
+	 * @param context
+	 *            The context of the thread updating the life form, or null
+	 */
+	public void vacate(AEntity lifeForm, CycleContext context) {
+		occupancy.vacate(lifeForm);
+		updateFreeCell(lifeForm.getX(), lifeForm.getY(), context);
+	}
+
+	/**
+	 * This method moves a life form to new coordinates in the occupancy index
+	 * and updates the free cell pool for the cell it leaves and the cell it
+	 * enters
+	 * 
+	 * @param lifeForm
+	 *            The life form that is moving
+	 * @param newX
+	 *            The new x coordinate of the life form
+	 * @param newY
+	 *            The new y coordinate of the life form
+	 * @param type
+	 *            The change recorded for the move (MOVED or ATE)
+	 * @param context
+	 *            The context of the thread updating the life form, or null
+	 */
+	private void moveLifeForm(AEntity lifeForm, int newX, int newY,
+			ChangeType type, CycleContext context) {
+		int oldX = lifeForm.getX();
+		int oldY = lifeForm.getY();
+		occupancy.move(lifeForm, newX, newY);
+		recordChange(type, lifeForm, oldX, oldY, newX, newY, context);
+		updateFreeCell(oldX, oldY, context);
+		updateFreeCell(newX, newY, context);
+		countMove(context);
+	}
+
+	/**
+	 * This method adds a cell to the free cell pool if it is empty and not
+	 * occupied, and removes it from the pool otherwise. If the context
+	 * collects free cell pool updates the cell is only recorded, and the pool
+	 * is updated later by refreshFreeCells()
+	 * 
+	 * @param x
+	 *            The x coordinate of the cell
+	 * @param y
+	 *            The y coordinate of the cell
+	 * @param context
+	 *            The context of the thread updating the cell, or null
+	 */
+	private void updateFreeCell(int x, int y, CycleContext context) {
+		if (context != null && context.isDeferred()) {
+			context.markDirty(grid.index(x, y));
+		} else if (grid.isEmpty(x, y) && !occupancy.isOccupied(x, y)) {
+			freeCells.add(grid.index(x, y));
+		} else {
+			freeCells.remove(grid.index(x, y));
+		}
+	}
+
+	/**
+	 * This method returns the buffers used to update the food distance fields
+	 * on the thread of the context
+	 * 
+	 * @param context
+	 *            The context of the thread, or null
+	 * @return Returns the buffers of the thread
+	 */
+	private FoodDistanceField.Workspace getFieldWorkspace(CycleContext context) {
+		return context == null ? fieldWorkspace : context.getFieldWorkspace();
+	}
+
+	/**
+	 * This method records a change in the change set. During a parallel cycle
+	 * the change is recorded by the context and moved into the change set by
+	 * collectChanges() once the threads have finished
+	 * 
+	 * @param type
+	 *            The type of the change
+	 * @param entity
+	 *            The life form or food item that changed
+	 * @param oldX
+	 *            The x coordinate of the entity before the change
+	 * @param oldY
+	 *            The y coordinate of the entity before the change
+	 * @param newX
+	 *            The x coordinate of the entity after the change
+	 * @param newY
+	 *            The y coordinate of the entity after the change
+	 * @param context
+	 *            The context of the thread making the change, or null
+	 */
+	void recordChange(ChangeType type, AEntity entity, int oldX, int oldY,
+			int newX, int newY, CycleContext context) {
+		if (!changes.isEnabled()) {
+			return;
+		}
+		if (context != null && context.isDeferred()) {
+			context.getChanges().record(type, entity, oldX, oldY, newX, newY);
+		} else {
+			changes.record(type, entity, oldX, oldY, newX, newY);
+		}
+	}
+
+	/**
+	 * This method moves the changes recorded by the context into the change
+	 * set. It must only be called once the threads updating the life forms
+	 * have finished
+	 * 
+	 * @param context
+	 *            The context whose recorded changes are collected
+	 */
+	public void collectChanges(CycleContext context) {
+		if (context.hasChanges()) {
+			changes.moveFrom(context.getChanges());
+		}
+	}
+
+	/**
+	 * This method counts a life form that was added to the world
+	 * 
+	 * @param context
+	 *            The context of the thread adding the life form, or null
+	 */
+	void countBirth(CycleContext context) {
+		if (context != null && context.isDeferred()) {
+			context.countBirth();
+		} else {
+			births++;
+		}
+	}
+
+	/**
+	 * This method counts a life form that died or was removed
+	 * 
+	 * @param context
+	 *            The context of the thread, or null
+	 */
+	void countDeath(CycleContext context) {
+		if (context != null && context.isDeferred()) {
+			context.countDeath();
+		} else {
+			deaths++;
+		}
+	}
+
+	/**
+	 * This method counts a food item or life form that was eaten
+	 * 
+	 * @param context
+	 *            The context of the thread, or null
+	 */
+	void countMeal(CycleContext context) {
+		if (context != null && context.isDeferred()) {
+			context.countMeal();
+		} else {
+			meals++;
+		}
+	}
+
+	/**
+	 * This method counts a move made by a life form
+	 * 
+	 * @param context
+	 *            The context of the thread, or null
+	 */
+	private void countMove(CycleContext context) {
+		if (context != null && context.isDeferred()) {
+			context.countMove();
+		} else {
+			moves++;
+		}
+	}
+
+	/**
+	 * This method counts a life form turning away from the edge of the world
+	 * 
+	 * @param context
+	 *            The context of the thread, or null
+	 */
+	private void countBounce(CycleContext context) {
+		if (context != null && context.isDeferred()) {
+			context.countBounce();
+		} else {
+			bounces++;
+		}
+	}
+
+	/**
+	 * This method counts a life form hitting another life form or an
+	 * obstacle
+	 * 
+	 * @param context
+	 *            The context of the thread, or null
+	 */
+	private void countCollision(CycleContext context) {
+		if (context != null && context.isDeferred()) {
+			context.countCollision();
+		} else {
+			collisions++;
+		}
+	}
+
+	/**
+	 * This method adds the births, deaths, meals, moves, collisions and
+	 * boundary bounces counted by the context to the totals of the world and
+	 * then clears them. It must only be
+	 * called once the threads updating the life forms have finished
+	 * 
+	 * @param context
+	 *            The context whose counts are collected
+	 */
+	public void collectCounts(CycleContext context) {
+		births += context.getBirths();
+		deaths += context.getDeaths();
+		meals += context.getMeals();
+		moves += context.getMoves();
+		collisions += context.getCollisions();
+		bounces += context.getBounces();
+		context.clearCounts();
+	}
+
+	/**
+	 * This method updates the free cell pool for every cell recorded by the
+	 * context and then clears the recorded cells. It must only be called once
+	 * the threads updating the life forms have finished
+	 * 
+	 * @param context
+	 *            The context whose recorded cells are updated
+	 */
+	public void refreshFreeCells(CycleContext context) {
+		for (int i = 0; i < context.getDirtyCount(); i++) {
+			int index = context.getDirtyCell(i);
+			updateFreeCell(index % worldSize, index / worldSize, null);
+		}
+		context.clearDirty();
+	}
+
+	/**
+	 * This method chooses a random cell that contains nothing. The cell is
+	 * not reserved, so it must be filled before another cell is chosen
+	 * 
+	 * @return Returns the index of the cell (y * worldSize + x), or -1 if the
+	 *         world is full
+	 */
+	public int getRandomFreeCell() {
+		return freeCells.random(random);
+	}
+
+	/**
+	 * This method chooses the sense to use to look for food depending on the
+	 * current life form or species, and returns the direction of the food
+	 * found by the sense() method. A random direction is returned if no food
+	 * is found
+	 * 
+	 * If the life form is a bug, the 'feel' sense will be used. If the life
+	 * form is a herbivore, the 'sight' sense will be used. If the life form is
+	 * a carnivore, the 'smell' sense will be used.
+	 * 
+	 * @param currentLifeForm
+	 *            The life form that needs the direction of food
+	 * @return Returns the direction the life form should move in
+	 */
+	public Direction getDirectionOfFood(AEntity currentLifeForm) {
+		return getDirectionOfFood(currentLifeForm, null);
+	}
+
+	/**
+	 * This method returns the direction of food for a life form during a
+	 * simulation cycle (see getDirectionOfFood(AEntity))
+	 * 
+	 * @param currentLifeForm
+	 *            The life form that needs the direction of food
+	 * @param context
+	 *            The context of the thread updating the life form, or null
+	 * @return Returns the direction the life form should move in
+	 */
+	public Direction getDirectionOfFood(AEntity currentLifeForm,
+			CycleContext context) {
+
+		Direction direction;
+
+		// Use a different sense depending on the life form type or species
+		direction = sense(currentLifeForm, SpeciesRegistry
+				.getSenseRange(currentLifeForm.getTypeId()));
+
+		if (direction == Direction.NONE) {
+			direction = getRandomDirectionToMove(context);
+		}
+
+		return direction;
+	}
+
+	/**
+	 * This method generates a random direction by calling the
+	 * generateRandomNumber function then maps the number to the relevant
+	 * direction
+	 * 
+	 * @param context
+	 *            The context of the thread updating the life form, or null
+	 * @return Returns the random direction chosen
+	 */
+	private Direction getRandomDirectionToMove(CycleContext context) {
+
+		// Generate a random number using the thread's generator
+		EngineRandom rand = context == null ? random : context.getRandom();
+		int randomNumber = rand.nextInt(4, 1);
+
+		// Return a direction based on the random integer
+		switch (randomNumber) {
+		case 1:
+			return Direction.NORTH;
+		case 2:
+			return Direction.EAST;
+		case 3:
+			return Direction.SOUTH;
+		case 4:
+			return Direction.WEST;
+		}
+		return Direction.NONE;
+	}
+
+	/**
+	 * This method detects if the life form is about to cross the world boundary
+	 * with it's next movement and changes the direction of the movement
+	 * accordingly to prevent an array index out of bounds error
+	 * 
+	 * @param currentLifeForm
+	 *            The bug that is about to move
+	 * @param direction
+	 *            The direction the life form is about to move in
+	 * @return Returns a direction that keeps the life form inside the world
+	 */
+	public Direction protectBoundaries(AEntity currentLifeForm,
+			Direction direction) {
+		return protectBoundaries(currentLifeForm, direction, null);
+	}
+
+	/**
+	 * This method keeps the life form inside the world during a simulation
+	 * cycle (see protectBoundaries(AEntity, Direction))
+	 * 
+	 * @param currentLifeForm
+	 *            The bug that is about to move
+	 * @param direction
+	 *            The direction the life form is about to move in
+	 * @param context
+	 *            The context of the thread updating the life form, or null
+	 * @return Returns a direction that keeps the life form inside the world
+	 */
+	public Direction protectBoundaries(AEntity currentLifeForm,
+			Direction direction, CycleContext context) {
+
+		// Define temporary variables
+		int x = currentLifeForm.getX();
+		int y = currentLifeForm.getY();
+
+		/*
+		 * While a bug is about to cross a boundary with it's next movement,
+		 * select a different direction to move randomly
+		 */
+		while (((x < 1) && (direction == Direction.WEST))
+				|| ((x > worldSize - 2) && (direction == Direction.EAST))
+				|| ((y < 1) && (direction == Direction.NORTH))
+				|| ((y > worldSize - 2) && (direction == Direction.SOUTH))) {
+			direction = getRandomDirectionToMove(context);
+			countBounce(context);
+			if (eventLog.isEnabled(EventType.BOUNDARY)) {
+				eventLog.record(EventType.BOUNDARY, currentCycle,
+						EventLog.idOf(currentLifeForm), x, y, 0);
+			}
+		}
+		return direction;
+	}
+
+	/**
+	 * This method senses for food in all directions. The strength of the
+	 * sensing is determined by the senseType parameter.
+	 * 
+	 * Feel is the weakest strength and Smell is the strongest sense, with sight
+	 * in the middle. Feel reaches 1 cell, sight 2 cells and smell 4 cells
+	 * 
+	 * Herbivores look up the direction of the nearest food item in their diet
+	 * in the food distance fields, which measure the number of moves to the
+	 * food item around obstacles. Carnivores look for prey in a straight line
+	 * in each direction, and stop looking if they find an obstacle
+	 * 
+	 * @param currentLifeForm
+	 *            The life form that is currently smelling for food
+	 * @param senseType
+	 *            The type of sensing to be performed
+	 * @return Returns the relevant direction if food is found in that
+	 *         direction. Returns NONE if no food is found in any direction
+	 */
+	Direction sense(AEntity currentLifeForm, String senseType) {
+		int maxSensingDist = 0;
+
+		switch (senseType) {
+		case "feel":
+			maxSensingDist = 1;
+			break;
+		case "sight":
+			maxSensingDist = 2;
+			break;
+		case "smell":
+			maxSensingDist = 4;
+			break;
+		}
+		return sense(currentLifeForm, maxSensingDist);
+	}
+
+	/**
+	 * This method senses for food up to a number of cells away from the life
+	 * form (see sense(AEntity, String)). Whether the life form looks for food
+	 * items or prey, and what it can eat, comes from the SpeciesRegistry
+	 * 
+	 * @param currentLifeForm
+	 *            The life form that is currently sensing for food
+	 * @param maxSensingDist
+	 *            The number of cells the life form can sense food from
+	 * @return Returns the relevant direction if food is found in that
+	 *         direction. Returns NONE if no food is found in any direction
+	 */
+	private Direction sense(AEntity currentLifeForm, int maxSensingDist) {
+
+		// Define temporary variables
+		int x = currentLifeForm.getX();
+		int y = currentLifeForm.getY();
+		int newX;
+		int newY;
+		byte cell;
+		AEntity prey;
+		int typeId = currentLifeForm.getTypeId();
+		int dietMask = SpeciesRegistry.getDiet(typeId);
+
+		// Herbivores look up the direction of their food in the food fields
+		if (!SpeciesRegistry.isCarnivore(typeId)) {
+			int direction = foodField.directionOfFood(x, y, dietMask,
+					maxSensingDist);
+			if (direction != FoodDistanceField.NONE
+					&& eventLog.isEnabled(EventType.SENSED_FOOD)) {
+				int food = foodField.locateFood(x, y, dietMask,
+						maxSensingDist);
+				eventLog.record(EventType.SENSED_FOOD, currentCycle,
+						EventLog.idOf(currentLifeForm), food % worldSize, food
+								/ worldSize, grid.get(food % worldSize, food
+								/ worldSize));
+			}
+			return DIRECTIONS[direction + 1];
+		}
+
+		// Carnivores check for prey in every direction up to maxSensingDist
+		for (int i = 1; i <= maxSensingDist; i++) {
+
+			// Check to the North
+			if (y - i >= 0) {
+
+				// Set new coordinates to North of current Position
+				newX = x;
+				newY = y - i;
+
+				/*
+				 * If the current life form is a carnivore - search for other
+				 * life forms
+				 */
+				prey = occupancy.get(newX, newY);
+				if (prey != null
+						&& SpeciesRegistry.inDiet(dietMask, prey.getTypeId())) {
+					if (eventLog.isEnabled(EventType.SENSED_PREY)) {
+						eventLog.record(EventType.SENSED_PREY, currentCycle,
+								EventLog.idOf(currentLifeForm), newX, newY,
+								EventLog.idOf(prey));
+					}
+					return Direction.NORTH;
+				}
+
+				cell = grid.get(newX, newY);
+
+				/*
+				 * If the new location contains an obstacle - Don't return this
+				 * direction
+				 */
+				if (cell == CellCode.OBSTACLE) {
+					return Direction.NONE;
+				}
+			}
+
+			// Check to the East
+			if (x + i < worldSize) {
+
+				// Set new coordinates to East of current position
+				newX = x + i;
+				newY = y;
+
+				/*
+				 * If the current life form is a carnivore - search for other
+				 * life forms
+				 */
+				prey = occupancy.get(newX, newY);
+				if (prey != null
+						&& SpeciesRegistry.inDiet(dietMask, prey.getTypeId())) {
+					if (eventLog.isEnabled(EventType.SENSED_PREY)) {
+						eventLog.record(EventType.SENSED_PREY, currentCycle,
+								EventLog.idOf(currentLifeForm), newX, newY,
+								EventLog.idOf(prey));
+					}
+					return Direction.EAST;
+				}
+
+				cell = grid.get(newX, newY);
+
+				/*
+				 * If the new location contains an obstacle - Don't return this
+				 * direction
+				 */
+				if (cell == CellCode.OBSTACLE) {
+					return Direction.NONE;
+				}
+			}
+
+			// Check to the South
+			if (y + i < worldSize) {
+
+				// Set new coordinates to South of current position
+				newX = x;
+				newY = y + i;
+
+				/*
+				 * If the current life form is a carnivore - search for other
+				 * life forms
+				 */
+				prey = occupancy.get(newX, newY);
+				if (prey != null
+						&& SpeciesRegistry.inDiet(dietMask, prey.getTypeId())) {
+					if (eventLog.isEnabled(EventType.SENSED_PREY)) {
+						eventLog.record(EventType.SENSED_PREY, currentCycle,
+								EventLog.idOf(currentLifeForm), newX, newY,
+								EventLog.idOf(prey));
+					}
+					return Direction.SOUTH;
+				}
+
+				cell = grid.get(newX, newY);
+
+				/*
+				 * If the new location contains an obstacle - Don't return this
+				 * direction
+				 */
+				if (cell == CellCode.OBSTACLE) {
+					return Direction.NONE;
+				}
+			}
+
+			// Check to the West
+			if (x - i >= 0) {
+
+				// Set new coordinates to West of current position
+				newX = x - i;
+				newY = y;
+
+				/*
+				 * If the current life form is a carnivore - search for other
+				 * life forms
+				 */
+				prey = occupancy.get(newX, newY);
+				if (prey != null
+						&& SpeciesRegistry.inDiet(dietMask, prey.getTypeId())) {
+					if (eventLog.isEnabled(EventType.SENSED_PREY)) {
+						eventLog.record(EventType.SENSED_PREY, currentCycle,
+								EventLog.idOf(currentLifeForm), newX, newY,
+								EventLog.idOf(prey));
+					}
+					return Direction.WEST;
+				}
+
+				cell = grid.get(newX, newY);
+
+				/*
+				 * If the new location contains an obstacle - Don't return this
+				 * direction
+				 */
+				if (cell == CellCode.OBSTACLE) {
+					return Direction.NONE;
+				}
+			}
+		}
+		return Direction.NONE;
+	}
+
+	/**
+	 * This method moves the bug in the specified direction if possible and
+	 * returns the value that the energy of the bug should be changed by. The
+	 * current life form's movement is calculated by the moveLogic() helper
+	 * method
+	 * 
+	 * @param currentLifeForm
+	 *            The life form that is currently being moved
+	 * @param direction
+	 *            The direction to move in
+	 * @return Returns the change in the life form's energy level
+	 */
+	public int move(AEntity currentLifeForm, Direction direction) {
+		return move(currentLifeForm, direction, null);
+	}
+
+	/**
+	 * This method moves the life form during a simulation cycle (see
+	 * move(AEntity, Direction))
+	 * 
+	 * @param currentLifeForm
+	 *            The life form that is currently being moved
+	 * @param direction
+	 *            The direction to move in
+	 * @param context
+	 *            The context of the thread updating the life form, or null
+	 * @return Returns the change in the life form's energy level
+	 */
+	public int move(AEntity currentLifeForm, Direction direction,
+			CycleContext context) {
+
+		// Define temporary variables
+		int x = currentLifeForm.getX();
+		int y = currentLifeForm.getY();
+		int newX;
+		int newY;
+
+		switch (direction) {
+
+		case NORTH:
+			// Set new coordinates to North of current position
+			newX = x;
+			newY = y - 1;
+			return moveLogic(currentLifeForm, newX, newY, context);
+
+		case EAST:
+			// Set new coordinates to East of current position
+			newX = x + 1;
+			newY = y;
+			return moveLogic(currentLifeForm, newX, newY, context);
+
+		case SOUTH:
+			// Set new coordinates to East of current position
+			newX = x;
+			newY = y + 1;
+			return moveLogic(currentLifeForm, newX, newY, context);
+
+		case WEST:
+			// Set new coordinates to West of current position
+			newX = x - 1;
+			newY = y;
+			return moveLogic(currentLifeForm, newX, newY, context);
+
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * This method is a helper method for the move() method. This method
+	 * calculates if and how the life form should move based on the presence of
+	 * food items, other bugs, and obstacles.
+	 * 
+	 * This order of precedence is used in the logic to move into the next
+	 * position: 
+	 * <p>If the life form is a carnivore it will try and eat a life form
+	 * <p>If the life form collides with another life form then it will lose energy 
+	 * <p>If the life form is a herbivore it will try and eat a food item 
+	 * <p>If the life form collides with an obstacle then it will lose energy 
+	 * <p>If the there is nothing in the position then the life form will not lose or gain
+	 * energy
+	 * 
+	 * The life form at the new position is found using the occupancy index,
+	 * which is kept up to date as life forms move and are eaten
+	 * 
+	 * @param currentLifeForm
+	 *            The life form that is currently being moved
+	 * @param newX
+	 *            The x coordinate of the life form once it has moved
+	 * @param newY
+	 *            The y coordinate of the life form once it has moved
+	 * @return Returns the change in the life form's energy level
+	 */
+	int moveLogic(AEntity currentLifeForm, int newX, int newY) {
+		return moveLogic(currentLifeForm, newX, newY, null);
+	}
+
+	/**
+	 * This method moves the life form to the new position during a simulation
+	 * cycle (see moveLogic(AEntity, int, int)). The food store is shared by
+	 * every thread, so food items are removed from it while holding its lock
+	 * 
+	 * @param currentLifeForm
+	 *            The life form that is currently being moved
+	 * @param newX
+	 *            The x coordinate of the life form once it has moved
+	 * @param newY
+	 *            The y coordinate of the life form once it has moved
+	 * @param context
+	 *            The context of the thread updating the life form, or null
+	 * @return Returns the change in the life form's energy level
+	 */
+	int moveLogic(AEntity currentLifeForm, int newX, int newY,
+			CycleContext context) {
+
+		int energy; // temporary energy variable
+		byte cell = grid.get(newX, newY); // contents of the new position
+		AEntity other = occupancy.get(newX, newY); // life form in new position
+		int typeId = currentLifeForm.getTypeId(); // species of the life form
+
+		// If the current life form is a carnivore
+		if (SpeciesRegistry.isCarnivore(typeId) && other != null) {
+
+			// If the current life form can eat the other life form
+			if (SpeciesRegistry.canEat(typeId, other.getTypeId())) {
+
+				// Store the other life form's energy in the variable
+				energy = other.getEnergy();
+
+				// Remove (kill) the other life form
+				other.setIsAlive(false);
+				vacate(other, context);
+				recordChange(ChangeType.DIED, other, newX, newY, newX, newY,
+						context);
+				countDeath(context);
+				countMeal(context);
+				if (eventLog.isEnabled(EventType.ATE_LIFE_FORM)) {
+					eventLog.record(EventType.ATE_LIFE_FORM, currentCycle,
+							EventLog.idOf(currentLifeForm), newX, newY,
+							EventLog.idOf(other));
+				}
+
+				// Update current life form position
+				moveLifeForm(currentLifeForm, newX, newY, ChangeType.ATE,
+						context);
+				currentLifeForm.setLastFoodX(newX);
+				currentLifeForm.setLastFoodY(newY);
+				return energy;
+			}
+		}
+
+		// If the current life form collides with another life form
+		if (other != null) {
+			countCollision(context);
+			if (eventLog.isEnabled(EventType.HIT_LIFE_FORM)) {
+				eventLog.record(EventType.HIT_LIFE_FORM, currentCycle,
+						EventLog.idOf(currentLifeForm), newX, newY,
+						EventLog.idOf(other));
+			}
+			return -1;
+		}
+
+		// If the current life form is a herbivore
+		if (!SpeciesRegistry.isCarnivore(typeId)) {
+
+			// If the current life form can eat the food item
+			if (SpeciesRegistry.canEat(typeId, cell)) {
+				// Remove the food item in the new position from the store
+				AEntity food;
+				synchronized (foodStore) {
+					food = foodStore.remove(newX, newY);
+				}
+				if (food != null) {
+
+					// Store the food's nutrition in the energy variable
+					energy = SpeciesRegistry.getEnergyGain(typeId, cell);
+					if (eventLog.isEnabled(EventType.ATE_FOOD)) {
+						eventLog.record(EventType.ATE_FOOD, currentCycle,
+								EventLog.idOf(currentLifeForm), newX, newY,
+								cell);
+					}
+
+					// Update current life form position
+					moveLifeForm(currentLifeForm, newX, newY,
+							ChangeType.ATE, context);
+					recordChange(ChangeType.FOOD_CONSUMED, food, newX, newY,
+							newX, newY, context);
+					countMeal(context);
+					currentLifeForm.setLastFoodX(newX);
+					currentLifeForm.setLastFoodY(newY);
+					grid.set(newX, newY, CellCode.EMPTY);
+					foodField.removeFood(cell, newX, newY,
+							getFieldWorkspace(context));
+					return energy;
+				}
+			}
+		}
+
+		// If the current life form hits an obstacle
+		if (cell == CellCode.OBSTACLE) {
+			countCollision(context);
+			if (eventLog.isEnabled(EventType.HIT_OBSTACLE)) {
+				eventLog.record(EventType.HIT_OBSTACLE, currentCycle,
+						EventLog.idOf(currentLifeForm), newX, newY, 0);
+			}
+			return -1;
+		} else {
+
+			// Move into free space
+			moveLifeForm(currentLifeForm, newX, newY, ChangeType.MOVED,
+					context);
+			if (eventLog.isEnabled(EventType.MOVED)) {
+				eventLog.record(EventType.MOVED, currentCycle,
+						EventLog.idOf(currentLifeForm), newX, newY, 0);
+			}
+			return 0;
+		}
+	}
+
+	/**
+	 * This method generates a new food item based on a defined probability of
+	 * generating each food item. The probabilities are detailed below:
+	 * 
+	 * Grass - 25%
+	 * Flower - 15%
+	 * Leaf - 25%
+	 * Plankton - 15%
+	 * Mushroom - 10%
+	 * Berry - 10%
+	 * 
+	 * The new food item is added to the food store and the world grid. It is
+	 * placed in a random free cell, and no food item is created if the world
+	 * is full
+	 * 
+	 * @return Returns true if a food item was created
+	 */
+	public boolean createRandomFoodItem() {
+
+		// Define temporary variables
+		int x;
+		int y;
+		int cell;
+		int randomFood;
+		AEntity food = null;
+
+		// Choose a random free cell
+		cell = freeCells.random(random);
+		if (cell < 0) {
+			return false;
+		}
+		x = cell % worldSize;
+		y = cell / worldSize;
+
+		// Generate random number between 1 and 100
+		randomFood = generateRandomNumber(100, 1);
+
+		// Add a new food number based on the result
+		if (randomFood > 0 && randomFood < 25) {
+			food = new Grass(x, y);
+		}
+		if (randomFood > 24 && randomFood < 40) {
+			food = new Flower(x, y);
+		}
+		if (randomFood > 39 && randomFood < 65) {
+			food = new Leaf(x, y);
+		}
+		if (randomFood > 64 && randomFood < 80) {
+			food = new Plankton(x, y);
+		}
+		if (randomFood > 79 && randomFood < 90) {
+			food = new Mushroom(x, y);
+		}
+		if (randomFood > 89 && randomFood < 100) {
+			food = new Berry(x, y);
+		}
+
+		// Store the new food item in the food store and the world grid
+		if (food != null) {
+			foodStore.add(food);
+			grid.set(x, y, (byte) food.getTypeId());
+			freeCells.remove(cell);
+			foodField.addFood(grid.get(x, y), x, y, fieldWorkspace);
+			recordChange(ChangeType.FOOD_ADDED, food, x, y, x, y, null);
+			if (eventLog.isEnabled(EventType.FOOD_ADDED)) {
+				eventLog.record(EventType.FOOD_ADDED, currentCycle, -1, x, y,
+						grid.get(x, y));
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * This method removes the food item at the given coordinates from the
+	 * food store and the world grid
+	 * 
+	 * @param x
+	 *            The x coordinate of the food item
+	 * @param y
+	 *            The y coordinate of the food item
+	 * @return Returns the food item that was removed, or null if there was no
+	 *         food item at the coordinates
+	 */
+	public AEntity removeFoodItem(int x, int y) {
+		AEntity food = foodStore.remove(x, y);
+		if (food != null) {
+			byte code = grid.get(x, y);
+			grid.set(x, y, CellCode.EMPTY);
+			updateFreeCell(x, y, null);
+			foodField.removeFood(code, x, y, fieldWorkspace);
+			recordChange(ChangeType.FOOD_CONSUMED, food, x, y, x, y, null);
+		}
+		return food;
+	}
+
+	/**
+	 * This method creates many food items in one call by calling
+	 * createRandomFoodItem() until count food items have been created or the
+	 * world is full
+	 * 
+	 * @param count
+	 *            The number of food items to create
+	 * @return Returns the number of food items created
+	 */
+	public int createRandomFoodItems(int count) {
+		int created = 0;
+		int attempts = 0;
+
+		/*
+		 * Each attempt has a small chance of creating no food item, so allow
+		 * extra attempts before giving up
+		 */
+		while (created < count && freeCells.size() > 0
+				&& attempts < count * 2 + 16) {
+			if (createRandomFoodItem()) {
+				created++;
+			}
+			attempts++;
+		}
+		return created;
+	}
+
+	/**
+	 * Generate a random number between the lower boundary and the upper
+	 * boundary
+	 * 
+	 * @param max
+	 *            The upper boundary
+	 * @param min
+	 *            The lower boundary
+	 * @return Return the generated random number
+	 */
+	public int generateRandomNumber(int max, int min) {
+		return random.nextInt(max, min);
+	}
+
+	/**
+	 * Resets the current simulation cycle counter to 0
+	 */
+	public void resetCurrentCycle() {
+		currentCycle = 0;
+	}
+	
+	/**
+	 * Increments the current simulation cycle counter
+	 */
+	public void incrementCurrentCycle() {
+		currentCycle++;
+	}
+
+	/**
+	 * Getter for the number of simulation cycles
+	 * @return Returns the number of simulation cycles
+	 */
+	public int getSimulationCycles() {
+		return simulationCycles;
+	}
+
+	/**
+	 * Getter for the world size
+	 * @return Returns the world size
+	 */
+	public int getWorldSize() {
+		return worldSize;
+	}
+
+	/**
+	 * Getter for the world grid
+	 * @return Returns the world grid
+	 */
+	public WorldGrid getGrid() {
+		return grid;
+	}
+
+	/**
+	 * Getter for the food store
+	 * @return Returns the food store
+	 */
+	public FoodStore getFoodStore() {
+		return foodStore;
+	}
+
+	/**
+	 * Getter for the event log
+	 * @return Returns the event log
+	 */
+	public EventLog getEventLog() {
+		return eventLog;
+	}
+
+	/**
+	 * Getter for the random number generator
+	 * @return Returns the random number generator
+	 */
+	public EngineRandom getRandom() {
+		return random;
+	}
+
+	/**
+	 * Getter for the free cell pool
+	 * @return Returns the free cell pool
+	 */
+	public FreeCellPool getFreeCells() {
+		return freeCells;
+	}
+
+	/**
+	 * Getter for the food distance fields
+	 * @return Returns the food distance fields
+	 */
+	public FoodDistanceField getFoodField() {
+		return foodField;
+	}
+
+	/**
+	 * Getter for the food density
+	 * @return Returns the food density
+	 */
+	public int getFoodDensity() {
+		return foodDensity;
+	}
+
+	/**
+	 * Getter for the object density
+	 * @return Returns the object density
+	 */
+	public int getObjectDensity() {
+		return objectDensity;
+	}
+
+	/**
+	 * Getter for the current simulation cycle
+	 * @return Returns the current simulation cycle
+	 */
+	public int getCurrentCycle() {
+		return currentCycle;
+	}
+
+	/**
+	 * Setter for the number of simulation cycles
+	 * @param newSimulationCycles The new number of simulation cycles
+	 */
+	public void setSimulationCycles(int newSimulationCycles) {
+		simulationCycles = newSimulationCycles;
+	}
+
+	/** 
+	 * Setter for the world size
+	 * @param newWorldSize The new world size
+	 */
+	public void setWorldSize(int newWorldSize) {
+		worldSize = newWorldSize;
+		grid = new WorldGrid(newWorldSize);
+		occupancy = new OccupancyIndex(newWorldSize);
+		foodStore = new FoodStore(newWorldSize);
+		freeCells = new FreeCellPool(newWorldSize);
+		foodField = new FoodDistanceField(grid);
+	}
+
+	/**
+	 * Setter for the event log
+	 * @param newEventLog The new event log
+	 */
+	public void setEventLog(EventLog newEventLog) {
+		eventLog = newEventLog;
+	}
+
+	/**
+	 * Setter for the change set
+	 * @param newChanges The new change set
+	 */
+	public void setChangeSet(ChangeSet newChanges) {
+		changes = newChanges;
+	}
+
+	/**
+	 * Getter for the change set
+	 * @return Returns the change set of the world
+	 */
+	public ChangeSet getChangeSet() {
+		return changes;
+	}
+
+	/**
+	 * Getter for the number of obstacles that initWorld() could not place
+	 * because the world was full
+	 * @return Returns the number of unplaced obstacles
+	 */
+	public int getUnplacedObstacles() {
+		return unplacedObstacles;
+	}
+
+	/**
+	 * Getter for the number of life forms that initWorld() could not place
+	 * because the world was full. These life forms are dead
+	 * @return Returns the number of unplaced life forms
+	 */
+	public int getUnplacedLifeForms() {
+		return unplacedLifeForms;
+	}
+
+	/**
+	 * Getter for the number of life forms added since the world was created
+	 * @return Returns the number of births
+	 */
+	public long getBirths() {
+		return births;
+	}
+
+	/**
+	 * Getter for the number of life forms that died or were removed since the
+	 * world was created
+	 * @return Returns the number of deaths
+	 */
+	public long getDeaths() {
+		return deaths;
+	}
+
+	/**
+	 * Getter for the number of food items and life forms eaten since the
+	 * world was created
+	 * @return Returns the number of meals
+	 */
+	public long getMeals() {
+		return meals;
+	}
+
+	/**
+	 * Getter for the number of moves made by life forms since the world was
+	 * created
+	 * @return Returns the number of moves
+	 */
+	public long getMoves() {
+		return moves;
+	}
+
+	/**
+	 * Getter for the number of times a life form hit another life form or an
+	 * obstacle since the world was created
+	 * @return Returns the number of collisions
+	 */
+	public long getCollisions() {
+		return collisions;
+	}
+
+	/**
+	 * Getter for the number of times a life form turned away from the edge of
+	 * the world since the world was created
+	 * @return Returns the number of boundary bounces
+	 */
+	public long getBoundaryBounces() {
+		return bounces;
+	}
+
+	/**
+	 * Setter for the random number generator. Setting a generator created
+	 * from a fixed seed before initWorld() makes the simulation reproducible
+	 * @param newRandom The new random number generator
+	 */
+	public void setRandom(EngineRandom newRandom) {
+		random = newRandom;
+	}
+
+	/**
+	 * Setter for the food density
+	 * @param newFoodDensity The new food density
+	 */
+	public void setFoodDensity(int newFoodDensity) {
+		foodDensity = newFoodDensity;
+	}
+
+	/**
+	 * Setter for the object density
+	 * @param newObjectDensity The new object density
+	 */
+	public void setObjectDensity(int newObjectDensity) {
+		objectDensity = newObjectDensity;
+	}
+}
\ No newline at end of file
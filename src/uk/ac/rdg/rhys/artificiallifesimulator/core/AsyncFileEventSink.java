@@ -0,0 +1,198 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * <h1>AsyncFileEventSink.java</h1>
+ * <p>
+ * This class writes events to a text file on a background thread. Events are
+ * copied into a bounded queue of primitive arrays and the writer thread
+ * formats and writes them, so the simulation never waits for the file. If the
+ * queue is full the event is dropped and counted instead of blocking the
+ * simulation; the number of dropped events is written at the end of the file
+ * when the sink is closed
+ * 
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see EventLog
+ */
+public class AsyncFileEventSink implements EventSink {
+
+	private static final EventType[] TYPES = EventType.values();
+
+	private final int capacity;
+	private final byte[] types;
+	private final int[] cycles;
+	private final int[] ids;
+	private final int[] xs;
+	private final int[] ys;
+	private final int[] values;
+	private int head; // index of the oldest queued event
+	private int size; // number of queued events
+	private long dropped; // number of events dropped because the queue was full
+	private boolean closed;
+
+	private final Writer out;
+	private final Thread writer;
+	private IOException error; // first error raised by the writer thread
+
+	/**
+	 * This constructor opens the file and starts the writer thread
+	 * 
+	 * @param filePath
+	 *            The path of the file to write to
+	 * @param newCapacity
+	 *            The maximum number of events waiting to be written
+	 * @throws IOException
+	 *             If the file cannot be opened
+	 */
+	public AsyncFileEventSink(String filePath, int newCapacity)
+			throws IOException {
+		if (newCapacity < 1) {
+			throw new IllegalArgumentException("Invalid capacity: "
+					+ newCapacity);
+		}
+		capacity = newCapacity;
+		types = new byte[capacity];
+		cycles = new int[capacity];
+		ids = new int[capacity];
+		xs = new int[capacity];
+		ys = new int[capacity];
+		values = new int[capacity];
+
+		out = new BufferedWriter(new FileWriter(filePath));
+		writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeEvents();
+			}
+		}, "event-log-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	@Override
+	public synchronized void event(EventType type, int cycle, int id, int x,
+			int y, int value) {
+		if (closed || size == capacity) {
+			dropped++;
+			return;
+		}
+		int i = (head + size) % capacity;
+		types[i] = (byte) type.ordinal();
+		cycles[i] = cycle;
+		ids[i] = id;
+		xs[i] = x;
+		ys[i] = y;
+		values[i] = value;
+		if (size++ == 0) {
+			notify();
+		}
+	}
+
+	/**
+	 * This method is run by the writer thread. It takes the queued events in
+	 * batches and writes them to the file until the sink is closed and the
+	 * queue is empty
+	 */
+	private void writeEvents() {
+
+		// Define temporary variables
+		int batchSize = Math.min(capacity, 1024);
+		byte[] batchTypes = new byte[batchSize];
+		int[] batch = new int[batchSize * 5];
+		StringBuilder text = new StringBuilder();
+		int count;
+
+		try {
+			while (true) {
+
+				// Copy a batch of events out of the queue
+				synchronized (this) {
+					while (size == 0 && !closed) {
+						wait();
+					}
+					if (size == 0) {
+						break;
+					}
+					count = Math.min(size, batchSize);
+					for (int n = 0; n < count; n++) {
+						int i = (head + n) % capacity;
+						batchTypes[n] = types[i];
+						batch[n * 5] = cycles[i];
+						batch[n * 5 + 1] = ids[i];
+						batch[n * 5 + 2] = xs[i];
+						batch[n * 5 + 3] = ys[i];
+						batch[n * 5 + 4] = values[i];
+					}
+					head = (head + count) % capacity;
+					size -= count;
+				}
+
+				// Format and write the batch without holding the lock
+				for (int n = 0; n < count; n++) {
+					text.setLength(0);
+					TYPES[batchTypes[n]].format(text, batch[n * 5],
+							batch[n * 5 + 1], batch[n * 5 + 2],
+							batch[n * 5 + 3], batch[n * 5 + 4]);
+					text.append('\n');
+					out.append(text);
+				}
+			}
+			synchronized (this) {
+				if (dropped > 0) {
+					out.write(dropped + " events dropped\n");
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			error = e;
+		} finally {
+			try {
+				out.close();
+			} catch (IOException e) {
+				if (error == null) {
+					error = e;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Getter for the number of events dropped because the queue was full
+	 * @return Returns the number of dropped events
+	 */
+	public synchronized long getDropped() {
+		return dropped;
+	}
+
+	/**
+	 * Getter for the error raised while writing the file
+	 * @return Returns the error, or null if the file was written successfully
+	 */
+	public IOException getError() {
+		return error;
+	}
+
+	/**
+	 * This method stops accepting events, waits for the queued events to be
+	 * written and closes the file
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			closed = true;
+			notify();
+		}
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -1,9 +1,7 @@
-package uk.ac.rdg.rhys.artificiallifesimulator;
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
 
 import java.util.ArrayList;
 
-import javafx.scene.image.Image;
-
 /**
  * <h1>Berry.java</h1>
  * <p>
@@ -17,9 +15,6 @@ import javafx.scene.image.Image;
  */
 public class Berry extends AFoodItem {
 
-	private Image image = new Image(getClass().getResourceAsStream(
-			"images/berry.png"));
-
 	public Berry(int initialX, int initialY) {
 
 		// Set food item parameters
@@ -27,12 +22,6 @@ public class Berry extends AFoodItem {
 		nutrition = -3;
 		x = initialX;
 		y = initialY;
-		drawn = false;
-
-		// Set ImageView parameters
-		imageView.setImage(image);
-		imageView.setPreserveRatio(true);
-		imageView.setCache(true);
 	}
 
 	/**
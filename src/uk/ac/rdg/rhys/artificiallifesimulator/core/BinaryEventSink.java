@@ -0,0 +1,290 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <h1>BinaryEventSink.java</h1>
+ * <p>
+ * This class appends events to a binary event log on a background thread, so
+ * that a run can be replayed by an EventLogPlayer without running the
+ * simulation again. Every event is a fixed-width record of RECORD_SIZE bytes
+ * (little endian):
+ *<p> type - ordinal of the EventType (1 byte)
+ *<p> cycle, id, x, y, value - as described in EventType (4 bytes each)
+ *
+ * The file starts with a HEADER_SIZE byte header holding the magic number,
+ * the version and the record size. An existing log is appended to, so a run
+ * continued with --load or --resume adds its events to the same log; a
+ * record left incomplete by a crash is cut off first.
+ *
+ * Events are copied into a bounded queue of records and the writer thread
+ * writes them to the file in large blocks. Unlike AsyncFileEventSink no event
+ * is ever dropped, as a replay needs every one of them: if the queue is full
+ * the recording thread waits for the writer, and the number of waits is
+ * counted
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see EventLogPlayer
+ */
+public class BinaryEventSink implements EventSink {
+
+	/**
+	 * The first four bytes of an event log ("ALEL")
+	 */
+	public static final int MAGIC = 0x4c454c41;
+
+	/**
+	 * The version of the event log format
+	 */
+	public static final short VERSION = 1;
+
+	/**
+	 * The number of bytes in the header of an event log
+	 */
+	public static final int HEADER_SIZE = 16;
+
+	/**
+	 * The number of bytes in every event record
+	 */
+	public static final int RECORD_SIZE = 21;
+
+	private static final int BLOCK_SIZE = 65536 / RECORD_SIZE * RECORD_SIZE;
+	private static final long FLUSH_MILLIS = 20;
+
+	private final int capacity;
+	private final int batchSize; // number of records that wake the writer
+	private final ByteBuffer queue; // capacity records, used as a ring
+	private int head; // index of the oldest queued record
+	private int size; // number of queued records
+	private long written; // number of records written
+	private long waits; // number of times the queue was full
+	private boolean closed;
+
+	private final FileChannel channel;
+	private final Thread writer;
+	private IOException error; // first error raised by the writer thread
+
+	/**
+	 * This constructor opens the log, creating it if it does not exist, and
+	 * starts the writer thread
+	 *
+	 * @param filePath
+	 *            The path of the log
+	 * @param newCapacity
+	 *            The maximum number of events waiting to be written
+	 * @throws IOException
+	 *             If the file cannot be opened or is not an event log
+	 */
+	public BinaryEventSink(String filePath, int newCapacity)
+			throws IOException {
+		if (newCapacity < 1) {
+			throw new IllegalArgumentException("Invalid capacity: "
+					+ newCapacity);
+		}
+		capacity = newCapacity;
+		batchSize = Math.min(capacity, BLOCK_SIZE / RECORD_SIZE);
+		queue = ByteBuffer.allocate(capacity * RECORD_SIZE).order(
+				ByteOrder.LITTLE_ENDIAN);
+
+		channel = FileChannel.open(Paths.get(filePath),
+				StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			openLog();
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+
+		writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeEvents();
+			}
+		}, "event-log-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * This method writes the header of a new log, or checks the header of an
+	 * existing log and moves to its end
+	 *
+	 * @throws IOException
+	 *             If the file is not an event log
+	 */
+	private void openLog() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(
+				ByteOrder.LITTLE_ENDIAN);
+		long length = channel.size();
+
+		if (length == 0) {
+			header.putInt(MAGIC).putShort(VERSION)
+					.putShort((short) RECORD_SIZE).flip();
+			header.limit(HEADER_SIZE);
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+			return;
+		}
+
+		EventLogPlayer.readHeader(channel, header);
+
+		// Cut off a record that was only partly written
+		long records = (length - HEADER_SIZE) / RECORD_SIZE;
+		long end = HEADER_SIZE + records * RECORD_SIZE;
+		if (end < length) {
+			channel.truncate(end);
+		}
+		channel.position(end);
+	}
+
+	@Override
+	public synchronized void event(EventType type, int cycle, int id, int x,
+			int y, int value) {
+		while (size == capacity && !closed) {
+			waits++;
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+		if (closed) {
+			return;
+		}
+		int i = ((head + size) % capacity) * RECORD_SIZE;
+		queue.put(i, (byte) type.ordinal());
+		queue.putInt(i + 1, cycle);
+		queue.putInt(i + 5, id);
+		queue.putInt(i + 9, x);
+		queue.putInt(i + 13, y);
+		queue.putInt(i + 17, value);
+		if (++size == batchSize) {
+			notifyAll();
+		}
+	}
+
+	/**
+	 * This method is run by the writer thread. It copies the queued records
+	 * into a block and writes the block to the file until the sink is closed
+	 * and the queue is empty. The writer is only woken once a whole block is
+	 * queued, or after FLUSH_MILLIS, so it does not compete with the
+	 * simulation for every event
+	 */
+	private void writeEvents() {
+
+		// Define temporary variables
+		ByteBuffer block = ByteBuffer.allocateDirect(BLOCK_SIZE);
+		ByteBuffer records = queue.duplicate();
+		int count;
+
+		try {
+			while (true) {
+
+				// Copy the records up to the end of the ring into the block
+				synchronized (this) {
+					while (size < batchSize && !closed) {
+						wait(FLUSH_MILLIS);
+						if (size > 0) {
+							break;
+						}
+					}
+					if (size == 0) {
+						break;
+					}
+					count = Math.min(Math.min(size, capacity - head),
+							BLOCK_SIZE / RECORD_SIZE);
+					records.limit((head + count) * RECORD_SIZE).position(
+							head * RECORD_SIZE);
+					block.clear();
+					block.put(records);
+					head = (head + count) % capacity;
+
+					// Wake up any thread waiting for room in the queue
+					if (size == capacity) {
+						notifyAll();
+					}
+					size -= count;
+				}
+
+				// Write the block without holding the lock
+				block.flip();
+				while (block.hasRemaining()) {
+					channel.write(block);
+				}
+				synchronized (this) {
+					written += count;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			synchronized (this) {
+				error = e;
+				closed = true;
+				notifyAll();
+			}
+		} finally {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				synchronized (this) {
+					if (error == null) {
+						error = e;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Getter for the number of events written to the log
+	 * @return Returns the number of events written
+	 */
+	public synchronized long getWritten() {
+		return written;
+	}
+
+	/**
+	 * Getter for the number of times an event had to wait because the queue
+	 * was full
+	 * @return Returns the number of waits
+	 */
+	public synchronized long getWaits() {
+		return waits;
+	}
+
+	/**
+	 * Getter for the error raised while writing the log
+	 * @return Returns the error, or null if the log was written successfully
+	 */
+	public synchronized IOException getError() {
+		return error;
+	}
+
+	/**
+	 * This method stops accepting events, waits for the queued events to be
+	 * written and closes the log
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			closed = true;
+			notifyAll();
+		}
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
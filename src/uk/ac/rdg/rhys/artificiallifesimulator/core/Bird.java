@@ -1,10 +1,4 @@
-package uk.ac.rdg.rhys.artificiallifesimulator;
-
-import java.io.IOException;
-import java.io.ObjectInputStream;
-
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
 
 /**
  * <h1>Whale.java</h1>
@@ -20,8 +14,6 @@ import javafx.scene.image.ImageView;
 public class Bird extends ALifeForm {
 
 	private static final long serialVersionUID = -6266602778917307581L;
-	private transient Image image = new Image(getClass().getResourceAsStream(
-			"images/bird.png"));
 
 	/**
 	 * This constructor sets the properties and adds the entities that are
@@ -49,36 +41,6 @@ public class Bird extends ALifeForm {
 		// Add entities that are consumed by the life form
 		consumes.add("Mouse");
 		consumes.add("Bug");
-
-		// Set ImageView properties
-		imageView.setImage(image);
-		imageView.setPreserveRatio(true);
-		imageView.setCache(true);
-	}
-
-	/**
-	 * This method is called when configuration data is loaded from a file.
-	 * Image and ImageView objects are not serialized into the configuration
-	 * file. This method exists to recreate the Image and ImageView objects when
-	 * a configuration file is loaded to prevent the total loss of the image
-	 */
-	private void readObject(ObjectInputStream in) throws IOException,
-			ClassNotFoundException {
-		in.defaultReadObject();
-
-		imageView = new ImageView();
-		image = new Image(getClass().getResourceAsStream("images/bird.png"));
-		imageView.setImage(image);
-		imageView.setPreserveRatio(true);
-		imageView.setCache(true);
-	}
-
-	/**
-	 * Empty method that is only implemented here because it is required by AEntity
-	 */
-	@Override
-	public boolean getDrawn() {
-		return false;
 	}
 
 	/**
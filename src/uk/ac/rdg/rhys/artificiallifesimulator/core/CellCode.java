@@ -0,0 +1,93 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+/**
+ * <h1>CellCode.java</h1>
+ * <p>
+ * This class is the code table for the contents of a world cell. Every cell
+ * of the world grid stores one of the small integer codes defined below
+ * instead of a String, which makes comparing cells a single primitive
+ * comparison.
+ *
+ * The legacy names are the Strings that were previously stored in the world
+ * array (" " for an empty cell, "X" for an obstacle and the type of the food
+ * item otherwise). They are kept so that food types and saved configurations
+ * can be converted to and from codes.
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see WorldGrid
+ */
+public final class CellCode {
+
+	// Define cell codes
+	public static final byte EMPTY = 0;
+	public static final byte OBSTACLE = 1;
+	public static final byte GRASS = 2;
+	public static final byte FLOWER = 3;
+	public static final byte LEAF = 4;
+	public static final byte PLANKTON = 5;
+	public static final byte MUSHROOM = 6;
+	public static final byte BERRY = 7;
+
+	/**
+	 * The legacy names of the cell codes, indexed by code
+	 */
+	private static final String[] NAMES = { " ", "X", "Grass", "Flower",
+			"Leaf", "Plankton", "Mushroom", "Berry" };
+
+	/**
+	 * Private constructor because this class only holds the code table
+	 */
+	private CellCode() {
+	}
+
+	/**
+	 * Getter for the number of cell codes in the code table
+	 * @return Returns the number of cell codes
+	 */
+	public static int count() {
+		return NAMES.length;
+	}
+
+	/**
+	 * This method converts a cell code into its legacy name
+	 *
+	 * @param code
+	 *            The cell code
+	 * @return Returns the legacy name of the cell code
+	 */
+	public static String toName(byte code) {
+		return NAMES[code];
+	}
+
+	/**
+	 * This method converts a legacy name into its cell code. Unknown names and
+	 * null are treated as an empty cell
+	 *
+	 * @param name
+	 *            The legacy name of the cell contents
+	 * @return Returns the cell code for the name
+	 */
+	public static byte fromName(String name) {
+		if (name != null) {
+			for (byte i = 0; i < NAMES.length; i++) {
+				if (NAMES[i].equals(name)) {
+					return i;
+				}
+			}
+		}
+		return EMPTY;
+	}
+
+	/**
+	 * This method tests if the cell code represents a food item
+	 *
+	 * @param code
+	 *            The cell code
+	 * @return Returns true if the cell contains a food item
+	 */
+	public static boolean isFood(byte code) {
+		return code >= GRASS && code <= BERRY;
+	}
+}
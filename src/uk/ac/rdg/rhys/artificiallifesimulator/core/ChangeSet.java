@@ -0,0 +1,288 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.util.Arrays;
+
+/**
+ * <h1>ChangeSet.java</h1>
+ * <p>
+ * This class records what changed in the world since it was last cleared:
+ * life forms that moved, ate, died or were added, and food items that were
+ * eaten or added. The user interface reads the change set after each cycle
+ * and only updates the parts of the map that changed, then clears it.
+ *
+ * Changes are kept as parallel arrays in the order they were recorded. Each
+ * change keeps the unique ID and type id of the entity rather than the entity
+ * itself, so the changes can be read after the life form has been removed
+ * (food items have no unique ID and are found by their cell).
+ *
+ * Recording is off until it is enabled, so a simulation without a map does
+ * not keep any changes. If the reader falls behind and more than the
+ * capacity of changes are recorded, the change set stops recording and is
+ * marked as overflowed, and the reader must redraw the whole map instead
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see ChangeType
+ */
+public class ChangeSet {
+
+	/**
+	 * The default number of changes that are kept before the change set
+	 * overflows
+	 */
+	public static final int DEFAULT_CAPACITY = 1 << 20;
+
+	private static final ChangeType[] TYPES = ChangeType.values();
+
+	// Define the columns of the change set, indexed by change
+	private byte[] types = new byte[64];
+	private int[] ids = new int[64];
+	private byte[] typeIds = new byte[64];
+	private int[] oldXs = new int[64];
+	private int[] oldYs = new int[64];
+	private int[] newXs = new int[64];
+	private int[] newYs = new int[64];
+
+	private final int capacity;
+	private int count;
+	private boolean enabled;
+	private boolean overflowed;
+
+	/**
+	 * This constructor creates an empty change set that does not record
+	 * changes until it is enabled
+	 *
+	 * @param newCapacity
+	 *            The number of changes that are kept before the change set
+	 *            overflows
+	 */
+	public ChangeSet(int newCapacity) {
+		capacity = newCapacity;
+	}
+
+	/**
+	 * This constructor creates an empty change set with the default capacity
+	 */
+	public ChangeSet() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * This method records a change, if recording is enabled
+	 *
+	 * @param type
+	 *            The type of the change
+	 * @param entity
+	 *            The life form or food item that changed
+	 * @param oldX
+	 *            The x coordinate of the entity before the change
+	 * @param oldY
+	 *            The y coordinate of the entity before the change
+	 * @param newX
+	 *            The x coordinate of the entity after the change
+	 * @param newY
+	 *            The y coordinate of the entity after the change
+	 */
+	public void record(ChangeType type, AEntity entity, int oldX, int oldY,
+			int newX, int newY) {
+		if (enabled) {
+			add((byte) type.ordinal(), EventLog.idOf(entity),
+					(byte) entity.getTypeId(), oldX, oldY, newX, newY);
+		}
+	}
+
+	/**
+	 * This method adds a change to the end of the columns, or marks the
+	 * change set as overflowed if it is full
+	 *
+	 * @param type
+	 *            The ordinal of the type of the change
+	 * @param id
+	 *            The unique ID of the life form, or -1
+	 * @param typeId
+	 *            The type id of the entity
+	 * @param oldX
+	 *            The x coordinate before the change
+	 * @param oldY
+	 *            The y coordinate before the change
+	 * @param newX
+	 *            The x coordinate after the change
+	 * @param newY
+	 *            The y coordinate after the change
+	 */
+	private void add(byte type, int id, byte typeId, int oldX, int oldY,
+			int newX, int newY) {
+		if (overflowed) {
+			return;
+		}
+		if (count == capacity) {
+			overflow();
+			return;
+		}
+		if (count == types.length) {
+			grow(Math.min(count * 2, capacity));
+		}
+		types[count] = type;
+		ids[count] = id;
+		typeIds[count] = typeId;
+		oldXs[count] = oldX;
+		oldYs[count] = oldY;
+		newXs[count] = newX;
+		newYs[count] = newY;
+		count++;
+	}
+
+	/**
+	 * This method records every change of another change set after the
+	 * changes of this one, and then clears the other change set. It is used
+	 * to collect the changes recorded by each thread of a parallel cycle
+	 *
+	 * @param other
+	 *            The change set to move the changes from
+	 */
+	public void moveFrom(ChangeSet other) {
+		if (other.overflowed) {
+			overflow();
+		}
+		for (int i = 0; i < other.count && enabled; i++) {
+			add(other.types[i], other.ids[i], other.typeIds[i],
+					other.oldXs[i], other.oldYs[i], other.newXs[i],
+					other.newYs[i]);
+		}
+		other.clear();
+	}
+
+	/**
+	 * This method removes every change and the overflowed mark
+	 */
+	public void clear() {
+		count = 0;
+		overflowed = false;
+	}
+
+	/**
+	 * This method marks the change set as overflowed and drops the changes
+	 * it holds, as the reader has to redraw everything anyway
+	 */
+	private void overflow() {
+		count = 0;
+		overflowed = true;
+	}
+
+	/**
+	 * This method makes every column of the change set larger
+	 *
+	 * @param newLength
+	 *            The new number of changes the columns can hold
+	 */
+	private void grow(int newLength) {
+		types = Arrays.copyOf(types, newLength);
+		ids = Arrays.copyOf(ids, newLength);
+		typeIds = Arrays.copyOf(typeIds, newLength);
+		oldXs = Arrays.copyOf(oldXs, newLength);
+		oldYs = Arrays.copyOf(oldYs, newLength);
+		newXs = Arrays.copyOf(newXs, newLength);
+		newYs = Arrays.copyOf(newYs, newLength);
+	}
+
+	/**
+	 * Setter for whether changes are recorded. Turning recording off clears
+	 * the change set
+	 * @param newEnabled True to record changes
+	 */
+	public void setEnabled(boolean newEnabled) {
+		enabled = newEnabled;
+		if (!enabled) {
+			clear();
+		}
+	}
+
+	/**
+	 * Getter for whether changes are recorded
+	 * @return Returns true if changes are recorded
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Getter for whether changes were dropped because there were too many
+	 * @return Returns true if the whole map must be redrawn
+	 */
+	public boolean isOverflowed() {
+		return overflowed;
+	}
+
+	/**
+	 * Getter for the number of changes
+	 * @return Returns the number of changes
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Getter for the type of a change
+	 * @param i The position of the change
+	 * @return Returns the type of the change
+	 */
+	public ChangeType getType(int i) {
+		return TYPES[types[i]];
+	}
+
+	/**
+	 * Getter for the unique ID of the life form of a change
+	 * @param i The position of the change
+	 * @return Returns the unique ID of the life form, or -1 for a food item
+	 */
+	public int getId(int i) {
+		return ids[i];
+	}
+
+	/**
+	 * Getter for the type id of the entity of a change
+	 * @param i The position of the change
+	 * @return Returns the species id of the life form or the cell code of
+	 *         the food item (see SpeciesRegistry)
+	 */
+	public int getTypeId(int i) {
+		return typeIds[i];
+	}
+
+	/**
+	 * Getter for the old x coordinate of a change
+	 * @param i The position of the change
+	 * @return Returns the x coordinate before the change
+	 */
+	public int getOldX(int i) {
+		return oldXs[i];
+	}
+
+	/**
+	 * Getter for the old y coordinate of a change
+	 * @param i The position of the change
+	 * @return Returns the y coordinate before the change
+	 */
+	public int getOldY(int i) {
+		return oldYs[i];
+	}
+
+	/**
+	 * Getter for the new x coordinate of a change
+	 * @param i The position of the change
+	 * @return Returns the x coordinate after the change
+	 */
+	public int getNewX(int i) {
+		return newXs[i];
+	}
+
+	/**
+	 * Getter for the new y coordinate of a change
+	 * @param i The position of the change
+	 * @return Returns the y coordinate after the change
+	 */
+	public int getNewY(int i) {
+		return newYs[i];
+	}
+}
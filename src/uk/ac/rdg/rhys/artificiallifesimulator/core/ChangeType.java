@@ -0,0 +1,25 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+/**
+ * <h1>ChangeType.java</h1>
+ * <p>
+ * Enumerated type for the changes recorded in a change set. Every change has
+ * the entity that changed and its old and new coordinates:
+ *<p> MOVED - a life form moved from the old to the new coordinates
+ *<p> ATE - a life form moved from the old to the new coordinates and ate
+ * what was there
+ *<p> DIED - a life form died or was removed (old and new coordinates are the
+ * cell it died in)
+ *<p> SPAWNED - a life form was added (old and new coordinates are the cell
+ * it was added to)
+ *<p> FOOD_CONSUMED - a food item was eaten or removed
+ *<p> FOOD_ADDED - a food item was added
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see ChangeSet
+ */
+public enum ChangeType {
+	MOVED, ATE, DIED, SPAWNED, FOOD_CONSUMED, FOOD_ADDED;
+}
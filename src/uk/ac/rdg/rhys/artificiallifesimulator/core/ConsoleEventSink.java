@@ -0,0 +1,50 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.io.PrintStream;
+
+/**
+ * <h1>ConsoleEventSink.java</h1>
+ * <p>
+ * This class prints every event it receives as a line of text. It is the
+ * replacement for the messages that used to be printed by the world
+ * 
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see EventLog
+ */
+public class ConsoleEventSink implements EventSink {
+
+	private final PrintStream out;
+	private final StringBuilder text = new StringBuilder();
+
+	/**
+	 * This constructor creates a sink that prints to System.out
+	 */
+	public ConsoleEventSink() {
+		this(System.out);
+	}
+
+	/**
+	 * This constructor creates a sink that prints to the given stream
+	 * 
+	 * @param newOut
+	 *            The stream to print to
+	 */
+	public ConsoleEventSink(PrintStream newOut) {
+		out = newOut;
+	}
+
+	@Override
+	public synchronized void event(EventType type, int cycle, int id, int x,
+			int y, int value) {
+		text.setLength(0);
+		type.format(text, cycle, id, x, y, value);
+		out.println(text);
+	}
+
+	@Override
+	public void close() {
+		out.flush();
+	}
+}
@@ -1,10 +1,4 @@
-package uk.ac.rdg.rhys.artificiallifesimulator;
-
-import java.io.IOException;
-import java.io.ObjectInputStream;
-
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
 
 /**
  * <h1>Cow.java</h1>
@@ -20,8 +14,6 @@ import javafx.scene.image.ImageView;
 public class Cow extends ALifeForm {
 
 	private static final long serialVersionUID = 908148929966507711L;
-	private transient Image image = new Image(getClass().getResourceAsStream(
-			"images/cow.png"));
 
 	/**
 	 * This constructor sets the properties and adds the entities that are
@@ -50,36 +42,6 @@ public class Cow extends ALifeForm {
 		consumes.add("Grass");
 		consumes.add("Mushroom");
 		consumes.add("Berry");
-
-		// Set ImageView properties
-		imageView.setImage(image);
-		imageView.setPreserveRatio(true);
-		imageView.setCache(true);
-	}
-
-	/**
-	 * This method is called when configuration data is loaded from a file.
-	 * Image and ImageView objects are not serialized into the configuration
-	 * file. This method exists to recreate the Image and ImageView objects when
-	 * a configuration file is loaded to prevent the total loss of the image
-	 */
-	private void readObject(ObjectInputStream in) throws IOException,
-			ClassNotFoundException {
-		in.defaultReadObject();
-
-		imageView = new ImageView();
-		image = new Image(getClass().getResourceAsStream("images/cow.png"));
-		imageView.setImage(image);
-		imageView.setPreserveRatio(true);
-		imageView.setCache(true);
-	}
-
-	/**
-	 * Empty method that is only implemented here because it is required by AEntity
-	 */
-	@Override
-	public boolean getDrawn() {
-		return false;
 	}
 
 	/**
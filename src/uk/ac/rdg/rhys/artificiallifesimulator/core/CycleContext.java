@@ -0,0 +1,283 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.util.Arrays;
+
+/**
+ * <h1>CycleContext.java</h1>
+ * <p>
+ * This class holds the state used by one thread while it updates life forms
+ * during a simulation cycle: its own random number generator and, when the
+ * cycle runs in parallel, the list of cells whose entry in the free cell pool
+ * must be updated once every thread has finished, and the changes made by the
+ * thread for the change set. The free cell pool and the change set are shared
+ * by the whole world, so they are not changed while the threads are running.
+ *
+ * The world methods that take a CycleContext use the world's own generator
+ * and update the free cell pool straight away when the context is null
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see AWorld, ParallelCycle
+ */
+public class CycleContext {
+
+	private EngineRandom random;
+	private final boolean deferred;
+	private int[] dirtyCells = new int[64];
+	private int dirtyCount;
+	private FoodDistanceField.Workspace fieldWorkspace;
+	private ChangeSet changes;
+	private int births; // life forms added by the thread this cycle
+	private int deaths; // life forms that died while the thread ran
+	private int meals; // food items and life forms eaten
+	private int moves; // moves made by the life forms of the thread
+	private int collisions; // life forms or obstacles hit
+	private int bounces; // turns away from the edge of the world
+	private long sensingNanos; // sampled time spent sensing
+	private long movementNanos; // sampled time spent moving
+
+	/**
+	 * This constructor creates a context
+	 *
+	 * @param newRandom
+	 *            The random number generator of the thread
+	 * @param newDeferred
+	 *            True if free cell pool updates are collected instead of
+	 *            applied straight away
+	 */
+	public CycleContext(EngineRandom newRandom, boolean newDeferred) {
+		random = newRandom;
+		deferred = newDeferred;
+	}
+
+	/**
+	 * Getter for the random number generator
+	 * @return Returns the random number generator
+	 */
+	public EngineRandom getRandom() {
+		return random;
+	}
+
+	/**
+	 * Setter for the random number generator
+	 * @param newRandom The new random number generator
+	 */
+	public void setRandom(EngineRandom newRandom) {
+		random = newRandom;
+	}
+
+	/**
+	 * Getter for whether free cell pool updates are collected
+	 * @return Returns true if free cell pool updates are collected
+	 */
+	public boolean isDeferred() {
+		return deferred;
+	}
+
+	/**
+	 * This method records a cell whose entry in the free cell pool must be
+	 * updated
+	 *
+	 * @param index
+	 *            The index of the cell
+	 */
+	public void markDirty(int index) {
+		if (dirtyCount == dirtyCells.length) {
+			dirtyCells = Arrays.copyOf(dirtyCells, dirtyCount * 2);
+		}
+		dirtyCells[dirtyCount++] = index;
+	}
+
+	/**
+	 * Getter for the number of recorded cells
+	 * @return Returns the number of recorded cells
+	 */
+	public int getDirtyCount() {
+		return dirtyCount;
+	}
+
+	/**
+	 * Getter for a recorded cell
+	 * @param i The position of the cell in the list
+	 * @return Returns the index of the cell
+	 */
+	public int getDirtyCell(int i) {
+		return dirtyCells[i];
+	}
+
+	/**
+	 * Getter for the buffers used to update the food distance fields. They
+	 * are created the first time they are needed
+	 * @return Returns the buffers of the thread
+	 */
+	public FoodDistanceField.Workspace getFieldWorkspace() {
+		if (fieldWorkspace == null) {
+			fieldWorkspace = new FoodDistanceField.Workspace();
+		}
+		return fieldWorkspace;
+	}
+
+	/**
+	 * Getter for the changes recorded by the thread. The change set is
+	 * created the first time it is needed
+	 * @return Returns the changes of the thread
+	 */
+	public ChangeSet getChanges() {
+		if (changes == null) {
+			changes = new ChangeSet();
+			changes.setEnabled(true);
+		}
+		return changes;
+	}
+
+	/**
+	 * Getter for whether the thread has recorded any changes
+	 * @return Returns true if there are changes to collect
+	 */
+	public boolean hasChanges() {
+		return changes != null
+				&& (changes.size() > 0 || changes.isOverflowed());
+	}
+
+	/**
+	 * This method counts a life form that was added by the thread
+	 */
+	public void countBirth() {
+		births++;
+	}
+
+	/**
+	 * This method counts a life form that died while the thread ran
+	 */
+	public void countDeath() {
+		deaths++;
+	}
+
+	/**
+	 * This method counts a food item or life form that was eaten
+	 */
+	public void countMeal() {
+		meals++;
+	}
+
+	/**
+	 * This method counts a move made by a life form
+	 */
+	public void countMove() {
+		moves++;
+	}
+
+	/**
+	 * This method counts a life form hitting another life form or an
+	 * obstacle
+	 */
+	public void countCollision() {
+		collisions++;
+	}
+
+	/**
+	 * This method counts a life form turning away from the edge of the world
+	 */
+	public void countBounce() {
+		bounces++;
+	}
+
+	/**
+	 * This method adds to the sampled time the thread spent sensing and moving
+	 *
+	 * @param sensing
+	 *            The time spent sensing in nanoseconds
+	 * @param movement
+	 *            The time spent moving in nanoseconds
+	 */
+	public void addPhaseTimes(long sensing, long movement) {
+		sensingNanos += sensing;
+		movementNanos += movement;
+	}
+
+	/**
+	 * Getter for the number of life forms added by the thread
+	 * @return Returns the number of births
+	 */
+	public int getBirths() {
+		return births;
+	}
+
+	/**
+	 * Getter for the number of life forms that died while the thread ran
+	 * @return Returns the number of deaths
+	 */
+	public int getDeaths() {
+		return deaths;
+	}
+
+	/**
+	 * Getter for the number of food items and life forms eaten
+	 * @return Returns the number of meals
+	 */
+	public int getMeals() {
+		return meals;
+	}
+
+	/**
+	 * Getter for the number of moves made by the life forms of the thread
+	 * @return Returns the number of moves
+	 */
+	public int getMoves() {
+		return moves;
+	}
+
+	/**
+	 * Getter for the number of collisions
+	 * @return Returns the number of collisions
+	 */
+	public int getCollisions() {
+		return collisions;
+	}
+
+	/**
+	 * Getter for the number of turns away from the edge of the world
+	 * @return Returns the number of boundary bounces
+	 */
+	public int getBounces() {
+		return bounces;
+	}
+
+	/**
+	 * Getter for the time the thread spent sensing
+	 * @return Returns the time in nanoseconds
+	 */
+	public long getSensingNanos() {
+		return sensingNanos;
+	}
+
+	/**
+	 * Getter for the time the thread spent moving
+	 * @return Returns the time in nanoseconds
+	 */
+	public long getMovementNanos() {
+		return movementNanos;
+	}
+
+	/**
+	 * Removes every count and time
+	 */
+	public void clearCounts() {
+		births = 0;
+		deaths = 0;
+		meals = 0;
+		moves = 0;
+		collisions = 0;
+		bounces = 0;
+		sensingNanos = 0;
+		movementNanos = 0;
+	}
+
+	/**
+	 * Removes every recorded cell
+	 */
+	public void clearDirty() {
+		dirtyCount = 0;
+	}
+}
@@ -0,0 +1,317 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * <h1>EngineMetrics.java</h1>
+ * <p>
+ * This class measures where the time of each simulation cycle goes and
+ * counts what the life forms do. It is attached to a simulation with
+ * Simulation.setMetrics() and can be published as an MXBean, so that it can
+ * be watched with standard JMX tools while the simulation runs.
+ *
+ * While the metrics are enabled every cycle is split into phases, each with
+ * its own latency histogram: food regrowth, sensing, movement (including
+ * collisions), cleanup of the dead life forms, and the handoff of a snapshot
+ * to the user interface. The clock is only read around the sensing and
+ * movement of a sample of the life forms (see Simulation.updateLifeForm()),
+ * and the time taken to update all of the life forms is split between the
+ * two phases in the measured proportion, so the phases of a cycle add up to
+ * its wall clock time on any number of threads. While the metrics are
+ * disabled no clock is read, and after each cycle only the counters of the
+ * world and the population are copied, so the cost is a few field writes
+ * per cycle.
+ *
+ * The counters come from the world (see AWorld.getMoves() etc.) and count
+ * from zero again when the world is replaced. They are copied by the thread
+ * running the simulation after each cycle, so the JMX thread never reads
+ * the simulation itself
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see EngineMetricsMXBean, LatencyHistogram
+ */
+public class EngineMetrics implements EngineMetricsMXBean {
+
+	/**
+	 * The domain of the names the metrics are published under
+	 */
+	public static final String DOMAIN = "uk.ac.rdg.rhys.artificiallifesimulator";
+
+	private static final long GAUGE_INTERVAL = 100000000; // nanoseconds
+	private static final int FIRST_SPECIES = SpeciesRegistry.FIRST_SPECIES;
+
+	private volatile boolean enabled;
+
+	// Define the timers of the phases of a cycle
+	private final LatencyHistogram cycleTimer = new LatencyHistogram();
+	private final LatencyHistogram foodTimer = new LatencyHistogram();
+	private final LatencyHistogram sensingTimer = new LatencyHistogram();
+	private final LatencyHistogram movementTimer = new LatencyHistogram();
+	private final LatencyHistogram cleanupTimer = new LatencyHistogram();
+	private final LatencyHistogram handoffTimer = new LatencyHistogram();
+
+	// Define the counters and gauges copied after each cycle
+	private volatile long moves;
+	private volatile long meals;
+	private volatile long collisions;
+	private volatile long bounces;
+	private volatile long deaths;
+	private volatile long births;
+	private volatile int cycle;
+	private volatile int population;
+	private volatile int foodItems;
+	private volatile int[] speciesCounts = new int[SpeciesRegistry.count()
+			- FIRST_SPECIES];
+	private long gaugesUpdated; // when the species were last counted
+
+	private ObjectName name; // null if not published
+
+	/**
+	 * This constructor creates the metrics
+	 *
+	 * @param newEnabled
+	 *            True to time the phases of each cycle
+	 */
+	public EngineMetrics(boolean newEnabled) {
+		enabled = newEnabled;
+	}
+
+	/**
+	 * This method publishes the metrics on the platform MBean server
+	 *
+	 * @param simulationName
+	 *            The name of the simulation, used in the name of the MXBean
+	 * @throws JMException
+	 *             If the metrics cannot be published
+	 */
+	public void register(String simulationName) throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName newName = new ObjectName(DOMAIN + ":type=EngineMetrics,name="
+				+ ObjectName.quote(simulationName));
+		server.registerMBean(this, newName);
+		name = newName;
+	}
+
+	/**
+	 * This method removes the metrics from the platform MBean server, if
+	 * they were published
+	 *
+	 * @throws JMException
+	 *             If the metrics cannot be removed
+	 */
+	public void unregister() throws JMException {
+		if (name != null) {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+			name = null;
+		}
+	}
+
+	/**
+	 * This method records the times of the phases of a cycle. It is called by
+	 * the simulation after each cycle while the metrics are enabled
+	 *
+	 * @param foodNanos
+	 *            The time taken to grow new food
+	 * @param sensingNanos
+	 *            The share of the update of the life forms spent sensing
+	 * @param movementNanos
+	 *            The share of the update of the life forms spent moving
+	 * @param cleanupNanos
+	 *            The time taken to remove the dead life forms
+	 * @param cycleNanos
+	 *            The time taken by the whole cycle
+	 */
+	void recordCycle(long foodNanos, long sensingNanos, long movementNanos,
+			long cleanupNanos, long cycleNanos) {
+		foodTimer.record(foodNanos);
+		sensingTimer.record(sensingNanos);
+		movementTimer.record(movementNanos);
+		cleanupTimer.record(cleanupNanos);
+		cycleTimer.record(cycleNanos);
+	}
+
+	/**
+	 * This method records the time taken to hand a snapshot to the user
+	 * interface
+	 *
+	 * @param nanos
+	 *            The time taken in nanoseconds
+	 */
+	public void recordHandoff(long nanos) {
+		handoffTimer.record(nanos);
+	}
+
+	/**
+	 * This method copies the counters and gauges from the simulation. It is
+	 * called by the thread running the simulation after each cycle. The
+	 * life forms of each species are only counted while the metrics are
+	 * enabled, at most every GAUGE_INTERVAL nanoseconds
+	 *
+	 * @param simulation
+	 *            The simulation that has finished a cycle
+	 * @param now
+	 *            The time from System.nanoTime(), or 0 if the metrics are
+	 *            disabled
+	 */
+	void update(Simulation simulation, long now) {
+		AWorld world = simulation.getWorld();
+		moves = world.getMoves();
+		meals = world.getMeals();
+		collisions = world.getCollisions();
+		bounces = world.getBoundaryBounces();
+		deaths = world.getDeaths();
+		births = world.getBirths();
+		cycle = world.getCurrentCycle();
+		population = simulation.getLifeForms().size();
+		foodItems = world.getFoodStore().size();
+
+		if (now != 0 && now - gaugesUpdated >= GAUGE_INTERVAL) {
+			int[] counts = new int[speciesCounts.length];
+			ArrayList<AEntity> lifeForms = simulation.getLifeForms();
+			for (int i = 0; i < lifeForms.size(); i++) {
+				AEntity lifeForm = lifeForms.get(i);
+				if (lifeForm.getIsAlive()) {
+					counts[lifeForm.getTypeId() - FIRST_SPECIES]++;
+				}
+			}
+			speciesCounts = counts;
+			gaugesUpdated = now;
+		}
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public void setEnabled(boolean newEnabled) {
+		enabled = newEnabled;
+	}
+
+	@Override
+	public LatencySummary getCycleLatency() {
+		return cycleTimer.getSummary();
+	}
+
+	@Override
+	public LatencySummary getFoodRegrowthLatency() {
+		return foodTimer.getSummary();
+	}
+
+	@Override
+	public LatencySummary getSensingLatency() {
+		return sensingTimer.getSummary();
+	}
+
+	@Override
+	public LatencySummary getMovementLatency() {
+		return movementTimer.getSummary();
+	}
+
+	@Override
+	public LatencySummary getCleanupLatency() {
+		return cleanupTimer.getSummary();
+	}
+
+	@Override
+	public LatencySummary getHandoffLatency() {
+		return handoffTimer.getSummary();
+	}
+
+	@Override
+	public long getMoves() {
+		return moves;
+	}
+
+	@Override
+	public long getMeals() {
+		return meals;
+	}
+
+	@Override
+	public long getCollisions() {
+		return collisions;
+	}
+
+	@Override
+	public long getBoundaryBounces() {
+		return bounces;
+	}
+
+	@Override
+	public long getDeaths() {
+		return deaths;
+	}
+
+	@Override
+	public long getBirths() {
+		return births;
+	}
+
+	@Override
+	public int getCycle() {
+		return cycle;
+	}
+
+	@Override
+	public int getPopulation() {
+		return population;
+	}
+
+	@Override
+	public int getFoodItems() {
+		return foodItems;
+	}
+
+	@Override
+	public Map<String, Integer> getSpeciesPopulation() {
+		int[] counts = speciesCounts;
+		Map<String, Integer> species = new TreeMap<String, Integer>();
+		for (int i = 0; i < counts.length; i++) {
+			species.put(SpeciesRegistry.toSpecies(FIRST_SPECIES + i).name(),
+					counts[i]);
+		}
+		return species;
+	}
+
+	@Override
+	public void resetTimers() {
+		cycleTimer.reset();
+		foodTimer.reset();
+		sensingTimer.reset();
+		movementTimer.reset();
+		cleanupTimer.reset();
+		handoffTimer.reset();
+	}
+
+	/**
+	 * This method prints the phase timers and counters
+	 *
+	 * @param out
+	 *            The stream to print to
+	 */
+	public void printReport(PrintStream out) {
+		out.println("Cycle:          " + getCycleLatency());
+		out.println("Food regrowth:  " + getFoodRegrowthLatency());
+		out.println("Sensing:        " + getSensingLatency());
+		out.println("Movement:       " + getMovementLatency());
+		out.println("Cleanup:        " + getCleanupLatency());
+		if (handoffTimer.getCount() > 0) {
+			out.println("Handoff:        " + getHandoffLatency());
+		}
+		out.println("Moves: " + moves + ", meals: " + meals
+				+ ", collisions: " + collisions + ", boundary bounces: "
+				+ bounces + ", deaths: " + deaths + ", births: " + births);
+	}
+}
@@ -0,0 +1,136 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.util.Map;
+
+/**
+ * <h1>EngineMetricsMXBean.java</h1>
+ * <p>
+ * This interface lists the attributes and operations of the engine metrics
+ * that are published through JMX, e.g. to be watched with JConsole or
+ * VisualVM. Latencies are given in nanoseconds. The phase timers and the
+ * population of each species are only updated while the metrics are enabled;
+ * the counters and the other gauges are always updated
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see EngineMetrics
+ */
+public interface EngineMetricsMXBean {
+
+	/**
+	 * Getter for whether the phases of each cycle are timed
+	 * @return Returns true if the metrics are enabled
+	 */
+	public boolean isEnabled();
+
+	/**
+	 * Setter for whether the phases of each cycle are timed
+	 * @param newEnabled True to time the phases
+	 */
+	public void setEnabled(boolean newEnabled);
+
+	/**
+	 * Getter for the time taken by whole cycles
+	 * @return Returns the summary of the cycle timer
+	 */
+	public LatencySummary getCycleLatency();
+
+	/**
+	 * Getter for the time taken to grow new food at the start of a cycle
+	 * @return Returns the summary of the food regrowth timer
+	 */
+	public LatencySummary getFoodRegrowthLatency();
+
+	/**
+	 * Getter for the time the life forms spent sensing in a cycle
+	 * @return Returns the summary of the sensing timer
+	 */
+	public LatencySummary getSensingLatency();
+
+	/**
+	 * Getter for the time the life forms spent moving and colliding in a
+	 * cycle
+	 * @return Returns the summary of the movement timer
+	 */
+	public LatencySummary getMovementLatency();
+
+	/**
+	 * Getter for the time taken to remove the dead life forms after a cycle
+	 * @return Returns the summary of the cleanup timer
+	 */
+	public LatencySummary getCleanupLatency();
+
+	/**
+	 * Getter for the time taken to hand a snapshot to the user interface
+	 * @return Returns the summary of the rendering handoff timer
+	 */
+	public LatencySummary getHandoffLatency();
+
+	/**
+	 * Getter for the number of moves made by life forms
+	 * @return Returns the number of moves
+	 */
+	public long getMoves();
+
+	/**
+	 * Getter for the number of food items and life forms eaten
+	 * @return Returns the number of meals
+	 */
+	public long getMeals();
+
+	/**
+	 * Getter for the number of times a life form hit another life form or
+	 * an obstacle
+	 * @return Returns the number of collisions
+	 */
+	public long getCollisions();
+
+	/**
+	 * Getter for the number of times a life form turned away from the edge
+	 * of the world
+	 * @return Returns the number of boundary bounces
+	 */
+	public long getBoundaryBounces();
+
+	/**
+	 * Getter for the number of life forms that died or were removed
+	 * @return Returns the number of deaths
+	 */
+	public long getDeaths();
+
+	/**
+	 * Getter for the number of life forms added
+	 * @return Returns the number of births
+	 */
+	public long getBirths();
+
+	/**
+	 * Getter for the current cycle of the world
+	 * @return Returns the current cycle
+	 */
+	public int getCycle();
+
+	/**
+	 * Getter for the number of living life forms
+	 * @return Returns the population
+	 */
+	public int getPopulation();
+
+	/**
+	 * Getter for the number of food items in the world
+	 * @return Returns the number of food items
+	 */
+	public int getFoodItems();
+
+	/**
+	 * Getter for the number of living life forms of each species
+	 * @return Returns the population of each species, by species name
+	 */
+	public Map<String, Integer> getSpeciesPopulation();
+
+	/**
+	 * This method removes every sample from the phase timers
+	 */
+	public void resetTimers();
+}
@@ -0,0 +1,225 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <h1>EngineRandom.java</h1>
+ * <p>
+ * This class is the random number generator used by the simulation engine.
+ * It uses the SplitMix64 algorithm (the algorithm of
+ * java.util.SplittableRandom), which only needs a 64 bit state and an add,
+ * two multiplies and three shifts per number. Unlike SplittableRandom the
+ * state can be read and restored, so the generator is saved with the world
+ * and a loaded simulation continues with the same sequence of numbers.
+ * 
+ * Runs that start from the same seed produce exactly the same numbers. A
+ * worker thread must not share a generator with another thread; it should use
+ * a generator created by split(), which gives an independent stream that is
+ * still determined by the original seed
+ * 
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see AWorld
+ */
+public class EngineRandom implements Serializable {
+
+	private static final long serialVersionUID = 4713908275604462541L;
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	/**
+	 * Added to the time based seeds so that generators created at the same
+	 * time, e.g. for many worlds started together, still get different seeds
+	 */
+	private static final AtomicLong SEED_UNIQUIFIER = new AtomicLong();
+
+	private final long seed; // the seed the generator was created with
+	private long state; // the current state
+	private final long gamma; // the amount the state is increased by
+
+	/**
+	 * This constructor creates a generator with a seed based on the current
+	 * time. Every generator created this way gets a different seed
+	 */
+	public EngineRandom() {
+		this(mix64(System.nanoTime()
+				+ SEED_UNIQUIFIER.addAndGet(GOLDEN_GAMMA))
+				^ mix64(System.currentTimeMillis()));
+	}
+
+	/**
+	 * This constructor creates a generator from the given seed
+	 * 
+	 * @param newSeed
+	 *            The seed of the generator
+	 */
+	public EngineRandom(long newSeed) {
+		this(newSeed, newSeed, GOLDEN_GAMMA);
+	}
+
+	/**
+	 * This constructor is used by split() and by the constructors above
+	 * 
+	 * @param newSeed
+	 *            The seed of the generator
+	 * @param newState
+	 *            The initial state
+	 * @param newGamma
+	 *            The amount the state is increased by, which must be odd
+	 */
+	private EngineRandom(long newSeed, long newState, long newGamma) {
+		seed = newSeed;
+		state = newState;
+		gamma = newGamma;
+	}
+
+	/**
+	 * This method returns the next random 64 bit number
+	 * 
+	 * @return Returns a random long
+	 */
+	public long nextLong() {
+		return mix64(state += gamma);
+	}
+
+	/**
+	 * This method returns the next random 32 bit number
+	 * 
+	 * @return Returns a random int
+	 */
+	public int nextInt() {
+		return mix32(state += gamma);
+	}
+
+	/**
+	 * This method returns a random number between 0 (inclusive) and bound
+	 * (exclusive). Every number in the range is equally likely
+	 * 
+	 * @param bound
+	 *            The upper boundary, which must be positive
+	 * @return Returns the random number
+	 */
+	public int nextInt(int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("Invalid bound: " + bound);
+		}
+		int r = nextInt();
+		int m = bound - 1;
+		if ((bound & m) == 0) {
+
+			// The bound is a power of two so the low bits can be used
+			r &= m;
+		} else {
+
+			// Reject the values that would make the result uneven
+			for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = nextInt() >>> 1) {
+			}
+		}
+		return r;
+	}
+
+	/**
+	 * This method returns a random number between the lower boundary and the
+	 * upper boundary (both inclusive)
+	 * 
+	 * @param max
+	 *            The upper boundary
+	 * @param min
+	 *            The lower boundary
+	 * @return Returns the random number
+	 */
+	public int nextInt(int max, int min) {
+		return nextInt((max - min) + 1) + min;
+	}
+
+	/**
+	 * This method returns a random boolean
+	 * 
+	 * @return Returns true or false with the same chance
+	 */
+	public boolean nextBoolean() {
+		return mix32(state += gamma) < 0;
+	}
+
+	/**
+	 * This method creates a new generator for another thread. The new
+	 * generator gives a different stream of numbers, but the stream is
+	 * determined by this generator's state, so runs remain reproducible as
+	 * long as the streams are split in the same order
+	 * 
+	 * @return Returns the new generator
+	 */
+	public EngineRandom split() {
+		long newState = nextLong();
+		return new EngineRandom(seed, newState, mixGamma(state += gamma));
+	}
+
+	/**
+	 * Getter for the seed the generator was created with
+	 * @return Returns the seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Getter for the current state of the generator
+	 * @return Returns the current state
+	 */
+	public long getState() {
+		return state;
+	}
+
+	/**
+	 * Getter for the amount the state is increased by for each number
+	 * @return Returns the gamma of the generator
+	 */
+	public long getGamma() {
+		return gamma;
+	}
+
+	/**
+	 * This method creates a generator that continues from a saved state
+	 * 
+	 * @param seed
+	 *            The seed the generator was created with
+	 * @param state
+	 *            The saved state
+	 * @param gamma
+	 *            The saved gamma
+	 * @return Returns the generator
+	 */
+	public static EngineRandom restore(long seed, long state, long gamma) {
+		return new EngineRandom(seed, state, gamma | 1L);
+	}
+
+	/**
+	 * The SplitMix64 finaliser, which turns the state into a random number
+	 */
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * The 32 bit variant of the finaliser
+	 */
+	private static int mix32(long z) {
+		z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+		return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+	}
+
+	/**
+	 * This method creates the gamma of a split generator, which must be odd
+	 * and have enough bit transitions to give a good stream
+	 */
+	private static long mixGamma(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		int n = Long.bitCount(z ^ (z >>> 1));
+		return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+	}
+}
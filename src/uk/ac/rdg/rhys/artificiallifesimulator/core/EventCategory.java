@@ -0,0 +1,16 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+/**
+ * <h1>EventCategory.java</h1>
+ * <p>
+ * Enumerated type for the category of a simulation event. The logging level
+ * of each category can be set separately in the event log
+ * 
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see EventLog
+ */
+public enum EventCategory {
+	SENSE, MOVE, BOUNDARY, COLLISION, MEAL, FOOD, DEATH
+}
@@ -0,0 +1,18 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+/**
+ * <h1>EventLevel.java</h1>
+ * <p>
+ * Enumerated type for the logging level of a simulation event. Every event
+ * category of the event log has a level and an event is only recorded if its
+ * own level is not more detailed than the level of its category. OFF disables
+ * the category completely
+ * 
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see EventLog
+ */
+public enum EventLevel {
+	OFF, INFO, DEBUG
+}
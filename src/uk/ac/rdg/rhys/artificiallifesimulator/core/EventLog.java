@@ -0,0 +1,206 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+/**
+ * <h1>EventLog.java</h1>
+ * <p>
+ * This class records the events of a simulation, such as life forms moving,
+ * sensing and eating food. Each event category has its own level and the
+ * enabled state of every event type is worked out when a level changes, so
+ * the simulation only has to test a single array entry before recording an
+ * event:
+ * 
+ * if (log.isEnabled(EventType.MOVED)) {
+ *     log.record(EventType.MOVED, cycle, id, x, y, 0);
+ * }
+ * 
+ * Events are recorded as primitive values and passed to the sink, which may
+ * print them, keep them in memory or write them to a file. No text is built
+ * while recording. Every category is OFF when the log is created, so an
+ * unused log costs nothing more than the test above
+ * 
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see EventType
+ * @see EventSink
+ */
+public class EventLog {
+
+	private static final EventType[] TYPES = EventType.values();
+	private static final EventCategory[] CATEGORIES = EventCategory.values();
+
+	private final EventLevel[] levels = new EventLevel[CATEGORIES.length];
+	private final boolean[] enabled = new boolean[TYPES.length];
+	private EventSink sink;
+
+	/**
+	 * This constructor creates an event log with every category turned off
+	 * and no sink
+	 */
+	public EventLog() {
+		setLevel(EventLevel.OFF);
+	}
+
+	/**
+	 * This method tests if an event type will be recorded. It should be
+	 * called before working out any of the values of the event
+	 * 
+	 * @param type
+	 *            The event type to test
+	 * @return Returns true if events of this type are recorded
+	 */
+	public boolean isEnabled(EventType type) {
+		return enabled[type.ordinal()];
+	}
+
+	/**
+	 * This method records an event if its type is enabled
+	 * 
+	 * @param type
+	 *            The type of the event
+	 * @param cycle
+	 *            The cycle of the event
+	 * @param id
+	 *            The unique ID of the life form, or -1
+	 * @param x
+	 *            The x coordinate of the event
+	 * @param y
+	 *            The y coordinate of the event
+	 * @param value
+	 *            The value of the event (see EventType)
+	 */
+	public void record(EventType type, int cycle, int id, int x, int y,
+			int value) {
+		if (enabled[type.ordinal()]) {
+			sink.event(type, cycle, id, x, y, value);
+		}
+	}
+
+	/**
+	 * This method returns the unique ID of an entity for use in an event
+	 * 
+	 * @param entity
+	 *            The entity
+	 * @return Returns the unique ID of the life form, or -1 if the entity is
+	 *         not a life form
+	 */
+	public static int idOf(AEntity entity) {
+		if (entity instanceof ALifeForm) {
+			return ((ALifeForm) entity).getUniqueID();
+		} else if (entity instanceof StoredLifeForm) {
+			return ((StoredLifeForm) entity).getUniqueID();
+		}
+		return -1;
+	}
+
+	/**
+	 * Setter for the level of a single category
+	 * 
+	 * @param category
+	 *            The category to change
+	 * @param level
+	 *            The new level of the category
+	 */
+	public void setLevel(EventCategory category, EventLevel level) {
+		levels[category.ordinal()] = level;
+		updateEnabled();
+	}
+
+	/**
+	 * Setter for the level of every category
+	 * 
+	 * @param level
+	 *            The new level of every category
+	 */
+	public void setLevel(EventLevel level) {
+		for (int i = 0; i < levels.length; i++) {
+			levels[i] = level;
+		}
+		updateEnabled();
+	}
+
+	/**
+	 * Getter for the level of a category
+	 * @param category The category
+	 * @return Returns the level of the category
+	 */
+	public EventLevel getLevel(EventCategory category) {
+		return levels[category.ordinal()];
+	}
+
+	/**
+	 * This method sets the category levels from a comma separated list of
+	 * category=level pairs, e.g. "meal=info,move=debug". The category "all"
+	 * sets every category. Names are not case sensitive
+	 * 
+	 * @param spec
+	 *            The list of category levels
+	 * @throws IllegalArgumentException
+	 *             If a category or a level is not recognised
+	 */
+	public void configure(String spec) {
+		if (spec == null) {
+			return;
+		}
+		for (String pair : spec.split(",")) {
+			pair = pair.trim();
+			if (pair.isEmpty()) {
+				continue;
+			}
+			int split = pair.indexOf('=');
+			if (split < 0) {
+				throw new IllegalArgumentException("Invalid log setting: "
+						+ pair);
+			}
+			String name = pair.substring(0, split).trim().toUpperCase();
+			EventLevel level = EventLevel.valueOf(pair.substring(split + 1)
+					.trim().toUpperCase());
+			if (name.equals("ALL")) {
+				setLevel(level);
+			} else {
+				setLevel(EventCategory.valueOf(name), level);
+			}
+		}
+	}
+
+	/**
+	 * Setter for the sink that receives the recorded events. Events are not
+	 * recorded while there is no sink
+	 * 
+	 * @param newSink
+	 *            The new sink, or null to stop recording
+	 */
+	public void setSink(EventSink newSink) {
+		sink = newSink;
+		updateEnabled();
+	}
+
+	/**
+	 * Getter for the sink
+	 * @return Returns the sink, or null if there is no sink
+	 */
+	public EventSink getSink() {
+		return sink;
+	}
+
+	/**
+	 * This method closes the sink, if there is one
+	 */
+	public void close() {
+		if (sink != null) {
+			sink.close();
+		}
+	}
+
+	/**
+	 * This method works out which event types are enabled from the category
+	 * levels
+	 */
+	private void updateEnabled() {
+		for (int i = 0; i < TYPES.length; i++) {
+			EventLevel level = levels[TYPES[i].getCategory().ordinal()];
+			enabled[i] = sink != null && level != null
+					&& level.compareTo(TYPES[i].getLevel()) >= 0;
+		}
+	}
+}
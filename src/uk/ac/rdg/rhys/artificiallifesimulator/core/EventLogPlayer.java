@@ -0,0 +1,285 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <h1>EventLogPlayer.java</h1>
+ * <p>
+ * This class replays a binary event log written by a BinaryEventSink. The
+ * records are read from the file in large blocks and passed to any EventSink,
+ * one cycle at a time with playCycle() (e.g. once per frame of a display) or
+ * all at once with play() (e.g. for an analysis tool). Nothing of the model
+ * is run, so a replay costs no more than reading the file.
+ *
+ * The main() method prints a log as text, or a summary of the number of
+ * events of each type:
+ *<p> EventLogPlayer FILE [--summary]
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see BinaryEventSink
+ */
+public class EventLogPlayer {
+
+	private static final EventType[] TYPES = EventType.values();
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer; // records read but not yet played
+	private final long recordCount;
+	private long played; // number of records played
+	private boolean ended; // true once the whole file has been read
+
+	/**
+	 * This constructor opens an event log and checks its header
+	 *
+	 * @param filePath
+	 *            The path of the log
+	 * @throws IOException
+	 *             If the file cannot be read or is not an event log
+	 */
+	public EventLogPlayer(String filePath) throws IOException {
+		channel = FileChannel.open(Paths.get(filePath),
+				StandardOpenOption.READ);
+		try {
+			readHeader(channel, ByteBuffer.allocate(
+					BinaryEventSink.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN));
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		recordCount = (channel.size() - BinaryEventSink.HEADER_SIZE)
+				/ BinaryEventSink.RECORD_SIZE;
+		channel.position(BinaryEventSink.HEADER_SIZE);
+		buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(
+				ByteOrder.LITTLE_ENDIAN);
+		buffer.limit(0);
+	}
+
+	/**
+	 * This method reads and checks the header of an event log
+	 *
+	 * @param channel
+	 *            The channel of the log
+	 * @param header
+	 *            A little endian buffer of HEADER_SIZE bytes
+	 * @throws IOException
+	 *             If the file is not an event log
+	 */
+	static void readHeader(FileChannel channel, ByteBuffer header)
+			throws IOException {
+		while (header.hasRemaining()) {
+			if (channel.read(header, header.position()) <= 0) {
+				throw new IOException("Not an event log (file too short)");
+			}
+		}
+		if (header.getInt(0) != BinaryEventSink.MAGIC) {
+			throw new IOException("Not an event log");
+		}
+		if (header.getShort(4) != BinaryEventSink.VERSION
+				|| header.getShort(6) != BinaryEventSink.RECORD_SIZE) {
+			throw new IOException("Unsupported event log version: "
+					+ header.getShort(4));
+		}
+	}
+
+	/**
+	 * This method makes sure the next record is in the buffer, reading the
+	 * next block of the file if needed
+	 *
+	 * @return Returns false if there are no more records
+	 * @throws IOException
+	 *             If the file cannot be read
+	 */
+	private boolean nextRecord() throws IOException {
+		if (buffer.remaining() >= BinaryEventSink.RECORD_SIZE) {
+			return true;
+		}
+		if (played >= recordCount || ended) {
+			return false;
+		}
+		buffer.compact();
+		while (buffer.position() < BinaryEventSink.RECORD_SIZE) {
+			if (channel.read(buffer) < 0) {
+				ended = true;
+				break;
+			}
+		}
+		buffer.flip();
+		return buffer.remaining() >= BinaryEventSink.RECORD_SIZE;
+	}
+
+	/**
+	 * This method passes the next record to the sink
+	 *
+	 * @param sink
+	 *            The sink to pass the record to
+	 * @throws IOException
+	 *             If the record has an unknown event type
+	 */
+	private void playRecord(EventSink sink) throws IOException {
+		int type = buffer.get();
+		if (type < 0 || type >= TYPES.length) {
+			throw new IOException("Invalid event type in record " + played
+					+ ": " + type);
+		}
+		int cycle = buffer.getInt();
+		int id = buffer.getInt();
+		int x = buffer.getInt();
+		int y = buffer.getInt();
+		sink.event(TYPES[type], cycle, id, x, y, buffer.getInt());
+		played++;
+	}
+
+	/**
+	 * This method plays the events of the next cycle in the log
+	 *
+	 * @param sink
+	 *            The sink to pass the events to
+	 * @return Returns the cycle that was played, or -1 if the end of the log
+	 *         has been reached
+	 * @throws IOException
+	 *             If the log cannot be read
+	 */
+	public int playCycle(EventSink sink) throws IOException {
+		if (!nextRecord()) {
+			return -1;
+		}
+		int cycle = buffer.getInt(buffer.position() + 1);
+		do {
+			playRecord(sink);
+		} while (nextRecord() && buffer.getInt(buffer.position() + 1) == cycle);
+		return cycle;
+	}
+
+	/**
+	 * This method plays every remaining event in the log
+	 *
+	 * @param sink
+	 *            The sink to pass the events to
+	 * @return Returns the number of events played
+	 * @throws IOException
+	 *             If the log cannot be read
+	 */
+	public long play(EventSink sink) throws IOException {
+		long start = played;
+		while (nextRecord()) {
+			playRecord(sink);
+		}
+		return played - start;
+	}
+
+	/**
+	 * Getter for the number of records in the log
+	 * @return Returns the number of records
+	 */
+	public long getRecordCount() {
+		return recordCount;
+	}
+
+	/**
+	 * Getter for the number of records played so far
+	 * @return Returns the number of records played
+	 */
+	public long getPlayed() {
+		return played;
+	}
+
+	/**
+	 * This method closes the log
+	 *
+	 * @throws IOException
+	 *             If the file cannot be closed
+	 */
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * This class counts the events of each type in a log, for the summary
+	 * printed by main()
+	 */
+	private static class SummarySink implements EventSink {
+
+		private final long[] counts = new long[TYPES.length];
+		private int firstCycle = Integer.MAX_VALUE;
+		private int lastCycle = Integer.MIN_VALUE;
+
+		@Override
+		public void event(EventType type, int cycle, int id, int x, int y,
+				int value) {
+			counts[type.ordinal()]++;
+			firstCycle = Math.min(firstCycle, cycle);
+			lastCycle = Math.max(lastCycle, cycle);
+		}
+
+		@Override
+		public void close() {
+		}
+
+		/**
+		 * This method prints the number of events of each type
+		 *
+		 * @param out
+		 *            The stream to print to
+		 */
+		void print(PrintStream out) {
+			if (firstCycle <= lastCycle) {
+				out.println("Cycles: " + firstCycle + " to " + lastCycle);
+			}
+			for (int i = 0; i < TYPES.length; i++) {
+				if (counts[i] > 0) {
+					out.println("  " + TYPES[i] + ": " + counts[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The main() method prints an event log as text, or a summary of it with
+	 * --summary
+	 *
+	 * @param args
+	 *            the command line arguments
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1 || args.length > 2
+				|| (args.length == 2 && !args[1].equals("--summary"))) {
+			System.out.println("Usage: EventLogPlayer FILE [--summary]");
+			System.exit(1);
+		}
+		boolean summary = args.length == 2;
+
+		try {
+			EventLogPlayer player = new EventLogPlayer(args[0]);
+			EventSink sink = summary ? new SummarySink()
+					: new ConsoleEventSink();
+			long start = System.nanoTime();
+			try {
+				player.play(sink);
+			} finally {
+				player.close();
+				sink.close();
+			}
+			double seconds = (System.nanoTime() - start) / 1e9;
+
+			if (summary) {
+				((SummarySink) sink).print(System.out);
+				System.out.println(String.format(
+						"Played %d events in %.3f s (%.0f events/s)",
+						player.getPlayed(), seconds, player.getPlayed()
+								/ seconds));
+			}
+		} catch (IOException e) {
+			System.out.println("Failed to play event log: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+}
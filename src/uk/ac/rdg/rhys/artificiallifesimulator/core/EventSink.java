@@ -0,0 +1,42 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+/**
+ * <h1>EventSink.java</h1>
+ * <p>
+ * This interface is implemented by the classes that receive the events
+ * recorded by the event log. The event is passed as primitive values so that
+ * recording an event does not create any objects
+ * 
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see EventLog
+ */
+public interface EventSink {
+
+	/**
+	 * This method receives a single event. The meaning of the values is
+	 * described in EventType
+	 * 
+	 * @param type
+	 *            The type of the event
+	 * @param cycle
+	 *            The cycle of the event
+	 * @param id
+	 *            The unique ID of the life form, or -1
+	 * @param x
+	 *            The x coordinate of the event
+	 * @param y
+	 *            The y coordinate of the event
+	 * @param value
+	 *            The value of the event
+	 */
+	public void event(EventType type, int cycle, int id, int x, int y,
+			int value);
+
+	/**
+	 * This method writes out any events that are still held by the sink and
+	 * releases its resources
+	 */
+	public void close();
+}
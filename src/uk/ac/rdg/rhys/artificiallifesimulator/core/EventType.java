@@ -0,0 +1,130 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+/**
+ * <h1>EventType.java</h1>
+ * <p>
+ * Enumerated type for the events that can be recorded by the event log. Every
+ * event is recorded as a fixed set of integers: the cycle, the unique ID of
+ * the life form (-1 if the event has no life form), the x and y coordinates
+ * and a value whose meaning depends on the event type:
+ *<p> SENSED_FOOD - cell code of the food that was found
+ *<p> SENSED_PREY - unique ID of the prey that was found
+ *<p> BOUNDARY - unused
+ *<p> MOVED - unused
+ *<p> HIT_LIFE_FORM - unique ID of the life form that was hit
+ *<p> HIT_OBSTACLE - unused
+ *<p> ATE_FOOD - cell code of the food that was eaten
+ *<p> ATE_LIFE_FORM - unique ID of the life form that was eaten
+ *<p> FOOD_ADDED - cell code of the new food item
+ *<p> DIED - unused
+ * 
+ * The text of an event is only built when a sink writes the event out
+ * 
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see EventLog
+ */
+public enum EventType {
+	SENSED_FOOD(EventCategory.SENSE, EventLevel.DEBUG),
+	SENSED_PREY(EventCategory.SENSE, EventLevel.DEBUG),
+	BOUNDARY(EventCategory.BOUNDARY, EventLevel.DEBUG),
+	MOVED(EventCategory.MOVE, EventLevel.DEBUG),
+	HIT_LIFE_FORM(EventCategory.COLLISION, EventLevel.DEBUG),
+	HIT_OBSTACLE(EventCategory.COLLISION, EventLevel.DEBUG),
+	ATE_FOOD(EventCategory.MEAL, EventLevel.INFO),
+	ATE_LIFE_FORM(EventCategory.MEAL, EventLevel.INFO),
+	FOOD_ADDED(EventCategory.FOOD, EventLevel.INFO),
+	DIED(EventCategory.DEATH, EventLevel.INFO);
+
+	private final EventCategory category;
+	private final EventLevel level;
+
+	/**
+	 * Constructor for an event type
+	 * 
+	 * @param newCategory
+	 *            The category of the event
+	 * @param newLevel
+	 *            The level at which the event is recorded
+	 */
+	private EventType(EventCategory newCategory, EventLevel newLevel) {
+		category = newCategory;
+		level = newLevel;
+	}
+
+	/**
+	 * Getter for the category of the event
+	 * @return Returns the category of the event
+	 */
+	public EventCategory getCategory() {
+		return category;
+	}
+
+	/**
+	 * Getter for the level of the event
+	 * @return Returns the level of the event
+	 */
+	public EventLevel getLevel() {
+		return level;
+	}
+
+	/**
+	 * This method appends the text of an event to the StringBuilder. It is
+	 * only called by the sinks that write events out as text
+	 * 
+	 * @param text
+	 *            The StringBuilder to append to
+	 * @param cycle
+	 *            The cycle of the event
+	 * @param id
+	 *            The unique ID of the life form
+	 * @param x
+	 *            The x coordinate of the event
+	 * @param y
+	 *            The y coordinate of the event
+	 * @param value
+	 *            The value of the event
+	 */
+	public void format(StringBuilder text, int cycle, int id, int x, int y,
+			int value) {
+		text.append("[cycle ").append(cycle).append("] ");
+		if (id >= 0) {
+			text.append("Life form ").append(id).append(' ');
+		}
+		switch (this) {
+		case SENSED_FOOD:
+			text.append("sensed ").append(CellCode.toName((byte) value));
+			break;
+		case SENSED_PREY:
+			text.append("sensed life form ").append(value);
+			break;
+		case BOUNDARY:
+			text.append("reached the world boundary. Changing direction");
+			break;
+		case MOVED:
+			text.append("moved into free space");
+			break;
+		case HIT_LIFE_FORM:
+			text.append("hit life form ").append(value);
+			break;
+		case HIT_OBSTACLE:
+			text.append("hit an obstacle");
+			break;
+		case ATE_FOOD:
+			text.append("ate ").append(CellCode.toName((byte) value));
+			break;
+		case ATE_LIFE_FORM:
+			text.append("ate life form ").append(value);
+			break;
+		case FOOD_ADDED:
+			text.append("Added new food item of type: ").append(
+					CellCode.toName((byte) value));
+			break;
+		case DIED:
+			text.append("died");
+			break;
+		}
+		text.append(" at (").append(x).append(", ").append(y).append(')');
+	}
+}
@@ -1,10 +1,4 @@
-package uk.ac.rdg.rhys.artificiallifesimulator;
-
-import java.io.IOException;
-import java.io.ObjectInputStream;
-
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
 
 /**
  * <h1>Fish.java</h1>
@@ -23,8 +17,6 @@ public class Fish extends ALifeForm {
 	 * 
 	 */
 	private static final long serialVersionUID = 3684447039274301387L;
-	private transient Image image = new Image(getClass().getResourceAsStream(
-			"images/fish.png"));
 
 	/**
 	 * This constructor sets the properties and adds the entities that are
@@ -51,36 +43,6 @@ public class Fish extends ALifeForm {
 
 		// Add entities that are consumed by the life form
 		consumes.add("Plankton");
-
-		// Set ImageView properties
-		imageView.setImage(image);
-		imageView.setPreserveRatio(true);
-		imageView.setCache(true);
-	}
-
-	/**
-	 * This method is called when configuration data is loaded from a file.
-	 * Image and ImageView objects are not serialized into the configuration
-	 * file. This method exists to recreate the Image and ImageView objects when
-	 * a configuration file is loaded to prevent the total loss of the image
-	 */
-	private void readObject(ObjectInputStream in) throws IOException,
-			ClassNotFoundException {
-		in.defaultReadObject();
-
-		imageView = new ImageView();
-		image = new Image(getClass().getResourceAsStream("images/fish.png"));
-		imageView.setImage(image);
-		imageView.setPreserveRatio(true);
-		imageView.setCache(true);
-	}
-
-	/**
-	 * Empty method that is only implemented here because it is required by AEntity
-	 */
-	@Override
-	public boolean getDrawn() {
-		return false;
 	}
 
 	/**
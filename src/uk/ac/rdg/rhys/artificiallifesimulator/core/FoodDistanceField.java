@@ -0,0 +1,376 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.util.Arrays;
+
+/**
+ * <h1>FoodDistanceField.java</h1>
+ * <p>
+ * This class stores, for every type of food item and every cell of the world,
+ * the distance from the cell to the nearest food item of that type. The
+ * distance is the number of moves needed to reach the food item without
+ * passing through an obstacle, and it is only stored up to MAX_RANGE moves,
+ * which is the range of the strongest sense. A life form finds the direction
+ * of its food by looking up the distance in its own cell and moving to a
+ * neighbouring cell that is one move closer, so sensing takes the same time
+ * however far the life form can sense.
+ *
+ * The fields are updated when a food item is added or removed, by a search
+ * that only visits the cells within MAX_RANGE moves of the food item (and,
+ * when a food item is removed, the food items near it). Obstacles are only
+ * placed when the world is initialised, after which rebuild() must be called
+ *
+ * Each entry holds the distance plus one, so that 0 means there is no food
+ * item of that type within range
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see AWorld, CellCode
+ */
+public class FoodDistanceField {
+
+	/**
+	 * The furthest distance stored in the fields
+	 */
+	public static final int MAX_RANGE = 4;
+
+	/**
+	 * The directions returned by directionOfFood(), in the order they are
+	 * checked
+	 */
+	public static final int NORTH = 0;
+	public static final int EAST = 1;
+	public static final int SOUTH = 2;
+	public static final int WEST = 3;
+	public static final int NONE = -1;
+
+	private static final int[] DX = { 0, 1, 0, -1 };
+	private static final int[] DY = { -1, 0, 1, 0 };
+
+	// Size of the area searched when a food item is removed
+	private static final int WINDOW_RADIUS = 3 * MAX_RANGE;
+	private static final int WINDOW_SIZE = 2 * WINDOW_RADIUS + 1;
+
+	private final int size;
+	private final WorldGrid grid;
+	private final byte[][] fields; // distance plus one, indexed by cell code
+
+	/**
+	 * This class holds the buffers used while updating the fields. Each
+	 * thread that updates the fields needs its own workspace
+	 *
+	 * @author Rhys
+	 */
+	public static final class Workspace {
+		private final int[] queue = new int[WINDOW_SIZE * WINDOW_SIZE];
+		private final byte[] queueDist = new byte[WINDOW_SIZE * WINDOW_SIZE];
+		private final int[] visited = new int[WINDOW_SIZE * WINDOW_SIZE];
+		private int stamp; // marks the cells visited by the current search
+	}
+
+	/**
+	 * This constructor creates empty fields for every food type
+	 *
+	 * @param newGrid
+	 *            The world grid the fields are calculated from
+	 */
+	public FoodDistanceField(WorldGrid newGrid) {
+		grid = newGrid;
+		size = newGrid.getSize();
+		fields = new byte[CellCode.count()][];
+		for (byte code = 0; code < CellCode.count(); code++) {
+			if (CellCode.isFood(code)) {
+				fields[code] = new byte[size * size];
+			}
+		}
+	}
+
+	/**
+	 * Getter for the distance from a cell to the nearest food item of a type
+	 *
+	 * @param code
+	 *            The cell code of the food type
+	 * @param x
+	 *            The x coordinate of the cell
+	 * @param y
+	 *            The y coordinate of the cell
+	 * @return Returns the distance, or -1 if there is no food item of the type
+	 *         within MAX_RANGE moves
+	 */
+	public int getDistance(byte code, int x, int y) {
+		return fields[code][y * size + x] - 1;
+	}
+
+	/**
+	 * This method finds the direction of the nearest food item in a diet.
+	 * When food items are equally close the directions are checked in the
+	 * order north, east, south, west
+	 *
+	 * @param x
+	 *            The x coordinate of the life form
+	 * @param y
+	 *            The y coordinate of the life form
+	 * @param dietMask
+	 *            The diet of the life form (see SpeciesRegistry.getDiet())
+	 * @param range
+	 *            The furthest distance the life form can sense
+	 * @return Returns NORTH, EAST, SOUTH or WEST, or NONE if there is no food
+	 *         within range
+	 */
+	public int directionOfFood(int x, int y, int dietMask, int range) {
+		int cell = y * size + x;
+		int best = bestDistance(cell, dietMask, range);
+		if (best == 0) {
+			return NONE;
+		}
+
+		// Move to a neighbouring cell that is one step closer to the food
+		for (int d = 0; d < 4; d++) {
+			int nx = x + DX[d];
+			int ny = y + DY[d];
+			if (nx < 0 || ny < 0 || nx >= size || ny >= size) {
+				continue;
+			}
+			int neighbour = ny * size + nx;
+			for (int mask = dietMask; mask != 0; mask &= mask - 1) {
+				int code = Integer.numberOfTrailingZeros(mask);
+				if (fields[code][cell] == best
+						&& fields[code][neighbour] == best - 1) {
+					return d;
+				}
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * This method finds the food item that directionOfFood() leads to by
+	 * following the field. It is only used to report the food item that was
+	 * sensed
+	 *
+	 * @param x
+	 *            The x coordinate of the life form
+	 * @param y
+	 *            The y coordinate of the life form
+	 * @param dietMask
+	 *            The diet of the life form
+	 * @param range
+	 *            The furthest distance the life form can sense
+	 * @return Returns the index of the cell of the food item, or -1 if there is
+	 *         no food within range
+	 */
+	public int locateFood(int x, int y, int dietMask, int range) {
+		int cell = y * size + x;
+		int best = bestDistance(cell, dietMask, range);
+		if (best == 0) {
+			return -1;
+		}
+
+		// Follow the field down to distance 0
+		for (int step = best; step > 1; step--) {
+			int d = directionOfFood(x, y, dietMask, step - 1);
+			if (d == NONE) {
+				return -1;
+			}
+			x += DX[d];
+			y += DY[d];
+		}
+		return y * size + x;
+	}
+
+	/**
+	 * This method returns the smallest stored value of the diet types in a
+	 * cell that is within range. A food item in the cell itself is ignored
+	 */
+	private int bestDistance(int cell, int dietMask, int range) {
+		int best = range + 2;
+		for (int mask = dietMask; mask != 0; mask &= mask - 1) {
+			int value = fields[Integer.numberOfTrailingZeros(mask)][cell];
+			if (value > 1 && value < best) {
+				best = value;
+			}
+		}
+		return best == range + 2 ? 0 : best;
+	}
+
+	/**
+	 * This method updates the field of a food type after a food item has been
+	 * added. Distances can only get shorter, so the search stops at cells
+	 * that are already as close to another food item
+	 *
+	 * @param code
+	 *            The cell code of the food item
+	 * @param x
+	 *            The x coordinate of the food item
+	 * @param y
+	 *            The y coordinate of the food item
+	 * @param workspace
+	 *            The buffers to use
+	 */
+	public void addFood(byte code, int x, int y, Workspace workspace) {
+		byte[] field = fields[code];
+		int[] queue = workspace.queue;
+		int head = 0;
+		int tail = 0;
+
+		field[y * size + x] = 1;
+		queue[tail++] = y * size + x;
+		while (head < tail) {
+			int cell = queue[head++];
+			int value = field[cell] + 1;
+			if (value > MAX_RANGE + 1) {
+				continue;
+			}
+			int cx = cell % size;
+			int cy = cell / size;
+			for (int d = 0; d < 4; d++) {
+				int nx = cx + DX[d];
+				int ny = cy + DY[d];
+				if (nx < 0 || ny < 0 || nx >= size || ny >= size) {
+					continue;
+				}
+				int neighbour = ny * size + nx;
+				if (grid.get(nx, ny) == CellCode.OBSTACLE) {
+					continue;
+				}
+				if (field[neighbour] == 0 || field[neighbour] > value) {
+					field[neighbour] = (byte) value;
+					queue[tail++] = neighbour;
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method updates the field of a food type after a food item has been
+	 * removed. The cells within MAX_RANGE moves of the food item are cleared
+	 * and then filled in again by a search from the other food items of the
+	 * same type that are close enough to reach them. The search only writes to
+	 * the cleared cells, so the fields outside them are not touched
+	 *
+	 * @param code
+	 *            The cell code of the food item
+	 * @param x
+	 *            The x coordinate of the food item
+	 * @param y
+	 *            The y coordinate of the food item
+	 * @param workspace
+	 *            The buffers to use
+	 */
+	public void removeFood(byte code, int x, int y, Workspace workspace) {
+		byte[] field = fields[code];
+		int[] queue = workspace.queue;
+		byte[] queueDist = workspace.queueDist;
+		int[] visited = workspace.visited;
+		int head = 0;
+		int tail = 0;
+
+		// Start a new search, resetting the marks if the stamp wraps around
+		if (++workspace.stamp == Integer.MAX_VALUE) {
+			Arrays.fill(visited, 0);
+			workspace.stamp = 1;
+		}
+		int stamp = workspace.stamp;
+
+		// Clear the cells the removed food item could have reached
+		for (int dy = -MAX_RANGE; dy <= MAX_RANGE; dy++) {
+			int span = MAX_RANGE - Math.abs(dy);
+			for (int dx = -span; dx <= span; dx++) {
+				int cx = x + dx;
+				int cy = y + dy;
+				if (cx >= 0 && cy >= 0 && cx < size && cy < size) {
+					field[cy * size + cx] = 0;
+				}
+			}
+		}
+
+		// Queue every food item of the type that can reach a cleared cell
+		int reach = 2 * MAX_RANGE;
+		for (int dy = -reach; dy <= reach; dy++) {
+			int span = reach - Math.abs(dy);
+			for (int dx = -span; dx <= span; dx++) {
+				int cx = x + dx;
+				int cy = y + dy;
+				if (cx >= 0 && cy >= 0 && cx < size && cy < size
+						&& grid.get(cx, cy) == code) {
+					visited[window(cx - x, cy - y)] = stamp;
+					queue[tail] = cy * size + cx;
+					queueDist[tail++] = 0;
+				}
+			}
+		}
+
+		// Search outwards from all of them at once
+		while (head < tail) {
+			int cell = queue[head];
+			int dist = queueDist[head++];
+			int cx = cell % size;
+			int cy = cell / size;
+
+			if (inRange(cx - x, cy - y)) {
+				if (field[cell] == 0 || field[cell] > dist + 1) {
+					field[cell] = (byte) (dist + 1);
+				}
+			}
+			if (dist == MAX_RANGE) {
+				continue;
+			}
+			for (int d = 0; d < 4; d++) {
+				int nx = cx + DX[d];
+				int ny = cy + DY[d];
+				if (nx < 0 || ny < 0 || nx >= size || ny >= size
+						|| Math.abs(nx - x) > WINDOW_RADIUS
+						|| Math.abs(ny - y) > WINDOW_RADIUS) {
+					continue;
+				}
+				int w = window(nx - x, ny - y);
+				if (visited[w] == stamp
+						|| grid.get(nx, ny) == CellCode.OBSTACLE) {
+					continue;
+				}
+				visited[w] = stamp;
+				queue[tail] = ny * size + nx;
+				queueDist[tail++] = (byte) (dist + 1);
+			}
+		}
+	}
+
+	/**
+	 * This method calculates every field from scratch from the food items and
+	 * obstacles in the grid
+	 *
+	 * @param workspace
+	 *            The buffers to use
+	 */
+	public void rebuild(Workspace workspace) {
+		for (byte[] field : fields) {
+			if (field != null) {
+				Arrays.fill(field, (byte) 0);
+			}
+		}
+		for (int y = 0; y < size; y++) {
+			for (int x = 0; x < size; x++) {
+				byte code = grid.get(x, y);
+				if (CellCode.isFood(code)) {
+					addFood(code, x, y, workspace);
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method tests if an offset from the removed food item is within
+	 * MAX_RANGE moves, i.e. inside the cleared area
+	 */
+	private static boolean inRange(int dx, int dy) {
+		return Math.abs(dx) + Math.abs(dy) <= MAX_RANGE;
+	}
+
+	/**
+	 * This method returns the index in the search window of an offset from
+	 * the removed food item
+	 */
+	private static int window(int dx, int dy) {
+		return (dy + WINDOW_RADIUS) * WINDOW_SIZE + dx + WINDOW_RADIUS;
+	}
+}
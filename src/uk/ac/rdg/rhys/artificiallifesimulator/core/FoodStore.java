@@ -0,0 +1,128 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * <h1>FoodStore.java</h1>
+ * <p>
+ * This class stores the food items in the world keyed by the cell they are
+ * in. Each cell holds the position of its food item in an ArrayList, so food
+ * items can be looked up, added and removed in constant time. Removal moves
+ * the last food item into the removed position (swap-remove), so the order of
+ * the ArrayList is not preserved.
+ *
+ * The ArrayList returned by getItems() always contains exactly the food items
+ * that are currently in the world.
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see AWorld
+ */
+public class FoodStore {
+
+	private final int size;
+	private final ArrayList<AEntity> items = new ArrayList<AEntity>();
+
+	/**
+	 * Stores the position of each cell's food item in the items ArrayList plus
+	 * one, so that 0 means the cell has no food item
+	 */
+	private final int[] slots;
+
+	/**
+	 * This constructor creates an empty food store for a square world
+	 *
+	 * @param size
+	 *            The size of the world (dimensions)
+	 */
+	public FoodStore(int size) {
+		this.size = size;
+		slots = new int[size * size];
+	}
+
+	/**
+	 * Getter for the food item at the given coordinates
+	 *
+	 * @param x
+	 *            The x coordinate of the cell
+	 * @param y
+	 *            The y coordinate of the cell
+	 * @return Returns the food item in the cell, or null if there is none
+	 */
+	public AEntity get(int x, int y) {
+		int slot = slots[y * size + x];
+		if (slot == 0) {
+			return null;
+		}
+		return items.get(slot - 1);
+	}
+
+	/**
+	 * This method adds a food item to the store at its coordinates. Any food
+	 * item already in that cell is replaced
+	 *
+	 * @param food
+	 *            The food item to add
+	 */
+	public void add(AEntity food) {
+		remove(food.getX(), food.getY());
+		items.add(food);
+		slots[food.getY() * size + food.getX()] = items.size();
+	}
+
+	/**
+	 * This method removes the food item at the given coordinates by moving the
+	 * last food item in the ArrayList into its position
+	 *
+	 * @param x
+	 *            The x coordinate of the cell
+	 * @param y
+	 *            The y coordinate of the cell
+	 * @return Returns the removed food item, or null if there was none
+	 */
+	public AEntity remove(int x, int y) {
+		int index = y * size + x;
+		int slot = slots[index];
+		if (slot == 0) {
+			return null;
+		}
+
+		AEntity removed = items.get(slot - 1);
+		AEntity last = items.remove(items.size() - 1);
+
+		// Move the last food item into the gap left by the removed item
+		if (last != removed) {
+			items.set(slot - 1, last);
+			slots[last.getY() * size + last.getX()] = slot;
+		}
+		slots[index] = 0;
+		return removed;
+	}
+
+	/**
+	 * Getter for the number of food items in the store
+	 * @return Returns the number of food items
+	 */
+	public int size() {
+		return items.size();
+	}
+
+	/**
+	 * Getter for the food items in the store. The ArrayList must not be
+	 * modified directly
+	 * @return Returns the ArrayList of food items
+	 */
+	public ArrayList<AEntity> getItems() {
+		return items;
+	}
+
+	/**
+	 * Removes every food item from the store
+	 */
+	public void clear() {
+		items.clear();
+		Arrays.fill(slots, 0);
+	}
+}
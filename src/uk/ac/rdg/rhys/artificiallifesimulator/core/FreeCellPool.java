@@ -0,0 +1,184 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.util.Arrays;
+
+/**
+ * <h1>FreeCellPool.java</h1>
+ * <p>
+ * This class holds the set of free cells of the world, i.e. the cells that
+ * contain no food item or obstacle and are not occupied by a life form. The
+ * free cells are kept in the first part of an array and a position map stores
+ * where each cell is in that array, so adding a cell, removing a cell and
+ * choosing a random free cell all take constant time however full the world
+ * is. A cell is removed by moving the last free cell into its place.
+ *
+ * The cells are flattened in the same row order as the WorldGrid.
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see WorldGrid, AWorld
+ */
+public class FreeCellPool {
+
+	private final int[] cells; // free cell indexes, the first size are valid
+	private final int[] positions; // position of each cell in cells, or -1
+	private int size; // number of free cells
+
+	/**
+	 * This constructor creates a pool for a square world in which every cell
+	 * is free
+	 *
+	 * @param worldSize
+	 *            The size of the world (dimensions)
+	 */
+	public FreeCellPool(int worldSize) {
+		cells = new int[worldSize * worldSize];
+		positions = new int[worldSize * worldSize];
+		fill();
+	}
+
+	/**
+	 * This method marks a cell as free. Nothing happens if the cell is
+	 * already free
+	 *
+	 * @param index
+	 *            The index of the cell
+	 */
+	public void add(int index) {
+		if (positions[index] < 0) {
+			cells[size] = index;
+			positions[index] = size;
+			size++;
+		}
+	}
+
+	/**
+	 * This method marks a cell as used. Nothing happens if the cell is already
+	 * used
+	 *
+	 * @param index
+	 *            The index of the cell
+	 */
+	public void remove(int index) {
+		int position = positions[index];
+		if (position >= 0) {
+
+			// Move the last free cell into the position of the removed cell
+			size--;
+			int last = cells[size];
+			cells[position] = last;
+			positions[last] = position;
+			positions[index] = -1;
+		}
+	}
+
+	/**
+	 * This method tests if a cell is free
+	 *
+	 * @param index
+	 *            The index of the cell
+	 * @return Returns true if the cell is free
+	 */
+	public boolean contains(int index) {
+		return positions[index] >= 0;
+	}
+
+	/**
+	 * This method chooses a free cell at random. The cell stays free
+	 *
+	 * @param random
+	 *            The random number generator to use
+	 * @return Returns the index of the cell, or -1 if there are no free cells
+	 */
+	public int random(EngineRandom random) {
+		if (size == 0) {
+			return -1;
+		}
+		return cells[random.nextInt(size)];
+	}
+
+	/**
+	 * This method chooses a free cell at random and marks it as used
+	 *
+	 * @param random
+	 *            The random number generator to use
+	 * @return Returns the index of the cell, or -1 if there are no free cells
+	 */
+	public int take(EngineRandom random) {
+		int index = random(random);
+		if (index >= 0) {
+			remove(index);
+		}
+		return index;
+	}
+
+	/**
+	 * This method chooses up to count different free cells at random and marks
+	 * them as used. It is used to place many items in a single call
+	 *
+	 * @param random
+	 *            The random number generator to use
+	 * @param taken
+	 *            The array the indexes of the cells are stored in
+	 * @param count
+	 *            The number of cells wanted
+	 * @return Returns the number of cells taken, which is less than count if
+	 *         the world ran out of free cells
+	 */
+	public int take(EngineRandom random, int[] taken, int count) {
+		int n = Math.min(count, size);
+		for (int i = 0; i < n; i++) {
+			taken[i] = take(random);
+		}
+		return n;
+	}
+
+	/**
+	 * Getter for the free cell at a position of the pool. The order of the
+	 * pool decides which cell random() chooses, so it is saved with the world
+	 * 
+	 * @param position
+	 *            The position in the pool, less than size()
+	 * @return Returns the index of the free cell
+	 */
+	public int get(int position) {
+		return cells[position];
+	}
+
+	/**
+	 * Getter for the array of free cell indexes, used to copy the pool in one
+	 * block. Only the first size() entries are free cells
+	 * @return Returns the array of free cell indexes, in pool order
+	 */
+	int[] getCells() {
+		return cells;
+	}
+
+	/**
+	 * Getter for the number of free cells
+	 * @return Returns the number of free cells
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * This method marks every cell as free
+	 */
+	public void fill() {
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = i;
+			positions[i] = i;
+		}
+		size = cells.length;
+	}
+
+	/**
+	 * This method marks every cell as used
+	 */
+	public void clear() {
+		Arrays.fill(positions, -1);
+		size = 0;
+	}
+}
@@ -1,9 +1,7 @@
-package uk.ac.rdg.rhys.artificiallifesimulator;
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
 
 import java.util.ArrayList;
 
-import javafx.scene.image.Image;
-
 /**
  * <h1>Grass.java</h1>
  * <p>
@@ -17,9 +15,6 @@ import javafx.scene.image.Image;
  */
 public class Grass extends AFoodItem {
 
-	private Image image = new Image(getClass().getResourceAsStream(
-			"images/grass.png"));
-
 	/**
 	 * This constructor sets the coordinates of the food object based on the
 	 * provided parameters. The properties of the food item set to be relevant
@@ -37,12 +32,6 @@ public class Grass extends AFoodItem {
 		nutrition = 2;
 		x = initialX;
 		y = initialY;
-		drawn = false;
-
-		// Set ImageView parameters
-		imageView.setImage(image);
-		imageView.setPreserveRatio(true);
-		imageView.setCache(true);
 	}
 
 	/**
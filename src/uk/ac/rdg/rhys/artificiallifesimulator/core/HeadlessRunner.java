@@ -0,0 +1,613 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import javax.management.JMException;
+
+/**
+ * <h1>HeadlessRunner.java</h1>
+ * <p>
+ * This class runs a simulation without a user interface. The world
+ * parameters and the number of life forms of each species are read from the
+ * command line and/or a configuration file, the simulation cycles are run as
+ * fast as possible and a throughput report is printed at the end.
+ *
+ * Options (command line values override the configuration file):
+ *<p> --config FILE - properties file with any of the keys below
+ *<p> --size N - world size (default 10)
+ *<p> --cycles N - number of simulation cycles (default 1000)
+ *<p> --food N - food density (default 20)
+ *<p> --obstacles N - obstacle density (default 10)
+ *<p> --energy N - initial energy of every life form (default 50)
+ *<p> --seed N - seed of the random number generator, so that runs can be
+ *    repeated exactly (default: based on the current time)
+ *<p> --threads N - update the life forms on N threads (default 1)
+ *<p> --store TYPE - hold the life forms as objects (default) or in the
+ *    arrays of a LifeFormStore (arrays), which uses far less memory for
+ *    large populations
+ *<p> --worlds N - run N independent worlds at once in this JVM (default 1);
+ *    with --seed S the worlds use the seeds S, S+1, ... The event log,
+ *    --load, --save, --checkpoint, --resume, --stats and --metrics options
+ *    can only be used with a single world
+ *<p> --log SPEC - event log levels, e.g. meal=info,move=debug or all=debug
+ *<p> --log-file FILE - write the events to a file on a background thread
+ *<p> --log-format FORMAT - write the log file as text (default) or as a
+ *    binary event log (binary) that can be replayed by EventLogPlayer; a
+ *    binary log is appended to if it already exists
+ *<p> --log-ring N - keep the last N events in memory and print them at the end
+ *<p> --quiet - record no events, whatever --log is set to
+ *<p> --load FILE - continue a simulation saved by --save or by the user
+ *    interface instead of creating a new world; --cycles sets the number of
+ *    cycles to run and the world options are ignored
+ *<p> --save FILE - save the whole simulation once the cycles have run (see
+ *    SnapshotFile)
+ *<p> --checkpoint PATH - write a checkpoint to PATH.a and PATH.b in turn
+ *    while the cycles run (see Checkpointer)
+ *<p> --checkpoint-every N - number of cycles between checkpoints (default
+ *    1000)
+ *<p> --resume PATH - continue from the newest valid checkpoint at PATH and
+ *    run the cycles that were left; --cycles sets the total number of cycles
+ *<p> --stats FILE - write the population, energy, food, births, deaths,
+ *    meals and time of the cycles to a file (see StatisticsExporter)
+ *<p> --stats-every N - number of cycles between two rows (default 1)
+ *<p> --stats-format FORMAT - write the statistics as CSV (csv, default) or
+ *    in the compact binary format (binary)
+ *<p> --metrics - time the phases of every cycle, publish the timers and
+ *    counters through JMX and print them at the end (see EngineMetrics)
+ *<p> --SPECIES N - number of life forms of a species, e.g. --Cow 20
+ *
+ * In a configuration file the species counts use the key species.SPECIES,
+ * e.g. species.Cow=20
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see Simulation
+ */
+public class HeadlessRunner {
+
+	private Properties config = new Properties();
+	private Simulation simulation = new Simulation();
+	private Checkpointer checkpointer; // null if no checkpoints are taken
+	private StatisticsExporter statistics; // null if nothing is exported
+	private EngineMetrics metrics; // null if the cycles are not measured
+	private int firstCycle; // the cycle the run continues from
+
+	/**
+	 * This method reads the configuration file (if one is given) and then the
+	 * command line options into the config properties
+	 *
+	 * @param args
+	 *            The command line arguments
+	 * @throws IOException
+	 *             If the configuration file cannot be read
+	 */
+	private void parseArguments(String[] args) throws IOException {
+
+		// Load the configuration file first so the command line overrides it
+		for (int i = 0; i < args.length - 1; i++) {
+			if (args[i].equals("--config")) {
+				FileInputStream in = new FileInputStream(args[i + 1]);
+				try {
+					config.load(in);
+				} finally {
+					in.close();
+				}
+			}
+		}
+
+		for (int i = 0; i < args.length; i++) {
+			if (!args[i].startsWith("--")) {
+				throw new IllegalArgumentException("Unexpected argument: "
+						+ args[i]);
+			}
+			String key = args[i].substring(2);
+
+			if (key.equals("quiet") || key.equals("metrics")) {
+				config.setProperty(key, "true");
+			} else if (i + 1 < args.length) {
+				if (isSpecies(key)) {
+					key = "species." + key;
+				}
+				if (!key.equals("config")) {
+					config.setProperty(key, args[i + 1]);
+				}
+				i++;
+			} else {
+				throw new IllegalArgumentException("Missing value for: "
+						+ args[i]);
+			}
+		}
+	}
+
+	/**
+	 * This method tests if the name is one of the species that can be added
+	 *
+	 * @param name
+	 *            The name to test
+	 * @return Returns true if the name is a species
+	 */
+	private boolean isSpecies(String name) {
+		for (Species species : Species.values()) {
+			if (species.name().equals(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Getter for an integer configuration value
+	 *
+	 * @param key
+	 *            The configuration key
+	 * @param defaultValue
+	 *            The value to use if the key is not set
+	 * @return Returns the configuration value
+	 */
+	private int getInt(String key, int defaultValue) {
+		String value = config.getProperty(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		return Integer.parseInt(value.trim());
+	}
+
+	/**
+	 * This method creates the world and the life forms from the
+	 * configuration, or loads them from the file given by --load or the
+	 * checkpoint given by --resume, and opens the checkpoint files
+	 *
+	 * @throws IOException
+	 *             If the file cannot be loaded
+	 */
+	private void setUp() throws IOException {
+		String load = config.getProperty("load");
+		String resume = config.getProperty("resume");
+		if (load == null && resume == null) {
+			simulation = createSimulation(simulation, 0);
+		} else if (load != null) {
+			loadSimulation(load.trim());
+		} else {
+			resumeSimulation(resume.trim());
+		}
+
+		String checkpoint = config.getProperty("checkpoint");
+		if (checkpoint != null) {
+			checkpointer = new Checkpointer(checkpoint.trim(), getInt(
+					"checkpoint-every", 1000));
+		}
+
+		String stats = config.getProperty("stats");
+		if (stats != null) {
+			String format = config.getProperty("stats-format", "csv").trim();
+			if (!format.equals("csv") && !format.equals("binary")) {
+				throw new IllegalArgumentException(
+						"Unknown statistics format: " + format);
+			}
+			statistics = new StatisticsExporter(stats.trim(),
+					format.equals("binary"), getInt("stats-every", 1), 4096);
+		}
+
+		if (Boolean.parseBoolean(config.getProperty("metrics", "false")
+				.trim())) {
+			metrics = new EngineMetrics(true);
+			simulation.setMetrics(metrics);
+			try {
+				metrics.register("Simulation");
+			} catch (JMException e) {
+				System.out.println("Failed to publish metrics: "
+						+ e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * This method loads the simulation from the file given by --load
+	 *
+	 * @param load
+	 *            The path of the file
+	 * @throws IOException
+	 *             If the file cannot be loaded
+	 */
+	private void loadSimulation(String load) throws IOException {
+
+		simulation.setParallelism(getInt("threads", 1));
+		setUpStore(simulation);
+		long start = System.nanoTime();
+		SnapshotFile.read(simulation, load);
+		System.out.println(String.format("Loaded %s in %.1f ms", load,
+				(System.nanoTime() - start) / 1e6));
+		simulation.world.setSimulationCycles(getInt("cycles",
+				simulation.world.getSimulationCycles()));
+	}
+
+	/**
+	 * This method loads the simulation from the newest valid checkpoint given
+	 * by --resume, so that only the cycles that were left are run
+	 *
+	 * @param resume
+	 *            The path of the checkpoint files, without the .a or .b
+	 * @throws IOException
+	 *             If there is no valid checkpoint
+	 */
+	private void resumeSimulation(String resume) throws IOException {
+		simulation.setParallelism(getInt("threads", 1));
+		setUpStore(simulation);
+		long start = System.nanoTime();
+		firstCycle = Checkpointer.resume(simulation, resume);
+		System.out.println(String.format(
+				"Resumed from cycle %d of %s in %.1f ms", firstCycle, resume,
+				(System.nanoTime() - start) / 1e6));
+		simulation.world.setSimulationCycles(getInt("cycles",
+				simulation.world.getSimulationCycles()));
+	}
+
+	/**
+	 * This method chooses how the life forms of a simulation are held from
+	 * the --store option
+	 *
+	 * @param newSimulation
+	 *            The simulation to set up
+	 */
+	private void setUpStore(Simulation newSimulation) {
+		String store = config.getProperty("store", "objects").trim();
+		if (store.equals("arrays")) {
+			newSimulation.setLifeFormStore(new LifeFormStore());
+		} else if (!store.equals("objects")) {
+			throw new IllegalArgumentException("Unknown store: " + store);
+		}
+	}
+
+	/**
+	 * This method creates the world and the life forms of a simulation from
+	 * the configuration
+	 *
+	 * @param newSimulation
+	 *            The simulation to set up
+	 * @param seedOffset
+	 *            The number added to the configured seed
+	 * @return Returns the simulation
+	 */
+	private Simulation createSimulation(Simulation newSimulation,
+			int seedOffset) {
+		newSimulation.setWorld(new AWorld(getInt("cycles", 1000), getInt(
+				"size", 10), getInt("food", 20), getInt("obstacles", 10)));
+		if (config.getProperty("seed") != null) {
+			newSimulation.world.setRandom(new EngineRandom(Long
+					.parseLong(config.getProperty("seed").trim())
+					+ seedOffset));
+		}
+
+		newSimulation.setParallelism(getInt("threads", 1));
+		setUpStore(newSimulation);
+
+		int energy = getInt("energy", 50);
+		for (Species species : Species.values()) {
+			newSimulation.addLifeForms(species.name(),
+					getInt("species." + species, 0), energy);
+		}
+
+		newSimulation.world.initWorld(newSimulation.lifeForms,
+				newSimulation.obstacles);
+		AWorld world = newSimulation.world;
+		if (world.getUnplacedObstacles() > 0
+				|| world.getUnplacedLifeForms() > 0) {
+			System.out.println("The world is full: "
+					+ world.getUnplacedObstacles() + " obstacles and "
+					+ world.getUnplacedLifeForms()
+					+ " life forms could not be placed");
+		}
+		return newSimulation;
+	}
+
+	/**
+	 * This method runs the number of worlds given by --worlds at the same
+	 * time on a simulation host and prints the report of the host
+	 *
+	 * @param worlds
+	 *            The number of worlds to run
+	 * @throws InterruptedException
+	 *             If the main thread is interrupted
+	 */
+	private void runWorlds(int worlds) throws InterruptedException {
+		SimulationHost host = new SimulationHost();
+
+		for (int i = 0; i < worlds; i++) {
+			Simulation worldSimulation = createSimulation(new Simulation(), i);
+			host.submit("World " + i + " (seed "
+					+ worldSimulation.world.getRandom().getSeed() + ")",
+					worldSimulation, worldSimulation.world
+							.getSimulationCycles());
+		}
+		host.awaitAll();
+
+		System.out.println("World size: " + getInt("size", 10)
+				+ ", food density: " + getInt("food", 20)
+				+ ", obstacle density: " + getInt("obstacles", 10)
+				+ ", cycles: " + getInt("cycles", 1000));
+		host.printReport(System.out);
+		host.shutdown();
+	}
+
+	/**
+	 * This method sets up the event log from the log options. No events are
+	 * recorded unless --log is given
+	 *
+	 * @throws IOException
+	 *             If the log file cannot be opened
+	 */
+	private void setUpEventLog() throws IOException {
+		EventLog eventLog = simulation.eventLog;
+		String spec = config.getProperty("log");
+
+		if (spec == null || config.getProperty("quiet") != null) {
+			eventLog.setLevel(EventLevel.OFF);
+			eventLog.setSink(null);
+			return;
+		}
+		eventLog.configure(spec);
+
+		// Choose the sink for the events
+		String format = config.getProperty("log-format", "text").trim();
+		if (!format.equals("text") && !format.equals("binary")) {
+			throw new IllegalArgumentException("Unknown log format: "
+					+ format);
+		}
+		if (config.getProperty("log-file") != null && format.equals("binary")) {
+			eventLog.setSink(new BinaryEventSink(config
+					.getProperty("log-file"), 65536));
+		} else if (config.getProperty("log-file") != null) {
+			eventLog.setSink(new AsyncFileEventSink(config
+					.getProperty("log-file"), 65536));
+		} else if (config.getProperty("log-ring") != null) {
+			eventLog.setSink(new RingBufferEventSink(getInt("log-ring", 0)));
+		} else {
+			eventLog.setSink(new ConsoleEventSink());
+		}
+	}
+
+	/**
+	 * This method runs every simulation cycle back to back and prints the
+	 * throughput report once the simulation has finished
+	 */
+	private void run() {
+
+		// Define temporary variables
+		int cycles = Math.max(simulation.world.getSimulationCycles()
+				- firstCycle, 0);
+		long updates = 0;
+		EventLog eventLog = simulation.eventLog;
+
+		long start = System.nanoTime();
+		try {
+			for (int i = 0; i < cycles; i++) {
+				long cycleStart = statistics != null ? System.nanoTime() : 0;
+				updates += simulation.runSimulation();
+				if (statistics != null) {
+					statistics.cycleFinished(simulation, System.nanoTime()
+							- cycleStart);
+				}
+				if (checkpointer != null) {
+					checkpointer.cycleFinished(simulation);
+				}
+			}
+		} catch (IOException e) {
+			System.out.println("Failed to take checkpoint: " + e.getMessage());
+		}
+		long elapsed = System.nanoTime() - start;
+
+		// Write out the events that are still held by the sink
+		eventLog.close();
+		if (eventLog.getSink() instanceof RingBufferEventSink) {
+			System.out.println("Last recorded events:");
+			((RingBufferEventSink) eventLog.getSink()).dump(System.out);
+		} else if (eventLog.getSink() instanceof AsyncFileEventSink) {
+			AsyncFileEventSink fileSink = (AsyncFileEventSink) eventLog
+					.getSink();
+			if (fileSink.getError() != null) {
+				System.out.println("Failed to write event log: "
+						+ fileSink.getError().getMessage());
+			} else if (fileSink.getDropped() > 0) {
+				System.out.println("Event log dropped "
+						+ fileSink.getDropped() + " events");
+			}
+		} else if (eventLog.getSink() instanceof BinaryEventSink) {
+			BinaryEventSink binarySink = (BinaryEventSink) eventLog.getSink();
+			if (binarySink.getError() != null) {
+				System.out.println("Failed to write event log: "
+						+ binarySink.getError().getMessage());
+			} else {
+				System.out.println("Event log: " + binarySink.getWritten()
+						+ " events written, " + binarySink.getWaits()
+						+ " waits for the writer");
+			}
+		}
+
+		printReport(cycles, updates, elapsed);
+		if (metrics != null) {
+			metrics.printReport(System.out);
+		}
+		simulation.shutdown();
+		if (checkpointer != null) {
+			closeCheckpointer();
+		}
+		if (statistics != null) {
+			closeStatistics();
+		}
+
+		// Save the simulation so that it can be continued with --load
+		String save = config.getProperty("save");
+		if (save != null) {
+			try {
+				start = System.nanoTime();
+				SnapshotFile.write(simulation, save.trim());
+				System.out.println(String.format(
+						"Saved %s (%d bytes) in %.1f ms", save.trim(),
+						new File(save.trim()).length(),
+						(System.nanoTime() - start) / 1e6));
+			} catch (IOException e) {
+				System.out.println("Failed to save simulation: "
+						+ e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * This method waits for the last checkpoint to be written and prints how
+	 * many checkpoints were taken
+	 */
+	private void closeCheckpointer() {
+		try {
+			checkpointer.close();
+		} catch (IOException e) {
+			System.out.println("Failed to close checkpoint: " + e.getMessage());
+		}
+		if (checkpointer.getError() != null) {
+			System.out.println("Failed to write checkpoint: "
+					+ checkpointer.getError().getMessage());
+		}
+		System.out.println("Checkpoints written: " + checkpointer.getWritten()
+				+ ", skipped: " + checkpointer.getSkipped() + ", pauses: "
+				+ checkpointer.getPauses());
+	}
+
+	/**
+	 * This method waits for the last statistics to be written and prints how
+	 * many rows were written
+	 */
+	private void closeStatistics() {
+		statistics.close();
+		if (statistics.getError() != null) {
+			System.out.println("Failed to write statistics: "
+					+ statistics.getError().getMessage());
+		} else {
+			System.out.println("Statistics: " + statistics.getWritten()
+					+ " rows written, " + statistics.getSkipped()
+					+ " skipped");
+		}
+	}
+
+	/**
+	 * This method prints the throughput and the final population of each
+	 * species
+	 *
+	 * @param cycles
+	 *            The number of cycles that were run
+	 * @param updates
+	 *            The total number of life form updates
+	 * @param elapsed
+	 *            The time taken to run the cycles in nanoseconds
+	 */
+	private void printReport(int cycles, long updates, long elapsed) {
+		double seconds = elapsed / 1e9;
+
+		// Count the living life forms of each species, including extinct ones
+		Map<String, Integer> population = new TreeMap<String, Integer>();
+		for (Species species : Species.values()) {
+			population.put(species.name(), 0);
+		}
+		ArrayList<AEntity> lifeForms = simulation.lifeForms;
+		for (int i = 0; i < lifeForms.size(); i++) {
+			if (lifeForms.get(i).getIsAlive()) {
+				String species = SpeciesRegistry.toSpecies(
+						lifeForms.get(i).getTypeId()).name();
+				population.put(species, population.get(species) + 1);
+			}
+		}
+
+		System.out.println("World size: " + simulation.world.getWorldSize()
+				+ ", food density: " + simulation.world.getFoodDensity()
+				+ ", obstacle density: "
+				+ simulation.world.getObjectDensity() + ", seed: "
+				+ simulation.world.getRandom().getSeed() + ", threads: "
+				+ simulation.getParallelism() + ", store: "
+				+ (simulation.getLifeFormStore() != null ? "arrays"
+						: "objects"));
+		System.out.println("Cycles run: " + cycles);
+		System.out.println(String.format("Elapsed time: %.3f s", seconds));
+		System.out.println(String.format("Cycles/second: %.1f", cycles
+				/ seconds));
+		System.out.println(String.format("Entity updates/second: %.1f",
+				updates / seconds));
+		System.out.println("Final population:");
+		for (Map.Entry<String, Integer> entry : population.entrySet()) {
+			System.out.println("  " + entry.getKey() + ": "
+					+ entry.getValue());
+		}
+	}
+
+	/**
+	 * This method prints the command line usage
+	 */
+	private static void printUsage() {
+		System.out.println("Usage: HeadlessRunner [--config FILE] [--size N]"
+				+ " [--cycles N] [--food N] [--obstacles N] [--energy N]"
+				+ " [--seed N] [--threads N] [--store objects|arrays]"
+				+ " [--worlds N] [--log SPEC] [--log-file FILE]"
+				+ " [--log-format text|binary]"
+				+ " [--log-ring N] [--quiet] [--load FILE] [--save FILE]"
+				+ " [--checkpoint PATH] [--checkpoint-every N]"
+				+ " [--resume PATH] [--stats FILE] [--stats-every N]"
+				+ " [--stats-format csv|binary] [--metrics]"
+				+ " [--SPECIES N ...]");
+		System.out.print("Species:");
+		for (Species species : Species.values()) {
+			System.out.print(" " + species);
+		}
+		System.out.println();
+	}
+
+	/**
+	 * The main() method runs a single headless simulation
+	 *
+	 * @param args
+	 *            the command line arguments
+	 */
+	public static void main(String[] args) {
+		HeadlessRunner runner = new HeadlessRunner();
+		int worlds = 1;
+		try {
+			runner.parseArguments(args);
+			worlds = runner.getInt("worlds", 1);
+			if (runner.config.getProperty("load") != null
+					&& runner.config.getProperty("resume") != null) {
+				throw new IllegalArgumentException(
+						"--load and --resume cannot be used together");
+			}
+			if (worlds > 1) {
+				if (runner.config.getProperty("log") != null
+						|| runner.config.getProperty("load") != null
+						|| runner.config.getProperty("save") != null
+						|| runner.config.getProperty("checkpoint") != null
+						|| runner.config.getProperty("resume") != null
+						|| runner.config.getProperty("stats") != null
+						|| runner.config.getProperty("metrics") != null) {
+					throw new IllegalArgumentException(
+							"--log, --load, --save, --checkpoint, --resume, --stats and --metrics can only be used with a single world");
+				}
+				runner.runWorlds(worlds);
+				return;
+			}
+			runner.setUpEventLog();
+			runner.setUp();
+		} catch (IOException e) {
+			System.out.println("Failed to open file: " + e.getMessage());
+			System.exit(1);
+		} catch (IllegalArgumentException e) {
+			System.out.println(e.getMessage());
+			printUsage();
+			System.exit(1);
+		} catch (InterruptedException e) {
+			System.out.println("Interrupted");
+			System.exit(1);
+		}
+		runner.run();
+	}
+}
@@ -0,0 +1,437 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.io.IOException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <h1>HostedSimulation.java</h1>
+ * <p>
+ * This class is the handle of a simulation run by a SimulationHost. It runs
+ * the simulation's cycles on the thread given to it by the host and lets
+ * other threads pause, resume or stop the run and read its progress.
+ *
+ * A paused simulation waits on a ReentrantLock condition rather than with
+ * Object.wait(), so that a paused simulation running on a virtual thread
+ * does not hold on to the underlying platform thread.
+ *
+ * A simulation that is shown by the user interface runs on its own thread
+ * with a SnapshotExchange, which is offered a snapshot after every cycle,
+ * and a cycle delay that sets how often the cycles start
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see SimulationHost
+ */
+public class HostedSimulation implements Runnable {
+
+	/**
+	 * Enumerated type for the state of a hosted simulation
+	 *
+	 * @author Rhys
+	 */
+	public enum State {
+		WAITING, RUNNING, PAUSED, FINISHED, STOPPED, FAILED
+	}
+
+	private final String name;
+	private final Simulation simulation;
+	private final int cycles; // number of cycles to run
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition changed = lock.newCondition();
+	private volatile State state = State.WAITING;
+	private volatile boolean pauseRequested;
+	private volatile boolean stopRequested;
+	private volatile int cyclesRun;
+	private volatile int lifeFormCount;
+	private volatile long updates;
+	private volatile long startTime;
+	private volatile long endTime;
+	private volatile Throwable error;
+	private volatile SnapshotExchange snapshots; // null if nothing is drawn
+	private volatile Checkpointer checkpointer; // null if not checkpointed
+	private volatile StatisticsExporter statistics; // null if not exported
+	private volatile long cycleDelay; // nanoseconds from one cycle to the next
+
+	/**
+	 * This constructor creates the handle of a simulation that has not been
+	 * started yet
+	 *
+	 * @param newName
+	 *            The name of the simulation
+	 * @param newSimulation
+	 *            The simulation to run, with its world already initialised
+	 * @param newCycles
+	 *            The number of cycles to run
+	 */
+	public HostedSimulation(String newName, Simulation newSimulation,
+			int newCycles) {
+		name = newName;
+		simulation = newSimulation;
+		cycles = newCycles;
+		lifeFormCount = newSimulation.getLifeForms().size();
+	}
+
+	/**
+	 * This method runs the cycles of the simulation. It is called by the
+	 * host on the thread of the simulation
+	 */
+	@Override
+	public void run() {
+		startTime = System.nanoTime();
+		setState(State.RUNNING);
+		try {
+			while (cyclesRun < cycles) {
+				if (!waitWhilePaused()) {
+					publishSnapshot();
+					setState(State.STOPPED);
+					return;
+				}
+				long cycleStart = System.nanoTime();
+				updates += simulation.runSimulation();
+				if (statistics != null) {
+					statistics.cycleFinished(simulation, System.nanoTime()
+							- cycleStart);
+				}
+				lifeFormCount = simulation.getLifeForms().size();
+				cyclesRun++;
+				SnapshotExchange exchange = snapshots;
+				if (exchange != null) {
+					offerSnapshot(exchange);
+				}
+				if (checkpointer != null) {
+					checkpointer.cycleFinished(simulation);
+				}
+				waitForNextCycle(cycleStart);
+			}
+			publishSnapshot();
+			setState(State.FINISHED);
+		} catch (RuntimeException e) {
+			error = e;
+			setState(State.FAILED);
+		} catch (IOException e) {
+			error = e;
+			setState(State.FAILED);
+		} catch (Error e) {
+			error = e;
+			setState(State.FAILED);
+			throw e;
+		} finally {
+			endTime = System.nanoTime();
+			simulation.shutdown();
+		}
+	}
+
+	/**
+	 * This method waits while the simulation is paused
+	 *
+	 * @return Returns false if the simulation has been stopped
+	 */
+	private boolean waitWhilePaused() {
+		if (!pauseRequested) {
+			return !stopRequested;
+		}
+		lock.lock();
+		try {
+			setState(State.PAUSED);
+			while (pauseRequested && !stopRequested) {
+				changed.awaitUninterruptibly();
+			}
+			if (!stopRequested) {
+				setState(State.RUNNING);
+			}
+		} finally {
+			lock.unlock();
+		}
+		return !stopRequested;
+	}
+
+	/**
+	 * This method waits until the cycle delay has passed since the start of
+	 * the last cycle. It returns early if the simulation is paused or stopped
+	 * 
+	 * @param cycleStart
+	 *            The time the last cycle started, from System.nanoTime()
+	 */
+	private void waitForNextCycle(long cycleStart) {
+		if (cycleDelay <= 0) {
+			return;
+		}
+		lock.lock();
+		try {
+			long remaining = cycleDelay - (System.nanoTime() - cycleStart);
+			while (remaining > 0 && !pauseRequested && !stopRequested) {
+				changed.awaitNanos(remaining);
+				remaining = cycleDelay - (System.nanoTime() - cycleStart);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * This method offers a snapshot of the simulation after a cycle, timing
+	 * the handoff if the simulation's metrics are enabled
+	 *
+	 * @param exchange
+	 *            The exchange to offer the snapshot to, read once from the
+	 *            snapshots field as it can be changed while the simulation runs
+	 */
+	private void offerSnapshot(SnapshotExchange exchange) {
+		EngineMetrics metrics = simulation.getMetrics();
+		if (metrics != null && metrics.isEnabled()) {
+			long start = System.nanoTime();
+			exchange.offer(simulation);
+			metrics.recordHandoff(System.nanoTime() - start);
+		} else {
+			exchange.offer(simulation);
+		}
+	}
+
+	/**
+	 * This method publishes a snapshot of the simulation once it has stopped
+	 * running, so the last cycle is always drawn
+	 */
+	private void publishSnapshot() {
+		SnapshotExchange exchange = snapshots;
+		if (exchange != null) {
+			exchange.publish(simulation);
+		}
+	}
+
+	/**
+	 * This method sets the state and wakes up any thread waiting for it
+	 *
+	 * @param newState
+	 *            The new state
+	 */
+	private void setState(State newState) {
+		lock.lock();
+		try {
+			state = newState;
+			changed.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * This method asks the simulation to pause after the current cycle
+	 */
+	public void pause() {
+		lock.lock();
+		try {
+			pauseRequested = true;
+			changed.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * This method asks the simulation to pause and waits until it has paused
+	 * or is no longer running. The simulation can then be read and changed
+	 * until it is resumed
+	 *
+	 * @throws InterruptedException
+	 *             If the waiting thread is interrupted
+	 */
+	public void pauseAndWait() throws InterruptedException {
+		lock.lock();
+		try {
+			pauseRequested = true;
+			changed.signalAll();
+			while (pauseRequested
+					&& (state == State.WAITING || state == State.RUNNING)) {
+				changed.await();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Setter for the exchange that is offered a snapshot after every cycle.
+	 * It can be changed while the simulation is running, e.g. set to null so
+	 * that no time is spent copying the world while nothing is drawn
+	 * @param newSnapshots The exchange, or null to publish no snapshots
+	 */
+	public void setSnapshotExchange(SnapshotExchange newSnapshots) {
+		snapshots = newSnapshots;
+	}
+
+	/**
+	 * Setter for the checkpointer that is told about every finished cycle
+	 * @param newCheckpointer The checkpointer, or null to take no checkpoints
+	 */
+	public void setCheckpointer(Checkpointer newCheckpointer) {
+		checkpointer = newCheckpointer;
+	}
+
+	/**
+	 * Setter for the exporter that is given the statistics of every cycle
+	 * @param newStatistics The exporter, or null to export no statistics
+	 */
+	public void setStatisticsExporter(StatisticsExporter newStatistics) {
+		statistics = newStatistics;
+	}
+
+	/**
+	 * Setter for the time from the start of one cycle to the start of the
+	 * next. A delay of 0 runs the cycles back to back
+	 * @param nanos The delay in nanoseconds
+	 */
+	public void setCycleDelay(long nanos) {
+		lock.lock();
+		try {
+			cycleDelay = nanos;
+			changed.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Getter for whether the simulation has been asked to pause
+	 * @return Returns true if the simulation is paused or pausing
+	 */
+	public boolean isPauseRequested() {
+		return pauseRequested;
+	}
+
+	/**
+	 * This method resumes a paused simulation
+	 */
+	public void resume() {
+		lock.lock();
+		try {
+			pauseRequested = false;
+			changed.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * This method asks the simulation to stop after the current cycle. A
+	 * simulation that has not started yet stops as soon as it starts
+	 */
+	public void stop() {
+		lock.lock();
+		try {
+			stopRequested = true;
+			changed.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * This method waits until the simulation has finished, stopped or failed
+	 *
+	 * @throws InterruptedException
+	 *             If the waiting thread is interrupted
+	 */
+	public void awaitDone() throws InterruptedException {
+		lock.lock();
+		try {
+			while (!isDone()) {
+				changed.await();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * This method tests if the simulation has finished, stopped or failed
+	 *
+	 * @return Returns true if the simulation is no longer running
+	 */
+	public boolean isDone() {
+		State current = state;
+		return current == State.FINISHED || current == State.STOPPED
+				|| current == State.FAILED;
+	}
+
+	/**
+	 * Getter for the name of the simulation
+	 * @return Returns the name of the simulation
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Getter for the simulation. It must not be changed while the simulation
+	 * is running
+	 * @return Returns the simulation
+	 */
+	public Simulation getSimulation() {
+		return simulation;
+	}
+
+	/**
+	 * Getter for the state of the simulation
+	 * @return Returns the state of the simulation
+	 */
+	public State getState() {
+		return state;
+	}
+
+	/**
+	 * Getter for the number of cycles to run
+	 * @return Returns the number of cycles to run
+	 */
+	public int getCycles() {
+		return cycles;
+	}
+
+	/**
+	 * Getter for the number of cycles run so far
+	 * @return Returns the number of cycles run
+	 */
+	public int getCyclesRun() {
+		return cyclesRun;
+	}
+
+	/**
+	 * Getter for the number of life forms left after the last cycle
+	 * @return Returns the number of life forms
+	 */
+	public int getLifeFormCount() {
+		return lifeFormCount;
+	}
+
+	/**
+	 * Getter for the number of life form updates so far
+	 * @return Returns the number of life form updates
+	 */
+	public long getUpdates() {
+		return updates;
+	}
+
+	/**
+	 * Getter for the time the simulation has been running, including any
+	 * time it was paused
+	 * @return Returns the running time in nanoseconds
+	 */
+	public long getElapsedNanos() {
+		if (startTime == 0) {
+			return 0;
+		}
+		return (endTime != 0 ? endTime : System.nanoTime()) - startTime;
+	}
+
+	/**
+	 * Getter for the error that made the simulation fail
+	 * @return Returns the error, or null if the simulation has not failed
+	 */
+	public Throwable getError() {
+		return error;
+	}
+}
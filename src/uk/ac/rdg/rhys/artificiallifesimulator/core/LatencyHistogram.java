@@ -0,0 +1,145 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.util.Arrays;
+
+/**
+ * <h1>LatencyHistogram.java</h1>
+ * <p>
+ * This class counts durations in a fixed number of buckets, so that the
+ * median, 99th percentile and maximum of a timer can be read at any time
+ * without keeping every sample. Durations below 2^SUB_BITS nanoseconds have
+ * a bucket each; larger durations are split into buckets by their highest
+ * bit and the SUB_BITS bits after it, so a percentile is never more than
+ * 1/2^SUB_BITS (12.5%) above the real value. The maximum, count and total
+ * are exact.
+ *
+ * Samples are recorded by the thread running the simulation and read by the
+ * JMX thread, so the methods are synchronized; recording a sample never
+ * creates an object
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see EngineMetrics
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BITS;
+	private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+	private final long[] counts = new long[BUCKETS];
+	private long count;
+	private long total;
+	private long max;
+
+	/**
+	 * This method records a duration
+	 *
+	 * @param nanos
+	 *            The duration in nanoseconds
+	 */
+	public synchronized void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		counts[bucketOf(nanos)]++;
+		count++;
+		total += nanos;
+		if (nanos > max) {
+			max = nanos;
+		}
+	}
+
+	/**
+	 * This method works out the bucket of a duration
+	 *
+	 * @param nanos
+	 *            The duration, which is not negative
+	 * @return Returns the index of the bucket
+	 */
+	private static int bucketOf(long nanos) {
+		if (nanos < SUB_BUCKETS) {
+			return (int) nanos;
+		}
+		int highest = 63 - Long.numberOfLeadingZeros(nanos);
+		int sub = (int) (nanos >>> (highest - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (highest - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * This method works out the largest duration that falls in a bucket
+	 *
+	 * @param bucket
+	 *            The index of the bucket
+	 * @return Returns the upper bound of the bucket in nanoseconds
+	 */
+	private static long upperBoundOf(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int highest = bucket / SUB_BUCKETS + SUB_BITS - 1;
+		long sub = bucket % SUB_BUCKETS;
+		long lower = (1L << highest) | (sub << (highest - SUB_BITS));
+		return lower + (1L << (highest - SUB_BITS)) - 1;
+	}
+
+	/**
+	 * This method works out a percentile of the recorded durations
+	 *
+	 * @param percentile
+	 *            The percentile, between 0 and 100
+	 * @return Returns the duration in nanoseconds that the given percentage
+	 *         of the samples do not exceed, or 0 if nothing was recorded
+	 */
+	public synchronized long getPercentile(double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+		long seen = 0;
+		for (int bucket = 0; bucket < BUCKETS; bucket++) {
+			seen += counts[bucket];
+			if (seen >= rank) {
+				return Math.min(upperBoundOf(bucket), max);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * This method copies the figures of the histogram into a summary
+	 *
+	 * @return Returns the count, median, 99th percentile, maximum and mean
+	 */
+	public synchronized LatencySummary getSummary() {
+		return new LatencySummary(count, getPercentile(50),
+				getPercentile(99), max, count == 0 ? 0 : total / count);
+	}
+
+	/**
+	 * Getter for the number of recorded durations
+	 * @return Returns the number of samples
+	 */
+	public synchronized long getCount() {
+		return count;
+	}
+
+	/**
+	 * Getter for the longest recorded duration
+	 * @return Returns the maximum in nanoseconds
+	 */
+	public synchronized long getMax() {
+		return max;
+	}
+
+	/**
+	 * This method removes every recorded duration
+	 */
+	public synchronized void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		total = 0;
+		max = 0;
+	}
+}
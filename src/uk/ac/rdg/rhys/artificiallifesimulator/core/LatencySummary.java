@@ -0,0 +1,96 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * <h1>LatencySummary.java</h1>
+ * <p>
+ * This class holds the figures of a latency histogram at one moment: the
+ * number of samples, the median, the 99th percentile, the maximum and the
+ * mean, all in nanoseconds. It is returned by the attributes of the engine
+ * metrics MXBean, which JMX tools show as a composite value
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see LatencyHistogram, EngineMetricsMXBean
+ */
+public class LatencySummary {
+
+	private final long count;
+	private final long p50Nanos;
+	private final long p99Nanos;
+	private final long maxNanos;
+	private final long meanNanos;
+
+	/**
+	 * This constructor creates a summary
+	 *
+	 * @param newCount
+	 *            The number of samples
+	 * @param newP50Nanos
+	 *            The median
+	 * @param newP99Nanos
+	 *            The 99th percentile
+	 * @param newMaxNanos
+	 *            The maximum
+	 * @param newMeanNanos
+	 *            The mean
+	 */
+	@ConstructorProperties({ "count", "p50Nanos", "p99Nanos", "maxNanos",
+			"meanNanos" })
+	public LatencySummary(long newCount, long newP50Nanos, long newP99Nanos,
+			long newMaxNanos, long newMeanNanos) {
+		count = newCount;
+		p50Nanos = newP50Nanos;
+		p99Nanos = newP99Nanos;
+		maxNanos = newMaxNanos;
+		meanNanos = newMeanNanos;
+	}
+
+	/**
+	 * Getter for the number of samples
+	 * @return Returns the number of samples
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Getter for the median
+	 * @return Returns the median in nanoseconds
+	 */
+	public long getP50Nanos() {
+		return p50Nanos;
+	}
+
+	/**
+	 * Getter for the 99th percentile
+	 * @return Returns the 99th percentile in nanoseconds
+	 */
+	public long getP99Nanos() {
+		return p99Nanos;
+	}
+
+	/**
+	 * Getter for the maximum
+	 * @return Returns the maximum in nanoseconds
+	 */
+	public long getMaxNanos() {
+		return maxNanos;
+	}
+
+	/**
+	 * Getter for the mean
+	 * @return Returns the mean in nanoseconds
+	 */
+	public long getMeanNanos() {
+		return meanNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("p50 %.3f ms, p99 %.3f ms, max %.3f ms (%d samples)",
+				p50Nanos / 1e6, p99Nanos / 1e6, maxNanos / 1e6, count);
+	}
+}
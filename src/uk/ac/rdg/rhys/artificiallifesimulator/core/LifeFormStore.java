@@ -0,0 +1,469 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * <h1>LifeFormStore.java</h1>
+ * <p>
+ * This class holds life forms as parallel arrays of primitives (one array for
+ * each of x, y, energy, species id, alive flag and last food position)
+ * instead of one object per life form, so that very large populations fit
+ * in a modest heap and can be read in order without following references.
+ *
+ * Every life form is stored in a slot. A handle combines the slot index with
+ * the generation of the slot, which changes whenever the slot is released,
+ * so a handle to a released life form is never mistaken for the life form
+ * that reuses its slot. Released slots are reused before the arrays grow.
+ *
+ * The rest of the simulation uses the AEntity API, so each life form also has
+ * a StoredLifeForm view that reads and writes its slot. Names are not stored
+ * unless they differ from the default species name and unique ID
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see StoredLifeForm, SpeciesRegistry
+ */
+public class LifeFormStore {
+
+	// Define the columns of the store, indexed by slot
+	private int[] xs;
+	private int[] ys;
+	private int[] energies;
+	private int[] lastFoodXs;
+	private int[] lastFoodYs;
+	private int[] uniqueIDs;
+	private int[] generations;
+	private byte[] speciesIds;
+	private boolean[] alive;
+	private boolean[] used;
+	private StoredLifeForm[] views;
+
+	private HashMap<Integer, String> names = new HashMap<Integer, String>();
+	private int[] freeSlots; // released slots, the first freeCount are valid
+	private int freeCount;
+	private int slotCount; // number of slots ever used (the high water mark)
+	private int size; // number of slots in use
+
+	/**
+	 * This constructor creates an empty store
+	 *
+	 * @param initialCapacity
+	 *            The number of life forms the store can hold before its
+	 *            arrays grow
+	 */
+	public LifeFormStore(int initialCapacity) {
+		int capacity = Math.max(initialCapacity, 16);
+		xs = new int[capacity];
+		ys = new int[capacity];
+		energies = new int[capacity];
+		lastFoodXs = new int[capacity];
+		lastFoodYs = new int[capacity];
+		uniqueIDs = new int[capacity];
+		generations = new int[capacity];
+		speciesIds = new byte[capacity];
+		alive = new boolean[capacity];
+		used = new boolean[capacity];
+		views = new StoredLifeForm[capacity];
+		freeSlots = new int[16];
+	}
+
+	/**
+	 * This constructor creates an empty store with a small initial capacity
+	 */
+	public LifeFormStore() {
+		this(1024);
+	}
+
+	/**
+	 * This method adds a living life form to the store
+	 *
+	 * @param species
+	 *            The species of the life form
+	 * @param uniqueID
+	 *            The unique ID of the life form
+	 * @param name
+	 *            The name of the life form, or null for the default name
+	 * @param energy
+	 *            The energy of the life form
+	 * @param x
+	 *            The x coordinate of the life form
+	 * @param y
+	 *            The y coordinate of the life form
+	 * @return Returns the handle of the life form
+	 */
+	public long add(Species species, int uniqueID, String name, int energy,
+			int x, int y) {
+
+		// Reuse a released slot before using a new one
+		int index;
+		if (freeCount > 0) {
+			index = freeSlots[--freeCount];
+		} else {
+			if (slotCount == xs.length) {
+				grow(slotCount * 2);
+			}
+			index = slotCount++;
+		}
+
+		xs[index] = x;
+		ys[index] = y;
+		energies[index] = energy;
+		lastFoodXs[index] = 0;
+		lastFoodYs[index] = 0;
+		uniqueIDs[index] = uniqueID;
+		speciesIds[index] = (byte) SpeciesRegistry.idOf(species);
+		alive[index] = true;
+		used[index] = true;
+		views[index] = new StoredLifeForm(this, index, generations[index]);
+		size++;
+
+		if (name != null && !name.equals(defaultName(index))) {
+			names.put(index, name);
+		}
+		return handle(index);
+	}
+
+	/**
+	 * This method removes a life form from the store. Its slot can then be
+	 * reused and its handle and view are no longer valid
+	 *
+	 * @param handle
+	 *            The handle of the life form
+	 */
+	public void release(long handle) {
+		int index = indexOf(handle);
+		used[index] = false;
+		alive[index] = false;
+		views[index] = null;
+		names.remove(index);
+		generations[index]++;
+		size--;
+
+		if (freeCount == freeSlots.length) {
+			freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+		}
+		freeSlots[freeCount++] = index;
+	}
+
+	/**
+	 * This method removes every life form from the store
+	 */
+	public void clear() {
+		for (int i = 0; i < slotCount; i++) {
+			if (used[i]) {
+				generations[i]++;
+			}
+		}
+		Arrays.fill(used, 0, slotCount, false);
+		Arrays.fill(alive, 0, slotCount, false);
+		Arrays.fill(views, 0, slotCount, null);
+		names.clear();
+		freeCount = 0;
+		slotCount = 0;
+		size = 0;
+	}
+
+	/**
+	 * This method makes every column of the store larger
+	 *
+	 * @param capacity
+	 *            The new number of slots
+	 */
+	private void grow(int capacity) {
+		xs = Arrays.copyOf(xs, capacity);
+		ys = Arrays.copyOf(ys, capacity);
+		energies = Arrays.copyOf(energies, capacity);
+		lastFoodXs = Arrays.copyOf(lastFoodXs, capacity);
+		lastFoodYs = Arrays.copyOf(lastFoodYs, capacity);
+		uniqueIDs = Arrays.copyOf(uniqueIDs, capacity);
+		generations = Arrays.copyOf(generations, capacity);
+		speciesIds = Arrays.copyOf(speciesIds, capacity);
+		alive = Arrays.copyOf(alive, capacity);
+		used = Arrays.copyOf(used, capacity);
+		views = Arrays.copyOf(views, capacity);
+	}
+
+	/**
+	 * This method creates the handle of the life form in a slot
+	 *
+	 * @param index
+	 *            The slot of the life form
+	 * @return Returns the handle of the life form
+	 */
+	private long handle(int index) {
+		return ((long) generations[index] << 32) | index;
+	}
+
+	/**
+	 * This method tests if a handle still refers to a life form in the store
+	 *
+	 * @param handle
+	 *            The handle of the life form
+	 * @return Returns true if the life form has not been released
+	 */
+	public boolean isValid(long handle) {
+		int index = (int) handle;
+		return index >= 0 && index < slotCount && used[index]
+				&& generations[index] == (int) (handle >>> 32);
+	}
+
+	/**
+	 * This method converts a handle into the slot of its life form
+	 *
+	 * @param handle
+	 *            The handle of the life form
+	 * @return Returns the slot of the life form
+	 * @throws IllegalArgumentException
+	 *             If the life form has been released
+	 */
+	public int indexOf(long handle) {
+		if (!isValid(handle)) {
+			throw new IllegalArgumentException("Stale life form handle: "
+					+ handle);
+		}
+		return (int) handle;
+	}
+
+	/**
+	 * Getter for the view of a life form
+	 *
+	 * @param handle
+	 *            The handle of the life form
+	 * @return Returns the view of the life form
+	 */
+	public StoredLifeForm view(long handle) {
+		return views[indexOf(handle)];
+	}
+
+	/**
+	 * Getter for the view of the life form in a slot
+	 *
+	 * @param index
+	 *            The slot of the life form
+	 * @return Returns the view of the life form, or null if the slot is free
+	 */
+	public StoredLifeForm viewAt(int index) {
+		return views[index];
+	}
+
+	/**
+	 * Getter for the number of life forms in the store
+	 * @return Returns the number of life forms
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Getter for the number of slots that have been used. Every life form is
+	 * in a slot below this number, so loops over the columns stop here
+	 * @return Returns the number of slots that have been used
+	 */
+	public int getSlotCount() {
+		return slotCount;
+	}
+
+	/**
+	 * Getter for whether a slot holds a life form
+	 * @param index The slot
+	 * @return Returns true if the slot holds a life form
+	 */
+	public boolean isUsed(int index) {
+		return used[index];
+	}
+
+	/**
+	 * Getter for the handle of the life form in a slot
+	 * @param index The slot of the life form
+	 * @return Returns the handle of the life form
+	 */
+	public long getHandle(int index) {
+		return handle(index);
+	}
+
+	/**
+	 * Getter for the x coordinate of a life form
+	 * @param index The slot of the life form
+	 * @return Returns the x coordinate of the life form
+	 */
+	public int getX(int index) {
+		return xs[index];
+	}
+
+	/**
+	 * Getter for the y coordinate of a life form
+	 * @param index The slot of the life form
+	 * @return Returns the y coordinate of the life form
+	 */
+	public int getY(int index) {
+		return ys[index];
+	}
+
+	/**
+	 * Getter for the energy of a life form
+	 * @param index The slot of the life form
+	 * @return Returns the energy of the life form
+	 */
+	public int getEnergy(int index) {
+		return energies[index];
+	}
+
+	/**
+	 * Getter for the lastFoodX value of a life form
+	 * @param index The slot of the life form
+	 * @return Returns the lastFoodX value of the life form
+	 */
+	public int getLastFoodX(int index) {
+		return lastFoodXs[index];
+	}
+
+	/**
+	 * Getter for the lastFoodY value of a life form
+	 * @param index The slot of the life form
+	 * @return Returns the lastFoodY value of the life form
+	 */
+	public int getLastFoodY(int index) {
+		return lastFoodYs[index];
+	}
+
+	/**
+	 * Getter for the uniqueID of a life form
+	 * @param index The slot of the life form
+	 * @return Returns the uniqueID of the life form
+	 */
+	public int getUniqueID(int index) {
+		return uniqueIDs[index];
+	}
+
+	/**
+	 * Getter for the species id of a life form
+	 * @param index The slot of the life form
+	 * @return Returns the id of the species in the SpeciesRegistry
+	 */
+	public int getSpeciesId(int index) {
+		return speciesIds[index];
+	}
+
+	/**
+	 * Getter for the isAlive property of a life form
+	 * @param index The slot of the life form
+	 * @return Returns the isAlive property of the life form
+	 */
+	public boolean isAlive(int index) {
+		return alive[index];
+	}
+
+	/**
+	 * Getter for the name of a life form. Life forms without a name of their
+	 * own are named after their species and unique ID
+	 * @param index The slot of the life form
+	 * @return Returns the name of the life form
+	 */
+	public String getName(int index) {
+		String name = names.get(index);
+		return name != null ? name : defaultName(index);
+	}
+
+	/**
+	 * This method copies the columns of every slot into a snapshot capture in
+	 * blocks, along with the names that are not defaults
+	 *
+	 * @param capture
+	 *            The capture to copy into
+	 */
+	void copyColumns(SnapshotCapture capture) {
+		capture.ensureColumns(slotCount);
+		System.arraycopy(uniqueIDs, 0, capture.ids, 0, slotCount);
+		System.arraycopy(speciesIds, 0, capture.typeIds, 0, slotCount);
+		System.arraycopy(alive, 0, capture.alive, 0, slotCount);
+		System.arraycopy(energies, 0, capture.energies, 0, slotCount);
+		System.arraycopy(xs, 0, capture.xs, 0, slotCount);
+		System.arraycopy(ys, 0, capture.ys, 0, slotCount);
+		System.arraycopy(lastFoodXs, 0, capture.lastFoodXs, 0, slotCount);
+		System.arraycopy(lastFoodYs, 0, capture.lastFoodYs, 0, slotCount);
+		capture.ownNames = names.isEmpty() ? null
+				: new HashMap<Integer, String>(names);
+	}
+
+	/**
+	 * This method creates the default name of a life form, as used by
+	 * Simulation.addLifeForms()
+	 *
+	 * @param index
+	 *            The slot of the life form
+	 * @return Returns the species and unique ID of the life form
+	 */
+	private String defaultName(int index) {
+		return SpeciesRegistry.toSpecies(speciesIds[index]).name() + " "
+				+ uniqueIDs[index];
+	}
+
+	/**
+	 * Setter for the x coordinate of a life form
+	 * @param index The slot of the life form
+	 * @param newX The new x coordinate of the life form
+	 */
+	public void setX(int index, int newX) {
+		xs[index] = newX;
+	}
+
+	/**
+	 * Setter for the y coordinate of a life form
+	 * @param index The slot of the life form
+	 * @param newY The new y coordinate of the life form
+	 */
+	public void setY(int index, int newY) {
+		ys[index] = newY;
+	}
+
+	/**
+	 * Setter for the energy of a life form
+	 * @param index The slot of the life form
+	 * @param newEnergy The new energy of the life form
+	 */
+	public void setEnergy(int index, int newEnergy) {
+		energies[index] = newEnergy;
+	}
+
+	/**
+	 * Setter for the lastFoodX value of a life form
+	 * @param index The slot of the life form
+	 * @param newLastFoodX The new lastFoodX value of the life form
+	 */
+	public void setLastFoodX(int index, int newLastFoodX) {
+		lastFoodXs[index] = newLastFoodX;
+	}
+
+	/**
+	 * Setter for the lastFoodY value of a life form
+	 * @param index The slot of the life form
+	 * @param newLastFoodY The new lastFoodY value of the life form
+	 */
+	public void setLastFoodY(int index, int newLastFoodY) {
+		lastFoodYs[index] = newLastFoodY;
+	}
+
+	/**
+	 * Setter for the isAlive property of a life form
+	 * @param index The slot of the life form
+	 * @param newValue The new isAlive property of the life form
+	 */
+	public void setAlive(int index, boolean newValue) {
+		alive[index] = newValue;
+	}
+
+	/**
+	 * Setter for the name of a life form
+	 * @param index The slot of the life form
+	 * @param newName The new name of the life form
+	 */
+	public void setName(int index, String newName) {
+		if (newName == null || newName.equals(defaultName(index))) {
+			names.remove(index);
+		} else {
+			names.put(index, newName);
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.util.Arrays;
+
+/**
+ * <h1>OccupancyIndex.java</h1>
+ * <p>
+ * This class maps every cell of the world to the living life form that
+ * occupies it, so that the life form at a coordinate can be found without
+ * searching the life form ArrayList. The cells are flattened in the same row
+ * order as the WorldGrid.
+ *
+ * The index must be updated whenever a life form is placed, moves, dies or is
+ * removed. Only one life form is stored per cell.
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see WorldGrid, AWorld
+ */
+public class OccupancyIndex {
+
+	private final int size;
+	private final AEntity[] occupants;
+
+	/**
+	 * This constructor creates an empty index for a square world
+	 *
+	 * @param size
+	 *            The size of the world (dimensions)
+	 */
+	public OccupancyIndex(int size) {
+		this.size = size;
+		occupants = new AEntity[size * size];
+	}
+
+	/**
+	 * Getter for the life form occupying the given coordinates
+	 *
+	 * @param x
+	 *            The x coordinate of the cell
+	 * @param y
+	 *            The y coordinate of the cell
+	 * @return Returns the life form in the cell, or null if the cell is free
+	 */
+	public AEntity get(int x, int y) {
+		return occupants[y * size + x];
+	}
+
+	/**
+	 * This method tests if a life form occupies the given coordinates
+	 *
+	 * @param x
+	 *            The x coordinate of the cell
+	 * @param y
+	 *            The y coordinate of the cell
+	 * @return Returns true if the cell is occupied
+	 */
+	public boolean isOccupied(int x, int y) {
+		return occupants[y * size + x] != null;
+	}
+
+	/**
+	 * This method stores the life form in the cell at its current coordinates
+	 *
+	 * @param lifeForm
+	 *            The life form to add to the index
+	 */
+	public void occupy(AEntity lifeForm) {
+		occupants[lifeForm.getY() * size + lifeForm.getX()] = lifeForm;
+	}
+
+	/**
+	 * This method removes the life form from the cell at its current
+	 * coordinates. The cell is only cleared if it is occupied by this life form
+	 *
+	 * @param lifeForm
+	 *            The life form to remove from the index
+	 */
+	public void vacate(AEntity lifeForm) {
+		int index = lifeForm.getY() * size + lifeForm.getX();
+		if (occupants[index] == lifeForm) {
+			occupants[index] = null;
+		}
+	}
+
+	/**
+	 * This method moves the life form to new coordinates, updating both the
+	 * index and the coordinates of the life form
+	 *
+	 * @param lifeForm
+	 *            The life form that is moving
+	 * @param newX
+	 *            The new x coordinate of the life form
+	 * @param newY
+	 *            The new y coordinate of the life form
+	 */
+	public void move(AEntity lifeForm, int newX, int newY) {
+		vacate(lifeForm);
+		lifeForm.setX(newX);
+		lifeForm.setY(newY);
+		occupants[newY * size + newX] = lifeForm;
+	}
+
+	/**
+	 * Removes every life form from the index
+	 */
+	public void clear() {
+		Arrays.fill(occupants, null);
+	}
+}
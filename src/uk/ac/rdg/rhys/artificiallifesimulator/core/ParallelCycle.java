@@ -0,0 +1,233 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * <h1>ParallelCycle.java</h1>
+ * <p>
+ * This class updates the life forms of a simulation cycle on several threads.
+ * The world is split into horizontal bands of at least MIN_BAND_HEIGHT rows
+ * and every living life form is given to the band that contains it at the
+ * start of the cycle. The bands are updated on a fork/join pool in two
+ * phases: first every even band, then every odd band. Within a band the life
+ * forms are updated one at a time in the order of the life form ArrayList.
+ *
+ * A life form reads cells up to 4 rows away (the range of smell) and changes
+ * cells up to 1 row away (when it moves or eats). Eating a food item also
+ * updates the food distance fields up to 4 rows from the food item, looking
+ * for other food items up to 8 rows away. Two bands that are updated at the
+ * same time are always separated by a whole band of at least
+ * MIN_BAND_HEIGHT rows, so they never touch the same cell. This gives the
+ * rules for life forms at the edge of a band:
+ *<p> A life form may sense, move into and eat food in the neighbouring bands.
+ *<p> A life form that moves into another band is still only updated once in
+ *    the cycle, by the band it started in.
+ *<p> A life form that is eaten by a life form of another band before its own
+ *    band runs is skipped, as it would be on a single thread.
+ *<p> The food store is shared, so food items are removed while holding its
+ *    lock. The free cell pool is only updated after both phases.
+ *
+ * Each band uses its own random number generator, split from the world's
+ * generator in band order at the start of the cycle. The band layout only
+ * depends on the world size, so a run gives the same result with any number
+ * of threads. It does not give the same result as a single thread, because
+ * the life forms are updated in a different order
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see Simulation, CycleContext
+ */
+public class ParallelCycle {
+
+	/**
+	 * The smallest number of rows in a band. The cells changed by one band
+	 * (up to 5 rows outside it) must not be read by the bands updated at the
+	 * same time (up to 9 rows outside them)
+	 */
+	public static final int MIN_BAND_HEIGHT = 16;
+
+	private final Simulation simulation;
+	private final int parallelism;
+	private final ForkJoinPool pool;
+
+	private int worldSize = -1; // the world size the bands were laid out for
+	private int bandHeight;
+	private int bandCount;
+	private int[][] members; // index of every life form in each band
+	private int[] memberCounts; // number of life forms in each band
+	private CycleContext[] contexts; // state of each band
+	private final List<Callable<Integer>> evenBands = new ArrayList<Callable<Integer>>();
+	private final List<Callable<Integer>> oddBands = new ArrayList<Callable<Integer>>();
+
+	/**
+	 * This constructor creates the fork/join pool used by the cycle
+	 *
+	 * @param newSimulation
+	 *            The simulation whose life forms are updated
+	 * @param newParallelism
+	 *            The number of threads to use
+	 */
+	public ParallelCycle(Simulation newSimulation, int newParallelism) {
+		simulation = newSimulation;
+		parallelism = newParallelism;
+		pool = new ForkJoinPool(newParallelism);
+	}
+
+	/**
+	 * This method updates every living life form once
+	 *
+	 * @return Returns the number of life forms updated
+	 */
+	public int run() {
+
+		// Define temporary variables
+		AWorld world = simulation.world;
+		ArrayList<AEntity> lifeForms = simulation.lifeForms;
+		int updated;
+
+		if (world.getWorldSize() != worldSize) {
+			layOutBands(world.getWorldSize());
+		}
+
+		// Give every living life form to the band it is in
+		Arrays.fill(memberCounts, 0);
+		for (int i = 0; i < lifeForms.size(); i++) {
+			AEntity lifeForm = lifeForms.get(i);
+			if (lifeForm.getIsAlive()) {
+				int band = Math.min(lifeForm.getY() / bandHeight,
+						bandCount - 1);
+				if (memberCounts[band] == members[band].length) {
+					members[band] = Arrays.copyOf(members[band],
+							memberCounts[band] * 2);
+				}
+				members[band][memberCounts[band]++] = i;
+			}
+		}
+
+		// Give every band its own random numbers
+		for (int band = 0; band < bandCount; band++) {
+			contexts[band].setRandom(world.getRandom().split());
+		}
+
+		// Update the even bands, then the odd bands
+		updated = runPhase(evenBands) + runPhase(oddBands);
+
+		// Apply the free cell pool updates, times and counts of the bands
+		for (int band = 0; band < bandCount; band++) {
+			world.refreshFreeCells(contexts[band]);
+			simulation.collectPhaseTimes(contexts[band]);
+			world.collectCounts(contexts[band]);
+		}
+
+		/*
+		 * Collect the changes of the even bands before the odd bands, so a
+		 * life form that is eaten in the odd phase dies after it has moved
+		 */
+		for (int band = 0; band < bandCount; band += 2) {
+			world.collectChanges(contexts[band]);
+		}
+		for (int band = 1; band < bandCount; band += 2) {
+			world.collectChanges(contexts[band]);
+		}
+		return updated;
+	}
+
+	/**
+	 * This method splits the world into bands and creates the tasks that
+	 * update them
+	 *
+	 * @param newWorldSize
+	 *            The size of the world
+	 */
+	private void layOutBands(int newWorldSize) {
+		worldSize = newWorldSize;
+		bandCount = Math.max(1, worldSize / MIN_BAND_HEIGHT);
+		bandHeight = Math.max(1, worldSize / bandCount);
+		members = new int[bandCount][16];
+		memberCounts = new int[bandCount];
+		contexts = new CycleContext[bandCount];
+		evenBands.clear();
+		oddBands.clear();
+
+		for (int band = 0; band < bandCount; band++) {
+			final int b = band;
+			contexts[band] = new CycleContext(null, true);
+			Callable<Integer> task = new Callable<Integer>() {
+				@Override
+				public Integer call() {
+					return runBand(b);
+				}
+			};
+			if (band % 2 == 0) {
+				evenBands.add(task);
+			} else {
+				oddBands.add(task);
+			}
+		}
+	}
+
+	/**
+	 * This method runs the tasks of one phase and waits for them to finish
+	 *
+	 * @param tasks
+	 *            The tasks of the phase
+	 * @return Returns the number of life forms updated
+	 */
+	private int runPhase(List<Callable<Integer>> tasks) {
+		int updated = 0;
+		for (Future<Integer> result : pool.invokeAll(tasks)) {
+			try {
+				updated += result.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Simulation cycle interrupted");
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Simulation cycle failed",
+						e.getCause());
+			}
+		}
+		return updated;
+	}
+
+	/**
+	 * This method updates the life forms of one band
+	 *
+	 * @param band
+	 *            The band to update
+	 * @return Returns the number of life forms updated
+	 */
+	private int runBand(int band) {
+		ArrayList<AEntity> lifeForms = simulation.lifeForms;
+		CycleContext context = contexts[band];
+		int[] bandMembers = members[band];
+		int updated = 0;
+
+		for (int i = 0; i < memberCounts[band]; i++) {
+			updated += simulation.updateLifeForm(lifeForms
+					.get(bandMembers[i]), context);
+		}
+		return updated;
+	}
+
+	/**
+	 * Getter for the number of threads
+	 * @return Returns the number of threads
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * This method stops the threads of the fork/join pool
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+}
@@ -0,0 +1,109 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.io.PrintStream;
+
+/**
+ * <h1>RingBufferEventSink.java</h1>
+ * <p>
+ * This class keeps the most recent events in memory. The events are stored in
+ * parallel arrays of a fixed capacity and the oldest event is overwritten
+ * once the buffer is full, so recording an event never creates an object.
+ * The events can be printed with dump(), e.g. after something unexpected has
+ * happened in the simulation
+ * 
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see EventLog
+ */
+public class RingBufferEventSink implements EventSink {
+
+	private static final EventType[] TYPES = EventType.values();
+
+	private final int capacity;
+	private final byte[] types;
+	private final int[] cycles;
+	private final int[] ids;
+	private final int[] xs;
+	private final int[] ys;
+	private final int[] values;
+	private long count; // total number of events received
+
+	/**
+	 * This constructor creates an empty ring buffer
+	 * 
+	 * @param newCapacity
+	 *            The number of events to keep
+	 */
+	public RingBufferEventSink(int newCapacity) {
+		if (newCapacity < 1) {
+			throw new IllegalArgumentException("Invalid capacity: "
+					+ newCapacity);
+		}
+		capacity = newCapacity;
+		types = new byte[capacity];
+		cycles = new int[capacity];
+		ids = new int[capacity];
+		xs = new int[capacity];
+		ys = new int[capacity];
+		values = new int[capacity];
+	}
+
+	@Override
+	public synchronized void event(EventType type, int cycle, int id, int x,
+			int y, int value) {
+		int i = (int) (count % capacity);
+		types[i] = (byte) type.ordinal();
+		cycles[i] = cycle;
+		ids[i] = id;
+		xs[i] = x;
+		ys[i] = y;
+		values[i] = value;
+		count++;
+	}
+
+	/**
+	 * Getter for the number of events held in the buffer
+	 * @return Returns the number of events held in the buffer
+	 */
+	public synchronized int size() {
+		return (int) Math.min(count, capacity);
+	}
+
+	/**
+	 * Getter for the total number of events received, including those that
+	 * have been overwritten
+	 * @return Returns the total number of events received
+	 */
+	public synchronized long getCount() {
+		return count;
+	}
+
+	/**
+	 * This method prints the events held in the buffer, oldest first
+	 * 
+	 * @param out
+	 *            The stream to print to
+	 */
+	public synchronized void dump(PrintStream out) {
+		StringBuilder text = new StringBuilder();
+		for (long n = count - size(); n < count; n++) {
+			int i = (int) (n % capacity);
+			text.setLength(0);
+			TYPES[types[i]].format(text, cycles[i], ids[i], xs[i], ys[i],
+					values[i]);
+			out.println(text);
+		}
+	}
+
+	/**
+	 * This method removes every event from the buffer
+	 */
+	public synchronized void clear() {
+		count = 0;
+	}
+
+	@Override
+	public void close() {
+	}
+}
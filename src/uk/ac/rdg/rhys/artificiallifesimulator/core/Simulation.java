@@ -0,0 +1,736 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.util.ArrayList;
+
+/**
+ * <h1>Simulation.java</h1>
+ * <p>
+ * This class is responsible for handling all simulation related functions of
+ * the program. Two ArrayLists are defined, one for life forms and one for
+ * obstacles. An object of type AWorld is also created in this class, which
+ * holds the food items in its food store. All methods in this class read or
+ * manipulate data in the above objects
+ * 
+ * This class does not depend on JavaFX. The dialogs used to edit the
+ * simulation are provided by the user interface, which calls the methods of
+ * this class with the values entered by the user
+ * 
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see AWorld
+ */
+public class Simulation {
+
+	protected ArrayList<AEntity> lifeForms = new ArrayList<AEntity>();
+	protected ArrayList<AEntity> obstacles = new ArrayList<AEntity>();
+	protected AWorld world = new AWorld();
+	protected EventLog eventLog = new EventLog();
+	protected ChangeSet changes = new ChangeSet(); // what each cycle changed
+	protected ParallelCycle parallelCycle; // null when running on one thread
+	protected LifeFormStore lifeFormStore; // null when life forms are objects
+	protected int nextUniqueID; // dead life forms are removed, so not size()
+	protected EngineMetrics metrics; // null when the engine is not measured
+	private boolean timed; // true while the phases of a cycle are timed
+	private long sensingNanos; // sampled time spent sensing in the cycle
+	private long movementNanos; // sampled time spent moving in the cycle
+
+	/**
+	 * The mask of the cell coordinates that selects the life forms whose
+	 * sensing and movement are timed, one cell in 16, so that the clock is not
+	 * read for every life form
+	 */
+	private static final int PHASE_SAMPLE_MASK = 15;
+
+	protected String filePath;
+
+	/**
+	 * Constructor for Simulation class. The event log is shared by every world
+	 * used by the simulation and records nothing until it is configured
+	 */
+	public Simulation() {
+		setWorld(world);
+	}
+
+	/**
+	 * This method creates the relevant life form object based on the species
+	 * parameter. The life form objects are created by the SpeciesRegistry, or
+	 * added to the life form store if the simulation uses one
+	 * 
+	 * @param chosenSpecies
+	 *            The chosen species for the new life form
+	 * @param intitalUniqueID
+	 *            The unique ID for the new life form
+	 * @param initialName
+	 *            The name for the new life form
+	 * @param initialEnergy
+	 *            The energy for the new life form
+	 * @param initialX
+	 *            The x coordinate for the new life form
+	 * @param initialY
+	 *            The y coordinate for the new life form
+	 * 
+	 */
+	private void createObject(Species chosenSpecies, int initialUniqueID,
+			String initialName, int initialEnergy, int initialX, int initialY) {
+		AEntity lifeForm;
+
+		if (lifeFormStore != null) {
+			lifeForm = lifeFormStore.view(lifeFormStore.add(chosenSpecies,
+					initialUniqueID, initialName, initialEnergy, initialX,
+					initialY));
+		} else {
+			lifeForm = SpeciesRegistry.createLifeForm(chosenSpecies,
+					initialUniqueID, initialName, initialEnergy, initialX,
+					initialY);
+		}
+		lifeForms.add(lifeForm);
+
+		// Add the new life form to the world's occupancy index
+		world.occupy(lifeForm);
+		world.recordChange(ChangeType.SPAWNED, lifeForm, initialX, initialY,
+				initialX, initialY, null);
+		world.countBirth(null);
+	}
+
+	/**
+	 * This method adds a number of life forms of the same species without
+	 * showing any dialogs. Each life form is named after its species and
+	 * unique ID. The life forms are positioned by the next call to
+	 * world.initWorld()
+	 * 
+	 * @param speciesName
+	 *            The name of the species, as listed in the Species enum
+	 * @param count
+	 *            The number of life forms to add
+	 * @param initialEnergy
+	 *            The energy for the new life forms
+	 * @throws IllegalArgumentException
+	 *             If the species name is not recognised
+	 */
+	public void addLifeForms(String speciesName, int count,
+			int initialEnergy) {
+		Species chosenSpecies = Species.valueOf(speciesName);
+		int initialUniqueID;
+
+		for (int i = 0; i < count; i++) {
+			initialUniqueID = nextUniqueID++;
+			createObject(chosenSpecies, initialUniqueID, speciesName + " "
+					+ initialUniqueID, initialEnergy, 0, 0);
+		}
+	}
+
+	/**
+	 * This method is invoked each simulation cycle and calls the relevant
+	 * methods in the World class for each life form. If the number of food
+	 * items is less than the food density then the a new food item will be
+	 * generated based on a 50% chance.
+	 * 
+	 * The life forms are updated one at a time by updateLifeForm(), or by
+	 * the parallel cycle if one has been set up with setParallelism(). Life
+	 * forms that die during the cycle are removed from the lifeForms
+	 * ArrayList once every life form has been updated
+	 * 
+	 * @return Returns the number of life forms updated in this cycle
+	 */
+	public int runSimulation() {
+
+		// Define temporary variables
+		int updated = 0;
+		EngineMetrics cycleMetrics = metrics;
+		timed = cycleMetrics != null && cycleMetrics.isEnabled();
+		long start = timed ? System.nanoTime() : 0;
+		sensingNanos = 0;
+		movementNanos = 0;
+
+		// If number of food items < food density
+		if (world.getFoodStore().size() < world.getFoodDensity()) {
+			// 50% chance of creating a new food items
+			if (world.getRandom().nextBoolean()) {
+				world.createRandomFoodItem();
+			}
+		}
+
+		// Call the simulation methods for each life form
+		long fed = timed ? System.nanoTime() : 0;
+		if (parallelCycle != null) {
+			updated = parallelCycle.run();
+		} else {
+			for (int i = 0; i < lifeForms.size(); i++) {
+				updated += updateLifeForm(lifeForms.get(i), null);
+			}
+		}
+		long moved = timed ? System.nanoTime() : 0;
+		removeDeadLifeForms();
+		world.incrementCurrentCycle();
+
+		/*
+		 * Record the times of the phases and copy the counters. The time taken
+		 * to update the life forms is split between sensing and movement in
+		 * the proportion measured on the sampled life forms
+		 */
+		if (cycleMetrics != null) {
+			long end = timed ? System.nanoTime() : 0;
+			if (timed) {
+				long sampled = sensingNanos + movementNanos;
+				long sensing = sampled == 0 ? 0 : (long) ((moved - fed)
+						* (double) sensingNanos / sampled);
+				cycleMetrics.recordCycle(fed - start, sensing, moved - fed
+						- sensing, end - moved, end - start);
+			}
+			cycleMetrics.update(this, end);
+		}
+		return updated;
+	}
+
+	/**
+	 * This method removes every dead life form from the lifeForms ArrayList
+	 * in a single pass, so later cycles only iterate the living population.
+	 * The living life forms are moved down over the dead ones and keep their
+	 * order, so they are still updated in the order they were added. Dead
+	 * life forms held in the life form store release their slots
+	 */
+	private void removeDeadLifeForms() {
+
+		// Define temporary variables
+		int kept = 0;
+		AEntity lifeForm;
+
+		for (int i = 0; i < lifeForms.size(); i++) {
+			lifeForm = lifeForms.get(i);
+			if (lifeForm.getIsAlive()) {
+				if (kept != i) {
+					lifeForms.set(kept, lifeForm);
+				}
+				kept++;
+			} else if (lifeForm instanceof StoredLifeForm) {
+				lifeFormStore.release(((StoredLifeForm) lifeForm).getHandle());
+			}
+		}
+
+		// Remove the tail of the ArrayList in one call
+		if (kept < lifeForms.size()) {
+			lifeForms.subList(kept, lifeForms.size()).clear();
+		}
+	}
+
+	/**
+	 * This method updates a single life form for the current cycle. The life
+	 * form senses for food and moves, and its energy is updated with the value
+	 * returned from the world.move() function. The method also sets the life
+	 * form's isAlive property to false if the life form's energy reaches 0.
+	 * 
+	 * @param lifeForm
+	 *            The life form to update
+	 * @param context
+	 *            The context of the thread updating the life form, or null
+	 *            when the cycle runs on a single thread
+	 * @return Returns 1 if the life form was updated and 0 if it was skipped
+	 *         because it is dead
+	 */
+	int updateLifeForm(AEntity lifeForm, CycleContext context) {
+
+		// Skip life forms that have been eaten this cycle
+		if (lifeForm.getIsAlive() == false) {
+			return 0;
+		}
+
+		if (lifeForm.getEnergy() != 0) {
+			boolean sampled = timed && ((lifeForm.getX() ^ lifeForm.getY())
+					& PHASE_SAMPLE_MASK) == 0;
+			long start = sampled ? System.nanoTime() : 0;
+			AWorld.Direction direction = world.getDirectionOfFood(lifeForm,
+					context);
+			long sensed = sampled ? System.nanoTime() : 0;
+			direction = world.protectBoundaries(lifeForm, direction, context);
+
+			// Update the life form's energy
+			int energyIncrease = world.move(lifeForm, direction, context);
+			lifeForm.setEnergy(lifeForm.getEnergy() + energyIncrease);
+			if (sampled) {
+				addPhaseTimes(context, sensed - start, System.nanoTime()
+						- sensed);
+			}
+		} else {
+			lifeForm.setIsAlive(false);
+			world.vacate(lifeForm, context);
+			world.recordChange(ChangeType.DIED, lifeForm, lifeForm.getX(),
+					lifeForm.getY(), lifeForm.getX(), lifeForm.getY(), context);
+			world.countDeath(context);
+			if (eventLog.isEnabled(EventType.DIED)) {
+				eventLog.record(EventType.DIED, world.getCurrentCycle(),
+						EventLog.idOf(lifeForm), lifeForm.getX(),
+						lifeForm.getY(), 0);
+			}
+		}
+		return 1;
+	}
+
+	/**
+	 * This method adds to the sampled time spent sensing and moving in the
+	 * current cycle. Threads of a parallel cycle add to their own context, which is
+	 * collected by collectPhaseTimes() once the threads have finished
+	 * 
+	 * @param context
+	 *            The context of the thread, or null
+	 * @param sensing
+	 *            The time spent sensing in nanoseconds
+	 * @param movement
+	 *            The time spent moving in nanoseconds
+	 */
+	private void addPhaseTimes(CycleContext context, long sensing,
+			long movement) {
+		if (context != null && context.isDeferred()) {
+			context.addPhaseTimes(sensing, movement);
+		} else {
+			sensingNanos += sensing;
+			movementNanos += movement;
+		}
+	}
+
+	/**
+	 * This method adds the sampled time a thread of a parallel cycle spent
+	 * sensing and moving to the times of the current cycle. It must be called before
+	 * the context's counts are collected, which clears the times
+	 * 
+	 * @param context
+	 *            The context of the thread
+	 */
+	void collectPhaseTimes(CycleContext context) {
+		sensingNanos += context.getSensingNanos();
+		movementNanos += context.getMovementNanos();
+	}
+
+	/**
+	 * This method sets the number of threads used to update the life forms.
+	 * With more than one thread the world is split into bands that are
+	 * updated in parallel (see ParallelCycle). With one thread the life forms
+	 * are updated in order, as before
+	 * 
+	 * @param threads
+	 *            The number of threads to use
+	 */
+	public void setParallelism(int threads) {
+		shutdown();
+		if (threads > 1) {
+			parallelCycle = new ParallelCycle(this, threads);
+		}
+	}
+
+	/**
+	 * Getter for the number of threads used to update the life forms
+	 * @return Returns the number of threads
+	 */
+	public int getParallelism() {
+		return parallelCycle == null ? 1 : parallelCycle.getParallelism();
+	}
+
+	/**
+	 * This method chooses how the life forms are held. With a store, the life
+	 * forms are held as arrays of primitives in the store and the lifeForms
+	 * ArrayList holds their views (see LifeFormStore); without one, every
+	 * life form is an object of its species. The current life forms are moved
+	 * into the new store, or back into objects if the store is null
+	 * 
+	 * @param newStore
+	 *            The store for the life forms, or null to use objects
+	 */
+	public void setLifeFormStore(LifeFormStore newStore) {
+		if (newStore == lifeFormStore) {
+			return;
+		}
+		LifeFormStore oldStore = lifeFormStore;
+		lifeFormStore = newStore;
+		copyLifeForms(true);
+		if (oldStore != null) {
+			oldStore.clear();
+		}
+	}
+
+	/**
+	 * This method copies every life form into the life form store, or into a
+	 * new object if the simulation does not use a store
+	 * 
+	 * @param updateWorld
+	 *            True if the copies replace the life forms in the world's
+	 *            occupancy index
+	 */
+	private void copyLifeForms(boolean updateWorld) {
+		LifeFormStore newStore = lifeFormStore;
+
+		for (int i = 0; i < lifeForms.size(); i++) {
+			AEntity oldLifeForm = lifeForms.get(i);
+			Species species = SpeciesRegistry.toSpecies(oldLifeForm
+					.getTypeId());
+			AEntity newLifeForm;
+
+			// Copy the life form into the new store or a new object
+			if (newStore != null) {
+				newLifeForm = newStore.view(newStore.add(species,
+						EventLog.idOf(oldLifeForm), oldLifeForm.getName(),
+						oldLifeForm.getEnergy(), oldLifeForm.getX(),
+						oldLifeForm.getY()));
+			} else {
+				newLifeForm = SpeciesRegistry.createLifeForm(species,
+						EventLog.idOf(oldLifeForm), oldLifeForm.getName(),
+						oldLifeForm.getEnergy(), oldLifeForm.getX(),
+						oldLifeForm.getY());
+			}
+			newLifeForm.setLastFoodX(oldLifeForm.getLastFoodX());
+			newLifeForm.setLastFoodY(oldLifeForm.getLastFoodY());
+			newLifeForm.setIsAlive(oldLifeForm.getIsAlive());
+
+			// Swap the life forms in the world's occupancy index
+			if (updateWorld && oldLifeForm.getIsAlive()) {
+				world.vacate(oldLifeForm);
+				world.occupy(newLifeForm);
+			}
+			lifeForms.set(i, newLifeForm);
+		}
+	}
+
+	/**
+	 * Getter for the life form store
+	 * @return Returns the life form store, or null if life forms are objects
+	 */
+	public LifeFormStore getLifeFormStore() {
+		return lifeFormStore;
+	}
+
+	/**
+	 * Setter for the metrics that measure each cycle
+	 * @param newMetrics The metrics, or null to measure nothing
+	 */
+	public void setMetrics(EngineMetrics newMetrics) {
+		metrics = newMetrics;
+	}
+
+	/**
+	 * Getter for the metrics that measure each cycle
+	 * @return Returns the metrics, or null if nothing is measured
+	 */
+	public EngineMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Getter for the change set, which records what changed in the world
+	 * since it was last cleared. Recording is off until the change set is
+	 * enabled
+	 * @return Returns the change set of the simulation
+	 */
+	public ChangeSet getChangeSet() {
+		return changes;
+	}
+
+	/**
+	 * This method stops the threads of the parallel cycle, if there are any.
+	 * The simulation continues on a single thread
+	 */
+	public void shutdown() {
+		if (parallelCycle != null) {
+			parallelCycle.shutdown();
+			parallelCycle = null;
+		}
+	}
+
+	/**
+	 * This method loads the simulation from the file specified in the
+	 * filePath variable. Files saved by saveFile() hold the whole state of
+	 * the simulation and are loaded by SnapshotFile, so the world continues
+	 * where it was saved. Configuration files saved with Java serialization,
+	 * including those saved before the model classes were moved into this
+	 * package, are also accepted; they only hold the life forms and the
+	 * world parameters, so the world is initialised again after loading them
+	 * 
+	 * @return Returns 0 if the configuration was loaded and 1 if it was not
+	 */
+	public int readFile() {
+		try {
+			if (SnapshotFile.isSnapshotFile(filePath)) {
+				SnapshotFile.read(this, filePath);
+			} else {
+				readSerializedFile();
+			}
+			System.out.println("Data read from file sucessfully");
+		} catch (Exception ex) {
+			System.out.println("No existing configuration file found");
+			return 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * This method reads the lifeForms and world objects from a configuration
+	 * file saved with Java serialization and initialises the world
+	 * 
+	 * @throws IOException
+	 *             If the file cannot be read
+	 * @throws ClassNotFoundException
+	 *             If the file holds an unknown class
+	 */
+	@SuppressWarnings("unchecked")
+	private void readSerializedFile() throws IOException,
+			ClassNotFoundException {
+		FileInputStream fin = new FileInputStream(filePath);
+		ObjectInputStream ois = new ConfigurationInputStream(fin);
+		try {
+			// Store into objects
+			lifeForms = (ArrayList<AEntity>) ois.readObject();
+			setWorld((AWorld) ois.readObject());
+		} finally {
+			ois.close();
+		}
+
+		// Continue the unique IDs after the highest loaded ID
+		nextUniqueID = 0;
+		for (int i = 0; i < lifeForms.size(); i++) {
+			nextUniqueID = Math.max(nextUniqueID,
+					EventLog.idOf(lifeForms.get(i)) + 1);
+		}
+
+		// Life forms are saved as objects, so move them into the store
+		if (lifeFormStore != null) {
+			lifeFormStore.clear();
+			copyLifeForms(false);
+		}
+		world.initWorld(lifeForms, obstacles);
+	}
+
+	/**
+	 * This method saves the whole state of the simulation to the file
+	 * specified in the filePath variable (see SnapshotFile)
+	 * 
+	 * @return Returns 0 if the configuration was saved and 1 if it was not
+	 */
+	public int saveFile() {
+		try {
+			if (filePath == null) {
+				filePath = "simulationData.ser";
+			}
+			SnapshotFile.write(this, filePath);
+			System.out.println("Data written to file sucessfully");
+		} catch (IOException ex) {
+			System.out.println("Failed to save configuration");
+			return 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * This method adds a new life form with the given properties
+	 * 
+	 * @param chosenSpecies
+	 *            The chosen species for the new life form
+	 * @param initialName
+	 *            The name for the new life form
+	 * @param initialEnergy
+	 *            The energy for the new life form
+	 * @param initialX
+	 *            The x coordinate for the new life form
+	 * @param initialY
+	 *            The y coordinate for the new life form
+	 */
+	public void addLifeForm(Species chosenSpecies, String initialName,
+			int initialEnergy, int initialX, int initialY) {
+		createObject(chosenSpecies, nextUniqueID++, initialName,
+				initialEnergy, initialX, initialY);
+	}
+
+	/**
+	 * This method modifies the name and energy of every life form with the
+	 * given name
+	 * 
+	 * @param name
+	 *            The name of the life form to modify
+	 * @param newName
+	 *            The new name of the life form
+	 * @param newEnergy
+	 *            The new energy of the life form
+	 */
+	public void modifyLifeForm(String name, String newName, int newEnergy) {
+		for (int i = 0; i < lifeForms.size(); i++) {
+			if (name.equals(lifeForms.get(i).getName())) {
+
+				// Update life form information
+				lifeForms.get(i).setName(newName);
+				lifeForms.get(i).setEnergy(newEnergy);
+			}
+		}
+	}
+
+	/**
+	 * This method removes every life form with the given name
+	 * 
+	 * @param name
+	 *            The name of the life form to remove
+	 */
+	public void removeLifeForm(String name) {
+		for (int i = 0; i < lifeForms.size(); i++) {
+			if (name.equals(lifeForms.get(i).getName())) {
+
+				// Remove the life form from the world and the ArrayList
+				world.vacate(lifeForms.get(i));
+				world.recordChange(ChangeType.DIED, lifeForms.get(i),
+						lifeForms.get(i).getX(), lifeForms.get(i).getY(),
+						lifeForms.get(i).getX(), lifeForms.get(i).getY(), null);
+				world.countDeath(null);
+				if (lifeForms.get(i) instanceof StoredLifeForm) {
+					lifeFormStore.release(((StoredLifeForm) lifeForms.get(i))
+							.getHandle());
+				}
+				lifeForms.remove(i);
+				i--;
+			}
+		}
+	}
+
+	/**
+	 * This method creates a new configuration for the simulation by clearing
+	 * the life forms and obstacles. The simulation cycles, world size, food
+	 * density, and object density are all reset to default values;
+	 */
+	public void newConfiguration() {
+		lifeForms.clear();
+		nextUniqueID = 0;
+		if (lifeFormStore != null) {
+			lifeFormStore.clear();
+		}
+		obstacles.clear();
+		world.setSimulationCycles(1000);
+		world.setWorldSize(10);
+		world.setFoodDensity(20);
+		world.setObjectDensity(10);
+	}
+
+	/**
+	 * This method sets new values for the number of simulation cycles, world
+	 * size, food density, and object density and then re-initialises the world
+	 * 
+	 * @param simulationCycles
+	 *            The number of simulation cycles
+	 * @param worldSize
+	 *            The size of the world (dimensions)
+	 * @param foodDensity
+	 *            The number of food items to be generated in the world
+	 * @param objectDensity
+	 *            The number of object items to be generated in the world
+	 */
+	public void editConfiguration(int simulationCycles, int worldSize,
+			int foodDensity, int objectDensity) {
+		world.setSimulationCycles(simulationCycles);
+		world.setWorldSize(worldSize);
+		world.setFoodDensity(foodDensity);
+		world.setObjectDensity(objectDensity);
+		world.initWorld(lifeForms, obstacles);
+	}
+
+	/**
+	 * This method re-initialises the world with the current life forms
+	 */
+	public void initWorld() {
+		world.initWorld(lifeForms, obstacles);
+	}
+
+	/**
+	 * Getter for the ArrayList of life forms
+	 * @return Returns the ArrayList of life forms
+	 */
+	public ArrayList<AEntity> getLifeForms() {
+		return lifeForms;
+	}
+
+	/**
+	 * Getter for the ArrayList of obstacles
+	 * @return Returns the ArrayList of obstacles
+	 */
+	public ArrayList<AEntity> getObstacles() {
+		return obstacles;
+	}
+
+	/**
+	 * Getter for the world
+	 * @return Returns the world
+	 */
+	public AWorld getWorld() {
+		return world;
+	}
+
+	/**
+	 * Setter for the world. The world is given the event log and change set
+	 * of the simulation, so events and changes are recorded wherever the
+	 * world was created
+	 * @param newWorld The new world
+	 */
+	public void setWorld(AWorld newWorld) {
+		world = newWorld;
+		world.setEventLog(eventLog);
+		world.setChangeSet(changes);
+	}
+
+	/**
+	 * Getter for the event log
+	 * @return Returns the event log
+	 */
+	public EventLog getEventLog() {
+		return eventLog;
+	}
+
+	/**
+	 * Getter for the path of the configuration file
+	 * @return Returns the path of the configuration file
+	 */
+	public String getFilePath() {
+		return filePath;
+	}
+
+	/**
+	 * Setter for the path of the configuration file
+	 * @param newFilePath The new path of the configuration file
+	 */
+	public void setFilePath(String newFilePath) {
+		filePath = newFilePath;
+	}
+
+	/**
+	 * This ObjectInputStream loads configuration files that were saved before
+	 * the model classes were moved into this package. Classes from the old
+	 * package are resolved to the class with the same name in this package
+	 */
+	private static class ConfigurationInputStream extends ObjectInputStream {
+
+		private static final String LEGACY_PACKAGE = "uk.ac.rdg.rhys.artificiallifesimulator.";
+
+		/**
+		 * @param in
+		 *            The stream to read the configuration from
+		 */
+		ConfigurationInputStream(InputStream in) throws IOException {
+			super(in);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc)
+				throws IOException, ClassNotFoundException {
+			String name = desc.getName();
+			if (name.startsWith(LEGACY_PACKAGE)
+					&& name.indexOf('.', LEGACY_PACKAGE.length()) == -1) {
+				try {
+					return Class.forName(Simulation.class.getPackage()
+							.getName()
+							+ "."
+							+ name.substring(LEGACY_PACKAGE.length()), false,
+							Simulation.class.getClassLoader());
+				} catch (ClassNotFoundException e) {
+					// Fall back to the class named in the file
+				}
+			}
+			return super.resolveClass(desc);
+		}
+	}
+}
\ No newline at end of file
@@ -0,0 +1,245 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h1>SimulationHost.java</h1>
+ * <p>
+ * This class runs many independent simulations in one JVM. Every simulation
+ * keeps all of its state in its own Simulation and AWorld objects, so the
+ * simulations do not affect each other. Each submitted simulation gets its own
+ * task and a HostedSimulation handle that can pause, resume or stop it.
+ *
+ * When the JVM supports virtual threads (Java 21 and later) every simulation
+ * runs on its own virtual thread. Otherwise the simulations share a fixed
+ * pool with one thread per processor. The executor is looked up by reflection
+ * so that the engine still runs on Java 8
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see HostedSimulation
+ */
+public class SimulationHost {
+
+	private final ExecutorService executor;
+	private final boolean virtualThreads;
+	private final List<HostedSimulation> simulations = new ArrayList<HostedSimulation>();
+	private long startTime; // time the first simulation was submitted
+
+	/**
+	 * This constructor creates a host that uses virtual threads if they are
+	 * available
+	 */
+	public SimulationHost() {
+		ExecutorService virtual = createVirtualThreadExecutor();
+		if (virtual != null) {
+			executor = virtual;
+			virtualThreads = true;
+		} else {
+			executor = Executors.newFixedThreadPool(Runtime.getRuntime()
+					.availableProcessors());
+			virtualThreads = false;
+		}
+	}
+
+	/**
+	 * This constructor creates a host that runs the simulations on a fixed
+	 * pool of platform threads
+	 *
+	 * @param threads
+	 *            The number of threads in the pool
+	 */
+	public SimulationHost(int threads) {
+		executor = Executors.newFixedThreadPool(threads);
+		virtualThreads = false;
+	}
+
+	/**
+	 * This method creates an executor that starts a virtual thread for every
+	 * task
+	 *
+	 * @return Returns the executor, or null if virtual threads are not
+	 *         available
+	 */
+	private static ExecutorService createVirtualThreadExecutor() {
+		try {
+			Method factory = Executors.class
+					.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * This method starts running a simulation
+	 *
+	 * @param name
+	 *            The name of the simulation, used in the report
+	 * @param simulation
+	 *            The simulation to run, with its world already initialised
+	 * @param cycles
+	 *            The number of cycles to run
+	 * @return Returns the handle of the simulation
+	 */
+	public synchronized HostedSimulation submit(String name,
+			Simulation simulation, int cycles) {
+		HostedSimulation hosted = new HostedSimulation(name, simulation,
+				cycles);
+		if (simulations.isEmpty()) {
+			startTime = System.nanoTime();
+		}
+		simulations.add(hosted);
+		executor.execute(hosted);
+		return hosted;
+	}
+
+	/**
+	 * Getter for the hosted simulations, in the order they were submitted
+	 * @return Returns a copy of the list of hosted simulations
+	 */
+	public synchronized List<HostedSimulation> getSimulations() {
+		return new ArrayList<HostedSimulation>(simulations);
+	}
+
+	/**
+	 * This method waits until every submitted simulation has finished,
+	 * stopped or failed
+	 *
+	 * @throws InterruptedException
+	 *             If the waiting thread is interrupted
+	 */
+	public void awaitAll() throws InterruptedException {
+		for (HostedSimulation hosted : getSimulations()) {
+			hosted.awaitDone();
+		}
+	}
+
+	/**
+	 * This method pauses every simulation
+	 */
+	public void pauseAll() {
+		for (HostedSimulation hosted : getSimulations()) {
+			hosted.pause();
+		}
+	}
+
+	/**
+	 * This method resumes every simulation
+	 */
+	public void resumeAll() {
+		for (HostedSimulation hosted : getSimulations()) {
+			hosted.resume();
+		}
+	}
+
+	/**
+	 * This method stops every simulation
+	 */
+	public void stopAll() {
+		for (HostedSimulation hosted : getSimulations()) {
+			hosted.stop();
+		}
+	}
+
+	/**
+	 * Getter for the total number of cycles run by every simulation
+	 * @return Returns the total number of cycles
+	 */
+	public long getTotalCycles() {
+		long total = 0;
+		for (HostedSimulation hosted : getSimulations()) {
+			total += hosted.getCyclesRun();
+		}
+		return total;
+	}
+
+	/**
+	 * Getter for the total number of life form updates of every simulation
+	 * @return Returns the total number of life form updates
+	 */
+	public long getTotalUpdates() {
+		long total = 0;
+		for (HostedSimulation hosted : getSimulations()) {
+			total += hosted.getUpdates();
+		}
+		return total;
+	}
+
+	/**
+	 * Getter for the time since the first simulation was submitted, or until
+	 * the last simulation ended if every simulation is done
+	 * @return Returns the elapsed time in nanoseconds
+	 */
+	public synchronized long getElapsedNanos() {
+		if (simulations.isEmpty()) {
+			return 0;
+		}
+		long end = startTime;
+		for (HostedSimulation hosted : simulations) {
+			if (!hosted.isDone()) {
+				return System.nanoTime() - startTime;
+			}
+			end = Math.max(end, startTime + hosted.getElapsedNanos());
+		}
+		return end - startTime;
+	}
+
+	/**
+	 * Getter for whether the simulations run on virtual threads
+	 * @return Returns true if the simulations run on virtual threads
+	 */
+	public boolean usesVirtualThreads() {
+		return virtualThreads;
+	}
+
+	/**
+	 * This method prints the progress and throughput of every simulation
+	 * followed by the totals for the host
+	 *
+	 * @param out
+	 *            The stream to print to
+	 */
+	public void printReport(PrintStream out) {
+		List<HostedSimulation> hostedList = getSimulations();
+		double seconds = getElapsedNanos() / 1e9;
+
+		for (HostedSimulation hosted : hostedList) {
+			double worldSeconds = hosted.getElapsedNanos() / 1e9;
+			out.println(String.format("  %s: %s, %d/%d cycles, %.1f cycles/s",
+					hosted.getName(), hosted.getState(), hosted.getCyclesRun(),
+					hosted.getCycles(), worldSeconds > 0 ? hosted
+							.getCyclesRun() / worldSeconds : 0.0));
+			if (hosted.getError() != null) {
+				out.println("    " + hosted.getError());
+			}
+		}
+		out.println("Worlds: " + hostedList.size() + " ("
+				+ (virtualThreads ? "virtual threads" : "thread pool") + ")");
+		out.println(String.format("Elapsed time: %.3f s", seconds));
+		out.println(String.format("Total cycles/second: %.1f",
+				getTotalCycles() / seconds));
+		out.println(String.format("Total entity updates/second: %.1f",
+				getTotalUpdates() / seconds));
+	}
+
+	/**
+	 * This method stops every simulation and shuts down the threads of the
+	 * host
+	 *
+	 * @throws InterruptedException
+	 *             If the waiting thread is interrupted
+	 */
+	public void shutdown() throws InterruptedException {
+		stopAll();
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+	}
+}
@@ -0,0 +1,252 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * <h1>SnapshotCapture.java</h1>
+ * <p>
+ * This class holds a copy of everything a snapshot file records, taken from
+ * a simulation in plain arrays so that it can be encoded later by another
+ * thread (see SnapshotFile.encode() and Checkpointer). Taking the copy only
+ * reads the simulation: the grid, the free cell pool and the columns of a
+ * life form store are copied in blocks, and the life forms held as objects
+ * are copied field by field. Nothing is formatted, compressed or checksummed
+ * until the copy is encoded.
+ *
+ * The arrays grow as needed and are kept, so a capture that is reused for
+ * every checkpoint of a run stops creating objects once the world has
+ * reached its largest population
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see SnapshotFile, Checkpointer
+ */
+final class SnapshotCapture {
+
+	// Define the world parameters and random number generator
+	int worldSize;
+	int simulationCycles;
+	int foodDensity;
+	int objectDensity;
+	int currentCycle;
+	int nextUniqueID;
+	long seed;
+	long state;
+	long gamma;
+
+	// Define the grid, free cells, food items and obstacles
+	byte[] cells = new byte[0];
+	int[] freeCells = new int[0];
+	int freeCount;
+	int[] foodCells = new int[0];
+	int foodCount;
+	int[] obstacleCells = new int[0];
+	byte[] obstacleTypes = new byte[0];
+	int obstacleCount;
+
+	/*
+	 * Define the columns of the life forms. When the life forms are held in a
+	 * store the columns are indexed by slot and slots gives the slot of each
+	 * life form in the simulation's order; otherwise slots is not used and the
+	 * columns are in the simulation's order
+	 */
+	int lifeFormCount;
+	boolean stored; // true if the columns were copied from a store
+	int[] slots = new int[0];
+	int[] ids = new int[0];
+	byte[] typeIds = new byte[0];
+	boolean[] alive = new boolean[0];
+	int[] energies = new int[0];
+	int[] xs = new int[0];
+	int[] ys = new int[0];
+	int[] lastFoodXs = new int[0];
+	int[] lastFoodYs = new int[0];
+	String[] names = new String[0]; // names of the life form objects
+	Map<Integer, String> ownNames; // names given in a store, or null
+
+	/**
+	 * This method copies the state of a simulation into the capture. It must
+	 * be called by the thread running the simulation, or while the simulation
+	 * is not running
+	 *
+	 * @param simulation
+	 *            The simulation to copy
+	 */
+	void capture(Simulation simulation) {
+		AWorld world = simulation.world;
+		EngineRandom random = world.getRandom();
+
+		// Copy the parameters and random number generator
+		worldSize = world.getWorldSize();
+		simulationCycles = world.getSimulationCycles();
+		foodDensity = world.getFoodDensity();
+		objectDensity = world.getObjectDensity();
+		currentCycle = world.getCurrentCycle();
+		nextUniqueID = simulation.nextUniqueID;
+		seed = random.getSeed();
+		state = random.getState();
+		gamma = random.getGamma();
+
+		// Copy the grid and the free cells in blocks
+		byte[] gridCells = world.getGrid().getCells();
+		if (cells.length != gridCells.length) {
+			cells = new byte[gridCells.length];
+		}
+		System.arraycopy(gridCells, 0, cells, 0, gridCells.length);
+		FreeCellPool pool = world.getFreeCells();
+		freeCount = pool.size();
+		if (freeCells.length < freeCount) {
+			freeCells = new int[pool.getCells().length];
+		}
+		System.arraycopy(pool.getCells(), 0, freeCells, 0, freeCount);
+
+		// Copy the cell of each food item in food store order
+		ArrayList<AEntity> foodItems = world.getFoodStore().getItems();
+		foodCount = foodItems.size();
+		if (foodCells.length < foodCount) {
+			foodCells = new int[grow(foodCount)];
+		}
+		for (int i = 0; i < foodCount; i++) {
+			AEntity food = foodItems.get(i);
+			foodCells[i] = food.getY() * worldSize + food.getX();
+		}
+
+		// Copy the cell and type of each obstacle
+		ArrayList<AEntity> obstacles = simulation.obstacles;
+		obstacleCount = obstacles.size();
+		if (obstacleCells.length < obstacleCount) {
+			obstacleCells = new int[grow(obstacleCount)];
+			obstacleTypes = new byte[obstacleCells.length];
+		}
+		for (int i = 0; i < obstacleCount; i++) {
+			AEntity obstacle = obstacles.get(i);
+			obstacleCells[i] = obstacle.getY() * worldSize + obstacle.getX();
+			obstacleTypes[i] = (byte) (SnapshotFile.OBSTACLE_TYPES[1]
+					.equals(obstacle.getType()) ? 1 : 0);
+		}
+
+		// Copy the life forms from the store if they are all held in it
+		ArrayList<AEntity> lifeForms = simulation.lifeForms;
+		lifeFormCount = lifeForms.size();
+		LifeFormStore store = simulation.getLifeFormStore();
+		stored = store != null && captureSlots(lifeForms, store);
+		if (stored) {
+			store.copyColumns(this);
+		} else {
+			captureObjects(lifeForms);
+		}
+	}
+
+	/**
+	 * This method records the slot of each life form, if every life form is
+	 * held in the store
+	 *
+	 * @param lifeForms
+	 *            The life forms of the simulation
+	 * @param store
+	 *            The life form store of the simulation
+	 * @return Returns true if every life form is held in the store
+	 */
+	private boolean captureSlots(ArrayList<AEntity> lifeForms,
+			LifeFormStore store) {
+		if (slots.length < lifeFormCount) {
+			slots = new int[grow(lifeFormCount)];
+		}
+		for (int i = 0; i < lifeFormCount; i++) {
+			AEntity lifeForm = lifeForms.get(i);
+			if (!(lifeForm instanceof StoredLifeForm)
+					|| ((StoredLifeForm) lifeForm).getStore() != store) {
+				return false;
+			}
+			slots[i] = ((StoredLifeForm) lifeForm).getIndex();
+		}
+		return true;
+	}
+
+	/**
+	 * This method copies the fields of every life form into the columns, in
+	 * the simulation's order
+	 *
+	 * @param lifeForms
+	 *            The life forms of the simulation
+	 */
+	private void captureObjects(ArrayList<AEntity> lifeForms) {
+		ensureColumns(lifeFormCount);
+		ownNames = null;
+		for (int i = 0; i < lifeFormCount; i++) {
+			AEntity lifeForm = lifeForms.get(i);
+			if (lifeForm instanceof ALifeForm) {
+				captureLifeForm(i, (ALifeForm) lifeForm);
+				continue;
+			}
+			ids[i] = EventLog.idOf(lifeForm);
+			typeIds[i] = (byte) lifeForm.getTypeId();
+			alive[i] = lifeForm.getIsAlive();
+			energies[i] = lifeForm.getEnergy();
+			xs[i] = lifeForm.getX();
+			ys[i] = lifeForm.getY();
+			lastFoodXs[i] = lifeForm.getLastFoodX();
+			lastFoodYs[i] = lifeForm.getLastFoodY();
+			names[i] = lifeForm.getName();
+		}
+	}
+
+	/**
+	 * This method copies the fields of a life form object into the columns.
+	 * The fields are read through ALifeForm, which declares them, so that the
+	 * calls stay cheap however many species are mixed in the simulation
+	 *
+	 * @param i
+	 *            The position of the life form in the simulation's order
+	 * @param lifeForm
+	 *            The life form
+	 */
+	private void captureLifeForm(int i, ALifeForm lifeForm) {
+		ids[i] = lifeForm.getUniqueID();
+		typeIds[i] = (byte) lifeForm.getTypeId();
+		alive[i] = lifeForm.getIsAlive();
+		energies[i] = lifeForm.getEnergy();
+		xs[i] = lifeForm.getX();
+		ys[i] = lifeForm.getY();
+		lastFoodXs[i] = lifeForm.getLastFoodX();
+		lastFoodYs[i] = lifeForm.getLastFoodY();
+		names[i] = lifeForm.getName();
+	}
+
+	/**
+	 * This method makes sure the columns of the life forms can hold a number
+	 * of entries. It is called by LifeFormStore.copyColumns() with the number
+	 * of slots of the store
+	 *
+	 * @param count
+	 *            The number of entries needed
+	 */
+	void ensureColumns(int count) {
+		if (ids.length < count) {
+			int capacity = grow(count);
+			ids = new int[capacity];
+			typeIds = new byte[capacity];
+			alive = new boolean[capacity];
+			energies = new int[capacity];
+			xs = new int[capacity];
+			ys = new int[capacity];
+			lastFoodXs = new int[capacity];
+			lastFoodYs = new int[capacity];
+			names = new String[capacity];
+		}
+	}
+
+	/**
+	 * This method works out the new length of an array that must hold a
+	 * number of entries, leaving room for the population to grow
+	 *
+	 * @param count
+	 *            The number of entries needed
+	 * @return Returns the new length
+	 */
+	private static int grow(int count) {
+		return Math.max(16, count + (count >> 2));
+	}
+}
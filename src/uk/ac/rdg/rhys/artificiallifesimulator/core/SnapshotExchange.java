@@ -0,0 +1,92 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <h1>SnapshotExchange.java</h1>
+ * <p>
+ * This class hands snapshots of a running simulation from the thread that
+ * runs it to the thread that draws it without either thread taking a lock.
+ * The simulation thread publishes a snapshot after a cycle and the drawing
+ * thread takes the latest one when it is ready to draw.
+ *
+ * A new snapshot is only captured once the drawing thread has taken the
+ * previous one. Until then the simulation keeps running and its change set
+ * keeps collecting changes, so the next snapshot holds every change since
+ * the last one that was drawn, however many cycles have run in between. A
+ * snapshot that has been drawn is released back to the exchange and its
+ * arrays are reused, so at most two snapshots are in use at any time
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see WorldSnapshot, HostedSimulation
+ */
+public class SnapshotExchange {
+
+	private final AtomicReference<WorldSnapshot> latest = new AtomicReference<WorldSnapshot>();
+	private final AtomicReference<WorldSnapshot> spare = new AtomicReference<WorldSnapshot>();
+	private final AtomicLong sequence = new AtomicLong();
+
+	/**
+	 * This method captures and publishes a snapshot if the previous one has
+	 * been taken. It is called by the thread that runs the simulation after
+	 * each cycle
+	 *
+	 * @param simulation
+	 *            The simulation to capture
+	 * @return Returns true if a snapshot was published
+	 */
+	public boolean offer(Simulation simulation) {
+		if (latest.get() != null) {
+			return false;
+		}
+		publish(simulation);
+		return true;
+	}
+
+	/**
+	 * This method captures and publishes a snapshot, replacing the previous
+	 * one if it has not been taken yet. It is used when the simulation is
+	 * not running, e.g. after the user has changed it
+	 *
+	 * @param simulation
+	 *            The simulation to capture
+	 */
+	public void publish(Simulation simulation) {
+		WorldSnapshot snapshot = spare.getAndSet(null);
+		if (snapshot == null) {
+			snapshot = new WorldSnapshot();
+		}
+		snapshot.capture(simulation, sequence.incrementAndGet());
+
+		// Reuse a snapshot that was never taken
+		WorldSnapshot missed = latest.getAndSet(snapshot);
+		if (missed != null) {
+			spare.compareAndSet(null, missed);
+		}
+	}
+
+	/**
+	 * This method takes the latest snapshot. It is called by the thread that
+	 * draws the simulation
+	 *
+	 * @return Returns the latest snapshot, or null if no snapshot has been
+	 *         published since the last one was taken
+	 */
+	public WorldSnapshot take() {
+		return latest.getAndSet(null);
+	}
+
+	/**
+	 * This method gives a snapshot back once it has been drawn, so that its
+	 * arrays can be reused
+	 *
+	 * @param snapshot
+	 *            The snapshot that has been drawn
+	 */
+	public void release(WorldSnapshot snapshot) {
+		spare.compareAndSet(null, snapshot);
+	}
+}
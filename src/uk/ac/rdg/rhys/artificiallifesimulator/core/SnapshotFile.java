@@ -0,0 +1,623 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+
+/**
+ * <h1>SnapshotFile.java</h1>
+ * <p>
+ * This class saves the whole state of a simulation to a compact binary file
+ * and loads it back: the world parameters, the random number generator, the
+ * world grid, the free cell pool and the tables of food items, obstacles and
+ * life forms. A loaded simulation continues exactly as the saved one would
+ * have, cycle for cycle. The file is written and read through a FileChannel
+ * with a direct buffer, and every number is little endian.
+ *
+ * The layout of version 1 is:
+ *<p> header - magic number (int), version (short), flags (short)
+ *<p> parameters - world size, simulation cycles, food density, object
+ *    density, current cycle and next unique ID (ints)
+ *<p> random number generator - seed, state and gamma (longs)
+ *<p> grid - one cell code (byte) per cell, in row order
+ *<p> free cells - count (int), then each cell index (int) in pool order
+ *<p> food items - count (int), then each cell index (int) in food store
+ *    order; the type of the food item is its cell code in the grid
+ *<p> obstacles - count (int), then each cell index (int) and type (byte,
+ *    0 for a rock and 1 for a tree)
+ *<p> life forms - count (int), then for each life form its unique ID (int),
+ *    species id (byte), flags (byte), energy, x, y, last food x and last
+ *    food y (ints), and its name (short length and UTF-8 bytes) if it is not
+ *    the default name of its species and unique ID
+ *<p> trailer - CRC32 of every byte before it (int)
+ *
+ * A file is read completely and its checksum is checked before the
+ * simulation is changed, so a damaged file leaves the simulation as it was.
+ * The state is first copied into a SnapshotCapture and then encoded from the
+ * copy. The same layout can be encoded into and decoded from memory, which
+ * is how checkpoints are taken
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see Simulation, AWorld
+ */
+public class SnapshotFile {
+
+	/**
+	 * The first four bytes of every snapshot file ("ALSF")
+	 */
+	public static final int MAGIC = 0x464c5341;
+
+	/**
+	 * The version of the layout written by this class
+	 */
+	public static final short VERSION = 1;
+
+	private static final int BUFFER_SIZE = 1 << 18;
+
+	// Define the life form flags
+	private static final int ALIVE = 1;
+	private static final int NAMED = 2;
+
+	static final String[] OBSTACLE_TYPES = { "Rock", "Tree" };
+
+	/**
+	 * This class writes the file through a buffer and keeps the checksum of
+	 * everything written. Without a channel the whole snapshot is kept in
+	 * the buffer, which grows as needed
+	 */
+	private static class Output {
+		private final FileChannel channel; // null when writing to memory
+		private ByteBuffer buffer;
+		private final CRC32 crc = new CRC32();
+
+		Output(FileChannel newChannel, ByteBuffer newBuffer) {
+			channel = newChannel;
+			buffer = newBuffer;
+			buffer.clear();
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		ByteBuffer require(int bytes) throws IOException {
+			if (buffer.remaining() < bytes) {
+				if (channel != null) {
+					flush();
+				} else {
+					ByteBuffer larger = ByteBuffer.allocateDirect(
+							Math.max(buffer.capacity() * 2, buffer.position()
+									+ bytes)).order(ByteOrder.LITTLE_ENDIAN);
+					buffer.flip();
+					larger.put(buffer);
+					buffer = larger;
+				}
+			}
+			return buffer;
+		}
+
+		void putBytes(byte[] bytes, int offset, int length)
+				throws IOException {
+			while (length > 0) {
+				int chunk = Math.min(length, require(1).remaining());
+				buffer.put(bytes, offset, chunk);
+				offset += chunk;
+				length -= chunk;
+			}
+		}
+
+		void flush() throws IOException {
+			buffer.flip();
+			crc.update(buffer.duplicate());
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+		}
+
+		void finish() throws IOException {
+			if (channel != null) {
+				flush();
+			} else {
+				ByteBuffer written = buffer.duplicate();
+				written.flip();
+				crc.update(written);
+			}
+
+			// Write the trailer, which is not part of the checksum
+			require(4).putInt((int) crc.getValue());
+			buffer.flip();
+			if (channel != null) {
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+			}
+		}
+	}
+
+	/**
+	 * This class reads the file through a buffer and keeps the checksum of
+	 * everything read. Without a channel the buffer holds the whole snapshot
+	 */
+	private static class Input {
+		private final FileChannel channel; // null when reading from memory
+		private final ByteBuffer buffer;
+		private final long length; // the number of bytes that can be read
+		private final CRC32 crc = new CRC32();
+		private int checked; // position up to which the crc is up to date
+
+		Input(FileChannel newChannel, ByteBuffer newBuffer, long newLength) {
+			channel = newChannel;
+			buffer = newBuffer.order(ByteOrder.LITTLE_ENDIAN);
+			length = newLength;
+			if (channel != null) {
+				buffer.limit(0);
+			}
+		}
+
+		ByteBuffer require(int bytes) throws IOException {
+			if (buffer.remaining() < bytes) {
+				if (channel == null) {
+					throw new EOFException("Snapshot is truncated");
+				}
+				updateChecksum();
+				buffer.compact();
+				checked = 0;
+				while (buffer.position() < bytes) {
+					if (channel.read(buffer) < 0) {
+						throw new EOFException("Snapshot file is truncated");
+					}
+				}
+				buffer.flip();
+			}
+			return buffer;
+		}
+
+		void getBytes(byte[] bytes, int offset, int length)
+				throws IOException {
+			while (length > 0) {
+				int chunk = Math.min(length, require(1).remaining());
+				buffer.get(bytes, offset, chunk);
+				offset += chunk;
+				length -= chunk;
+			}
+		}
+
+		int getCount(int maximum) throws IOException {
+			int count = require(4).getInt();
+			if (count < 0 || count > maximum) {
+				throw new IOException("Invalid count in snapshot file: "
+						+ count);
+			}
+			return count;
+		}
+
+		long updateChecksum() {
+			ByteBuffer consumed = buffer.duplicate();
+			consumed.position(checked).limit(buffer.position());
+			crc.update(consumed);
+			checked = buffer.position();
+			return crc.getValue();
+		}
+	}
+
+	/**
+	 * This method saves the state of a simulation to a file. It must not be
+	 * called while the simulation is running
+	 *
+	 * @param simulation
+	 *            The simulation to save
+	 * @param filePath
+	 *            The path of the file, which is replaced if it exists
+	 * @throws IOException
+	 *             If the file cannot be written
+	 */
+	public static void write(Simulation simulation, String filePath)
+			throws IOException {
+		FileChannel channel = FileChannel.open(Paths.get(filePath),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			Output out = new Output(channel,
+					ByteBuffer.allocateDirect(BUFFER_SIZE));
+			SnapshotCapture capture = new SnapshotCapture();
+			capture.capture(simulation);
+			write(capture, out);
+			out.finish();
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * This method encodes a copy of a simulation into memory, in the same
+	 * layout as a snapshot file. It is used by the writer thread of the
+	 * Checkpointer, so it only reads the capture and never the simulation
+	 *
+	 * @param capture
+	 *            The copy of the simulation to save
+	 * @param buffer
+	 *            The buffer to reuse, or null
+	 * @return Returns the buffer holding the snapshot between its position
+	 *         and limit, which is a new buffer if the given one was too small
+	 * @throws IOException
+	 *             If the simulation cannot be encoded
+	 */
+	static ByteBuffer encode(SnapshotCapture capture, ByteBuffer buffer)
+			throws IOException {
+		Output out = new Output(null, buffer != null ? buffer
+				: ByteBuffer.allocateDirect(BUFFER_SIZE));
+		write(capture, out);
+		out.finish();
+		return out.buffer;
+	}
+
+	/**
+	 * This method writes every section of the file before the trailer
+	 *
+	 * @param capture
+	 *            The copy of the simulation to save
+	 * @param out
+	 *            The output to write to
+	 * @throws IOException
+	 *             If the file cannot be written
+	 */
+	private static void write(SnapshotCapture capture, Output out)
+			throws IOException {
+
+		// Write the header, parameters and random number generator
+		out.require(56).putInt(MAGIC).putShort(VERSION).putShort((short) 0)
+				.putInt(capture.worldSize).putInt(capture.simulationCycles)
+				.putInt(capture.foodDensity).putInt(capture.objectDensity)
+				.putInt(capture.currentCycle).putInt(capture.nextUniqueID)
+				.putLong(capture.seed).putLong(capture.state)
+				.putLong(capture.gamma);
+
+		// Write the grid in one block
+		out.putBytes(capture.cells, 0, capture.cells.length);
+
+		// Write the free cells in pool order
+		out.require(4).putInt(capture.freeCount);
+		for (int i = 0; i < capture.freeCount; i++) {
+			out.require(4).putInt(capture.freeCells[i]);
+		}
+
+		// Write the food items in food store order
+		out.require(4).putInt(capture.foodCount);
+		for (int i = 0; i < capture.foodCount; i++) {
+			out.require(4).putInt(capture.foodCells[i]);
+		}
+
+		// Write the obstacles
+		out.require(4).putInt(capture.obstacleCount);
+		for (int i = 0; i < capture.obstacleCount; i++) {
+			out.require(5).putInt(capture.obstacleCells[i])
+					.put(capture.obstacleTypes[i]);
+		}
+
+		// Write the life forms, leaving out names that can be worked out
+		out.require(4).putInt(capture.lifeFormCount);
+		for (int i = 0; i < capture.lifeFormCount; i++) {
+			int column = capture.stored ? capture.slots[i] : i;
+			int id = capture.ids[column];
+			int typeId = capture.typeIds[column];
+			String name;
+			boolean named;
+			if (capture.stored) {
+				// The store only keeps names that are not defaults
+				name = capture.ownNames != null ? capture.ownNames
+						.get(column) : null;
+				named = name != null;
+			} else {
+				name = capture.names[column];
+				named = !isDefaultName(name, typeId, id);
+			}
+			int flags = (capture.alive[column] ? ALIVE : 0)
+					| (named ? NAMED : 0);
+
+			out.require(26).putInt(id).put((byte) typeId).put((byte) flags)
+					.putInt(capture.energies[column])
+					.putInt(capture.xs[column]).putInt(capture.ys[column])
+					.putInt(capture.lastFoodXs[column])
+					.putInt(capture.lastFoodYs[column]);
+			if (named) {
+				byte[] bytes = (name == null ? "" : name)
+						.getBytes(StandardCharsets.UTF_8);
+				int length = Math.min(bytes.length, Short.MAX_VALUE);
+				out.require(2).putShort((short) length);
+				out.putBytes(bytes, 0, length);
+			}
+		}
+	}
+
+	/**
+	 * This method loads the state of a simulation from a file, replacing the
+	 * world, the obstacles and the life forms of the simulation. The life
+	 * forms are loaded into the life form store if the simulation uses one.
+	 * It must not be called while the simulation is running
+	 *
+	 * @param simulation
+	 *            The simulation to load into
+	 * @param filePath
+	 *            The path of the file
+	 * @throws IOException
+	 *             If the file cannot be read, is not a snapshot file, was
+	 *             written by a later version or is damaged
+	 */
+	public static void read(Simulation simulation, String filePath)
+			throws IOException {
+		FileChannel channel = FileChannel.open(Paths.get(filePath),
+				StandardOpenOption.READ);
+		try {
+			read(simulation, new Input(channel,
+					ByteBuffer.allocateDirect(BUFFER_SIZE), channel.size()));
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * This method loads the state of a simulation from a snapshot held in
+	 * memory, e.g. a memory-mapped checkpoint
+	 *
+	 * @param simulation
+	 *            The simulation to load into
+	 * @param snapshot
+	 *            The snapshot, between the position and limit of the buffer
+	 * @throws IOException
+	 *             If the buffer does not hold a valid snapshot
+	 */
+	static void decode(Simulation simulation, ByteBuffer snapshot)
+			throws IOException {
+		read(simulation, new Input(null, snapshot.slice(),
+				snapshot.remaining()));
+	}
+
+	/**
+	 * This method reads every section of the file into arrays, checks the
+	 * checksum, and only then replaces the state of the simulation
+	 *
+	 * @param simulation
+	 *            The simulation to load into
+	 * @param in
+	 *            The input to read from
+	 * @throws IOException
+	 *             If the file is not a valid snapshot file
+	 */
+	private static void read(Simulation simulation, Input in)
+			throws IOException {
+
+		// Read the header
+		ByteBuffer buffer = in.require(8);
+		if (buffer.getInt() != MAGIC) {
+			throw new IOException("Not a simulation snapshot file");
+		}
+		short version = buffer.getShort();
+		if (version < 1 || version > VERSION) {
+			throw new IOException("Unsupported snapshot version: " + version);
+		}
+		buffer.getShort();
+
+		// Read the parameters and random number generator
+		buffer = in.require(48);
+		int worldSize = buffer.getInt();
+		int simulationCycles = buffer.getInt();
+		int foodDensity = buffer.getInt();
+		int objectDensity = buffer.getInt();
+		int currentCycle = buffer.getInt();
+		int nextUniqueID = buffer.getInt();
+		EngineRandom random = EngineRandom.restore(buffer.getLong(),
+				buffer.getLong(), buffer.getLong());
+		if (worldSize < 1 || worldSize > 46340) {
+			throw new IOException("Invalid world size in snapshot file: "
+					+ worldSize);
+		}
+		int cellCount = worldSize * worldSize;
+
+		// Read the grid straight into the new world
+		AWorld world = new AWorld(simulationCycles, worldSize, foodDensity,
+				objectDensity);
+		world.setRandom(random);
+		byte[] cells = world.getGrid().getCells();
+		in.getBytes(cells, 0, cells.length);
+
+		// Read the free cells and food items
+		int freeCount = in.getCount(cellCount);
+		int[] freeOrder = readCells(in, freeCount, cellCount);
+		int foodCount = in.getCount(cellCount);
+		int[] foodCells = readCells(in, foodCount, cellCount);
+		for (int i = 0; i < foodCount; i++) {
+			if (!CellCode.isFood(cells[foodCells[i]])) {
+				throw new IOException("Food item in a cell without food");
+			}
+		}
+
+		// Read the obstacles
+		int obstacleCount = in.getCount(cellCount);
+		ArrayList<AEntity> obstacles = new ArrayList<AEntity>(obstacleCount);
+		for (int i = 0; i < obstacleCount; i++) {
+			buffer = in.require(5);
+			int cell = checkCell(buffer.getInt(), cellCount);
+			obstacles.add(new AObstacle(cell % worldSize, cell / worldSize,
+					OBSTACLE_TYPES[buffer.get() & 1]));
+		}
+
+		// Read the life forms into columns
+		int lifeFormCount = in.getCount((int) Math.min(
+				Integer.MAX_VALUE / 5, in.length / 26));
+		int[] ids = new int[lifeFormCount];
+		byte[] typeIds = new byte[lifeFormCount];
+		byte[] flags = new byte[lifeFormCount];
+		int[] values = new int[lifeFormCount * 5];
+		String[] names = new String[lifeFormCount];
+		for (int i = 0; i < lifeFormCount; i++) {
+			buffer = in.require(26);
+			ids[i] = buffer.getInt();
+			typeIds[i] = buffer.get();
+			flags[i] = buffer.get();
+			for (int j = 0; j < 5; j++) {
+				values[i * 5 + j] = buffer.getInt();
+			}
+			if (!SpeciesRegistry.isSpecies(typeIds[i])) {
+				throw new IOException("Invalid species in snapshot file: "
+						+ typeIds[i]);
+			}
+			checkCell(values[i * 5 + 2] * worldSize + values[i * 5 + 1],
+					cellCount);
+			if ((flags[i] & NAMED) != 0) {
+				byte[] bytes = new byte[in.require(2).getShort() & 0x7fff];
+				in.getBytes(bytes, 0, bytes.length);
+				names[i] = new String(bytes, StandardCharsets.UTF_8);
+			}
+		}
+
+		// Check the trailer before anything is changed
+		long crc = in.updateChecksum();
+		if (in.require(4).getInt() != (int) crc) {
+			throw new IOException("Snapshot file is damaged (bad checksum)");
+		}
+
+		// Create the life forms
+		ArrayList<AEntity> lifeForms = simulation.lifeForms;
+		LifeFormStore store = simulation.lifeFormStore;
+		lifeForms.clear();
+		lifeForms.ensureCapacity(lifeFormCount);
+		if (store != null) {
+			store.clear();
+		}
+		for (int i = 0; i < lifeFormCount; i++) {
+			Species species = SpeciesRegistry.toSpecies(typeIds[i]);
+			int energy = values[i * 5];
+			int x = values[i * 5 + 1];
+			int y = values[i * 5 + 2];
+			AEntity lifeForm;
+			if (store != null) {
+				// The store works out default names itself
+				lifeForm = store.view(store.add(species, ids[i], names[i],
+						energy, x, y));
+			} else {
+				lifeForm = SpeciesRegistry.createLifeForm(species, ids[i],
+						names[i] != null ? names[i] : species.name() + " "
+								+ ids[i], energy, x, y);
+			}
+			lifeForm.setLastFoodX(values[i * 5 + 3]);
+			lifeForm.setLastFoodY(values[i * 5 + 4]);
+			lifeForm.setIsAlive((flags[i] & ALIVE) != 0);
+			lifeForms.add(lifeForm);
+		}
+
+		// Replace the world and obstacles of the simulation
+		world.restore(currentCycle, foodCells, foodCount, lifeForms,
+				freeOrder, freeCount);
+		simulation.setWorld(world);
+		simulation.obstacles.clear();
+		simulation.obstacles.addAll(obstacles);
+		simulation.nextUniqueID = nextUniqueID;
+	}
+
+	/**
+	 * This method reads a table of cell indexes
+	 *
+	 * @param in
+	 *            The input to read from
+	 * @param count
+	 *            The number of cell indexes
+	 * @param cellCount
+	 *            The number of cells in the world
+	 * @return Returns the cell indexes
+	 * @throws IOException
+	 *             If a cell index is outside the world
+	 */
+	private static int[] readCells(Input in, int count, int cellCount)
+			throws IOException {
+		int[] cells = new int[count];
+		for (int i = 0; i < count; i++) {
+			cells[i] = checkCell(in.require(4).getInt(), cellCount);
+		}
+		return cells;
+	}
+
+	/**
+	 * This method checks that a cell index is inside the world
+	 *
+	 * @param cell
+	 *            The cell index
+	 * @param cellCount
+	 *            The number of cells in the world
+	 * @return Returns the cell index
+	 * @throws IOException
+	 *             If the cell index is outside the world
+	 */
+	private static int checkCell(int cell, int cellCount) throws IOException {
+		if (cell < 0 || cell >= cellCount) {
+			throw new IOException("Invalid cell in snapshot file: " + cell);
+		}
+		return cell;
+	}
+
+	/**
+	 * This method tests if a name is the name given to a life form by
+	 * addLifeForms(), its species and unique ID, which is not saved. The name
+	 * is compared in place, as building the default name of every life form
+	 * would double the time taken to save a large world
+	 *
+	 * @param name
+	 *            The name of the life form
+	 * @param typeId
+	 *            The species id of the life form
+	 * @param id
+	 *            The unique ID of the life form
+	 * @return Returns true if the name is the default name
+	 */
+	private static boolean isDefaultName(String name, int typeId, int id) {
+		String species = SpeciesRegistry.toSpecies(typeId).name();
+		int length = species.length();
+		if (name == null || id < 0 || name.length() < length + 2
+				|| !name.startsWith(species) || name.charAt(length) != ' ') {
+			return false;
+		}
+
+		// Compare the digits from the last one backwards
+		int digits = id;
+		for (int i = name.length() - 1; i > length; i--) {
+			if (name.charAt(i) != (char) ('0' + digits % 10)) {
+				return false;
+			}
+			digits /= 10;
+			if (digits == 0) {
+				return i == length + 1;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * This method tests if a file starts with the snapshot magic number, so
+	 * that files saved with Java serialization can still be loaded
+	 *
+	 * @param filePath
+	 *            The path of the file
+	 * @return Returns true if the file is a snapshot file
+	 * @throws IOException
+	 *             If the file cannot be read
+	 */
+	public static boolean isSnapshotFile(String filePath) throws IOException {
+		FileChannel channel = FileChannel.open(Paths.get(filePath),
+				StandardOpenOption.READ);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(4).order(
+					ByteOrder.LITTLE_ENDIAN);
+			while (header.hasRemaining() && channel.read(header) >= 0) {
+			}
+			return !header.hasRemaining() && header.getInt(0) == MAGIC;
+		} finally {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,17 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+/**
+ * <h1>Species.java</h1>
+ * <p>
+ * Enumerated type for the species of life form that can be added to the
+ * simulation. The Simulation class creates the relevant life form object for
+ * each value
+ * 
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see Simulation
+ */
+public enum Species {
+	Bear, Bird, Bug, Cow, Fish, Fox, Lion, Mouse, Pig, Rabbit, Whale
+}
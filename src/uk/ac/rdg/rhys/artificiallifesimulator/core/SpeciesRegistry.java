@@ -0,0 +1,338 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.util.ArrayList;
+
+/**
+ * <h1>SpeciesRegistry.java</h1>
+ * <p>
+ * This class is the id table for the species of life form and the food types
+ * of the simulation. Every food type and species is given a small integer id,
+ * so that the engine, the save files and the user interface can refer to
+ * them without comparing Strings.
+ *
+ * The ids of the food types are their cell codes (see CellCode) and the ids
+ * of the species follow on from the last cell code, in the order of the
+ * Species enum. Each species has a diet, which is a bitmask with bit n set if
+ * the species eats the food type or species with id n, so testing if one
+ * entity can eat another is a single bit test. The interaction table holds
+ * the energy gained from each meal
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see CellCode, Species
+ */
+public final class SpeciesRegistry {
+
+	/**
+	 * The id of the first species
+	 */
+	public static final int FIRST_SPECIES = CellCode.count();
+
+	/**
+	 * The energy gain in the interaction table for a meal that gives the
+	 * current energy of the life form that is eaten
+	 */
+	public static final int ENERGY_OF_PREY = Integer.MIN_VALUE;
+
+	// Define the id tables
+	private static final String[] NAMES;
+	private static final int[] DIETS;
+	private static final boolean[] CARNIVORES;
+	private static final int[] SENSE_RANGES;
+	private static final int[][] ENERGY_GAINS;
+	private static final ArrayList<?>[] CONSUMES;
+
+	static {
+		int count = FIRST_SPECIES + Species.values().length;
+		if (count > Integer.SIZE) {
+			throw new IllegalStateException("Too many species for a diet mask");
+		}
+
+		NAMES = new String[count];
+		DIETS = new int[count];
+		CARNIVORES = new boolean[count];
+		SENSE_RANGES = new int[count];
+		ENERGY_GAINS = new int[count][count];
+		CONSUMES = new ArrayList<?>[count];
+
+		// Food types and obstacles use their cell codes
+		AFoodItem[] foodItems = { new Grass(0, 0), new Flower(0, 0),
+				new Leaf(0, 0), new Plankton(0, 0), new Mushroom(0, 0),
+				new Berry(0, 0) };
+		for (byte code = 0; code < FIRST_SPECIES; code++) {
+			NAMES[code] = CellCode.toName(code);
+		}
+
+		// Species follow on in the order of the Species enum
+		ALifeForm[] samples = new ALifeForm[Species.values().length];
+		for (Species species : Species.values()) {
+			samples[species.ordinal()] = createLifeForm(species, 0, null, 0,
+					0, 0);
+			NAMES[FIRST_SPECIES + species.ordinal()] = samples[species
+					.ordinal()].getSpecies();
+		}
+
+		// Build the diet and the meals of each species from its sample
+		for (Species species : Species.values()) {
+			int id = FIRST_SPECIES + species.ordinal();
+			ALifeForm sample = samples[species.ordinal()];
+			ArrayList<String> consumes = sample.getConsumes();
+			CONSUMES[id] = consumes;
+
+			CARNIVORES[id] = sample.getType().equals("carnivore");
+			if (species == Species.Bug) {
+				SENSE_RANGES[id] = 1;
+			} else if (CARNIVORES[id]) {
+				SENSE_RANGES[id] = 4;
+			} else {
+				SENSE_RANGES[id] = 2;
+			}
+
+			for (int i = 0; i < consumes.size(); i++) {
+				int eaten = idOf(consumes.get(i));
+				if (eaten < 0) {
+					continue;
+				}
+
+				/*
+				 * Carnivores only eat life forms and herbivores only eat food
+				 * items, as in the world's move logic
+				 */
+				if (CARNIVORES[id] ? isSpecies(eaten) : CellCode
+						.isFood((byte) eaten)) {
+					DIETS[id] |= 1 << eaten;
+				}
+			}
+			for (int i = 0; i < foodItems.length; i++) {
+				int eaten = CellCode.fromName(foodItems[i].getType());
+				ENERGY_GAINS[id][eaten] = foodItems[i].getNutrition();
+			}
+			for (int eaten = FIRST_SPECIES; eaten < count; eaten++) {
+				ENERGY_GAINS[id][eaten] = ENERGY_OF_PREY;
+			}
+		}
+	}
+
+	/**
+	 * Private constructor because this class only holds the id table
+	 */
+	private SpeciesRegistry() {
+	}
+
+	/**
+	 * This method creates the life form object of a species
+	 *
+	 * @param species
+	 *            The species of the life form
+	 * @param initialUniqueID
+	 *            The unique ID for the new life form
+	 * @param initialName
+	 *            The name for the new life form
+	 * @param initialEnergy
+	 *            The energy for the new life form
+	 * @param initialX
+	 *            The x coordinate for the new life form
+	 * @param initialY
+	 *            The y coordinate for the new life form
+	 * @return Returns the new life form
+	 */
+	public static ALifeForm createLifeForm(Species species,
+			int initialUniqueID, String initialName, int initialEnergy,
+			int initialX, int initialY) {
+		switch (species) {
+		case Bear:
+			return new Bear(initialUniqueID, initialName, initialEnergy,
+					initialX, initialY);
+		case Bird:
+			return new Bird(initialUniqueID, initialName, initialEnergy,
+					initialX, initialY);
+		case Bug:
+			return new Bug(initialUniqueID, initialName, initialEnergy,
+					initialX, initialY);
+		case Cow:
+			return new Cow(initialUniqueID, initialName, initialEnergy,
+					initialX, initialY);
+		case Fish:
+			return new Fish(initialUniqueID, initialName, initialEnergy,
+					initialX, initialY);
+		case Fox:
+			return new Fox(initialUniqueID, initialName, initialEnergy,
+					initialX, initialY);
+		case Lion:
+			return new Lion(initialUniqueID, initialName, initialEnergy,
+					initialX, initialY);
+		case Mouse:
+			return new Mouse(initialUniqueID, initialName, initialEnergy,
+					initialX, initialY);
+		case Pig:
+			return new Pig(initialUniqueID, initialName, initialEnergy,
+					initialX, initialY);
+		case Rabbit:
+			return new Rabbit(initialUniqueID, initialName, initialEnergy,
+					initialX, initialY);
+		default:
+			return new Whale(initialUniqueID, initialName, initialEnergy,
+					initialX, initialY);
+		}
+	}
+
+	/**
+	 * Getter for the number of ids in the id table
+	 * @return Returns the number of ids
+	 */
+	public static int count() {
+		return NAMES.length;
+	}
+
+	/**
+	 * This method converts a species or food type name into its id. Species
+	 * are named as in their life forms (e.g. "Bird of prey"), not as in the
+	 * Species enum
+	 *
+	 * @param name
+	 *            The name of the species or food type
+	 * @return Returns the id for the name, or -1 if the name is not known
+	 */
+	public static int idOf(String name) {
+		if (name != null) {
+			for (int i = 0; i < NAMES.length; i++) {
+				if (NAMES[i].equals(name)) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * This method converts a species into its id
+	 *
+	 * @param species
+	 *            The species
+	 * @return Returns the id of the species
+	 */
+	public static int idOf(Species species) {
+		return FIRST_SPECIES + species.ordinal();
+	}
+
+	/**
+	 * This method converts an id into the name of its species or food type
+	 *
+	 * @param id
+	 *            The id
+	 * @return Returns the name of the species or food type
+	 */
+	public static String nameOf(int id) {
+		return NAMES[id];
+	}
+
+	/**
+	 * This method converts the id of a species into the species
+	 *
+	 * @param id
+	 *            The id of the species
+	 * @return Returns the species
+	 */
+	public static Species toSpecies(int id) {
+		return Species.values()[id - FIRST_SPECIES];
+	}
+
+	/**
+	 * This method tests if the id belongs to a species
+	 *
+	 * @param id
+	 *            The id
+	 * @return Returns true if the id belongs to a species
+	 */
+	public static boolean isSpecies(int id) {
+		return id >= FIRST_SPECIES && id < NAMES.length;
+	}
+
+	/**
+	 * This method tests if the species eats other life forms
+	 *
+	 * @param id
+	 *            The id of the species
+	 * @return Returns true if the species is a carnivore
+	 */
+	public static boolean isCarnivore(int id) {
+		return CARNIVORES[id];
+	}
+
+	/**
+	 * Getter for the diet of a species
+	 *
+	 * @param id
+	 *            The id of the species
+	 * @return Returns the bitmask of the ids eaten by the species
+	 */
+	public static int getDiet(int id) {
+		return DIETS[id];
+	}
+
+	/**
+	 * This method tests if an id is in a diet
+	 *
+	 * @param diet
+	 *            The diet returned by getDiet()
+	 * @param id
+	 *            The id of the species or food type
+	 * @return Returns true if the id is in the diet
+	 */
+	public static boolean inDiet(int diet, int id) {
+		return (diet & (1 << id)) != 0;
+	}
+
+	/**
+	 * This method tests if one species can eat a species or food type
+	 *
+	 * @param eater
+	 *            The id of the species that eats
+	 * @param eaten
+	 *            The id of the species or food type that is eaten
+	 * @return Returns true if the meal is in the diet of the eater
+	 */
+	public static boolean canEat(int eater, int eaten) {
+		return (DIETS[eater] & (1 << eaten)) != 0;
+	}
+
+	/**
+	 * Getter for the consumes list of a species, as set by its life form class
+	 *
+	 * @param id
+	 *            The id of the species
+	 * @return Returns a copy of the names of the entities eaten by the species
+	 */
+	@SuppressWarnings("unchecked")
+	public static ArrayList<String> getConsumes(int id) {
+		return new ArrayList<String>((ArrayList<String>) CONSUMES[id]);
+	}
+
+	/**
+	 * Getter for the number of cells a species can sense food from (1 for
+	 * feel, 2 for sight and 4 for smell)
+	 *
+	 * @param id
+	 *            The id of the species
+	 * @return Returns the sensing range of the species
+	 */
+	public static int getSenseRange(int id) {
+		return SENSE_RANGES[id];
+	}
+
+	/**
+	 * Getter for the energy gained when a species eats a food type or
+	 * another species. The gain for eating a life form is ENERGY_OF_PREY,
+	 * because the eater gains the current energy of the life form
+	 *
+	 * @param eater
+	 *            The id of the species that eats
+	 * @param eaten
+	 *            The id of the species or food type that is eaten
+	 * @return Returns the energy gained from the meal
+	 */
+	public static int getEnergyGain(int eater, int eaten) {
+		return ENERGY_GAINS[eater][eaten];
+	}
+}
@@ -0,0 +1,719 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * <h1>StatisticsExporter.java</h1>
+ * <p>
+ * This class writes statistics of a running simulation to a file every few
+ * cycles. Each row holds the columns:
+ *<p> cycle - the cycle the row was taken after
+ *<p> cycles, wall_ns - the number of cycles since the previous row and the
+ *    time they took in nanoseconds
+ *<p> births, deaths, meals - the number of life forms added, life forms
+ *    that died and food items or life forms eaten since the previous row
+ *<p> SPECIES_count, SPECIES_energy - the number of living life forms of
+ *    each species and their total energy (CSV files also have the mean
+ *    energy, SPECIES_mean_energy)
+ *<p> FOOD_food - the number of food items of each type
+ *
+ * The rows are written as CSV, or in a compact binary format: a header with
+ * the magic number, version and column names, followed by blocks of up to
+ * BLOCK_ROWS rows. Each block starts with its number of rows and bytes, and
+ * then holds each column in turn as the differences between consecutive
+ * values, written as zigzag variable length integers. The main() method
+ * converts a binary file to CSV.
+ *
+ * Rows are copied into a bounded queue and written by a background thread,
+ * so the simulation never waits for the disk and memory does not grow with
+ * the number of cycles. If the queue is full a row is skipped, and its
+ * cycles, time and counts are added to the next row instead
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see HeadlessRunner
+ */
+public class StatisticsExporter {
+
+	/**
+	 * The first four bytes of a binary statistics file ("ALST")
+	 */
+	public static final int MAGIC = 0x54534c41;
+
+	/**
+	 * The version of the binary statistics format
+	 */
+	public static final short VERSION = 1;
+
+	/**
+	 * The maximum number of rows in a block of a binary statistics file
+	 */
+	public static final int BLOCK_ROWS = 1024;
+
+	private static final int FIRST_SPECIES = SpeciesRegistry.FIRST_SPECIES;
+	private static final int SPECIES_COUNT = SpeciesRegistry.count()
+			- FIRST_SPECIES;
+	private static final byte[] FOOD_CODES = foodCodes();
+	private static final int SPECIES_COLUMN = 6; // first species column
+	private static final int FOOD_COLUMN = SPECIES_COLUMN + SPECIES_COUNT * 2;
+	private static final int COLUMNS = FOOD_COLUMN + FOOD_CODES.length;
+	private static final long FLUSH_MILLIS = 100;
+
+	private final int interval;
+	private final boolean binary;
+
+	// Define the state of the next row
+	private final long[] row = new long[COLUMNS];
+	private final long[] speciesCounts = new long[SPECIES_COUNT];
+	private final long[] speciesEnergies = new long[SPECIES_COUNT];
+	private final long[] foodCounts = new long[CellCode.count()];
+	private AWorld world; // the world the counts were taken from
+	private long cycles; // cycles since the last queued row
+	private long wallNanos; // time taken by those cycles
+	private long births; // births of the world at the last queued row
+	private long deaths;
+	private long meals;
+
+	// Define the queue of rows waiting to be written
+	private final int capacity;
+	private final int batchSize; // number of rows that wake the writer
+	private final long[] queue;
+	private int head; // index of the oldest queued row
+	private int size; // number of queued rows
+	private long written; // number of rows written
+	private long skipped; // number of rows skipped because the queue was full
+	private boolean rowSkipped; // true if the last row was not queued
+	private boolean closed;
+
+	private final Writer csv; // null when writing binary
+	private final FileChannel channel; // null when writing CSV
+	private final Thread writer;
+	private IOException error; // first error raised by the writer thread
+
+	/**
+	 * This constructor opens the file, writes its header and starts the
+	 * writer thread
+	 *
+	 * @param filePath
+	 *            The path of the file, which is replaced if it exists
+	 * @param newBinary
+	 *            True to write the binary format, false to write CSV
+	 * @param newInterval
+	 *            The number of cycles between two rows
+	 * @param newCapacity
+	 *            The maximum number of rows waiting to be written
+	 * @throws IOException
+	 *             If the file cannot be opened
+	 */
+	public StatisticsExporter(String filePath, boolean newBinary,
+			int newInterval, int newCapacity) throws IOException {
+		if (newInterval < 1) {
+			throw new IllegalArgumentException("Invalid statistics interval: "
+					+ newInterval);
+		}
+		if (newCapacity < 1) {
+			throw new IllegalArgumentException("Invalid capacity: "
+					+ newCapacity);
+		}
+		interval = newInterval;
+		binary = newBinary;
+		capacity = newCapacity;
+		batchSize = Math.min(capacity, 256);
+		queue = new long[capacity * COLUMNS];
+
+		if (binary) {
+			csv = null;
+			channel = FileChannel.open(Paths.get(filePath),
+					StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			try {
+				writeHeader();
+			} catch (IOException e) {
+				channel.close();
+				throw e;
+			}
+		} else {
+			channel = null;
+			csv = new BufferedWriter(new FileWriter(filePath), 65536);
+			writeCsvHeader(csv);
+		}
+
+		writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeRows();
+			}
+		}, "statistics-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * This method lists the cell codes of the food types
+	 *
+	 * @return Returns the cell code of every food type
+	 */
+	private static byte[] foodCodes() {
+		byte[] codes = new byte[CellCode.count()];
+		int count = 0;
+		for (int code = 0; code < CellCode.count(); code++) {
+			if (CellCode.isFood((byte) code)) {
+				codes[count++] = (byte) code;
+			}
+		}
+		byte[] foodCodes = new byte[count];
+		System.arraycopy(codes, 0, foodCodes, 0, count);
+		return foodCodes;
+	}
+
+	/**
+	 * This method lists the names of the columns of a row
+	 *
+	 * @return Returns the names of the columns
+	 */
+	private static ArrayList<String> columnNames() {
+		ArrayList<String> names = new ArrayList<String>();
+		names.add("cycle");
+		names.add("cycles");
+		names.add("wall_ns");
+		names.add("births");
+		names.add("deaths");
+		names.add("meals");
+		for (int i = 0; i < SPECIES_COUNT; i++) {
+			String species = SpeciesRegistry.toSpecies(FIRST_SPECIES + i)
+					.name();
+			names.add(species + "_count");
+			names.add(species + "_energy");
+		}
+		for (int i = 0; i < FOOD_CODES.length; i++) {
+			names.add(CellCode.toName(FOOD_CODES[i]) + "_food");
+		}
+		return names;
+	}
+
+	/**
+	 * This method is called after every cycle of the simulation. It adds the
+	 * cycle to the next row and queues the row if the current cycle is a
+	 * multiple of the interval. It must be called by the thread running the
+	 * simulation
+	 *
+	 * @param simulation
+	 *            The simulation that has finished a cycle
+	 * @param nanos
+	 *            The time the cycle took in nanoseconds
+	 */
+	public void cycleFinished(Simulation simulation, long nanos) {
+		AWorld currentWorld = simulation.getWorld();
+
+		// Count from zero again if the world has been replaced
+		if (currentWorld != world) {
+			world = currentWorld;
+			births = 0;
+			deaths = 0;
+			meals = 0;
+		}
+		cycles++;
+		wallNanos += nanos;
+		if (world.getCurrentCycle() % interval != 0) {
+			return;
+		}
+
+		fillRow(simulation);
+		if (offer()) {
+			cycles = 0;
+			wallNanos = 0;
+			births = world.getBirths();
+			deaths = world.getDeaths();
+			meals = world.getMeals();
+		}
+	}
+
+	/**
+	 * This method fills in the next row from the simulation
+	 *
+	 * @param simulation
+	 *            The simulation to take the row from
+	 */
+	private void fillRow(Simulation simulation) {
+		row[0] = world.getCurrentCycle();
+		row[1] = cycles;
+		row[2] = wallNanos;
+		row[3] = world.getBirths() - births;
+		row[4] = world.getDeaths() - deaths;
+		row[5] = world.getMeals() - meals;
+
+		// Count the living life forms and their energy
+		Arrays.fill(speciesCounts, 0);
+		Arrays.fill(speciesEnergies, 0);
+		ArrayList<AEntity> lifeForms = simulation.getLifeForms();
+		for (int i = 0; i < lifeForms.size(); i++) {
+			AEntity lifeForm = lifeForms.get(i);
+			if (lifeForm.getIsAlive()) {
+				int species = lifeForm.getTypeId() - FIRST_SPECIES;
+				speciesCounts[species]++;
+				speciesEnergies[species] += lifeForm.getEnergy();
+			}
+		}
+		for (int i = 0; i < SPECIES_COUNT; i++) {
+			row[SPECIES_COLUMN + i * 2] = speciesCounts[i];
+			row[SPECIES_COLUMN + i * 2 + 1] = speciesEnergies[i];
+		}
+
+		// Count the food items of each type
+		Arrays.fill(foodCounts, 0);
+		ArrayList<AEntity> foodItems = world.getFoodStore().getItems();
+		for (int i = 0; i < foodItems.size(); i++) {
+			foodCounts[foodItems.get(i).getTypeId()]++;
+		}
+		for (int i = 0; i < FOOD_CODES.length; i++) {
+			row[FOOD_COLUMN + i] = foodCounts[FOOD_CODES[i]];
+		}
+	}
+
+	/**
+	 * This method copies the next row into the queue
+	 *
+	 * @return Returns false if the row was skipped because the queue is full
+	 */
+	private synchronized boolean offer() {
+		if (closed || size == capacity) {
+			skipped++;
+			rowSkipped = true;
+			return false;
+		}
+		System.arraycopy(row, 0, queue, ((head + size) % capacity) * COLUMNS,
+				COLUMNS);
+		rowSkipped = false;
+		if (++size == batchSize) {
+			notifyAll();
+		}
+		return true;
+	}
+
+	/**
+	 * This method is run by the writer thread. It takes the queued rows in
+	 * batches and writes them until the exporter is closed and the queue is
+	 * empty. The writer is woken once a batch is queued, or after
+	 * FLUSH_MILLIS
+	 */
+	private void writeRows() {
+
+		// Define temporary variables
+		long[] batch = new long[batchSize * COLUMNS];
+		StringBuilder text = new StringBuilder();
+		long[] block = binary ? new long[BLOCK_ROWS * COLUMNS] : null;
+		ByteBuffer encoded = binary ? ByteBuffer.allocateDirect(
+				8 + BLOCK_ROWS * COLUMNS * 10).order(ByteOrder.LITTLE_ENDIAN)
+				: null;
+		int blockRows = 0;
+		int count;
+
+		try {
+			while (true) {
+
+				// Copy a batch of rows out of the queue
+				synchronized (this) {
+					while (size < batchSize && !closed) {
+						wait(FLUSH_MILLIS);
+						if (size > 0) {
+							break;
+						}
+					}
+					if (size == 0) {
+						break;
+					}
+					count = Math.min(size, batchSize);
+					for (int n = 0; n < count; n++) {
+						System.arraycopy(queue, ((head + n) % capacity)
+								* COLUMNS, batch, n * COLUMNS, COLUMNS);
+					}
+					head = (head + count) % capacity;
+					size -= count;
+					notifyAll();
+				}
+
+				// Write the batch without holding the lock
+				for (int n = 0; n < count; n++) {
+					if (binary) {
+						System.arraycopy(batch, n * COLUMNS, block, blockRows
+								* COLUMNS, COLUMNS);
+						if (++blockRows == BLOCK_ROWS) {
+							writeBlock(block, blockRows, encoded);
+							blockRows = 0;
+						}
+					} else {
+						text.setLength(0);
+						appendCsvRow(text, batch, n * COLUMNS);
+						csv.append(text);
+					}
+				}
+				synchronized (this) {
+					written += count;
+				}
+			}
+			if (blockRows > 0) {
+				writeBlock(block, blockRows, encoded);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			synchronized (this) {
+				error = e;
+				closed = true;
+				notifyAll();
+			}
+		} finally {
+			try {
+				if (binary) {
+					channel.close();
+				} else {
+					csv.close();
+				}
+			} catch (IOException e) {
+				synchronized (this) {
+					if (error == null) {
+						error = e;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method writes the header line of a CSV file
+	 *
+	 * @param out
+	 *            The writer to write to
+	 * @throws IOException
+	 *             If the header cannot be written
+	 */
+	private static void writeCsvHeader(Writer out) throws IOException {
+		ArrayList<String> names = columnNames();
+		StringBuilder text = new StringBuilder();
+		for (int column = 0; column < COLUMNS; column++) {
+			if (column > 0) {
+				text.append(',');
+			}
+			text.append(names.get(column));
+			if (column >= SPECIES_COLUMN && column < FOOD_COLUMN
+					&& (column - SPECIES_COLUMN) % 2 == 1) {
+				String energy = names.get(column);
+				text.append(',').append(
+						energy.substring(0, energy.length() - 7)).append(
+						"_mean_energy");
+			}
+		}
+		text.append('\n');
+		out.write(text.toString());
+	}
+
+	/**
+	 * This method appends a row to a CSV file, adding the mean energy of each
+	 * species with two decimal places
+	 *
+	 * @param text
+	 *            The StringBuilder to append to
+	 * @param rows
+	 *            The array holding the row
+	 * @param offset
+	 *            The position of the row in the array
+	 */
+	private static void appendCsvRow(StringBuilder text, long[] rows,
+			int offset) {
+		for (int column = 0; column < COLUMNS; column++) {
+			if (column > 0) {
+				text.append(',');
+			}
+			text.append(rows[offset + column]);
+			if (column >= SPECIES_COLUMN && column < FOOD_COLUMN
+					&& (column - SPECIES_COLUMN) % 2 == 1) {
+				long count = rows[offset + column - 1];
+				long hundredths = count == 0 ? 0 : Math
+						.round(rows[offset + column] * 100.0 / count);
+				text.append(',');
+				if (hundredths < 0) {
+					text.append('-');
+					hundredths = -hundredths;
+				}
+				text.append(hundredths / 100).append('.');
+				text.append((char) ('0' + hundredths / 10 % 10)).append(
+						(char) ('0' + hundredths % 10));
+			}
+		}
+		text.append('\n');
+	}
+
+	/**
+	 * This method writes the header of a binary file
+	 *
+	 * @throws IOException
+	 *             If the header cannot be written
+	 */
+	private void writeHeader() throws IOException {
+		ArrayList<String> names = columnNames();
+		ByteBuffer header = ByteBuffer.allocate(8 + COLUMNS * 66).order(
+				ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC).putShort(VERSION).putShort((short) COLUMNS);
+		for (int column = 0; column < COLUMNS; column++) {
+			byte[] name = names.get(column).getBytes(StandardCharsets.UTF_8);
+			header.putShort((short) name.length).put(name);
+		}
+		header.flip();
+		while (header.hasRemaining()) {
+			channel.write(header);
+		}
+	}
+
+	/**
+	 * This method encodes a block of rows column by column and writes it to
+	 * a binary file
+	 *
+	 * @param block
+	 *            The rows of the block, one after the other
+	 * @param rows
+	 *            The number of rows in the block
+	 * @param encoded
+	 *            The buffer to encode the block into
+	 * @throws IOException
+	 *             If the block cannot be written
+	 */
+	private void writeBlock(long[] block, int rows, ByteBuffer encoded)
+			throws IOException {
+		encoded.clear();
+		encoded.putInt(rows).putInt(0);
+		for (int column = 0; column < COLUMNS; column++) {
+			long previous = 0;
+			for (int n = 0; n < rows; n++) {
+				long value = block[n * COLUMNS + column];
+				long delta = value - previous;
+				putVarLong(encoded, (delta << 1) ^ (delta >> 63));
+				previous = value;
+			}
+		}
+		encoded.putInt(4, encoded.position() - 8);
+		encoded.flip();
+		while (encoded.hasRemaining()) {
+			channel.write(encoded);
+		}
+	}
+
+	/**
+	 * This method writes an unsigned variable length integer, seven bits per
+	 * byte with the lowest bits first
+	 *
+	 * @param buffer
+	 *            The buffer to write to
+	 * @param value
+	 *            The value to write
+	 */
+	private static void putVarLong(ByteBuffer buffer, long value) {
+		while ((value & ~0x7fL) != 0) {
+			buffer.put((byte) ((value & 0x7f) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	/**
+	 * This method reads an unsigned variable length integer
+	 *
+	 * @param buffer
+	 *            The buffer to read from
+	 * @return Returns the value
+	 * @throws IOException
+	 *             If the integer is too long
+	 */
+	private static long getVarLong(ByteBuffer buffer) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = buffer.get();
+			value |= (long) (b & 0x7f) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IOException("Invalid number in statistics file");
+	}
+
+	/**
+	 * This method converts a binary statistics file to CSV
+	 *
+	 * @param filePath
+	 *            The path of the binary file
+	 * @param out
+	 *            The writer to write the CSV to
+	 * @throws IOException
+	 *             If the file cannot be read or is not a statistics file
+	 */
+	public static void convertToCsv(String filePath, Writer out)
+			throws IOException {
+		FileChannel in = FileChannel.open(Paths.get(filePath),
+				StandardOpenOption.READ);
+		try {
+			ByteBuffer buffer = ByteBuffer.allocate(8).order(
+					ByteOrder.LITTLE_ENDIAN);
+			readFully(in, buffer);
+			if (buffer.getInt() != MAGIC) {
+				throw new IOException("Not a statistics file");
+			}
+			if (buffer.getShort() != VERSION
+					|| buffer.getShort() != COLUMNS) {
+				throw new IOException("Unsupported statistics file version");
+			}
+
+			// Skip the column names, which are the same as this version's
+			ByteBuffer name = ByteBuffer.allocate(2).order(
+					ByteOrder.LITTLE_ENDIAN);
+			for (int column = 0; column < COLUMNS; column++) {
+				name.clear();
+				readFully(in, name);
+				in.position(in.position() + name.getShort());
+			}
+			writeCsvHeader(out);
+
+			// Decode each block into rows
+			long[] block = new long[BLOCK_ROWS * COLUMNS];
+			StringBuilder text = new StringBuilder();
+			while (true) {
+				buffer.clear();
+				if (in.read(buffer) <= 0) {
+					break;
+				}
+				readFully(in, buffer);
+				int rows = buffer.getInt();
+				int length = buffer.getInt();
+				if (rows < 1 || rows > BLOCK_ROWS || length < 0
+						|| length > BLOCK_ROWS * COLUMNS * 10) {
+					throw new IOException("Invalid block in statistics file");
+				}
+				ByteBuffer encoded = ByteBuffer.allocate(length);
+				readFully(in, encoded);
+				for (int column = 0; column < COLUMNS; column++) {
+					long value = 0;
+					for (int n = 0; n < rows; n++) {
+						long zigzag = getVarLong(encoded);
+						value += (zigzag >>> 1) ^ -(zigzag & 1);
+						block[n * COLUMNS + column] = value;
+					}
+				}
+				for (int n = 0; n < rows; n++) {
+					text.setLength(0);
+					appendCsvRow(text, block, n * COLUMNS);
+					out.append(text);
+				}
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * This method fills a buffer from a channel and flips it
+	 *
+	 * @param in
+	 *            The channel to read from
+	 * @param buffer
+	 *            The buffer to fill
+	 * @throws IOException
+	 *             If the end of the file is reached first
+	 */
+	private static void readFully(FileChannel in, ByteBuffer buffer)
+			throws IOException {
+		while (buffer.hasRemaining()) {
+			if (in.read(buffer) < 0) {
+				throw new IOException("Statistics file is truncated");
+			}
+		}
+		buffer.flip();
+	}
+
+	/**
+	 * Getter for the number of rows written
+	 * @return Returns the number of rows written
+	 */
+	public synchronized long getWritten() {
+		return written;
+	}
+
+	/**
+	 * Getter for the number of rows skipped because the queue was full
+	 * @return Returns the number of rows skipped
+	 */
+	public synchronized long getSkipped() {
+		return skipped;
+	}
+
+	/**
+	 * Getter for the error raised while writing the file
+	 * @return Returns the error, or null if the file was written successfully
+	 */
+	public synchronized IOException getError() {
+		return error;
+	}
+
+	/**
+	 * This method stops accepting rows, waits for the queued rows to be
+	 * written and closes the file. If the last row was skipped it is queued
+	 * first, so the file holds every cycle up to the last row
+	 */
+	public void close() {
+		synchronized (this) {
+			while (rowSkipped && size == capacity && !closed) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			if (rowSkipped && size < capacity && !closed) {
+				skipped--;
+				offer();
+			}
+			closed = true;
+			notifyAll();
+		}
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * The main() method converts a binary statistics file to CSV, written to
+	 * System.out
+	 *
+	 * @param args
+	 *            the command line arguments
+	 */
+	public static void main(String[] args) {
+		if (args.length != 1) {
+			System.out.println("Usage: StatisticsExporter FILE");
+			System.exit(1);
+		}
+		try {
+			Writer out = new BufferedWriter(new OutputStreamWriter(
+					System.out, StandardCharsets.UTF_8), 65536);
+			convertToCsv(args[0], out);
+			out.flush();
+		} catch (IOException e) {
+			System.out.println("Failed to convert statistics file: "
+					+ e.getMessage());
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,277 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * <h1>StoredLifeForm.java</h1>
+ * <p>
+ * This class is the view of a life form that is held in a LifeFormStore. It
+ * extends the AEntity class, so the world, the simulation and the user
+ * interface use it like any other life form, but it holds no state of its
+ * own: every getter and setter reads or writes the life form's slot in the
+ * store.
+ *
+ * A view must not be used once its life form has been released from the
+ * store. When it is saved, a view is written as the life form object of its
+ * species, so configuration files do not depend on the store
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see LifeFormStore, AEntity
+ */
+public class StoredLifeForm extends AEntity implements Serializable {
+
+	private static final long serialVersionUID = -2896451203857724180L;
+	private final transient LifeFormStore store;
+	private final transient int index;
+	private final transient int generation;
+
+	/**
+	 * This constructor creates the view of a slot. Views are only created by
+	 * the store
+	 *
+	 * @param newStore
+	 *            The store that holds the life form
+	 * @param newIndex
+	 *            The slot of the life form
+	 * @param newGeneration
+	 *            The generation of the slot
+	 */
+	StoredLifeForm(LifeFormStore newStore, int newIndex, int newGeneration) {
+		store = newStore;
+		index = newIndex;
+		generation = newGeneration;
+	}
+
+	/**
+	 * @return Returns a string comprised of the name and energy value of the life form
+	 */
+	public String toString() {
+		return getName() + ": " + getEnergy();
+	}
+
+	/**
+	 * Getter for the store that holds the life form
+	 * @return Returns the store of the life form
+	 */
+	public LifeFormStore getStore() {
+		return store;
+	}
+
+	/**
+	 * Getter for the handle of the life form in its store
+	 * @return Returns the handle of the life form
+	 */
+	public long getHandle() {
+		return ((long) generation << 32) | index;
+	}
+
+	/**
+	 * Getter for the slot of the life form in its store
+	 * @return Returns the slot of the life form
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Getter for the uniqueID of the life form
+	 * @return Returns the uniqueID of the life form
+	 */
+	public int getUniqueID() {
+		return store.getUniqueID(index);
+	}
+
+	/**
+	 * Getter for the x coordinate of the life form
+	 * @return Returns the x coordinate of the life form
+	 */
+	@Override
+	public int getX() {
+		return store.getX(index);
+	}
+
+	/**
+	 * Getter for the y coordinate of the life form
+	 * @return Returns the y coordinate of the life form
+	 */
+	@Override
+	public int getY() {
+		return store.getY(index);
+	}
+
+	/**
+	 * Setter for the x coordinate of the life form
+	 * @param newX The new x coordinate of the life form
+	 */
+	@Override
+	public void setX(int newX) {
+		store.setX(index, newX);
+	}
+
+	/**
+	 * Setter for the y coordinate of the life form
+	 * @param newY The new y coordinate of the life form
+	 */
+	@Override
+	public void setY(int newY) {
+		store.setY(index, newY);
+	}
+
+	/**
+	 * Getter for the name of the life form
+	 * @return Returns the name of the life form
+	 */
+	@Override
+	public String getName() {
+		return store.getName(index);
+	}
+
+	/**
+	 * Getter for the type of the life form
+	 * @return Returns "carnivore" or "herbivore"
+	 */
+	@Override
+	public String getType() {
+		return SpeciesRegistry.isCarnivore(getTypeId()) ? "carnivore"
+				: "herbivore";
+	}
+
+	/**
+	 * Getter for the id of the species of the life form
+	 * @return Returns the id of the species in the SpeciesRegistry
+	 */
+	@Override
+	public int getTypeId() {
+		return store.getSpeciesId(index);
+	}
+
+	/**
+	 * Getter for the energy of the life form
+	 * @return Returns the energy of the life form
+	 */
+	@Override
+	public int getEnergy() {
+		return store.getEnergy(index);
+	}
+
+	/**
+	 * Getter for the lastFoodX value of the life form
+	 * @return Returns the lastFoodX value of the life form
+	 */
+	@Override
+	public int getLastFoodX() {
+		return store.getLastFoodX(index);
+	}
+
+	/**
+	 * Getter for the lastFoodY value of the life form
+	 * @return Returns the lastFoodY value of the life form
+	 */
+	@Override
+	public int getLastFoodY() {
+		return store.getLastFoodY(index);
+	}
+
+	/**
+	 * Getter for the isAlive property of the life form. A life form that has
+	 * been released from the store is not alive
+	 * @return Returns the isAlive property of the life form
+	 */
+	@Override
+	public boolean getIsAlive() {
+		return store.isValid(getHandle()) && store.isAlive(index);
+	}
+
+	/**
+	 * Getter for the species of the life form
+	 * @return Returns the species of the life form
+	 */
+	@Override
+	public Object getSpecies() {
+		return SpeciesRegistry.nameOf(getTypeId());
+	}
+
+	/**
+	 * Getter for the ArrayList of consumes for the life form
+	 * @return Returns a copy of the consumes of the species
+	 */
+	@Override
+	public ArrayList<String> getConsumes() {
+		return SpeciesRegistry.getConsumes(getTypeId());
+	}
+
+	/**
+	 * Empty method that is only implemented here because it is required by AEntity
+	 */
+	@Override
+	public int getNutrition() {
+		return 0;
+	}
+
+	/**
+	 * Setter for the isAlive parameter of the life form
+	 * @param newValue The new isAlive parameter of the life form
+	 */
+	@Override
+	public void setIsAlive(boolean newValue) {
+		store.setAlive(index, newValue);
+	}
+
+	/**
+	 * Setter for the energy of the life form
+	 * @param newEnergy The new energy value of the life form
+	 */
+	@Override
+	public void setEnergy(int newEnergy) {
+		store.setEnergy(index, newEnergy);
+	}
+
+	/**
+	 * Setter for the name of the life form
+	 * @param newName The new name of the life form
+	 */
+	@Override
+	public void setName(String newName) {
+		store.setName(index, newName);
+	}
+
+	/**
+	 * Setter for the lastFoodX value of the life form
+	 * @param newX The new lastFoodX value of the life form
+	 */
+	@Override
+	public void setLastFoodX(int newX) {
+		store.setLastFoodX(index, newX);
+	}
+
+	/**
+	 * Setter for the lastFoodY value of the life form
+	 * @param newY The new lastFoodY value of the life form
+	 */
+	@Override
+	public void setLastFoodY(int newY) {
+		store.setLastFoodY(index, newY);
+	}
+
+	/**
+	 * This method replaces the view with the life form object of its species
+	 * when it is saved
+	 *
+	 * @return Returns the life form object to save
+	 * @throws ObjectStreamException
+	 *             Never thrown, but required by serialization
+	 */
+	private Object writeReplace() throws ObjectStreamException {
+		ALifeForm lifeForm = SpeciesRegistry.createLifeForm(
+				SpeciesRegistry.toSpecies(getTypeId()), getUniqueID(),
+				getName(), getEnergy(), getX(), getY());
+		lifeForm.setLastFoodX(getLastFoodX());
+		lifeForm.setLastFoodY(getLastFoodY());
+		lifeForm.setIsAlive(getIsAlive());
+		return lifeForm;
+	}
+}
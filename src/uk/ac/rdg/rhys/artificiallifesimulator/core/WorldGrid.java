@@ -0,0 +1,111 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * <h1>WorldGrid.java</h1>
+ * <p>
+ * This class stores the contents of every cell of the world as a cell code
+ * (see CellCode). The cells are held in a single flattened byte array in row
+ * order, so the cell at (x, y) is stored at index y * size + x.
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see CellCode, AWorld
+ */
+public class WorldGrid implements Serializable {
+
+	private static final long serialVersionUID = 2950187302817464871L;
+	private final int size;
+	private final byte[] cells;
+
+	/**
+	 * This constructor creates an empty square grid
+	 *
+	 * @param size
+	 *            The size of the grid (dimensions)
+	 */
+	public WorldGrid(int size) {
+		this.size = size;
+		cells = new byte[size * size];
+	}
+
+	/**
+	 * Getter for the size of the grid
+	 * @return Returns the size of the grid
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * This method calculates the index of a cell in the flattened array
+	 *
+	 * @param x
+	 *            The x coordinate of the cell
+	 * @param y
+	 *            The y coordinate of the cell
+	 * @return Returns the index of the cell
+	 */
+	public int index(int x, int y) {
+		return y * size + x;
+	}
+
+	/**
+	 * Getter for the cell code at the given coordinates
+	 *
+	 * @param x
+	 *            The x coordinate of the cell
+	 * @param y
+	 *            The y coordinate of the cell
+	 * @return Returns the cell code
+	 */
+	public byte get(int x, int y) {
+		return cells[y * size + x];
+	}
+
+	/**
+	 * Setter for the cell code at the given coordinates
+	 *
+	 * @param x
+	 *            The x coordinate of the cell
+	 * @param y
+	 *            The y coordinate of the cell
+	 * @param code
+	 *            The new cell code
+	 */
+	public void set(int x, int y, byte code) {
+		cells[y * size + x] = code;
+	}
+
+	/**
+	 * This method tests if the cell at the given coordinates is empty
+	 *
+	 * @param x
+	 *            The x coordinate of the cell
+	 * @param y
+	 *            The y coordinate of the cell
+	 * @return Returns true if the cell is empty
+	 */
+	public boolean isEmpty(int x, int y) {
+		return cells[y * size + x] == CellCode.EMPTY;
+	}
+
+	/**
+	 * Getter for the flattened array of cell codes, used to save and load the
+	 * grid in one block. Changes to the array change the grid
+	 * @return Returns the array of cell codes, in row order
+	 */
+	byte[] getCells() {
+		return cells;
+	}
+
+	/**
+	 * Sets every cell of the grid to empty
+	 */
+	public void clear() {
+		Arrays.fill(cells, CellCode.EMPTY);
+	}
+}
@@ -0,0 +1,389 @@
+package uk.ac.rdg.rhys.artificiallifesimulator.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * <h1>WorldSnapshot.java</h1>
+ * <p>
+ * This class is a copy of the parts of a simulation that the user interface
+ * draws: the living life forms, the food items, the cycle, and the changes
+ * recorded since the previous snapshot was captured. It is filled in by the
+ * thread that runs the simulation and then handed to the JavaFX thread by a
+ * SnapshotExchange, so the user interface never reads the simulation while it
+ * is running.
+ *
+ * A snapshot is only used by one thread at a time and is not changed while
+ * it is being drawn. Once it has been drawn it is given back to the exchange
+ * and its arrays are reused for a later snapshot. Obstacles do not change
+ * while the simulation runs, so they are not copied. Only the first
+ * NAMED_LIFE_FORMS life forms are copied with their names, for the
+ * information pane
+ *
+ * @author Rhys Streefland
+ * @version 1.0
+ * @since 2014-01-20
+ * @see SnapshotExchange, ChangeSet
+ */
+public class WorldSnapshot {
+
+	/**
+	 * The number of life forms whose names are copied
+	 */
+	public static final int NAMED_LIFE_FORMS = 500;
+
+	private static final ChangeType[] TYPES = ChangeType.values();
+
+	private long sequence;
+	private int cycle;
+	private int simulationCycles;
+	private int worldSize;
+
+	// Define the columns of the living life forms
+	private int lifeFormCount;
+	private int[] ids = new int[16];
+	private byte[] typeIds = new byte[16];
+	private int[] xs = new int[16];
+	private int[] ys = new int[16];
+	private int[] energies = new int[16];
+	private String[] names = new String[16];
+
+	// Define the columns of the food items
+	private int foodCount;
+	private byte[] foodCodes = new byte[16];
+	private int[] foodXs = new int[16];
+	private int[] foodYs = new int[16];
+
+	// Define the columns of the changes since the previous snapshot
+	private boolean changesRecorded;
+	private int changeCount;
+	private byte[] changeTypes = new byte[16];
+	private int[] changeIds = new int[16];
+	private byte[] changeTypeIds = new byte[16];
+	private int[] changeOldXs = new int[16];
+	private int[] changeOldYs = new int[16];
+	private int[] changeNewXs = new int[16];
+	private int[] changeNewYs = new int[16];
+
+	/**
+	 * This method copies the state of a simulation into the snapshot and
+	 * moves the changes recorded by the simulation into it, clearing the
+	 * simulation's change set. It must be called by the thread that runs the
+	 * simulation, or while the simulation is not running
+	 *
+	 * @param simulation
+	 *            The simulation to copy
+	 * @param newSequence
+	 *            The number of the snapshot, one more than the previous
+	 *            snapshot of the simulation
+	 */
+	public void capture(Simulation simulation, long newSequence) {
+		AWorld world = simulation.getWorld();
+		ArrayList<AEntity> lifeForms = simulation.getLifeForms();
+		ArrayList<AEntity> foodItems = world.getFoodStore().getItems();
+		ChangeSet changes = simulation.getChangeSet();
+
+		sequence = newSequence;
+		cycle = world.getCurrentCycle();
+		simulationCycles = world.getSimulationCycles();
+		worldSize = world.getWorldSize();
+
+		// Copy the living life forms
+		if (ids.length < lifeForms.size()) {
+			growLifeForms(lifeForms.size());
+		}
+		Arrays.fill(names, 0, Math.min(lifeFormCount, names.length), null);
+		lifeFormCount = 0;
+		for (int i = 0; i < lifeForms.size(); i++) {
+			AEntity lifeForm = lifeForms.get(i);
+			if (lifeForm.getIsAlive()) {
+				ids[lifeFormCount] = EventLog.idOf(lifeForm);
+				typeIds[lifeFormCount] = (byte) lifeForm.getTypeId();
+				xs[lifeFormCount] = lifeForm.getX();
+				ys[lifeFormCount] = lifeForm.getY();
+				energies[lifeFormCount] = lifeForm.getEnergy();
+				if (lifeFormCount < NAMED_LIFE_FORMS) {
+					names[lifeFormCount] = lifeForm.getName();
+				}
+				lifeFormCount++;
+			}
+		}
+
+		// Copy the food items
+		foodCount = foodItems.size();
+		if (foodCodes.length < foodCount) {
+			int length = Math.max(foodCount, foodCodes.length * 2);
+			foodCodes = Arrays.copyOf(foodCodes, length);
+			foodXs = Arrays.copyOf(foodXs, length);
+			foodYs = Arrays.copyOf(foodYs, length);
+		}
+		for (int i = 0; i < foodCount; i++) {
+			AEntity food = foodItems.get(i);
+			foodCodes[i] = (byte) food.getTypeId();
+			foodXs[i] = food.getX();
+			foodYs[i] = food.getY();
+		}
+
+		// Move the changes into the snapshot
+		changesRecorded = changes.isEnabled() && !changes.isOverflowed();
+		changeCount = changesRecorded ? changes.size() : 0;
+		if (changeTypes.length < changeCount) {
+			growChanges(changeCount);
+		}
+		for (int i = 0; i < changeCount; i++) {
+			changeTypes[i] = (byte) changes.getType(i).ordinal();
+			changeIds[i] = changes.getId(i);
+			changeTypeIds[i] = (byte) changes.getTypeId(i);
+			changeOldXs[i] = changes.getOldX(i);
+			changeOldYs[i] = changes.getOldY(i);
+			changeNewXs[i] = changes.getNewX(i);
+			changeNewYs[i] = changes.getNewY(i);
+		}
+		changes.clear();
+	}
+
+	/**
+	 * This method makes the life form columns larger
+	 *
+	 * @param minimum
+	 *            The number of life forms the columns must hold
+	 */
+	private void growLifeForms(int minimum) {
+		int length = Math.max(minimum, ids.length * 2);
+		ids = Arrays.copyOf(ids, length);
+		typeIds = Arrays.copyOf(typeIds, length);
+		xs = Arrays.copyOf(xs, length);
+		ys = Arrays.copyOf(ys, length);
+		energies = Arrays.copyOf(energies, length);
+		names = Arrays.copyOf(names, Math.min(length, NAMED_LIFE_FORMS));
+	}
+
+	/**
+	 * This method makes the change columns larger
+	 *
+	 * @param minimum
+	 *            The number of changes the columns must hold
+	 */
+	private void growChanges(int minimum) {
+		int length = Math.max(minimum, changeTypes.length * 2);
+		changeTypes = Arrays.copyOf(changeTypes, length);
+		changeIds = Arrays.copyOf(changeIds, length);
+		changeTypeIds = Arrays.copyOf(changeTypeIds, length);
+		changeOldXs = Arrays.copyOf(changeOldXs, length);
+		changeOldYs = Arrays.copyOf(changeOldYs, length);
+		changeNewXs = Arrays.copyOf(changeNewXs, length);
+		changeNewYs = Arrays.copyOf(changeNewYs, length);
+	}
+
+	/**
+	 * Getter for the number of the snapshot. Snapshots of a simulation are
+	 * numbered in the order they were captured
+	 * @return Returns the number of the snapshot
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Getter for the current cycle when the snapshot was captured
+	 * @return Returns the current cycle
+	 */
+	public int getCycle() {
+		return cycle;
+	}
+
+	/**
+	 * Getter for the number of simulation cycles of the world
+	 * @return Returns the number of simulation cycles
+	 */
+	public int getSimulationCycles() {
+		return simulationCycles;
+	}
+
+	/**
+	 * Getter for the size of the world
+	 * @return Returns the size of the world
+	 */
+	public int getWorldSize() {
+		return worldSize;
+	}
+
+	/**
+	 * Getter for the number of living life forms
+	 * @return Returns the number of living life forms
+	 */
+	public int getLifeFormCount() {
+		return lifeFormCount;
+	}
+
+	/**
+	 * Getter for the unique ID of a life form
+	 * @param i The position of the life form
+	 * @return Returns the unique ID of the life form
+	 */
+	public int getId(int i) {
+		return ids[i];
+	}
+
+	/**
+	 * Getter for the species id of a life form
+	 * @param i The position of the life form
+	 * @return Returns the id of the species in the SpeciesRegistry
+	 */
+	public int getTypeId(int i) {
+		return typeIds[i];
+	}
+
+	/**
+	 * Getter for the x coordinate of a life form
+	 * @param i The position of the life form
+	 * @return Returns the x coordinate of the life form
+	 */
+	public int getX(int i) {
+		return xs[i];
+	}
+
+	/**
+	 * Getter for the y coordinate of a life form
+	 * @param i The position of the life form
+	 * @return Returns the y coordinate of the life form
+	 */
+	public int getY(int i) {
+		return ys[i];
+	}
+
+	/**
+	 * Getter for the energy of a life form
+	 * @param i The position of the life form
+	 * @return Returns the energy of the life form
+	 */
+	public int getEnergy(int i) {
+		return energies[i];
+	}
+
+	/**
+	 * Getter for the name of a life form
+	 * @param i The position of the life form
+	 * @return Returns the name of the life form, or null if i is not less
+	 *         than NAMED_LIFE_FORMS
+	 */
+	public String getName(int i) {
+		return i < NAMED_LIFE_FORMS ? names[i] : null;
+	}
+
+	/**
+	 * Getter for the number of food items
+	 * @return Returns the number of food items
+	 */
+	public int getFoodCount() {
+		return foodCount;
+	}
+
+	/**
+	 * Getter for the cell code of a food item
+	 * @param i The position of the food item
+	 * @return Returns the cell code of the food item
+	 */
+	public int getFoodCode(int i) {
+		return foodCodes[i];
+	}
+
+	/**
+	 * Getter for the x coordinate of a food item
+	 * @param i The position of the food item
+	 * @return Returns the x coordinate of the food item
+	 */
+	public int getFoodX(int i) {
+		return foodXs[i];
+	}
+
+	/**
+	 * Getter for the y coordinate of a food item
+	 * @param i The position of the food item
+	 * @return Returns the y coordinate of the food item
+	 */
+	public int getFoodY(int i) {
+		return foodYs[i];
+	}
+
+	/**
+	 * Getter for whether the snapshot holds every change since the previous
+	 * snapshot. If it does not, the whole map must be drawn from the
+	 * snapshot
+	 * @return Returns true if the changes were recorded
+	 */
+	public boolean hasChanges() {
+		return changesRecorded;
+	}
+
+	/**
+	 * Getter for the number of changes since the previous snapshot
+	 * @return Returns the number of changes
+	 */
+	public int getChangeCount() {
+		return changeCount;
+	}
+
+	/**
+	 * Getter for the type of a change
+	 * @param i The position of the change
+	 * @return Returns the type of the change
+	 */
+	public ChangeType getChangeType(int i) {
+		return TYPES[changeTypes[i]];
+	}
+
+	/**
+	 * Getter for the unique ID of the life form of a change
+	 * @param i The position of the change
+	 * @return Returns the unique ID of the life form, or -1 for a food item
+	 */
+	public int getChangeId(int i) {
+		return changeIds[i];
+	}
+
+	/**
+	 * Getter for the type id of the entity of a change
+	 * @param i The position of the change
+	 * @return Returns the species id or food cell code of the entity
+	 */
+	public int getChangeTypeId(int i) {
+		return changeTypeIds[i];
+	}
+
+	/**
+	 * Getter for the old x coordinate of a change
+	 * @param i The position of the change
+	 * @return Returns the x coordinate before the change
+	 */
+	public int getChangeOldX(int i) {
+		return changeOldXs[i];
+	}
+
+	/**
+	 * Getter for the old y coordinate of a change
+	 * @param i The position of the change
+	 * @return Returns the y coordinate before the change
+	 */
+	public int getChangeOldY(int i) {
+		return changeOldYs[i];
+	}
+
+	/**
+	 * Getter for the new x coordinate of a change
+	 * @param i The position of the change
+	 * @return Returns the x coordinate after the change
+	 */
+	public int getChangeNewX(int i) {
+		return changeNewXs[i];
+	}
+
+	/**
+	 * Getter for the new y coordinate of a change
+	 * @param i The position of the change
+	 * @return Returns the y coordinate after the change
+	 */
+	public int getChangeNewY(int i) {
+		return changeNewYs[i];
+	}
+}